@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+
+import org.xml.sax.SAXException;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.events.Event;
+import org.apache.fop.events.EventListener;
+
+/**
+ * Helpers shared by the benchmarks.
+ * <p>
+ * The FOP configuration can be given with the system property {@link #CONFIG_PROPERTY}. This is
+ * needed to measure the CJK and complex script documents with real fonts; without it, the base
+ * 14 fonts are used and missing glyphs are replaced.
+ */
+final class BenchmarkSupport {
+
+    /** System property pointing to an optional FOP configuration file. */
+    static final String CONFIG_PROPERTY = "fop.benchmarks.config";
+
+    private static final TransformerFactory TRANSFORMER_FACTORY = TransformerFactory.newInstance();
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Creates the FopFactory used by a benchmark.
+     * @return the FopFactory
+     * @throws IOException if the configuration cannot be read
+     * @throws SAXException if the configuration cannot be parsed
+     */
+    static FopFactory createFopFactory() throws IOException, SAXException {
+        String config = System.getProperty(CONFIG_PROPERTY);
+        if (config != null) {
+            return FopFactory.newInstance(new File(config));
+        }
+        return FopFactory.newInstance(new File(".").toURI());
+    }
+
+    /**
+     * Creates a user agent whose events are discarded so that logging doesn't distort the
+     * measurements (missing glyphs, hyphenation patterns etc.).
+     * @param fopFactory the FopFactory
+     * @return the user agent
+     */
+    static FOUserAgent createUserAgent(FopFactory fopFactory) {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.getEventBroadcaster().addEventListener(new EventListener() {
+            public void processEvent(Event event) {
+                //ignore
+            }
+        });
+        return userAgent;
+    }
+
+    /**
+     * Sends a document through an identity transformation.
+     * @param document the document
+     * @param result the result receiving the document
+     * @throws TransformerException if an error occurs
+     */
+    static void transform(byte[] document, Result result) throws TransformerException {
+        Source src = new StreamSource(new ByteArrayInputStream(document));
+        Transformer transformer = TRANSFORMER_FACTORY.newTransformer();
+        transformer.transform(src, result);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.fop.fo.Constants;
+import org.apache.fop.layoutmgr.BlockKnuthSequence;
+import org.apache.fop.layoutmgr.BreakingAlgorithm;
+import org.apache.fop.layoutmgr.KnuthBox;
+import org.apache.fop.layoutmgr.KnuthGlue;
+import org.apache.fop.layoutmgr.KnuthPenalty;
+import org.apache.fop.layoutmgr.KnuthSequence;
+
+/**
+ * Measures the total-fit breaking algorithm in isolation on a synthetic paragraph: boxes of
+ * varying width separated by stretchable glue, with a flagged penalty inside every fourth
+ * word as a hyphenation point.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BreakingAlgorithmBenchmark {
+
+    private static final int LINE_WIDTH = 400000;
+
+    @Param({ "200", "2000" })
+    private int words;
+
+    @Param({ "JUSTIFY", "START" })
+    private String alignment;
+
+    private KnuthSequence sequence;
+
+    /** Builds the Knuth sequence. */
+    @Setup
+    public void setUp() {
+        Random random = new Random(SyntheticDocuments.DEFAULT_SEED);
+        sequence = new BlockKnuthSequence();
+        for (int i = 0; i < words; i++) {
+            int width = 10000 + random.nextInt(50000);
+            if (i % 4 == 3) {
+                int first = width / 2;
+                sequence.add(new KnuthBox(first, null, false));
+                sequence.add(new KnuthPenalty(3000, 50, true, null, false));
+                sequence.add(new KnuthBox(width - first, null, false));
+            } else {
+                sequence.add(new KnuthBox(width, null, false));
+            }
+            if (i < words - 1) {
+                sequence.add(new KnuthGlue(3300, 1650, 1100, null, false));
+            }
+        }
+        sequence.add(new KnuthPenalty(0, KnuthPenalty.INFINITE, false, null, false));
+        sequence.add(new KnuthGlue(0, Integer.MAX_VALUE, 0, null, false));
+        sequence.add(new KnuthPenalty(0, -KnuthPenalty.INFINITE, false, null, false));
+    }
+
+    /**
+     * Breaks the paragraph into lines.
+     * @return the number of lines
+     */
+    @Benchmark
+    public int findBreakingPoints() {
+        int align = "JUSTIFY".equals(alignment) ? Constants.EN_JUSTIFY : Constants.EN_START;
+        LineCounter algorithm = new LineCounter(align);
+        algorithm.setConstantLineWidth(LINE_WIDTH);
+        return algorithm.findBreakingPoints(sequence, 1, true, BreakingAlgorithm.ALL_BREAKS);
+    }
+
+    /**
+     * Minimal breaking algorithm that doesn't record anything about the chosen breaks.
+     */
+    private static final class LineCounter extends BreakingAlgorithm {
+
+        LineCounter(int align) {
+            super(align, Constants.EN_START, true, true, 2);
+        }
+
+        @Override
+        public void updateData1(int total, double demerits) {
+            //nop
+        }
+
+        @Override
+        public void updateData2(KnuthNode bestActiveNode, KnuthSequence sequence, int total) {
+            //nop
+        }
+
+        @Override
+        protected int filterActiveNodes() {
+            //nop
+            return 0;
+        }
+    }
+}
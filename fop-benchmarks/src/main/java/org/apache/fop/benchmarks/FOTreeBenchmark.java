@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.transform.sax.SAXResult;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.benchmarks.SyntheticDocuments.Kind;
+import org.apache.fop.fo.FOEventHandler;
+
+/**
+ * Measures the FO tree stage: XML parsing, FO tree building, validation and property
+ * resolution. Layout is excluded by installing an FOEventHandler that ignores all events.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class FOTreeBenchmark {
+
+    @Param({ "TABLES", "PARAGRAPHS", "CJK", "COMPLEX_SCRIPTS" })
+    private Kind kind;
+
+    @Param({ "20" })
+    private int size;
+
+    private FopFactory fopFactory;
+
+    private byte[] document;
+
+    /**
+     * Generates the document.
+     * @throws Exception if an error occurs
+     */
+    @Setup
+    public void setUp() throws Exception {
+        fopFactory = BenchmarkSupport.createFopFactory();
+        document = SyntheticDocuments.createBytes(kind, size, SyntheticDocuments.DEFAULT_SEED);
+    }
+
+    /**
+     * Builds the FO tree.
+     * @return the user agent, to keep the FO tree from being optimized away
+     * @throws Exception if an error occurs
+     */
+    @Benchmark
+    public FOUserAgent buildFOTree() throws Exception {
+        FOUserAgent userAgent = BenchmarkSupport.createUserAgent(fopFactory);
+        userAgent.setFOEventHandlerOverride(new FOEventHandler(userAgent) {
+        });
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_PDF, userAgent);
+        BenchmarkSupport.transform(document, new SAXResult(fop.getDefaultHandler()));
+        return userAgent;
+    }
+}
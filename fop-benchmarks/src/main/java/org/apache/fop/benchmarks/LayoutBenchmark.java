@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.benchmarks;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.transform.sax.SAXResult;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.fop.apps.FOPException;
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.area.AreaTreeHandler;
+import org.apache.fop.area.AreaTreeModel;
+import org.apache.fop.benchmarks.SyntheticDocuments.Kind;
+
+/**
+ * Measures the FO tree and layout stages together: line breaking with text measurement and
+ * glyph mapping (TextLayoutManager), table layout and page breaking (PageBreakingAlgorithm).
+ * The pages are only collected in an {@link AreaTreeModel}, nothing is rendered. Subtracting
+ * the {@link FOTreeBenchmark} result for the same document gives the cost of the layout.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class LayoutBenchmark {
+
+    @Param({ "TABLES", "PARAGRAPHS", "CJK", "COMPLEX_SCRIPTS" })
+    private Kind kind;
+
+    @Param({ "20" })
+    private int size;
+
+    private FopFactory fopFactory;
+
+    private byte[] document;
+
+    /**
+     * Generates the document.
+     * @throws Exception if an error occurs
+     */
+    @Setup
+    public void setUp() throws Exception {
+        fopFactory = BenchmarkSupport.createFopFactory();
+        document = SyntheticDocuments.createBytes(kind, size, SyntheticDocuments.DEFAULT_SEED);
+    }
+
+    /**
+     * Lays out the document.
+     * @return the area tree model holding the pages
+     * @throws Exception if an error occurs
+     */
+    @Benchmark
+    public AreaTreeModel layout() throws Exception {
+        FOUserAgent userAgent = BenchmarkSupport.createUserAgent(fopFactory);
+        LayoutOnlyHandler handler = new LayoutOnlyHandler(userAgent);
+        userAgent.setFOEventHandlerOverride(handler);
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_PDF, userAgent);
+        BenchmarkSupport.transform(document, new SAXResult(fop.getDefaultHandler()));
+        return handler.getAreaTreeModel();
+    }
+
+    /**
+     * Area tree handler that sets up the fonts of the PDF output format but only collects
+     * the pages instead of rendering them.
+     */
+    private static final class LayoutOnlyHandler extends AreaTreeHandler {
+
+        LayoutOnlyHandler(FOUserAgent userAgent) throws FOPException {
+            super(userAgent, MimeConstants.MIME_PDF, null);
+        }
+
+        @Override
+        protected void setupModel(FOUserAgent userAgent, String outputFormat,
+                OutputStream stream) throws FOPException {
+            userAgent.getRendererFactory().createRenderer(userAgent, outputFormat)
+                    .setupFontInfo(fontInfo);
+            this.model = new AreaTreeModel();
+        }
+    }
+}
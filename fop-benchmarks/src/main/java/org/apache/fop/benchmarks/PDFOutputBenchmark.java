@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.benchmarks;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.fop.pdf.PDFDocument;
+import org.apache.fop.pdf.PDFFilterList;
+import org.apache.fop.pdf.PDFPage;
+import org.apache.fop.pdf.PDFReference;
+import org.apache.fop.pdf.PDFStream;
+
+/**
+ * Measures the serialization of a PDFDocument: content stream compression, object output
+ * and the cross-reference table. The document is rebuilt before each invocation since
+ * writing it consumes the object queue.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class PDFOutputBenchmark {
+
+    @Param({ "100", "1000" })
+    private int pages;
+
+    private PDFDocument pdfDoc;
+
+    /**
+     * Builds a document with text and vector graphics on every page.
+     * @throws IOException if an error occurs
+     */
+    @Setup(Level.Invocation)
+    public void setUp() throws IOException {
+        Random random = new Random(SyntheticDocuments.DEFAULT_SEED);
+        pdfDoc = new PDFDocument("benchmark");
+        for (int i = 0; i < pages; i++) {
+            PDFStream contents = pdfDoc.getFactory().makeStream(PDFFilterList.CONTENT_FILTER, true);
+            StringBuilder sb = new StringBuilder(8192);
+            for (int line = 0; line < 50; line++) {
+                sb.append("BT /F1 10 Tf 56 ").append(780 - line * 14).append(" Td (");
+                for (int c = 0; c < 80; c++) {
+                    sb.append((char) ('a' + random.nextInt(26)));
+                }
+                sb.append(") Tj ET\n");
+                sb.append(random.nextInt(500)).append(' ').append(random.nextInt(800))
+                        .append(" 20 10 re f\n");
+            }
+            contents.add(sb.toString());
+            PDFPage page = pdfDoc.getFactory().makePage(pdfDoc.getResources(), 595, 842, i);
+            page.setContents(new PDFReference(contents));
+            pdfDoc.addObject(page);
+        }
+    }
+
+    /**
+     * Writes the document.
+     * @throws IOException if an error occurs
+     */
+    @Benchmark
+    public void output() throws IOException {
+        NullOutputStream out = new NullOutputStream();
+        pdfDoc.outputHeader(out);
+        pdfDoc.output(out);
+        pdfDoc.outputTrailer(out);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.area.AreaTreeModel;
+import org.apache.fop.area.AreaTreeParser;
+import org.apache.fop.area.RenderPagesModel;
+import org.apache.fop.benchmarks.SyntheticDocuments.Kind;
+import org.apache.fop.fonts.FontInfo;
+import org.apache.fop.render.intermediate.IFDocumentHandler;
+import org.apache.fop.render.intermediate.IFParser;
+import org.apache.fop.render.intermediate.IFUtil;
+
+/**
+ * Measures the rendering stage to PDF, starting from a serialized area tree (which goes
+ * through the IFRenderer and the PDFPainter) and from the intermediate format (PDFPainter
+ * only). The full pipeline from XSL-FO to PDF is measured as a reference.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class RenderingBenchmark {
+
+    @Param({ "TABLES", "PARAGRAPHS" })
+    private Kind kind;
+
+    @Param({ "20" })
+    private int size;
+
+    private FopFactory fopFactory;
+
+    private byte[] document;
+
+    private byte[] areaTree;
+
+    private byte[] intermediateFormat;
+
+    /**
+     * Generates the document and its area tree and intermediate format representations.
+     * @throws Exception if an error occurs
+     */
+    @Setup
+    public void setUp() throws Exception {
+        fopFactory = BenchmarkSupport.createFopFactory();
+        document = SyntheticDocuments.createBytes(kind, size, SyntheticDocuments.DEFAULT_SEED);
+        areaTree = render(MimeConstants.MIME_FOP_AREA_TREE);
+        intermediateFormat = render(MimeConstants.MIME_FOP_IF);
+    }
+
+    private byte[] render(String outputFormat) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = fopFactory.newFop(outputFormat, BenchmarkSupport.createUserAgent(fopFactory), out);
+        BenchmarkSupport.transform(document, new SAXResult(fop.getDefaultHandler()));
+        return out.toByteArray();
+    }
+
+    /**
+     * Renders the XSL-FO document to PDF.
+     * @throws Exception if an error occurs
+     */
+    @Benchmark
+    public void foToPDF() throws Exception {
+        FOUserAgent userAgent = BenchmarkSupport.createUserAgent(fopFactory);
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_PDF, userAgent, new NullOutputStream());
+        BenchmarkSupport.transform(document, new SAXResult(fop.getDefaultHandler()));
+    }
+
+    /**
+     * Renders the area tree to PDF.
+     * @throws Exception if an error occurs
+     */
+    @Benchmark
+    public void areaTreeToPDF() throws Exception {
+        FOUserAgent userAgent = BenchmarkSupport.createUserAgent(fopFactory);
+        AreaTreeModel treeModel = new RenderPagesModel(userAgent, MimeConstants.MIME_PDF,
+                new FontInfo(), new NullOutputStream());
+        new AreaTreeParser().parse(new StreamSource(new ByteArrayInputStream(areaTree)),
+                treeModel, userAgent);
+        treeModel.endDocument();
+    }
+
+    /**
+     * Renders the intermediate format to PDF.
+     * @throws Exception if an error occurs
+     */
+    @Benchmark
+    public void intermediateFormatToPDF() throws Exception {
+        FOUserAgent userAgent = BenchmarkSupport.createUserAgent(fopFactory);
+        IFDocumentHandler documentHandler = userAgent.getRendererFactory().createDocumentHandler(
+                userAgent, MimeConstants.MIME_PDF);
+        documentHandler.setResult(new StreamResult(new NullOutputStream()));
+        IFUtil.setupFonts(documentHandler);
+        new IFParser().parse(new StreamSource(new ByteArrayInputStream(intermediateFormat)),
+                documentHandler, userAgent);
+    }
+}
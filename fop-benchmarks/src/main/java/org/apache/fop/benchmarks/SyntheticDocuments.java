@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.benchmarks;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Random;
+
+/**
+ * Generates reproducible synthetic XSL-FO documents for the benchmarks. The same kind, size
+ * and seed always produce the same document, so that results of different runs and of
+ * different revisions can be compared.
+ */
+public final class SyntheticDocuments {
+
+    /** The seed used by the benchmarks. */
+    public static final long DEFAULT_SEED = 20170401L;
+
+    /** The kinds of documents that can be generated. */
+    public enum Kind {
+        /** Tables with borders, spanning cells and numeric columns. */
+        TABLES,
+        /** Long justified and hyphenated paragraphs of Latin text. */
+        PARAGRAPHS,
+        /** Paragraphs of CJK ideographs. */
+        CJK,
+        /** Alternating paragraphs of Arabic and Devanagari text. */
+        COMPLEX_SCRIPTS
+    }
+
+    private static final String[] LATIN_WORDS = {
+        "lorem", "ipsum", "dolor", "sit", "amet", "consectetur", "adipiscing", "elit",
+        "sed", "do", "eiusmod", "tempor", "incididunt", "ut", "labore", "et", "dolore",
+        "magna", "aliqua", "enim", "ad", "minim", "veniam", "quis", "nostrud",
+        "exercitation", "ullamco", "laboris", "nisi", "aliquip", "ex", "ea", "commodo",
+        "consequat", "duis", "aute", "irure", "in", "reprehenderit", "voluptate", "velit",
+        "esse", "cillum", "fugiat", "nulla", "pariatur", "excepteur", "sint", "occaecat",
+        "cupidatat", "non", "proident", "sunt", "culpa", "qui", "officia", "deserunt",
+        "mollit", "anim", "id", "est", "laborum", "internationalization", "characteristically",
+        "incomprehensibilities", "electroencephalograph"
+    };
+
+    private static final String[] ARABIC_WORDS = {
+        "السلام", "عليكم",
+        "كتاب", "المدرسة",
+        "مكتبة", "العربية",
+        "بيت", "شمس", "قمر",
+        "محمد", "اللغة"
+    };
+
+    private static final String[] DEVANAGARI_WORDS = {
+        "नमस्ते", "हिन्दी",
+        "भारत", "किताब",
+        "विद्यालय", "सूर्य",
+        "चन्द्र", "प्रेम",
+        "क्षमा", "श्री"
+    };
+
+    private static final int CJK_FIRST = 0x4E00;
+    private static final int CJK_COUNT = 0x5000;
+
+    private SyntheticDocuments() {
+    }
+
+    /**
+     * Generates a document.
+     * @param kind the kind of document
+     * @param size the number of tables (of 50 rows) or paragraphs (of about 150 words)
+     * @param seed the seed for the pseudo-random content
+     * @return the XSL-FO document
+     */
+    public static String create(Kind kind, int size, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(size * 2048);
+        startDocument(sb);
+        for (int i = 0; i < size; i++) {
+            switch (kind) {
+            case TABLES:
+                appendTable(sb, random, 50, 5);
+                break;
+            case PARAGRAPHS:
+                appendParagraph(sb, random, 150);
+                break;
+            case CJK:
+                appendCJKParagraph(sb, random, 300);
+                break;
+            case COMPLEX_SCRIPTS:
+                appendComplexScriptParagraph(sb, random, 100, i % 2 == 0);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported kind: " + kind);
+            }
+        }
+        endDocument(sb);
+        return sb.toString();
+    }
+
+    /**
+     * Generates a document as UTF-8 encoded bytes.
+     * @param kind the kind of document
+     * @param size the number of tables or paragraphs
+     * @param seed the seed for the pseudo-random content
+     * @return the XSL-FO document
+     */
+    public static byte[] createBytes(Kind kind, int size, long seed) {
+        try {
+            return create(kind, size, seed).getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void startDocument(StringBuilder sb) {
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        sb.append("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">\n");
+        sb.append("<fo:layout-master-set>\n");
+        sb.append("<fo:simple-page-master master-name=\"A4\" page-height=\"29.7cm\"");
+        sb.append(" page-width=\"21cm\" margin=\"2cm\">\n");
+        sb.append("<fo:region-body margin-top=\"1cm\" margin-bottom=\"1cm\"/>\n");
+        sb.append("<fo:region-before extent=\"1cm\"/>\n");
+        sb.append("<fo:region-after extent=\"1cm\"/>\n");
+        sb.append("</fo:simple-page-master>\n");
+        sb.append("</fo:layout-master-set>\n");
+        sb.append("<fo:page-sequence master-reference=\"A4\">\n");
+        sb.append("<fo:static-content flow-name=\"xsl-region-before\">");
+        sb.append("<fo:block text-align=\"end\" font-size=\"8pt\">Synthetic document</fo:block>");
+        sb.append("</fo:static-content>\n");
+        sb.append("<fo:static-content flow-name=\"xsl-region-after\">");
+        sb.append("<fo:block text-align=\"center\" font-size=\"8pt\">");
+        sb.append("Page <fo:page-number/></fo:block>");
+        sb.append("</fo:static-content>\n");
+        sb.append("<fo:flow flow-name=\"xsl-region-body\" font-family=\"serif\" font-size=\"10pt\">\n");
+    }
+
+    private static void endDocument(StringBuilder sb) {
+        sb.append("</fo:flow>\n");
+        sb.append("</fo:page-sequence>\n");
+        sb.append("</fo:root>\n");
+    }
+
+    private static void appendTable(StringBuilder sb, Random random, int rows, int columns) {
+        sb.append("<fo:table table-layout=\"fixed\" width=\"100%\" border-collapse=\"separate\"");
+        sb.append(" space-after=\"12pt\">\n");
+        for (int c = 0; c < columns; c++) {
+            sb.append("<fo:table-column column-width=\"proportional-column-width(1)\"/>\n");
+        }
+        sb.append("<fo:table-header font-weight=\"bold\"><fo:table-row>");
+        for (int c = 0; c < columns; c++) {
+            sb.append("<fo:table-cell border=\"0.5pt solid black\" padding=\"2pt\">");
+            sb.append("<fo:block>Column ").append(c + 1).append("</fo:block></fo:table-cell>");
+        }
+        sb.append("</fo:table-row></fo:table-header>\n");
+        sb.append("<fo:table-body>\n");
+        for (int r = 0; r < rows; r++) {
+            sb.append("<fo:table-row>");
+            int c = 0;
+            while (c < columns) {
+                int span = (c < columns - 1 && random.nextInt(8) == 0) ? 2 : 1;
+                sb.append("<fo:table-cell border=\"0.5pt solid black\" padding=\"2pt\"");
+                if (span > 1) {
+                    sb.append(" number-columns-spanned=\"").append(span).append('"');
+                }
+                sb.append("><fo:block");
+                if (c == 0) {
+                    sb.append(">");
+                    appendWords(sb, random, 1 + random.nextInt(6));
+                } else {
+                    sb.append(" text-align=\"end\">");
+                    sb.append(random.nextInt(1000000) / 100.0);
+                }
+                sb.append("</fo:block></fo:table-cell>");
+                c += span;
+            }
+            sb.append("</fo:table-row>\n");
+        }
+        sb.append("</fo:table-body>\n");
+        sb.append("</fo:table>\n");
+    }
+
+    private static void appendParagraph(StringBuilder sb, Random random, int words) {
+        sb.append("<fo:block text-align=\"justify\" hyphenate=\"true\" language=\"en\"");
+        sb.append(" space-after=\"6pt\">");
+        appendWords(sb, random, words);
+        sb.append("</fo:block>\n");
+    }
+
+    private static void appendWords(StringBuilder sb, Random random, int words) {
+        for (int w = 0; w < words; w++) {
+            if (w > 0) {
+                sb.append(' ');
+            }
+            sb.append(LATIN_WORDS[random.nextInt(LATIN_WORDS.length)]);
+        }
+    }
+
+    private static void appendCJKParagraph(StringBuilder sb, Random random, int characters) {
+        sb.append("<fo:block language=\"zh\" space-after=\"6pt\">");
+        for (int i = 0; i < characters; i++) {
+            if (i > 0 && i % 40 == 0) {
+                sb.append('。');
+            }
+            sb.append((char) (CJK_FIRST + random.nextInt(CJK_COUNT)));
+        }
+        sb.append('。');
+        sb.append("</fo:block>\n");
+    }
+
+    private static void appendComplexScriptParagraph(StringBuilder sb, Random random, int words,
+            boolean arabic) {
+        String[] dictionary = arabic ? ARABIC_WORDS : DEVANAGARI_WORDS;
+        if (arabic) {
+            sb.append("<fo:block language=\"ar\" script=\"arab\"");
+        } else {
+            sb.append("<fo:block language=\"hi\" script=\"deva\"");
+        }
+        sb.append(" space-after=\"6pt\">");
+        for (int w = 0; w < words; w++) {
+            if (w > 0) {
+                sb.append(' ');
+            }
+            sb.append(dictionary[random.nextInt(dictionary.length)]);
+        }
+        sb.append("</fo:block>\n");
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts.truetype;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the subsetting of TrueType (glyf) and OpenType (CFF) fonts for embedding. It lives
+ * in this package to reach the subsetting entry point that takes an explicit glyph map.
+ * <p>
+ * The fonts are taken from FOP's test resources; the directory can be set with the system
+ * property {@link #FONTS_PROPERTY} when the benchmarks aren't started from the source tree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class FontSubsettingBenchmark {
+
+    /** System property pointing to the directory with the ttf/ and otf/ test fonts. */
+    public static final String FONTS_PROPERTY = "fop.benchmarks.fonts";
+
+    private static final String DEFAULT_FONTS_DIR = "fop/test/resources/fonts";
+
+    @Param({ "64", "256" })
+    private int glyphCount;
+
+    private FontFileReader ttfReader;
+
+    private String ttfHeader;
+
+    private FontFileReader otfReader;
+
+    private Map<Integer, Integer> glyphs;
+
+    /**
+     * Loads the fonts and builds the glyph map.
+     * @throws IOException if a font cannot be read
+     */
+    @Setup
+    public void setUp() throws IOException {
+        File fontsDir = new File(System.getProperty(FONTS_PROPERTY, DEFAULT_FONTS_DIR));
+        ttfReader = readFont(new File(fontsDir, "ttf/DejaVuLGCSerif.ttf"));
+        ttfHeader = OFFontLoader.readHeader(ttfReader);
+        otfReader = readFont(new File(fontsDir, "otf/SourceSansProBold.otf"));
+        glyphs = new java.util.HashMap<Integer, Integer>();
+        for (int i = 0; i < glyphCount; i++) {
+            glyphs.put(i, i);
+        }
+    }
+
+    private static FontFileReader readFont(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            return new FontFileReader(in);
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Subsets the TrueType font.
+     * @return the subset
+     * @throws IOException if an error occurs
+     */
+    @Benchmark
+    public byte[] subsetTrueType() throws IOException {
+        TTFSubSetFile subset = new TTFSubSetFile();
+        subset.readFont(ttfReader, "DejaVuLGCSerif", ttfHeader, glyphs);
+        return subset.getFontSubset();
+    }
+
+    /**
+     * Subsets the OpenType CFF font.
+     * @return the subset
+     * @throws IOException if an error occurs
+     */
+    @Benchmark
+    public byte[] subsetOpenTypeCFF() throws IOException {
+        OTFSubSetFile subset = new OTFSubSetFile();
+        subset.readFont(otfReader, "SourceSansProBold", null, glyphs);
+        return subset.getFontSubset();
+    }
+}
@@ -119,6 +119,10 @@ public class <xsl:value-of select="class-name"/> extends Base14Font {
         this.enableKerning = enableKerning;
     }
 
+    public Typeface newInstance() {
+        return new <xsl:value-of select="class-name"/>(enableKerning);
+    }
+
     public String getEncodingName() {
         return encoding;
     }
@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.afp;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.fop.afp.util.StringUtils;
+
+/**
+ * A cache of the encoded AFP resource objects (images, graphics, object containers, page
+ * segments and resources included from external files), shared by the documents produced with a
+ * {@link org.apache.fop.apps.FopFactory} when the AFP renderer is configured with
+ * {@code <shared-resources>true</shared-resources>}. A document including a resource which is in the
+ * cache writes the encoded structured fields again instead of loading, converting and encoding
+ * the resource. The cache is bounded by the total size of its entries; when it is full, the
+ * least recently used entries are dropped.
+ * <p>
+ * The resources are referenced by name from the pages, so the cache hands out the names of the
+ * resources it holds: they are unique among all the documents sharing the cache and don't
+ * collide with the names generated by {@link Factory} for a single document.
+ * <p>
+ * The resources are cached by URI, so {@link #clear()} should be called if they are changed
+ * at runtime.
+ * <p>
+ * This class is thread-safe.
+ * <p>
+ * Note: this class should not be considered as part of FOP's external API.
+ */
+public class AFPResourceCache {
+
+    /** The default maximum total size of the entries, in bytes */
+    public static final long DEFAULT_MAX_SIZE = 32L * 1024 * 1024;
+
+    private static final String NAME_PREFIX = "C";
+
+    private static final int NAME_NUMBER_LENGTH = 7;
+
+    private static final int NAME_NUMBER_LIMIT = 10000000;
+
+    private final long maxSize;
+
+    private final Map<String, Resource> entries = new LinkedHashMap<String, Resource>(16, 0.75f, true);
+
+    private long size;
+
+    private long hitCount;
+
+    private long missCount;
+
+    private int nameCount;
+
+    /**
+     * An encoded resource object.
+     */
+    public static final class Resource {
+
+        private final String name;
+
+        private final boolean pageSegment;
+
+        private final byte[] data;
+
+        /**
+         * Creates a resource object.
+         * @param name the name the resource object is included with
+         * @param pageSegment true if the resource object is a page segment
+         * @param data the encoded structured fields, which must not be modified once the
+         * resource object is in the cache
+         */
+        public Resource(String name, boolean pageSegment, byte[] data) {
+            this.name = name;
+            this.pageSegment = pageSegment;
+            this.data = data;
+        }
+
+        /** @return the name the resource object is included with */
+        public String getName() {
+            return name;
+        }
+
+        /** @return true if the resource object is a page segment */
+        public boolean isPageSegment() {
+            return pageSegment;
+        }
+
+        /** @return the encoded structured fields, which must not be modified */
+        public byte[] getData() {
+            return data;
+        }
+    }
+
+    /**
+     * Creates a cache holding at most {@link #DEFAULT_MAX_SIZE} bytes.
+     */
+    public AFPResourceCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a cache.
+     * @param maxSize the maximum total size of the entries, in bytes
+     */
+    public AFPResourceCache(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Creates a name for a resource object to be put in the cache. The name is 8 characters
+     * long and differs from the names of the other resources of the cache and from the names
+     * generated by {@link Factory}. Names are never handed out twice, since a document may
+     * still include a resource which has been dropped from the cache.
+     * @return the name, or null if all the names have been used, in which case the resource
+     * object must not be put in the cache
+     */
+    public synchronized String createName() {
+        if (nameCount == NAME_NUMBER_LIMIT - 1) {
+            return null;
+        }
+        nameCount++;
+        return NAME_PREFIX + StringUtils.lpad(String.valueOf(nameCount), '0', NAME_NUMBER_LENGTH);
+    }
+
+    /**
+     * Returns a resource object.
+     * @param key the key of the resource, built from its URI and from all the settings which
+     * have an effect on its encoding
+     * @return the resource, or null if it isn't in the cache
+     */
+    public synchronized Resource get(String key) {
+        Resource resource = entries.get(key);
+        if (resource == null) {
+            missCount++;
+        } else {
+            hitCount++;
+        }
+        return resource;
+    }
+
+    /**
+     * Stores a resource object.
+     * @param key the key of the resource
+     * @param resource the resource object
+     */
+    public synchronized void put(String key, Resource resource) {
+        if (resource.data.length > maxSize) {
+            return;
+        }
+        Resource previous = entries.put(key, resource);
+        if (previous != null) {
+            size -= previous.data.length;
+        }
+        size += resource.data.length;
+        Iterator<Resource> iter = entries.values().iterator();
+        while (size > maxSize) {
+            size -= iter.next().data.length;
+            iter.remove();
+        }
+    }
+
+    /** @return the number of resource objects in the cache */
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /** @return the total size of the resource objects in the cache, in bytes */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /** @return the number of lookups which found the resource object in the cache */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /** @return the number of lookups which didn't find the resource object in the cache */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Removes all the resource objects from the cache.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        size = 0;
+    }
+}
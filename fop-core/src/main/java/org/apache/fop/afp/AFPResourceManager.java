@@ -20,12 +20,14 @@
 package org.apache.fop.afp;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.logging.Log;
@@ -78,6 +80,21 @@ public class AFPResourceManager {
             = new java.util.HashMap<AFPResourceInfo, AbstractCachedObject>();
     private AFPResourceLevelDefaults resourceLevelDefaults = new AFPResourceLevelDefaults();
 
+    /** The cache of resource objects shared with other documents (may be null) */
+    private AFPResourceCache resourceCache;
+
+    /** The painting state, whose settings are part of the keys of the resource cache */
+    private AFPPaintingState paintingState;
+
+    /** The URIs made up for instream objects, which are only unique in this document */
+    private final Set<String> instreamObjectUris = new java.util.HashSet<String>();
+
+    /** The resource info of the last object which wasn't found in the resource cache */
+    private AFPResourceInfo resourceInfoNotInCache;
+
+    /** Counts the objects created and included, to detect those created while painting a graphic */
+    private int objectCount;
+
     /**
      * Main constructor
      *
@@ -99,6 +116,7 @@ public class AFPResourceManager {
      */
     public DataStream createDataStream(AFPPaintingState paintingState, OutputStream outputStream)
     throws IOException {
+        this.paintingState = paintingState;
         this.dataStream = streamer.createDataStream(paintingState);
         streamer.setOutputStream(outputStream);
         return this.dataStream;
@@ -132,6 +150,18 @@ public class AFPResourceManager {
         streamer.setDefaultResourceGroupUri(uri);
     }
 
+    /**
+     * Sets the cache of resource objects shared with other documents. The resource objects
+     * included at print-file, external, page-group or page level are then taken from the cache
+     * if they have been created by another document with the same settings, and put into the
+     * cache otherwise.
+     *
+     * @param resourceCache the resource cache, or null not to share the resource objects
+     */
+    public void setResourceCache(AFPResourceCache resourceCache) {
+        this.resourceCache = resourceCache;
+    }
+
     /**
      * Tries to create an include of a data object that has been previously added to the
      * AFP data stream. If no such object was available, the method returns false which serves
@@ -143,7 +173,90 @@ public class AFPResourceManager {
     public boolean tryIncludeObject(AFPDataObjectInfo dataObjectInfo) throws IOException {
         AFPResourceInfo resourceInfo = dataObjectInfo.getResourceInfo();
         updateResourceInfoUri(resourceInfo);
-        return includeCachedObject(resourceInfo, dataObjectInfo.getObjectAreaInfo());
+        return includeCachedObject(resourceInfo, dataObjectInfo.getObjectAreaInfo())
+                || includeObjectFromResourceCache(dataObjectInfo);
+    }
+
+    private boolean includeObjectFromResourceCache(AFPDataObjectInfo dataObjectInfo)
+            throws IOException {
+        AFPResourceInfo resourceInfo = dataObjectInfo.getResourceInfo();
+        if (resourceInfo == resourceInfoNotInCache) {
+            //looked up by the image handler before the object was created
+            return false;
+        }
+        String key = createResourceKey(dataObjectInfo);
+        if (key == null) {
+            return false;
+        }
+        AFPResourceCache.Resource resource = resourceCache.get(key);
+        if (resource == null) {
+            resourceInfoNotInCache = resourceInfo;
+            return false;
+        }
+        CachedResourceObject resourceObject = new CachedResourceObject(resource);
+        streamer.getResourceGroup(resourceInfo.getLevel()).addObject(resourceObject);
+        dataObjectInfo.setCreatePageSegment(resource.isPageSegment());
+        includeObject(resourceObject, dataObjectInfo);
+        return true;
+    }
+
+    /**
+     * Creates the key of a data object in the resource cache.
+     * @param dataObjectInfo the data object info
+     * @return the key, or null if the data object can't be shared with other documents
+     */
+    private String createResourceKey(AFPDataObjectInfo dataObjectInfo) {
+        AFPResourceInfo resourceInfo = dataObjectInfo.getResourceInfo();
+        AFPObjectAreaInfo areaInfo = dataObjectInfo.getObjectAreaInfo();
+        if (resourceCache == null || paintingState == null || areaInfo == null
+                || instreamObjectUris.contains(resourceInfo.getUri())
+                || streamer.getResourceGroup(resourceInfo.getLevel()) == null) {
+            return null;
+        }
+        if (dataObjectInfo instanceof AFPGraphicsObjectInfo) {
+            AFPGraphics2D g2d = ((AFPGraphicsObjectInfo) dataObjectInfo).getGraphics2D();
+            if (g2d == null || g2d.getFontInfo() != null) {
+                //text painted with AFP fonts needs the fonts to be mapped on the page
+                return null;
+            }
+        }
+        StringBuilder key = new StringBuilder(dataObjectInfo.getClass().getName());
+        key.append('\n').append(resourceInfo)
+                .append('\n').append(areaInfo.getWidth()).append(',').append(areaInfo.getHeight())
+                .append(',').append(areaInfo.getWidthRes()).append(',').append(areaInfo.getHeightRes())
+                .append(',').append(areaInfo.getRotation())
+                .append('\n').append(paintingState.getResolution())
+                .append(',').append(paintingState.getBitsPerPixel())
+                .append(',').append(paintingState.isColorImages())
+                .append(',').append(paintingState.isCMYKImagesSupported())
+                .append(',').append(paintingState.isNativeImagesSupported())
+                .append(',').append(paintingState.canEmbedJpeg())
+                .append(',').append(paintingState.getDitheringQuality())
+                .append(',').append(paintingState.getBitmapEncodingQuality())
+                .append(',').append(paintingState.getFS45())
+                .append(',').append(paintingState.getWrapPSeg())
+                .append(',').append(paintingState.getLineWidthCorrection())
+                .append(',').append(paintingState.isGOCAEnabled())
+                .append(',').append(paintingState.isStrokeGOCAText());
+        return key.toString();
+    }
+
+    /**
+     * Encodes a resource object and puts it into the resource cache.
+     * @param key the key of the resource object
+     * @param namedObj the resource object
+     * @param pageSegment true if the resource object is a page segment
+     * @return an object writing the encoded resource object
+     * @throws IOException if an I/O error occurs while encoding the resource object
+     */
+    private CachedResourceObject cacheResource(String key, AbstractNamedAFPObject namedObj,
+            boolean pageSegment) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        namedObj.writeToStream(out);
+        AFPResourceCache.Resource resource = new AFPResourceCache.Resource(
+                namedObj.getName(), pageSegment, out.toByteArray());
+        resourceCache.put(key, resource);
+        return new CachedResourceObject(resource);
     }
 
     /**
@@ -161,6 +274,9 @@ public class AFPResourceManager {
 
         AbstractNamedAFPObject namedObj = null;
         AFPResourceInfo resourceInfo = dataObjectInfo.getResourceInfo();
+        resourceInfoNotInCache = null;
+        String resourceKey = createResourceKey(dataObjectInfo);
+        int objectNumber = ++objectCount;
 
         boolean useInclude = true;
         Registry.ObjectType objectType = null;
@@ -186,10 +302,20 @@ public class AFPResourceManager {
         if (useInclude) {
             final boolean usePageSegment = dataObjectInfo.isCreatePageSegment();
 
+            // the object can be shared with other documents unless painting it created others
+            String cachedName = null;
+            if (resourceKey != null && objectNumber == objectCount) {
+                cachedName = resourceCache.createName();
+            }
+            if (cachedName != null) {
+                namedObj.setName(cachedName);
+            }
+
             // if it is to reside within a resource group at print-file or external level
             if (resourceLevel.isPrintFile() || resourceLevel.isExternal()) {
                 if (usePageSegment) {
-                    String pageSegmentName = "S10" + namedObj.getName().substring(3);
+                    String pageSegmentName = cachedName != null
+                            ? cachedName : "S10" + namedObj.getName().substring(3);
                     namedObj.setName(pageSegmentName);
                     PageSegment seg = new PageSegment(pageSegmentName);
                     seg.addObject(namedObj);
@@ -198,6 +324,13 @@ public class AFPResourceManager {
 
                 // wrap newly created data object in a resource object
                 namedObj = dataObjectFactory.createResource(namedObj, resourceInfo, objectType);
+                if (cachedName != null && resourceInfo.getName() == null) {
+                    namedObj.setName(cachedName);
+                }
+            }
+
+            if (cachedName != null) {
+                namedObj = cacheResource(resourceKey, namedObj, usePageSegment);
             }
 
             // add data object into its resource group destination
@@ -314,11 +447,13 @@ public class AFPResourceManager {
         if (uri.endsWith("/")) {
             uri += "#" + (++instreamObjectCount);
             resourceInfo.setUri(uri);
+            instreamObjectUris.add(uri);
         }
     }
 
     private void includeObject(AFPDataObjectInfo dataObjectInfo,
             String objectName) {
+        objectCount++;
         IncludeObject includeObject = dataObjectFactory.createInclude(objectName, dataObjectInfo);
         dataStream.getCurrentPage().addObject(includeObject);
     }
@@ -357,6 +492,7 @@ public class AFPResourceManager {
             String pageSegmentName) {
         int x = dataObjectInfo.getObjectAreaInfo().getX();
         int y = dataObjectInfo.getObjectAreaInfo().getY();
+        objectCount++;
         AbstractPageObject currentPage = dataStream.getCurrentPage();
         boolean createHardPageSegments = true;
         currentPage.createIncludePageSegment(pageSegmentName, x, y, createHardPageSegments);
@@ -406,14 +542,32 @@ public class AFPResourceManager {
             }
 
             ResourceGroup resourceGroup = streamer.getResourceGroup(resourceLevel);
-
-            if (truetype) {
+            objectCount++;
+
+            String key = createIncludedResourceKey(resourceName, uri, accessor,
+                    resourceObjectType + "," + truetype + "," + ttc);
+            AFPResourceCache.Resource resource = key != null ? resourceCache.get(key) : null;
+            if (resource != null) {
+                resourceGroup.addObject(new CachedResourceObject(resource));
+            } else if (truetype) {
                 ResourceObject res = factory.createResource();
                 res.setType(ResourceObject.TYPE_OBJECT_CONTAINER);
 
                 ActiveEnvironmentGroup.setupTruetypeMDR(res, false);
 
                 ObjectContainer oc = factory.createObjectContainer();
+                if (key != null) {
+                    //the font is included by its full name, the names of the objects only have
+                    //to differ from the names of the other objects of the documents
+                    String resourceObjectName = resourceCache.createName();
+                    String containerName = resourceObjectName != null ? resourceCache.createName() : null;
+                    if (containerName != null) {
+                        res.setName(resourceObjectName);
+                        oc.setName(containerName);
+                    } else {
+                        key = null;
+                    }
+                }
                 InputStream is = accessor.createInputStream(uri);
 
                 if (ttc != null) {
@@ -430,14 +584,15 @@ public class AFPResourceManager {
                         FullyQualifiedNameTriplet.FORMAT_CHARSTR, resourceName, true);
 
                 res.setDataObject(oc);
-                resourceGroup.addObject(res);
+                resourceGroup.addObject(key != null ? cacheResource(key, res, false) : res);
             } else {
                 ResourceObject resourceObject = factory.createResource(resourceName);
                 IncludedResourceObject resourceContent = new IncludedResourceObject(
                         resourceName, accessor, uri);
                 resourceObject.setDataObject(resourceContent);
                 resourceObject.setType(resourceObjectType);
-                resourceGroup.addObject(resourceObject);
+                resourceGroup.addObject(key != null
+                        ? cacheResource(key, resourceObject, false) : resourceObject);
             }
 
             //TODO what is the data object?
@@ -487,6 +642,10 @@ public class AFPResourceManager {
         AbstractCachedObject cachedObject = includeObjectCache.get(resourceInfo);
         if (cachedObject == null) {
             ResourceGroup resourceGroup = streamer.getResourceGroup(resourceLevel);
+            objectCount++;
+
+            String key = createIncludedResourceKey(resourceName, uri, accessor, "external");
+            AFPResourceCache.Resource resource = key != null ? resourceCache.get(key) : null;
 
             //resourceObject delegates write commands to copyNamedResource()
             //The included resource may already be wrapped in a resource object
@@ -511,12 +670,52 @@ public class AFPResourceManager {
                 @Override
                 protected void writeEnd(OutputStream os) throws IOException { }
             };
+            if (resource != null) {
+                resourceObject = new CachedResourceObject(resource);
+            } else if (key != null) {
+                resourceObject = cacheResource(key, resourceObject, false);
+            }
             resourceGroup.addObject(resourceObject);
             cachedObject = new CachedObject(resourceName, null);
             includeObjectCache.put(resourceInfo, cachedObject);
         }
     }
 
+    /**
+     * Creates the key of a resource loaded from a file in the resource cache.
+     * @param resourceName the name of the resource
+     * @param uri the URI of the resource
+     * @param accessor the resource accessor the resource is loaded with
+     * @param variant identifies the way the resource is loaded
+     * @return the key, or null if there is no resource cache
+     */
+    private String createIncludedResourceKey(String resourceName, URI uri,
+            AFPResourceAccessor accessor, String variant) {
+        if (resourceCache == null) {
+            return null;
+        }
+        return "included\n" + accessor.resolveURI(uri.toString()) + "\n" + resourceName
+                + "\n" + variant;
+    }
+
+    /**
+     * A resource object taken from the resource cache, whose structured fields are written as
+     * they were encoded by the first document using it.
+     */
+    private static final class CachedResourceObject extends AbstractNamedAFPObject {
+
+        private final byte[] data;
+
+        CachedResourceObject(AFPResourceCache.Resource resource) {
+            super(resource.getName());
+            this.data = resource.getData();
+        }
+
+        @Override
+        public void writeToStream(OutputStream os) throws IOException {
+            os.write(data);
+        }
+    }
 
     /**
      * Sets resource level defaults. The existing defaults over merged with the ones passed in
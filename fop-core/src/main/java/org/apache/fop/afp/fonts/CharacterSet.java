@@ -302,7 +302,7 @@ public class CharacterSet {
      *
      * @return characterSetOrentation The current orientation metrics.
      */
-    private CharacterSetOrientation getCharacterSetOrientation() {
+    CharacterSetOrientation getCharacterSetOrientation() {
         return characterSetOrientation;
     }
 
@@ -28,6 +28,8 @@ import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
@@ -35,8 +37,6 @@ import java.util.WeakHashMap;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import org.apache.xmlgraphics.image.loader.util.SoftMapCache;
-
 import org.apache.fop.afp.AFPConstants;
 import org.apache.fop.afp.AFPEventProducer;
 import org.apache.fop.afp.util.AFPResourceAccessor;
@@ -103,6 +103,9 @@ public abstract class CharacterSetBuilder {
     private static final byte[] FONT_INDEX_SF = new byte[] {
         (byte) 0xD3, (byte) 0x8C, (byte) 0x89 };
 
+    /** The maximum number of character metrics held by the cache of character sets. */
+    private static final int MAX_CACHED_CHARACTERS = 512 * 1024;
+
     /**
      * The collection of code pages
      */
@@ -110,9 +113,14 @@ public abstract class CharacterSetBuilder {
             = Collections.synchronizedMap(new WeakHashMap<String, Map<String, String>>());
 
     /**
-     * Cache of charactersets
+     * Cache of charactersets. The least recently used ones are dropped when the cache holds
+     * more than {@link #MAX_CACHED_CHARACTERS} character metrics.
      */
-    private final SoftMapCache characterSetsCache = new SoftMapCache(true);
+    private final Map<String, CachedCharacterSet> characterSetsCache
+            = new LinkedHashMap<String, CachedCharacterSet>(16, 0.75f, true);
+
+    /** The number of character metrics held by the cache of character sets */
+    private int cachedCharacterCount;
 
     /** Default constructor. */
     private CharacterSetBuilder() {
@@ -189,8 +197,28 @@ public abstract class CharacterSetBuilder {
      */
     public CharacterSet buildSBCS(String characterSetName, String codePageName, String encoding,
             AFPResourceAccessor accessor, AFPEventProducer eventProducer) throws IOException {
+        return buildSBCS(characterSetName, codePageName, encoding, accessor, eventProducer, null);
+    }
+
+    /**
+     * Load the font details and metrics into the CharacterSetMetric object, this will use the
+     * actual afp code page and character set files to load the object with the necessary metrics,
+     * unless they are found in the given metrics cache.
+     *
+     * @param characterSetName name of the characterset
+     * @param codePageName name of the code page file
+     * @param encoding encoding name
+     * @param accessor used to load codepage and characterset
+     * @param eventProducer for handling AFP related events
+     * @param metricsCache the persistent metrics cache (may be null)
+     * @return CharacterSet object
+     * @throws IOException if an I/O error occurs
+     */
+    public CharacterSet buildSBCS(String characterSetName, String codePageName, String encoding,
+            AFPResourceAccessor accessor, AFPEventProducer eventProducer,
+            CharacterSetMetricsCache metricsCache) throws IOException {
         return processFont(characterSetName, codePageName, encoding, CharacterSetType.SINGLE_BYTE,
-                accessor, eventProducer);
+                accessor, eventProducer, metricsCache);
     }
 
     /**
@@ -210,8 +238,31 @@ public abstract class CharacterSetBuilder {
     public CharacterSet buildDBCS(String characterSetName, String codePageName, String encoding,
             CharacterSetType charsetType, AFPResourceAccessor accessor, AFPEventProducer eventProducer)
             throws IOException {
+        return buildDBCS(characterSetName, codePageName, encoding, charsetType, accessor,
+                eventProducer, null);
+    }
+
+    /**
+     * Load the font details and metrics into the CharacterSetMetric object, this will use the
+     * actual afp code page and character set files to load the object with the necessary metrics,
+     * unless they are found in the given metrics cache.
+     * This method is to be used for double byte character sets (DBCS).
+     *
+     * @param characterSetName name of the characterset
+     * @param codePageName name of the code page file
+     * @param encoding encoding name
+     * @param charsetType the characterset type
+     * @param accessor used to load codepage and characterset
+     * @param eventProducer for handling AFP related events
+     * @param metricsCache the persistent metrics cache (may be null)
+     * @return CharacterSet object
+     * @throws IOException if an I/O error occurs
+     */
+    public CharacterSet buildDBCS(String characterSetName, String codePageName, String encoding,
+            CharacterSetType charsetType, AFPResourceAccessor accessor, AFPEventProducer eventProducer,
+            CharacterSetMetricsCache metricsCache) throws IOException {
         return processFont(characterSetName, codePageName, encoding, charsetType, accessor,
-                eventProducer);
+                eventProducer, metricsCache);
     }
 
     /**
@@ -239,16 +290,32 @@ public abstract class CharacterSetBuilder {
     }
 
     private CharacterSet processFont(String characterSetName, String codePageName, String encoding,
-            CharacterSetType charsetType, AFPResourceAccessor accessor, AFPEventProducer eventProducer)
-            throws IOException {
+            CharacterSetType charsetType, AFPResourceAccessor accessor, AFPEventProducer eventProducer,
+            CharacterSetMetricsCache metricsCache) throws IOException {
         // check for cached version of the characterset
         URI charSetURI = accessor.resolveURI(characterSetName);
         String cacheKey = charSetURI.toASCIIString() + "_" + characterSetName + "_" + codePageName;
-        CharacterSet characterSet = (CharacterSet) characterSetsCache.get(cacheKey);
+        CharacterSet characterSet = getCachedCharacterSet(cacheKey);
         if (characterSet != null) {
             return characterSet;
         }
 
+        // check for the metrics stored by a previous run
+        URI charSetFileURI = null;
+        URI codePageFileURI = null;
+        if (metricsCache != null) {
+            charSetFileURI = getAbsoluteURI(accessor, characterSetName);
+            codePageFileURI = getAbsoluteURI(accessor, codePageName);
+            if (charSetFileURI != null && codePageFileURI != null) {
+                characterSet = metricsCache.getCharacterSet(charSetFileURI, codePageFileURI,
+                        characterSetName, codePageName, encoding, charsetType, accessor, eventProducer);
+                if (characterSet != null) {
+                    cacheCharacterSet(cacheKey, characterSet);
+                    return characterSet;
+                }
+            }
+        }
+
         // characterset not in the cache, so recreating
         characterSet = new CharacterSet(codePageName, encoding, charsetType, characterSetName,
                 accessor, eventProducer);
@@ -313,10 +380,72 @@ public abstract class CharacterSetBuilder {
         } finally {
             closeInputStream(inputStream);
         }
-        characterSetsCache.put(cacheKey, characterSet);
+        if (charSetFileURI != null && codePageFileURI != null) {
+            metricsCache.putCharacterSet(charSetFileURI, codePageFileURI, encoding, charsetType,
+                    characterSet);
+        }
+        cacheCharacterSet(cacheKey, characterSet);
         return characterSet;
     }
 
+    /**
+     * Returns the absolute URI of a character set or code page file.
+     *
+     * @param accessor the resource accessor the file is loaded with
+     * @param uriStr the URI
+     * @return the absolute URI or null if the URI is invalid
+     */
+    private static URI getAbsoluteURI(AFPResourceAccessor accessor, String uriStr) {
+        if (uriStr == null) {
+            return null;
+        }
+        try {
+            return accessor.getAbsoluteURI(InternalResourceResolver.cleanURI(uriStr.trim()));
+        } catch (URISyntaxException e) {
+            return null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private CharacterSet getCachedCharacterSet(String cacheKey) {
+        synchronized (characterSetsCache) {
+            CachedCharacterSet cached = characterSetsCache.get(cacheKey);
+            return cached != null ? cached.characterSet : null;
+        }
+    }
+
+    private void cacheCharacterSet(String cacheKey, CharacterSet characterSet) {
+        CharacterSetOrientation cso = characterSet.getCharacterSetOrientation();
+        CachedCharacterSet cached = new CachedCharacterSet(characterSet,
+                cso != null ? cso.getCharacters().length : 0);
+        synchronized (characterSetsCache) {
+            CachedCharacterSet previous = characterSetsCache.put(cacheKey, cached);
+            if (previous != null) {
+                cachedCharacterCount -= previous.characterCount;
+            }
+            cachedCharacterCount += cached.characterCount;
+            Iterator<CachedCharacterSet> iter = characterSetsCache.values().iterator();
+            //the character set just added is kept even if it is larger than the cache
+            while (cachedCharacterCount > MAX_CACHED_CHARACTERS && characterSetsCache.size() > 1) {
+                cachedCharacterCount -= iter.next().characterCount;
+                iter.remove();
+            }
+        }
+    }
+
+    private static final class CachedCharacterSet {
+
+        private final CharacterSet characterSet;
+
+        private final int characterCount;
+
+        CachedCharacterSet(CharacterSet characterSet, int characterCount) {
+            this.characterSet = characterSet;
+            this.characterCount = characterCount;
+        }
+    }
+
     private static class ValueNormalizer {
 
         private final double factor;
@@ -0,0 +1,551 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.afp.fonts;
+
+import java.awt.Rectangle;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.apache.fop.afp.AFPEventProducer;
+import org.apache.fop.afp.util.AFPResourceAccessor;
+import org.apache.fop.apps.FOPException;
+import org.apache.fop.util.FileUtil;
+
+/**
+ * A persistent store for the metrics of AFP character sets (widths, character boxes,
+ * ascender, descender etc.), so that the FOCA character set and code page files don't have to
+ * be parsed again in every new JVM. The store is a binary file which is memory-mapped when it
+ * is opened; only its index is read up front, the metrics of a character set are decoded on
+ * first use.
+ * <p>
+ * The metrics are stored by Unicode character, that is with the code page mapping already
+ * applied, so an entry belongs to a character set, a code page and an encoding. Only character
+ * sets loaded from local files are stored. An entry is discarded when the last modification
+ * date or the size of the character set file or of the code page file change.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class CharacterSetMetricsCache {
+
+    /** The file extension of AFP metrics cache files. */
+    public static final String FILE_EXTENSION = ".afpmetrics";
+
+    /** logging instance */
+    private static Log log = LogFactory.getLog(CharacterSetMetricsCache.class);
+
+    /** "FOPA" */
+    private static final int MAGIC = 0x464F5041;
+
+    /** Increase this whenever the layout of the file changes. */
+    private static final int VERSION = 1;
+
+    private static final String ENCODING = "UTF-8";
+
+    /** The caches opened in this JVM, by file */
+    private static final Map<File, CharacterSetMetricsCache> INSTANCES
+            = new HashMap<File, CharacterSetMetricsCache>();
+
+    private final File cacheFile;
+
+    /** The mapped cache file, null if there is none */
+    private ByteBuffer mappedFile;
+
+    private final Map<String, Entry> entries = new HashMap<String, Entry>();
+
+    private boolean changed;
+
+    private CharacterSetMetricsCache(File cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    /**
+     * Returns the AFP metrics cache file that belongs to a font metrics cache file.
+     * @param metricsCacheFile the font metrics cache file
+     * @return the AFP metrics cache file in the same directory
+     */
+    public static File getMetricsCacheFile(File metricsCacheFile) {
+        String name = metricsCacheFile.getName();
+        int dot = name.lastIndexOf('.');
+        if (dot > 0) {
+            name = name.substring(0, dot);
+        }
+        return new File(metricsCacheFile.getParentFile(), name + FILE_EXTENSION);
+    }
+
+    /**
+     * Returns the metrics cache stored in the given file, which is opened the first time it is
+     * requested. Like the character sets held in memory by {@link CharacterSetBuilder}, the
+     * cache is shared by all the users of the file in the JVM.
+     * @param cacheFile the cache file
+     * @return the metrics cache
+     */
+    public static CharacterSetMetricsCache getInstance(File cacheFile) {
+        File file = cacheFile.getAbsoluteFile();
+        synchronized (INSTANCES) {
+            CharacterSetMetricsCache cache = INSTANCES.get(file);
+            if (cache == null) {
+                cache = loadFrom(file);
+                INSTANCES.put(file, cache);
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * Opens the metrics cache stored in the given file. If the file doesn't exist or cannot be
+     * read, an empty cache is returned which will be saved to that file.
+     * @param cacheFile the cache file
+     * @return the metrics cache
+     */
+    public static CharacterSetMetricsCache loadFrom(File cacheFile) {
+        CharacterSetMetricsCache cache = new CharacterSetMetricsCache(cacheFile);
+        if (cacheFile.exists()) {
+            try {
+                cache.open();
+            } catch (IOException ioe) {
+                log.warn("I/O exception while reading AFP metrics cache ("
+                        + ioe.getMessage() + "). Discarding AFP metrics cache file.");
+                cache.entries.clear();
+                cache.mappedFile = null;
+                if (!cacheFile.delete()) {
+                    log.warn("Failed to delete AFP metrics cache file: "
+                            + cacheFile.getAbsolutePath());
+                }
+            }
+        }
+        return cache;
+    }
+
+    private void open() throws IOException {
+        FileInputStream in = new FileInputStream(cacheFile);
+        ByteBuffer buffer;
+        try {
+            FileChannel channel = in.getChannel();
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("File too large");
+            }
+            //the mapping stays valid after the channel has been closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not an AFP metrics cache");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported version " + version);
+            }
+            int count = buffer.getInt();
+            Map<String, Entry> index = new HashMap<String, Entry>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String key = readString(buffer);
+                Entry entry = new Entry(buffer.getLong(), buffer.getLong(),
+                        buffer.getLong(), buffer.getLong());
+                entry.offset = buffer.getInt();
+                entry.length = buffer.getInt();
+                if (entry.offset < 0 || entry.length < 0
+                        || entry.offset > buffer.limit() - entry.length) {
+                    throw new IOException("Invalid entry: " + key);
+                }
+                index.put(key, entry);
+            }
+            entries.clear();
+            entries.putAll(index);
+            mappedFile = buffer;
+        } catch (RuntimeException re) {
+            //BufferUnderflowException etc.
+            throw new IOException("Corrupt AFP metrics cache: " + re);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Opened AFP metrics cache " + cacheFile + " with "
+                    + entries.size() + " entries");
+        }
+    }
+
+    /**
+     * Returns the AFP metrics cache file.
+     * @return the cache file
+     */
+    public File getCacheFile() {
+        return cacheFile;
+    }
+
+    /**
+     * Indicates whether the cache has been changed since it was opened or last saved.
+     * @return true if the cache needs saving
+     */
+    public synchronized boolean hasChanged() {
+        return changed;
+    }
+
+    /**
+     * Returns the number of character sets in the cache.
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Indicates whether a character set or code page file can be referenced by the cache.
+     * @param uri the absolute URI of the file
+     * @return true if it is a file the modification date of which can be checked
+     */
+    public static boolean isCacheable(URI uri) {
+        return uri != null && "file".equals(uri.getScheme()) && !uri.isOpaque()
+                && uri.getAuthority() == null && uri.getQuery() == null && uri.getFragment() == null;
+    }
+
+    private static String createKey(URI charSetURI, URI codePageURI, String encoding,
+            CharacterSetType charsetType) {
+        StringBuilder sb = new StringBuilder(charSetURI.toASCIIString());
+        sb.append('|').append(codePageURI.toASCIIString());
+        sb.append('|').append(encoding);
+        sb.append('|').append(charsetType.name());
+        return sb.toString();
+    }
+
+    /**
+     * Creates a character set from its cached metrics.
+     * @param charSetURI the absolute URI of the character set file
+     * @param codePageURI the absolute URI of the code page file
+     * @param characterSetName the name of the character set
+     * @param codePageName the name of the code page
+     * @param encoding the encoding of the code page
+     * @param charsetType the type of the character set
+     * @param accessor the resource accessor the character set was to be loaded with
+     * @param eventProducer for handling AFP related events
+     * @return the character set or null if it isn't in the cache or one of its files has changed
+     */
+    public CharacterSet getCharacterSet(URI charSetURI, URI codePageURI, String characterSetName,
+            String codePageName, String encoding, CharacterSetType charsetType,
+            AFPResourceAccessor accessor, AFPEventProducer eventProducer) {
+        if (!isCacheable(charSetURI) || !isCacheable(codePageURI)) {
+            return null;
+        }
+        String key = createKey(charSetURI, codePageURI, encoding, charsetType);
+        ByteBuffer data;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (!entry.isValid(new File(charSetURI), new File(codePageURI))) {
+                entries.remove(key);
+                changed = true;
+                return null;
+            }
+            data = entry.getData(mappedFile);
+        }
+        try {
+            CharacterSet characterSet = new CharacterSet(codePageName, encoding, charsetType,
+                    characterSetName, accessor, eventProducer);
+            decode(data, characterSet);
+            if (log.isDebugEnabled()) {
+                log.debug("AFP metrics for " + charSetURI + " taken from cache");
+            }
+            return characterSet;
+        } catch (RuntimeException re) {
+            log.warn("Corrupt cached AFP metrics for " + charSetURI + ": " + re.getMessage());
+            synchronized (this) {
+                entries.remove(key);
+                changed = true;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Stores the metrics of a character set. Character sets not loaded from local files are
+     * ignored.
+     * @param charSetURI the absolute URI of the character set file
+     * @param codePageURI the absolute URI of the code page file
+     * @param encoding the encoding of the code page
+     * @param charsetType the type of the character set
+     * @param characterSet the character set as loaded from its files
+     * @return true if the character set has been stored
+     */
+    public boolean putCharacterSet(URI charSetURI, URI codePageURI, String encoding,
+            CharacterSetType charsetType, CharacterSet characterSet) {
+        if (!isCacheable(charSetURI) || !isCacheable(codePageURI)) {
+            return false;
+        }
+        File charSetFile = new File(charSetURI);
+        File codePageFile = new File(codePageURI);
+        Entry entry = new Entry(charSetFile.lastModified(), charSetFile.length(),
+                codePageFile.lastModified(), codePageFile.length());
+        try {
+            entry.data = encode(characterSet);
+        } catch (IOException ioe) {
+            //Should never happen with an in-memory stream
+            log.warn("Cannot cache AFP metrics for " + charSetURI + ": " + ioe.getMessage());
+            return false;
+        }
+        synchronized (this) {
+            entries.put(createKey(charSetURI, codePageURI, encoding, charsetType), entry);
+            changed = true;
+        }
+        return true;
+    }
+
+    /**
+     * Writes the cache to its file if it has been changed. The new file is written next to the
+     * old one and then renamed onto it (see {@link FileUtil#replace(File, File)}), so the cache
+     * file can be shared by several processes.
+     * @throws FOPException if the cache cannot be written
+     */
+    public synchronized void save() throws FOPException {
+        if (!changed) {
+            return;
+        }
+        File dir = cacheFile.getAbsoluteFile().getParentFile();
+        File tempFile = null;
+        try {
+            if (dir != null && !dir.exists() && !dir.mkdirs()) {
+                throw new IOException("Cannot create directory " + dir);
+            }
+            tempFile = File.createTempFile("fop-afpmetrics", ".tmp", dir);
+            OutputStream out = new BufferedOutputStream(new FileOutputStream(tempFile));
+            try {
+                write(out);
+            } finally {
+                IOUtils.closeQuietly(out);
+            }
+            //the old file mustn't be mapped anymore when it is replaced
+            releaseMappedFile();
+            FileUtil.replace(tempFile, cacheFile);
+            tempFile = null;
+            changed = false;
+            open();
+            log.trace("AFP metrics cache file written.");
+        } catch (IOException ioe) {
+            throw new FOPException("Failed to write the AFP metrics cache file '"
+                    + cacheFile + "': " + ioe.getMessage(), ioe);
+        } finally {
+            if (tempFile != null && !tempFile.delete()) {
+                tempFile.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Copies the metrics still stored in the mapped file to memory and drops the mapping.
+     */
+    private void releaseMappedFile() {
+        if (mappedFile == null) {
+            return;
+        }
+        for (Entry entry : entries.values()) {
+            if (entry.data == null) {
+                ByteBuffer data = entry.getData(mappedFile);
+                entry.data = new byte[data.remaining()];
+                data.get(entry.data);
+            }
+        }
+        mappedFile = null;
+    }
+
+    private void write(OutputStream out) throws IOException {
+        Map<byte[], Entry> valid = new LinkedHashMap<byte[], Entry>();
+        int indexLength = 12;
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            Entry entry = e.getValue();
+            if (entry.data == null) {
+                String[] uris = e.getKey().split("\\|", 3);
+                if (!entry.isValid(new File(URI.create(uris[0])), new File(URI.create(uris[1])))) {
+                    continue;
+                }
+            }
+            byte[] key = e.getKey().getBytes(ENCODING);
+            valid.put(key, entry);
+            indexLength += 4 + key.length + 4 * 8 + 4 + 4;
+        }
+        DataOutputStream dout = new DataOutputStream(out);
+        dout.writeInt(MAGIC);
+        dout.writeInt(VERSION);
+        dout.writeInt(valid.size());
+        int offset = indexLength;
+        for (Map.Entry<byte[], Entry> e : valid.entrySet()) {
+            Entry entry = e.getValue();
+            dout.writeInt(e.getKey().length);
+            dout.write(e.getKey());
+            dout.writeLong(entry.charSetLastModified);
+            dout.writeLong(entry.charSetLength);
+            dout.writeLong(entry.codePageLastModified);
+            dout.writeLong(entry.codePageLength);
+            dout.writeInt(offset);
+            dout.writeInt(entry.getLength());
+            offset += entry.getLength();
+        }
+        for (Entry entry : valid.values()) {
+            if (entry.data != null) {
+                dout.write(entry.data);
+            } else {
+                ByteBuffer data = entry.getData(mappedFile);
+                byte[] buf = new byte[data.remaining()];
+                data.get(buf);
+                dout.write(buf);
+            }
+        }
+        dout.flush();
+    }
+
+    /**
+     * Deletes the cache file.
+     * @return true if the file has been deleted or didn't exist
+     */
+    public synchronized boolean delete() {
+        entries.clear();
+        mappedFile = null;
+        changed = false;
+        return !cacheFile.exists() || cacheFile.delete();
+    }
+
+    private static byte[] encode(CharacterSet characterSet) throws IOException {
+        ByteArrayOutputStream baout = new ByteArrayOutputStream(1024);
+        DataOutputStream out = new DataOutputStream(baout);
+        out.writeInt(characterSet.getNominalVerticalSize());
+        CharacterSetOrientation cso = characterSet.getCharacterSetOrientation();
+        out.writeBoolean(cso != null);
+        if (cso != null) {
+            out.writeInt(cso.getOrientation());
+            out.writeInt(cso.getSpaceIncrement());
+            out.writeInt(cso.getEmSpaceIncrement());
+            out.writeInt(cso.getNominalCharIncrement());
+            out.writeInt(cso.getAscender());
+            out.writeInt(cso.getDescender());
+            out.writeInt(cso.getCapHeight());
+            out.writeInt(cso.getXHeight());
+            out.writeInt(cso.getUnderscoreWidth());
+            out.writeInt(cso.getUnderscorePosition());
+            char[] characters = cso.getCharacters();
+            out.writeInt(characters.length);
+            for (char c : characters) {
+                //the metrics are stored unscaled
+                Rectangle box = cso.getCharacterBox(c, 1);
+                out.writeChar(c);
+                out.writeInt(cso.getWidth(c, 1));
+                out.writeInt(box.x);
+                out.writeInt(box.y);
+                out.writeInt(box.width);
+                out.writeInt(box.height);
+            }
+        }
+        out.flush();
+        return baout.toByteArray();
+    }
+
+    private static void decode(ByteBuffer in, CharacterSet characterSet) {
+        ByteBuffer data = in.duplicate();
+        characterSet.setNominalVerticalSize(data.getInt());
+        if (data.get() != 0) {
+            CharacterSetOrientation cso = new CharacterSetOrientation(data.getInt(),
+                    data.getInt(), data.getInt(), data.getInt());
+            cso.setAscender(data.getInt());
+            cso.setDescender(data.getInt());
+            cso.setCapHeight(data.getInt());
+            cso.setXHeight(data.getInt());
+            cso.setUnderscoreWidth(data.getInt());
+            cso.setUnderscorePosition(data.getInt());
+            int count = data.getInt();
+            for (int i = 0; i < count; i++) {
+                char c = data.getChar();
+                int width = data.getInt();
+                cso.setCharacterMetrics(c, width,
+                        new Rectangle(data.getInt(), data.getInt(), data.getInt(), data.getInt()));
+            }
+            characterSet.addCharacterSetOrientation(cso);
+        }
+    }
+
+    private static String readString(ByteBuffer in) throws UnsupportedEncodingException {
+        int length = in.getInt();
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, ENCODING);
+    }
+
+    /** A character set in the cache, either mapped from the cache file or newly added. */
+    private static final class Entry {
+
+        private final long charSetLastModified;
+
+        private final long charSetLength;
+
+        private final long codePageLastModified;
+
+        private final long codePageLength;
+
+        private int offset;
+
+        private int length;
+
+        /** The encoded metrics of a character set that isn't in the cache file yet */
+        private byte[] data;
+
+        Entry(long charSetLastModified, long charSetLength, long codePageLastModified,
+                long codePageLength) {
+            this.charSetLastModified = charSetLastModified;
+            this.charSetLength = charSetLength;
+            this.codePageLastModified = codePageLastModified;
+            this.codePageLength = codePageLength;
+        }
+
+        boolean isValid(File charSetFile, File codePageFile) {
+            return charSetFile.lastModified() == charSetLastModified
+                    && charSetFile.length() == charSetLength
+                    && codePageFile.lastModified() == codePageLastModified
+                    && codePageFile.length() == codePageLength;
+        }
+
+        int getLength() {
+            return data != null ? data.length : length;
+        }
+
+        ByteBuffer getData(ByteBuffer mappedFile) {
+            if (data != null) {
+                return ByteBuffer.wrap(data);
+            }
+            ByteBuffer buffer = mappedFile.duplicate();
+            buffer.position(offset);
+            buffer.limit(offset + length);
+            return buffer.slice();
+        }
+    }
+}
@@ -20,6 +20,7 @@
 package org.apache.fop.afp.fonts;
 
 import java.awt.Rectangle;
+import java.util.List;
 
 /**
  * The IBM Font Object Content Architecture (FOCA) supports presentation
@@ -157,6 +158,19 @@ public class CharacterSetOrientation {
         return orientation;
     }
 
+    /**
+     * Returns the characters which have metrics.
+     * @return the characters, in ascending order
+     */
+    char[] getCharacters() {
+        List<Integer> indices = characterMetrics.getIndices();
+        char[] characters = new char[indices.size()];
+        for (int i = 0; i < characters.length; i++) {
+            characters[i] = (char) indices.get(i).intValue();
+        }
+        return characters;
+    }
+
     /**
      * XHeight refers to the height of the lower case letters above
      * the baseline.
@@ -22,6 +22,7 @@ package org.apache.fop.afp.fonts;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -68,4 +69,23 @@ class IntegerKeyStore<T> {
         ArrayList<T> range = arrays.get(rangeKey);
         return range == null ? null : range.get(rangeIndex);
     }
+
+    /**
+     *
+     * @return the indices associated with a value, in ascending order
+     */
+    public List<Integer> getIndices() {
+        List<Integer> rangeKeys = new ArrayList<Integer>(arrays.keySet());
+        Collections.sort(rangeKeys);
+        List<Integer> indices = new ArrayList<Integer>();
+        for (Integer rangeKey : rangeKeys) {
+            ArrayList<T> range = arrays.get(rangeKey);
+            for (int i = 0; i < RANGE_SIZE; i++) {
+                if (range.get(i) != null) {
+                    indices.add((rangeKey << RANGE_BIT_SIZE) + i);
+                }
+            }
+        }
+        return indices;
+    }
 }
@@ -77,6 +77,17 @@ public abstract class AbstractResourceEnvironmentGroupContainer
         addObject(invokeMediumMap);
     }
 
+    /**
+     * {@inheritDoc}
+     * The medium maps and tag logical elements are complete as soon as they are created, so
+     * they don't hold back the pages which follow them until the end of this container.
+     */
+    @Override
+    protected boolean canWrite(AbstractAFPObject obj) {
+        return obj instanceof InvokeMediumMap || obj instanceof TagLogicalElement
+                || super.canWrite(obj);
+    }
+
     /** {@inheritDoc} */
     protected void writeContent(OutputStream os) throws IOException {
         super.writeContent(os);
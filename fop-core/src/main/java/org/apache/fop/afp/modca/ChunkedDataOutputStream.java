@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.afp.modca;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.fop.afp.util.BinaryUtils;
+
+/**
+ * An output stream which splits the data written to it into chunks of a maximum length, each
+ * preceded by a header carrying the length of the chunk (like the data structured fields of an
+ * object). The data is written to the underlying stream as soon as a chunk is full, so only one
+ * chunk is held in memory. {@link #finish()} must be called to write the last chunk.
+ */
+class ChunkedDataOutputStream extends OutputStream {
+
+    private final byte[] dataHeader;
+
+    private final int lengthOffset;
+
+    private final int headerLength;
+
+    private final byte[] chunk;
+
+    private int count;
+
+    private final OutputStream out;
+
+    /**
+     * @param dataHeader the header written before each chunk, whose length field is updated
+     * @param lengthOffset the offset of the two byte length field in the header
+     * @param maxChunkLength the maximum length of the data of a chunk
+     * @param out the stream to write the chunks to
+     */
+    ChunkedDataOutputStream(byte[] dataHeader, int lengthOffset, int maxChunkLength,
+            OutputStream out) {
+        this.dataHeader = dataHeader;
+        this.lengthOffset = lengthOffset;
+        int headerLen = dataHeader.length - lengthOffset;
+        // length field is just before data so do not include in data length
+        this.headerLength = headerLen == 2 ? 0 : headerLen;
+        this.chunk = new byte[maxChunkLength];
+        this.out = out;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(int b) throws IOException {
+        if (count == chunk.length) {
+            writeChunk(chunk, 0, count);
+            count = 0;
+        }
+        chunk[count++] = (byte) b;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (count == chunk.length) {
+                writeChunk(chunk, 0, count);
+                count = 0;
+            }
+            if (count == 0 && len >= chunk.length) {
+                // a full chunk is written without copying it
+                writeChunk(b, off, chunk.length);
+                off += chunk.length;
+                len -= chunk.length;
+            } else {
+                int n = Math.min(len, chunk.length - count);
+                System.arraycopy(b, off, chunk, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+    }
+
+    private void writeChunk(byte[] data, int off, int len) throws IOException {
+        byte[] length = BinaryUtils.convert(headerLength + len, 2);
+        dataHeader[lengthOffset] = length[0]; // Length byte 1
+        dataHeader[lengthOffset + 1] = length[1]; // Length byte 2
+        out.write(dataHeader);
+        out.write(data, off, len);
+    }
+
+    /**
+     * Writes the last chunk. The underlying stream isn't closed.
+     * @throws IOException if an I/O error occurs
+     */
+    public void finish() throws IOException {
+        if (count > 0) {
+            writeChunk(chunk, 0, count);
+            count = 0;
+        }
+    }
+}
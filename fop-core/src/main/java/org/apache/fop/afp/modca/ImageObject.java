@@ -19,7 +19,6 @@
 
 package org.apache.fop.afp.modca;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 
@@ -180,11 +179,11 @@ public class ImageObject extends AbstractDataObject {
             copySF(dataHeader, SF_CLASS, Type.DATA, Category.IMAGE);
             final int lengthOffset = 1;
 
-            // TODO save memory!
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            imageSegment.writeToStream(baos);
-            byte[] data = baos.toByteArray();
-            writeChunksToStream(data, dataHeader, lengthOffset, MAX_DATA_LEN, os);
+            // the image segment is split into data fields while it is written
+            ChunkedDataOutputStream out = new ChunkedDataOutputStream(
+                    dataHeader, lengthOffset, MAX_DATA_LEN, os);
+            imageSegment.writeToStream(out);
+            out.finish();
         }
     }
 
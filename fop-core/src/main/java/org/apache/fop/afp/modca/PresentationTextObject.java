@@ -19,12 +19,14 @@
 
 package org.apache.fop.afp.modca;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.util.List;
 
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+
 import org.apache.fop.afp.AFPLineDataInfo;
 import org.apache.fop.afp.AFPTextDataInfo;
 import org.apache.fop.afp.ptoca.LineDataInfoProducer;
@@ -110,14 +112,14 @@ public class PresentationTextObject extends AbstractNamedAFPObject {
     }
 
     private int getSize(PtocaProducer producer) throws IOException {
-        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        final CountingOutputStream cos = new CountingOutputStream(new NullOutputStream());
         PtocaBuilder pb = new PtocaBuilder() {
             protected OutputStream getOutputStreamForControlSequence(int length) {
-                return bos;
+                return cos;
             }
         };
         producer.produce(pb);
-        return bos.size();
+        return cos.getCount();
     }
 
     private class DefaultBuilder extends PtocaBuilder {
@@ -100,6 +100,16 @@ public final class AFPResourceAccessor {
         return uriResolver.resolveURI(uri);
     }
 
+    /**
+     * Returns the absolute URI a resource is loaded from by {@link #createInputStream(URI)}.
+     *
+     * @param uri the resource URI
+     * @return the absolute URI
+     */
+    public URI getAbsoluteURI(URI uri) {
+        return resourceResolver.resolveFromBase(uriResolver.resolveURI(uri));
+    }
+
     private interface URIResolver {
         URI resolveURI(URI uri);
 
@@ -46,6 +46,7 @@ import org.apache.fop.Version;
 import org.apache.fop.accessibility.Accessibility;
 import org.apache.fop.accessibility.DummyStructureTreeEventHandler;
 import org.apache.fop.accessibility.StructureTreeEventHandler;
+import org.apache.fop.afp.AFPResourceCache;
 import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.events.DefaultEventBroadcaster;
 import org.apache.fop.events.Event;
@@ -55,8 +56,12 @@ import org.apache.fop.events.FOPEventListenerProxy;
 import org.apache.fop.events.LoggingEventListener;
 import org.apache.fop.fo.ElementMappingRegistry;
 import org.apache.fop.fo.FOEventHandler;
+import org.apache.fop.fo.expr.PropertyExpressionCache;
 import org.apache.fop.fonts.FontManager;
+import org.apache.fop.fonts.FontSubsetCache;
+import org.apache.fop.hyphenation.HyphenationResultCache;
 import org.apache.fop.layoutmgr.LayoutManagerMaker;
+import org.apache.fop.render.ImageConversionCache;
 import org.apache.fop.render.ImageHandlerRegistry;
 import org.apache.fop.render.Renderer;
 import org.apache.fop.render.RendererConfig;
@@ -104,6 +109,8 @@ public class FOUserAgent {
     private FOEventHandler foEventHandlerOverride;
     private boolean locatorEnabled = true; // true by default (for error messages).
     private boolean conserveMemoryPolicy;
+    private int pageSequenceLayoutThreads = 1;
+    private int pageBreakingBeamWidth;
     private EventBroadcaster eventBroadcaster = new FOPEventBroadcaster();
     private StructureTreeEventHandler structureTreeEventHandler
             = DummyStructureTreeEventHandler.INSTANCE;
@@ -614,8 +621,11 @@ public class FOUserAgent {
             };
         }
 
-        /** {@inheritDoc} */
-        public void broadcastEvent(Event event) {
+        /**
+         * {@inheritDoc} Synchronized, as events may be broadcast by the threads laying out
+         * page-sequences concurrently.
+         */
+        public synchronized void broadcastEvent(Event event) {
             rootListener.processEvent(event);
         }
 
@@ -639,6 +649,56 @@ public class FOUserAgent {
         this.conserveMemoryPolicy = conserveMemoryPolicy;
     }
 
+    /**
+     * Returns the number of threads used to lay out page-sequences.
+     *
+     * @return the number of layout threads, 1 if page-sequences are laid out one after another
+     */
+    public int getPageSequenceLayoutThreads() {
+        return this.pageSequenceLayoutThreads;
+    }
+
+    /**
+     * Sets the number of threads used to lay out page-sequences. With more than one thread,
+     * page-sequences which have an explicit initial-page-number, use a simple-page-master and
+     * don't refer to IDs are laid out concurrently. Pages are still rendered in document order.
+     * Parallel layout is not available when accessibility is enabled.
+     *
+     * @param threads the number of layout threads
+     */
+    public void setPageSequenceLayoutThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of layout threads must be at least 1");
+        }
+        this.pageSequenceLayoutThreads = threads;
+    }
+
+    /**
+     * Returns the maximum number of active nodes per page the page breaking algorithm keeps.
+     *
+     * @return the beam width, 0 if the number of active nodes is not limited
+     */
+    public int getPageBreakingBeamWidth() {
+        return this.pageBreakingBeamWidth;
+    }
+
+    /**
+     * Limits the number of alternative page breaks the page breaking algorithm keeps for each
+     * page. Only the ones with the fewest demerits are kept, which bounds the time spent on
+     * very long flows at the cost of possibly less optimal page breaks. Pages whose breaks can
+     * no longer change are then laid out while the rest of the flow is still being broken, so
+     * they can be rendered early. 0 (the default) disables the limit, which gives a total-fit
+     * over the whole page-sequence.
+     *
+     * @param beamWidth the maximum number of active nodes per page, 0 for no limit
+     */
+    public void setPageBreakingBeamWidth(int beamWidth) {
+        if (beamWidth < 0) {
+            throw new IllegalArgumentException("The beam width must not be negative");
+        }
+        this.pageBreakingBeamWidth = beamWidth;
+    }
+
     /**
      * Check whether complex script features are enabled.
      *
@@ -801,6 +861,31 @@ public class FOUserAgent {
         return factory.getColorSpaceCache();
     }
 
+    /** @return the property expression cache */
+    public PropertyExpressionCache getPropertyExpressionCache() {
+        return factory.getPropertyExpressionCache();
+    }
+
+    /** @return the hyphenation result cache */
+    public HyphenationResultCache getHyphenationResultCache() {
+        return factory.getHyphenationResultCache();
+    }
+
+    /** @return the image conversion cache */
+    public ImageConversionCache getImageConversionCache() {
+        return factory.getImageConversionCache();
+    }
+
+    /** @return the font subset cache */
+    public FontSubsetCache getFontSubsetCache() {
+        return factory.getFontSubsetCache();
+    }
+
+    /** @return the AFP resource cache */
+    public AFPResourceCache getAFPResourceCache() {
+        return factory.getAFPResourceCache();
+    }
+
     /** @see FopFactory#getHyphenationPatternNames() */
     public Map<String, String> getHyphenationPatternNames() {
         return factory.getHyphenationPatternNames();
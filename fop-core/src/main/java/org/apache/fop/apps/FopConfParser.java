@@ -249,6 +249,28 @@ public class FopConfParser {
                     false));
         }
 
+        if (cfg.getChild("image-conversion-cache-size", false) != null) {
+            try {
+                fopFactoryBuilder.setImageConversionCacheSize(
+                        cfg.getChild("image-conversion-cache-size").getValueAsLong());
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(log, e, strict);
+            } catch (IllegalArgumentException e) {
+                LogUtil.handleException(log, e, strict);
+            }
+        }
+
+        if (cfg.getChild("font-subset-cache-size", false) != null) {
+            try {
+                fopFactoryBuilder.setFontSubsetCacheSize(
+                        cfg.getChild("font-subset-cache-size").getValueAsLong());
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(log, e, strict);
+            } catch (IllegalArgumentException e) {
+                LogUtil.handleException(log, e, strict);
+            }
+        }
+
         setHyphenationBase(cfg, resourceResolver, baseURI, fopFactoryBuilder);
         setHyphPatNames(cfg, fopFactoryBuilder, strict);
 
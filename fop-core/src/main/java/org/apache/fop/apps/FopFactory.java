@@ -39,12 +39,17 @@ import org.apache.xmlgraphics.image.loader.ImageManager;
 import org.apache.xmlgraphics.image.loader.impl.AbstractImageSessionContext.FallbackResolver;
 import org.apache.xmlgraphics.util.UnitConv;
 
+import org.apache.fop.afp.AFPResourceCache;
 import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.apps.io.ResourceResolverFactory;
 import org.apache.fop.fo.ElementMapping;
 import org.apache.fop.fo.ElementMappingRegistry;
+import org.apache.fop.fo.expr.PropertyExpressionCache;
 import org.apache.fop.fonts.FontManager;
+import org.apache.fop.fonts.FontSubsetCache;
+import org.apache.fop.hyphenation.HyphenationResultCache;
 import org.apache.fop.layoutmgr.LayoutManagerMaker;
+import org.apache.fop.render.ImageConversionCache;
 import org.apache.fop.render.ImageHandlerRegistry;
 import org.apache.fop.render.RendererConfig;
 import org.apache.fop.render.RendererConfig.RendererConfigParser;
@@ -82,6 +87,21 @@ public final class FopFactory implements ImageContext {
 
     private final ColorSpaceCache colorSpaceCache;
 
+    /** Cache of compiled property expressions */
+    private final PropertyExpressionCache propertyExpressionCache;
+
+    /** Cache of the hyphenation of words */
+    private final HyphenationResultCache hyphenationResultCache;
+
+    /** Cache of the images converted for the output formats */
+    private final ImageConversionCache imageConversionCache;
+
+    /** Cache of the embedded font subsets */
+    private final FontSubsetCache fontSubsetCache;
+
+    /** Cache of the encoded AFP resource objects */
+    private final AFPResourceCache afpResourceCache;
+
     private final FopFactoryConfig config;
 
     private final InternalResourceResolver resolver;
@@ -94,6 +114,13 @@ public final class FopFactory implements ImageContext {
                 config.getResourceResolver());
         this.elementMappingRegistry = new ElementMappingRegistry(this);
         this.colorSpaceCache = new ColorSpaceCache(resolver);
+        this.propertyExpressionCache = new PropertyExpressionCache();
+        this.hyphenationResultCache = new HyphenationResultCache();
+        this.imageConversionCache = config.getImageConversionCacheSize() > 0
+                ? new ImageConversionCache(config.getImageConversionCacheSize()) : null;
+        this.fontSubsetCache = config.getFontSubsetCacheSize() > 0
+                ? new FontSubsetCache(config.getFontSubsetCacheSize()) : null;
+        this.afpResourceCache = new AFPResourceCache();
         this.rendererFactory = new RendererFactory(config.preferRenderer());
         this.xmlHandlers = new XMLHandlerRegistry();
         this.imageHandlers = new ImageHandlerRegistry();
@@ -436,4 +463,54 @@ public final class FopFactory implements ImageContext {
     public ColorSpaceCache getColorSpaceCache() {
         return this.colorSpaceCache;
     }
+
+    /**
+     * Returns the cache of compiled property expressions for this instance.
+     * <p>
+     * Note: this method should not be considered as part of FOP's external API.
+     * @return the property expression cache
+     */
+    public PropertyExpressionCache getPropertyExpressionCache() {
+        return this.propertyExpressionCache;
+    }
+
+    /**
+     * Returns the cache of the hyphenation of words for this instance.
+     * <p>
+     * Note: this method should not be considered as part of FOP's external API.
+     * @return the hyphenation result cache
+     */
+    public HyphenationResultCache getHyphenationResultCache() {
+        return this.hyphenationResultCache;
+    }
+
+    /**
+     * Returns the cache of the images converted for the output formats for this instance.
+     * <p>
+     * Note: this method should not be considered as part of FOP's external API.
+     * @return the image conversion cache, or null if it is disabled
+     */
+    public ImageConversionCache getImageConversionCache() {
+        return this.imageConversionCache;
+    }
+
+    /**
+     * Returns the cache of the font subsets embedded in documents for this instance.
+     * <p>
+     * Note: this method should not be considered as part of FOP's external API.
+     * @return the font subset cache, or null if it is disabled
+     */
+    public FontSubsetCache getFontSubsetCache() {
+        return this.fontSubsetCache;
+    }
+
+    /**
+     * Returns the cache of the encoded AFP resource objects for this instance.
+     * <p>
+     * Note: this method should not be considered as part of FOP's external API.
+     * @return the AFP resource cache
+     */
+    public AFPResourceCache getAFPResourceCache() {
+        return this.afpResourceCache;
+    }
 }
@@ -323,6 +323,30 @@ public final class FopFactoryBuilder {
         return this;
     }
 
+    /**
+     * Sets the maximum total size of the images kept converted for the output formats, so that
+     * the documents produced with the {@link FopFactory} don't convert the same images again.
+     *
+     * @param size the maximum size in bytes, 0 to disable the cache
+     * @return <code>this</code>
+     */
+    public FopFactoryBuilder setImageConversionCacheSize(long size) {
+        fopFactoryConfigBuilder.setImageConversionCacheSize(size);
+        return this;
+    }
+
+    /**
+     * Sets the maximum total size of the font subsets kept for embedding, so that the documents
+     * produced with the {@link FopFactory} don't build the same subsets again.
+     *
+     * @param size the maximum size in bytes, 0 to disable the cache
+     * @return <code>this</code>
+     */
+    public FopFactoryBuilder setFontSubsetCacheSize(long size) {
+        fopFactoryConfigBuilder.setFontSubsetCacheSize(size);
+        return this;
+    }
+
     public static class FopFactoryConfigImpl implements FopFactoryConfig {
 
         private final EnvironmentProfile enviro;
@@ -362,6 +386,10 @@ public final class FopFactoryBuilder {
 
         private Map<String, String> hyphPatNames;
 
+        private long imageConversionCacheSize = FopFactoryConfig.DEFAULT_IMAGE_CONVERSION_CACHE_SIZE;
+
+        private long fontSubsetCacheSize = FopFactoryConfig.DEFAULT_FONT_SUBSET_CACHE_SIZE;
+
         private static final class ImageContextImpl implements ImageContext {
 
             private final FopFactoryConfig config;
@@ -478,6 +506,16 @@ public final class FopFactoryBuilder {
             return hyphPatNames;
         }
 
+        /** {@inheritDoc} */
+        public long getImageConversionCacheSize() {
+            return imageConversionCacheSize;
+        }
+
+        /** {@inheritDoc} */
+        public long getFontSubsetCacheSize() {
+            return fontSubsetCacheSize;
+        }
+
         public FallbackResolver getFallbackResolver() {
             return enviro.getFallbackResolver();
         }
@@ -518,6 +556,10 @@ public final class FopFactoryBuilder {
         void setComplexScriptFeaturesEnabled(boolean csf);
 
         void setHyphPatNames(Map<String, String> hyphPatNames);
+
+        void setImageConversionCacheSize(long size);
+
+        void setFontSubsetCacheSize(long size);
     }
 
     private static final class CompletedFopFactoryConfigBuilder implements FopFactoryConfigBuilder {
@@ -599,6 +641,14 @@ public final class FopFactoryBuilder {
             throwIllegalStateException();
         }
 
+        public void setImageConversionCacheSize(long size) {
+            throwIllegalStateException();
+        }
+
+        public void setFontSubsetCacheSize(long size) {
+            throwIllegalStateException();
+        }
+
     }
 
     private static final class ActiveFopFactoryConfigBuilder implements FopFactoryConfigBuilder {
@@ -679,6 +729,20 @@ public final class FopFactoryBuilder {
         public void setHyphPatNames(Map<String, String> hyphPatNames) {
             config.hyphPatNames = hyphPatNames;
         }
+
+        public void setImageConversionCacheSize(long size) {
+            if (size < 0) {
+                throw new IllegalArgumentException("The size of the image conversion cache must not be negative");
+            }
+            config.imageConversionCacheSize = size;
+        }
+
+        public void setFontSubsetCacheSize(long size) {
+            if (size < 0) {
+                throw new IllegalArgumentException("The size of the font subset cache must not be negative");
+            }
+            config.fontSubsetCacheSize = size;
+        }
     }
 
 }
@@ -62,6 +62,12 @@ public interface FopFactoryConfig {
     /** Defines the default target resolution (72dpi) for FOP */
     float DEFAULT_TARGET_RESOLUTION = 72.0f; //dpi
 
+    /** Defines the default maximum size of the image conversion cache (64MB) */
+    long DEFAULT_IMAGE_CONVERSION_CACHE_SIZE = 64L * 1024 * 1024;
+
+    /** Defines the default maximum size of the font subset cache (16MB) */
+    long DEFAULT_FONT_SUBSET_CACHE_SIZE = 16L * 1024 * 1024;
+
     /**
      * Whether accessibility features are switched on.
      *
@@ -163,6 +169,22 @@ public interface FopFactoryConfig {
 
     boolean isComplexScriptFeaturesEnabled();
 
+    /**
+     * Returns the maximum total size of the images kept converted for the output formats, shared
+     * by all the documents produced with the {@link FopFactory}.
+     *
+     * @return the maximum size of the image conversion cache in bytes, 0 if it is disabled
+     */
+    long getImageConversionCacheSize();
+
+    /**
+     * Returns the maximum total size of the font subsets kept for embedding, shared by all the
+     * documents produced with the {@link FopFactory}.
+     *
+     * @return the maximum size of the font subset cache in bytes, 0 if it is disabled
+     */
+    long getFontSubsetCacheSize();
+
     /** @return the hyphenation pattern names */
     Map<String, String> getHyphenationPatternNames();
 
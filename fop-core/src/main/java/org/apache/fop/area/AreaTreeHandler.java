@@ -87,6 +87,9 @@ public class AreaTreeHandler extends FOEventHandler {
 
     private TopLevelLayoutManager prevPageSeqLM;
 
+    // Lays out independent page-sequences concurrently (null if disabled)
+    private ParallelPageSequenceLayout parallelLayout;
+
     private int idGen;
 
     /**
@@ -116,6 +119,29 @@ public class AreaTreeHandler extends FOEventHandler {
         if (log.isDebugEnabled()) {
             statistics = new Statistics();
         }
+
+        int layoutThreads = userAgent.getPageSequenceLayoutThreads();
+        if (layoutThreads > 1 && !userAgent.isAccessibilityEnabled()) {
+            parallelLayout = new ParallelPageSequenceLayout(this, layoutThreads);
+            fontInfo.setConcurrentAccess(true);
+        }
+    }
+
+    /**
+     * Creates a handler that lays out a single page-sequence on behalf of another handler.
+     * It shares the fonts and the layout manager maker of its parent but has its own
+     * area tree model and ID tracker.
+     *
+     * @param parent the handler on whose behalf the page-sequence is laid out
+     * @param model the area tree model receiving the pages
+     */
+    AreaTreeHandler(AreaTreeHandler parent, AreaTreeModel model) {
+        super(parent.getUserAgent());
+        this.fontInfo = parent.fontInfo;
+        this.model = model;
+        this.lmMaker = parent.lmMaker;
+        this.idTracker = new IDTracker();
+        this.useComplexScriptFeatures = parent.useComplexScriptFeatures;
     }
 
     /**
@@ -236,7 +262,15 @@ public class AreaTreeHandler extends FOEventHandler {
             }
         }
 
-        finishPrevPageSequence(pageSequence.getInitialPageNumber());
+        Numeric initialPageNumber = pageSequence.getInitialPageNumber();
+        if (parallelLayout != null) {
+            parallelLayout.setNextInitialPageNumber(initialPageNumber);
+            if (initialPageNumber.getEnum() != 0) {
+                // auto numbering depends on the page count of all preceding page-sequences
+                parallelLayout.finishPending();
+            }
+        }
+        finishPrevPageSequence(initialPageNumber);
         pageSequence.initPageNumber();
     }
 
@@ -261,6 +295,13 @@ public class AreaTreeHandler extends FOEventHandler {
 
         // If no main flow, nothing to layout!
         if (pageSequence.getMainFlow() != null) {
+            if (parallelLayout != null) {
+                if (ParallelPageSequenceLayout.isIndependent(pageSequence)) {
+                    parallelLayout.submit(pageSequence);
+                    return;
+                }
+                parallelLayout.finishPending();
+            }
             PageSequenceLayoutManager pageSLM;
             pageSLM = getLayoutManagerMaker().makePageSequenceLayoutManager(
                     this, pageSequence);
@@ -284,6 +325,9 @@ public class AreaTreeHandler extends FOEventHandler {
             statistics.end();
         }
 
+        if (parallelLayout != null) {
+            parallelLayout.finishPending();
+        }
         ExternalDocumentLayoutManager edLM;
         edLM = getLayoutManagerMaker().makeExternalDocumentLayoutManager(this, document);
         edLM.activateLayout();
@@ -316,6 +360,13 @@ public class AreaTreeHandler extends FOEventHandler {
     @Override
     public void endDocument() throws SAXException {
 
+        if (parallelLayout != null) {
+            try {
+                parallelLayout.finishPending();
+            } finally {
+                parallelLayout.shutdown();
+            }
+        }
         finishPrevPageSequence(null);
         // process fox:destination elements
         if (rootFObj != null) {
@@ -346,6 +397,16 @@ public class AreaTreeHandler extends FOEventHandler {
         }
     }
 
+    /**
+     * Releases the layout threads when the document is aborted.
+     */
+    @Override
+    public void abortDocument() {
+        if (parallelLayout != null) {
+            parallelLayout.shutdown();
+        }
+    }
+
     /**
      * Add a OffDocumentItem to the area tree model. This checks if the
      * OffDocumentItem is resolvable and attempts to resolve or add the
@@ -382,7 +443,7 @@ public class AreaTreeHandler extends FOEventHandler {
      *
      * @return the generated key.
      */
-    public String generatePageViewportKey() {
+    public synchronized String generatePageViewportKey() {
         this.idGen++;
         return "P" + this.idGen;
     }
@@ -19,42 +19,29 @@
 
 package org.apache.fop.area;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
-import java.net.URI;
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Map;
 
 import org.xml.sax.SAXException;
 
-import org.apache.commons.io.IOUtils;
-
-import org.apache.xmlgraphics.io.TempResourceURIGenerator;
-
 import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.fonts.FontInfo;
 
 /**
  * A simple cached render pages model.
- * If the page is prepared for later rendering then this saves
- * the page contents to a file and once the page is resolved
- * the contents are reloaded.
+ * If the page is prepared for later rendering then this keeps
+ * a limited number of pages in memory and saves the contents of
+ * the others to temporary resources (see {@link PageSpillStore}).
+ * Once a page is resolved the contents are reloaded.
  */
 public class CachedRenderPagesModel extends RenderPagesModel {
 
-    private Map<PageViewport, URI> pageMap = new HashMap<PageViewport, URI>();
+    /** The number of prepared pages whose contents are kept in memory. */
+    private static final int MAX_RESIDENT_PAGES = 10;
 
-    /** Base directory to save temporary file in, typically points to the user's temp dir. */
-    private final URI tempBaseURI;
-    private static final TempResourceURIGenerator TEMP_URI_GENERATOR
-            = new TempResourceURIGenerator("cached-pages");
+    private final PageSpillStore pageStore;
 
     /**
      * Main Constructor
@@ -67,7 +54,7 @@ public class CachedRenderPagesModel extends RenderPagesModel {
     public CachedRenderPagesModel(FOUserAgent userAgent, String outputFormat,
             FontInfo fontInfo, OutputStream stream) throws FOPException {
         super(userAgent, outputFormat, fontInfo, stream);
-        tempBaseURI = TEMP_URI_GENERATOR.generate();
+        pageStore = new PageSpillStore(userAgent.getResourceResolver(), MAX_RESIDENT_PAGES);
     }
 
     /** {@inheritDoc} */
@@ -79,17 +66,7 @@ public class CachedRenderPagesModel extends RenderPagesModel {
                 if (pageViewport != newpage) {
                     try {
                         // load page from cache
-                        URI tempURI = pageMap.get(pageViewport);
-                        log.debug("Loading page from: " + tempURI);
-                        InputStream inStream = renderer.getUserAgent().getResourceResolver().getResource(tempURI);
-                        ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(inStream));
-                        try {
-                            pageViewport.loadPage(in);
-                        } finally {
-                            IOUtils.closeQuietly(inStream);
-                            IOUtils.closeQuietly(in);
-                        }
-                        pageMap.remove(pageViewport);
+                        pageStore.restore(pageViewport);
                     } catch (Exception e) {
                         AreaEventProducer eventProducer = AreaEventProducer.Provider.get(
                                 renderer.getUserAgent().getEventBroadcaster());
@@ -97,6 +74,10 @@ public class CachedRenderPagesModel extends RenderPagesModel {
                     }
                 }
 
+                if (!renderer.supportsOutOfOrder()
+                        && pageViewport.getPageSequence().isFirstPage(pageViewport)) {
+                    renderer.startPageSequence(pageViewport.getPageSequence());
+                }
                 renderPage(pageViewport);
                 pageViewport.clear();
                 iter.remove();
@@ -108,34 +89,19 @@ public class CachedRenderPagesModel extends RenderPagesModel {
         }
         if (newpage != null && newpage.getPage() != null) {
             savePage(newpage);
-            newpage.clear();
         }
         return renderer.supportsOutOfOrder() || prepared.isEmpty();
     }
 
     /**
      * Save a page.
-     * It saves the contents of the page to a file.
+     * It keeps the page in memory or saves its contents to a file.
      *
      * @param page the page to prepare
      */
     protected void savePage(PageViewport page) {
         try {
-            // save page to cache
-            ObjectOutputStream tempstream;
-            String fname = "fop-page-" + page.getPageIndex() + ".ser";
-            URI tempURI = tempBaseURI.resolve(fname);
-            OutputStream outStream = renderer.getUserAgent().getResourceResolver().getOutputStream(tempURI);
-            tempstream = new ObjectOutputStream(new BufferedOutputStream(outStream));
-            try {
-                page.savePage(tempstream);
-            } finally {
-                IOUtils.closeQuietly(tempstream);
-            }
-            pageMap.put(page, tempURI);
-            if (log.isDebugEnabled()) {
-                log.debug("Page saved to temporary file: " + tempURI);
-            }
+            pageStore.store(page);
         } catch (IOException ioe) {
             AreaEventProducer eventProducer
                 = AreaEventProducer.Provider.get(
@@ -147,7 +113,10 @@ public class CachedRenderPagesModel extends RenderPagesModel {
     /** {@inheritDoc} */
     @Override
     public void endDocument() throws SAXException {
-        super.endDocument();
+        try {
+            super.endDocument();
+        } finally {
+            pageStore.close();
+        }
     }
 }
-
@@ -239,6 +239,23 @@ public class IDTracker {
         todo.add(res);
     }
 
+    /**
+     * Takes over the ID locations and finished IDs of another tracker, as if the page viewports
+     * had been associated with this tracker. This is used to merge the result of a page-sequence
+     * that was laid out with its own tracker.
+     * @param other the tracker whose ID locations are taken over
+     */
+    void addIDLocations(IDTracker other) {
+        for (Map.Entry<String, List<PageViewport>> entry : other.idLocations.entrySet()) {
+            for (PageViewport pv : entry.getValue()) {
+                associateIDWithPageViewport(entry.getKey(), pv);
+            }
+        }
+        for (String id : other.alreadyResolvedIDs) {
+            signalIDProcessed(id);
+        }
+    }
+
     /**
      * Replace all id locations pointing to the old page view port with a new one. This is
      * necessary when a layouted page is replaced with a new one (e.g. last page handling).
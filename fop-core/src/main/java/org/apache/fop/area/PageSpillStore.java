@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.apache.xmlgraphics.io.TempResourceURIGenerator;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+
+/**
+ * Holds the contents of pages which cannot be rendered yet. A limited number of pages is kept
+ * in memory: when there are too many, the contents of the least recently used page (the one
+ * stored or read back the longest time ago) are written to a temporary resource and cleared.
+ * Since pages are rendered in the order in which they were stored, the pages spilled first are
+ * also the ones restored first.
+ * <p>
+ * The spilled pages are written one after the other to a segment, a temporary resource
+ * obtained from the resource resolver. The resources are streams, so a segment is read back
+ * sequentially: when a page is restored, the pages written before it in the same segment are
+ * restored too and kept in memory as the most recently used pages. A new segment is started
+ * once the current one is being read, and a segment is released as soon as all its pages have
+ * been restored.
+ * <p>
+ * Instances of this class are not thread-safe.
+ */
+final class PageSpillStore {
+
+    /** logging instance */
+    private static Log log = LogFactory.getLog(PageSpillStore.class);
+
+    private static final TempResourceURIGenerator TEMP_URI_GENERATOR
+            = new TempResourceURIGenerator("spilled-pages");
+
+    private final InternalResourceResolver resourceResolver;
+
+    private final int maxResidentPages;
+
+    /** The pages kept in memory, from the least to the most recently used one */
+    private final Map<PageViewport, Boolean> residentPages
+            = new LinkedHashMap<PageViewport, Boolean>(16, 0.75f, true);
+
+    private final Map<PageViewport, Segment> spilledPages = new HashMap<PageViewport, Segment>();
+
+    private final List<Segment> segments = new ArrayList<Segment>();
+
+    private Segment writeSegment;
+
+    /**
+     * Creates a new store.
+     * @param resourceResolver the resolver providing the temporary resources
+     * @param maxResidentPages the number of pages kept in memory before pages are spilled
+     */
+    PageSpillStore(InternalResourceResolver resourceResolver, int maxResidentPages) {
+        this.resourceResolver = resourceResolver;
+        this.maxResidentPages = maxResidentPages;
+    }
+
+    /**
+     * Stores a page which will be rendered later. The page is kept in memory as the most
+     * recently used page; if too many pages are kept in memory, the least recently used one is
+     * written to the current segment and cleared.
+     * @param page the page
+     * @throws IOException if a page cannot be written to the segment
+     */
+    void store(PageViewport page) throws IOException {
+        // looking the page up marks it as used
+        if (residentPages.get(page) != null || spilledPages.containsKey(page)) {
+            return;
+        }
+        residentPages.put(page, Boolean.TRUE);
+        spillLeastRecentlyUsedPages();
+    }
+
+    private void spillLeastRecentlyUsedPages() throws IOException {
+        Iterator<PageViewport> iter = residentPages.keySet().iterator();
+        while (residentPages.size() > maxResidentPages) {
+            PageViewport page = iter.next();
+            iter.remove();
+            spill(page);
+        }
+    }
+
+    private void spill(PageViewport page) throws IOException {
+        if (writeSegment == null) {
+            writeSegment = new Segment(TEMP_URI_GENERATOR.generate());
+            segments.add(writeSegment);
+        }
+        writeSegment.write(page);
+        spilledPages.put(page, writeSegment);
+        if (log.isDebugEnabled()) {
+            log.debug("Page " + page.getPageNumberString() + " spilled to " + writeSegment.uri);
+        }
+    }
+
+    /**
+     * Restores the contents of a page stored earlier and removes the page from the store.
+     * Nothing happens if the page hasn't been stored. If the pages read back along with it
+     * are too many to be kept in memory, the least recently used pages are spilled again.
+     * @param page the page
+     * @throws IOException if the page cannot be read from its segment or a page cannot be
+     * written to the current segment
+     * @throws ClassNotFoundException if a class was not found while loading the page
+     */
+    void restore(PageViewport page) throws IOException, ClassNotFoundException {
+        if (residentPages.remove(page) != null) {
+            return;
+        }
+        Segment segment = spilledPages.remove(page);
+        if (segment == null) {
+            return;
+        }
+        if (segment == writeSegment) {
+            writeSegment = null;
+        }
+        PageViewport next;
+        do {
+            next = segment.readNext();
+            if (next != page) {
+                spilledPages.remove(next);
+                residentPages.put(next, Boolean.TRUE);
+            }
+        } while (next != page);
+        if (segment.isEmpty()) {
+            segments.remove(segment);
+            segment.close();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Page " + page.getPageNumberString() + " restored");
+        }
+        spillLeastRecentlyUsedPages();
+    }
+
+    /** @return the number of pages whose contents are kept in memory */
+    int getResidentPageCount() {
+        return residentPages.size();
+    }
+
+    /** @return the number of pages whose contents have been written to a segment */
+    int getSpilledPageCount() {
+        return spilledPages.size();
+    }
+
+    /**
+     * Forgets all the stored pages and releases the segments which haven't been read entirely.
+     */
+    void close() {
+        residentPages.clear();
+        spilledPages.clear();
+        writeSegment = null;
+        for (Segment segment : segments) {
+            segment.close();
+        }
+        segments.clear();
+    }
+
+    /** A temporary resource holding spilled pages in the order they were written. */
+    private final class Segment {
+
+        private final URI uri;
+
+        private final LinkedList<PageViewport> pages = new LinkedList<PageViewport>();
+
+        private ObjectOutputStream out;
+
+        private ObjectInputStream in;
+
+        private boolean created;
+
+        Segment(URI uri) {
+            this.uri = uri;
+        }
+
+        void write(PageViewport page) throws IOException {
+            if (out == null) {
+                out = new ObjectOutputStream(new BufferedOutputStream(
+                        resourceResolver.getOutputStream(uri)));
+                created = true;
+            }
+            page.savePage(out);
+            // the written objects mustn't be kept alive by the stream
+            out.reset();
+            pages.add(page);
+        }
+
+        PageViewport readNext() throws IOException, ClassNotFoundException {
+            if (in == null) {
+                out.close();
+                out = null;
+                in = new ObjectInputStream(new BufferedInputStream(resourceResolver.getResource(uri)));
+            }
+            PageViewport page = pages.removeFirst();
+            page.loadPage(in);
+            return page;
+        }
+
+        boolean isEmpty() {
+            return pages.isEmpty();
+        }
+
+        /**
+         * Closes the streams of the segment. A temporary resource is deleted by the resolver
+         * when the stream it was read from is closed, so a segment which hasn't been read yet
+         * is opened to be deleted.
+         */
+        void close() {
+            IOUtils.closeQuietly(out);
+            out = null;
+            InputStream stream = in;
+            if (stream == null && created) {
+                try {
+                    stream = resourceResolver.getResource(uri);
+                } catch (IOException ioe) {
+                    log.debug("Could not release " + uri, ioe);
+                }
+            }
+            IOUtils.closeQuietly(stream);
+            in = null;
+        }
+    }
+}
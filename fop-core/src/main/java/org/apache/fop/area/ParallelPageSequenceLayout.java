@@ -0,0 +1,345 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.apache.fop.datatypes.Numeric;
+import org.apache.fop.fo.Constants;
+import org.apache.fop.fo.FONode;
+import org.apache.fop.fo.FONode.FONodeIterator;
+import org.apache.fop.fo.FObj;
+import org.apache.fop.fo.flow.AbstractPageNumberCitation;
+import org.apache.fop.fo.flow.BasicLink;
+import org.apache.fop.fo.flow.Marker;
+import org.apache.fop.fo.flow.RetrieveMarker;
+import org.apache.fop.fo.pagination.AbstractPageSequence;
+import org.apache.fop.fo.pagination.PageSequence;
+import org.apache.fop.layoutmgr.PageSequenceLayoutManager;
+
+/**
+ * Lays out independent page-sequences on a pool of worker threads.
+ * <p>
+ * A page-sequence is independent if its page numbering does not depend on the preceding
+ * page-sequences (explicit initial-page-number), if it doesn't share the state of a
+ * page-sequence-master with other page-sequences and if none of its content refers to IDs
+ * (page number citations, internal links, retrieve-markers with document boundary). Such a
+ * page-sequence is laid out against a private {@link AreaTreeHandler} which records the pages
+ * instead of rendering them. The recorded pages are handed to the real {@link AreaTreeModel}
+ * in document order: whenever a page-sequence is submitted, the laid out page-sequences at the
+ * head of the pending ones are finished, and before any dependent page-sequence is laid out,
+ * and at the end of the document, all pending page-sequences are waited for and finished. At
+ * most {@link #MAX_PENDING_PER_THREAD} page-sequences per thread are pending, so the recorded
+ * pages don't pile up when the FO tree is built faster than the page-sequences are laid out.
+ * <p>
+ * All methods except the layout itself are called on the thread that builds the FO tree.
+ * <p>
+ * The layouts share the fonts, the event broadcaster and the caches of the document, so
+ * these are thread-safe: the font lookups use concurrent maps and the fonts synchronize the
+ * changes of their state (see {@link org.apache.fop.fonts.FontInfo#setConcurrentAccess}), the
+ * event broadcaster and the warnings about missing glyphs are synchronized.
+ */
+final class ParallelPageSequenceLayout {
+
+    private static Log log = LogFactory.getLog(ParallelPageSequenceLayout.class);
+
+    private static final long THREAD_KEEP_ALIVE_SECONDS = 30;
+
+    /** The number of page-sequences per layout thread which may be pending at the same time */
+    static final int MAX_PENDING_PER_THREAD = 2;
+
+    private final AreaTreeHandler areaTreeHandler;
+
+    private final ExecutorService executor;
+
+    private final List<PendingPageSequence> pending = new java.util.LinkedList<PendingPageSequence>();
+
+    private final int maxPending;
+
+    /**
+     * Creates a new instance.
+     * @param areaTreeHandler the area tree handler receiving the pages
+     * @param threads the number of layout threads
+     */
+    ParallelPageSequenceLayout(AreaTreeHandler areaTreeHandler, int threads) {
+        this.areaTreeHandler = areaTreeHandler;
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads,
+                THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new LayoutThreadFactory());
+        //the threads end by themselves if the document is abandoned without being aborted
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+        this.maxPending = threads * MAX_PENDING_PER_THREAD;
+    }
+
+    /**
+     * Indicates whether the given page-sequence can be laid out independently of the
+     * page-sequences around it.
+     * @param pageSequence the page-sequence
+     * @return true if the page-sequence can be laid out concurrently
+     */
+    static boolean isIndependent(PageSequence pageSequence) {
+        if (pageSequence.getInitialPageNumber().getEnum() != 0) {
+            return false;
+        }
+        if (pageSequence.getRoot().getLayoutMasterSet().getPageSequenceMaster(
+                pageSequence.getMasterReference()) != null) {
+            return false;
+        }
+        return !refersToIDs(pageSequence);
+    }
+
+    private static boolean refersToIDs(FONode node) {
+        if (node instanceof AbstractPageNumberCitation) {
+            return true;
+        }
+        if (node instanceof BasicLink && ((BasicLink) node).hasInternalDestination()) {
+            return true;
+        }
+        if (node instanceof RetrieveMarker
+                && ((RetrieveMarker) node).getRetrieveBoundary() == Constants.EN_DOCUMENT) {
+            return true;
+        }
+        if (node instanceof FObj) {
+            Map<String, Marker> markers = ((FObj) node).getMarkers();
+            if (markers != null) {
+                for (Marker marker : markers.values()) {
+                    if (refersToIDs(marker)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        for (FONodeIterator it = node.getChildNodes(); it != null && it.hasNext();) {
+            if (refersToIDs(it.next())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Starts the layout of an independent page-sequence on a worker thread. The page-sequences
+     * which have been laid out in the meantime are handed to the area tree model. If too many
+     * page-sequences are pending, the first one is waited for.
+     * @param pageSequence the page-sequence
+     */
+    void submit(PageSequence pageSequence) {
+        while (pending.size() >= maxPending) {
+            finishNext();
+        }
+        PageRecorder recorder = new PageRecorder();
+        PageSequenceHandler handler = new PageSequenceHandler(areaTreeHandler, recorder);
+        final PageSequenceLayoutManager pageSLM = handler.getLayoutManagerMaker()
+                .makePageSequenceLayoutManager(handler, pageSequence);
+        Future<?> future = executor.submit(new Runnable() {
+            public void run() {
+                pageSLM.activateLayout();
+            }
+        });
+        pending.add(new PendingPageSequence(pageSLM, handler, recorder, future));
+        if (log.isDebugEnabled()) {
+            log.debug("Submitted page-sequence for parallel layout (" + pending.size() + " pending)");
+        }
+        finishCompleted();
+    }
+
+    /**
+     * Records the initial-page-number of the page-sequence following the last pending one. It
+     * is needed to apply force-page-count="auto" to the pending page-sequence.
+     * @param initialPageNumber the initial-page-number of the next page-sequence
+     */
+    void setNextInitialPageNumber(Numeric initialPageNumber) {
+        if (!pending.isEmpty()) {
+            PendingPageSequence last = pending.get(pending.size() - 1);
+            if (!last.nextInitialPageNumberKnown) {
+                last.nextInitialPageNumber = initialPageNumber;
+                last.nextInitialPageNumberKnown = true;
+            }
+        }
+    }
+
+    /**
+     * Waits for all pending page-sequences and hands their pages to the area tree model in
+     * document order.
+     */
+    void finishPending() {
+        while (!pending.isEmpty()) {
+            finishNext();
+        }
+    }
+
+    /**
+     * Hands the pages of the pending page-sequences which have been laid out to the area tree
+     * model, as long as no page-sequence before them is still being laid out. The last pending
+     * page-sequence is only finished once the initial-page-number of the next one is known.
+     */
+    private void finishCompleted() {
+        while (!pending.isEmpty()) {
+            PendingPageSequence next = pending.get(0);
+            if (!next.future.isDone() || !next.nextInitialPageNumberKnown) {
+                break;
+            }
+            finishNext();
+        }
+    }
+
+    /**
+     * Waits for the first pending page-sequence and hands its pages to the area tree model.
+     */
+    private void finishNext() {
+        PendingPageSequence next = pending.remove(0);
+        next.awaitLayout();
+        next.pageSLM.doForcePageCount(next.nextInitialPageNumber);
+        next.pageSLM.finishPageSequence();
+        areaTreeHandler.getIDTracker().addIDLocations(next.handler.getIDTracker());
+        AreaTreeModel model = areaTreeHandler.getAreaTreeModel();
+        model.startPageSequence(next.recorder.pageSequence);
+        for (PageViewport pageViewport : next.recorder.pages) {
+            model.addPage(pageViewport);
+        }
+    }
+
+    /**
+     * Releases the worker threads. The layouts which haven't been started yet are cancelled.
+     */
+    void shutdown() {
+        executor.shutdownNow();
+        pending.clear();
+    }
+
+    private static final class PendingPageSequence {
+
+        private final PageSequenceLayoutManager pageSLM;
+        private final PageSequenceHandler handler;
+        private final PageRecorder recorder;
+        private final Future<?> future;
+        private Numeric nextInitialPageNumber;
+        private boolean nextInitialPageNumberKnown;
+
+        PendingPageSequence(PageSequenceLayoutManager pageSLM, PageSequenceHandler handler,
+                PageRecorder recorder, Future<?> future) {
+            this.pageSLM = pageSLM;
+            this.handler = handler;
+            this.recorder = recorder;
+            this.future = future;
+        }
+
+        void awaitLayout() {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for page-sequence layout");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                } else {
+                    throw new RuntimeException(cause);
+                }
+            }
+        }
+    }
+
+    /**
+     * Area tree handler used for the layout of a single page-sequence on a worker thread.
+     */
+    private static final class PageSequenceHandler extends AreaTreeHandler {
+
+        private final AreaTreeHandler parent;
+
+        PageSequenceHandler(AreaTreeHandler parent, AreaTreeModel model) {
+            super(parent, model);
+            this.parent = parent;
+        }
+
+        @Override
+        public String generatePageViewportKey() {
+            return parent.generatePageViewportKey();
+        }
+
+        @Override
+        public void notifyPageSequenceFinished(AbstractPageSequence pageSequence, int pageCount) {
+            parent.notifyPageSequenceFinished(pageSequence, pageCount);
+        }
+    }
+
+    /**
+     * Area tree model that only records the pages of a single page-sequence.
+     */
+    private static final class PageRecorder extends AreaTreeModel {
+
+        private org.apache.fop.area.PageSequence pageSequence;
+
+        private final List<PageViewport> pages = new java.util.ArrayList<PageViewport>();
+
+        @Override
+        public void startPageSequence(org.apache.fop.area.PageSequence pageSequence) {
+            this.pageSequence = pageSequence;
+            this.currentPageSequence = pageSequence;
+        }
+
+        @Override
+        public void addPage(PageViewport page) {
+            pages.add(page);
+        }
+
+        @Override
+        public int getPageSequenceCount() {
+            return 1;
+        }
+
+        @Override
+        public int getPageCount(int seq) {
+            return pages.size();
+        }
+
+        @Override
+        public PageViewport getPage(int seq, int count) {
+            return pages.get(count);
+        }
+    }
+
+    private static final class LayoutThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "fop-layout-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
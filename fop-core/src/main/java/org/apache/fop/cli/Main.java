@@ -31,6 +31,7 @@ import java.util.List;
 
 import org.apache.commons.io.IOUtils;
 
+import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.apps.MimeConstants;
 
@@ -149,6 +150,18 @@ public final class Main {
         }
     }
 
+    /**
+     * Persists the font metrics loaded during the run, so the next run doesn't have to parse
+     * the font files again.
+     */
+    private static void saveFontCache(FOUserAgent foUserAgent, CommandLineOptions options) {
+        try {
+            foUserAgent.getFontManager().saveCache();
+        } catch (FOPException fe) {
+            options.getLogger().warn(fe.getMessage());
+        }
+    }
+
     /**
      * Executes FOP with the given arguments. If no argument is provided, returns its
      * version number as well as a short usage statement; if '-v' is provided, returns its
@@ -190,6 +203,7 @@ public final class Main {
             } finally {
                 IOUtils.closeQuietly(out);
             }
+            saveFontCache(foUserAgent, options);
 
             // System.exit(0) called to close AWT/SVG-created threads, if any.
             // AWTRenderer closes with window shutdown, so exit() should not
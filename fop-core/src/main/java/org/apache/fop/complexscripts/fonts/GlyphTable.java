@@ -21,7 +21,6 @@ package org.apache.fop.complexscripts.fonts;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -29,6 +28,8 @@ import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -69,8 +70,8 @@ public class GlyphTable {
     // map from lookup identifiers to lookup tables
     private Map<String, LookupTable> lookupTables;
 
-    // cache for lookups matching
-    private Map<LookupSpec, Map<LookupSpec, List<LookupTable>>> matchedLookups;
+    // cache for lookups matching (concurrent, as tables are shared by the threads laying out a document)
+    private ConcurrentMap<LookupSpec, Map<LookupSpec, List<LookupTable>>> matchedLookups;
 
     // if true, then prevent further subtable addition
     private boolean frozen;
@@ -93,7 +94,7 @@ public class GlyphTable {
             this.gdef = gdef;
             this.lookups = lookups;
             this.lookupTables = new LinkedHashMap<String, LookupTable>();
-            this.matchedLookups = new HashMap<LookupSpec, Map<LookupSpec, List<LookupTable>>>();
+            this.matchedLookups = new ConcurrentHashMap<LookupSpec, Map<LookupSpec, List<LookupTable>>>();
         }
     }
 
@@ -225,7 +226,10 @@ public class GlyphTable {
                 LookupSpec ls = (LookupSpec) aLsl;
                 lm.put(ls, findLookupTables(ls));
             }
-            matchedLookups.put(lsm, lm);
+            Map<LookupSpec, List<LookupTable>> lmPrev = matchedLookups.putIfAbsent(lsm, lm);
+            if (lmPrev != null) {
+                lm = lmPrev;
+            }
         }
         if (lm.isEmpty() && !OTFScript.isDefault(script) && !OTFScript.isWildCard(script)) {
             return matchLookups(OTFScript.DEFAULT, OTFLanguage.DEFAULT, feature);
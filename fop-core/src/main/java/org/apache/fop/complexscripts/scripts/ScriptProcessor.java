@@ -20,9 +20,9 @@
 package org.apache.fop.complexscripts.scripts;
 
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.fop.complexscripts.fonts.GlyphDefinitionTable;
 import org.apache.fop.complexscripts.fonts.GlyphPositioningTable;
@@ -55,7 +55,8 @@ public abstract class ScriptProcessor {
             throw new IllegalArgumentException("script must be non-empty string");
         } else {
             this.script = script;
-            this.assembledLookups = new HashMap<AssembledLookupsKey, GlyphTable.UseSpec[]>();
+            //concurrent, as script processors are shared by the threads laying out a document
+            this.assembledLookups = new ConcurrentHashMap<AssembledLookupsKey, GlyphTable.UseSpec[]>();
         }
     }
 
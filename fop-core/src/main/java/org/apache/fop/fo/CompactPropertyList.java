@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fo;
+
+import org.apache.fop.fo.expr.PropertyException;
+import org.apache.fop.fo.properties.Property;
+
+/**
+ * An implementation of PropertyList which only allocates storage for the properties that are
+ * actually set or looked up on the FO, unlike {@link StaticPropertyList} which allocates two
+ * arrays with a slot for every property. The properties are kept in dense arrays ordered by
+ * property ID, indexed by a bitmap of the IDs which are present.
+ */
+public class CompactPropertyList extends PropertyList {
+
+    /** A maker for compact property lists. */
+    public static final PropertyListMaker MAKER = new PropertyListMaker() {
+        public PropertyList make(FObj fobj, PropertyList parentPropertyList) {
+            return new CompactPropertyList(fobj, parentPropertyList);
+        }
+    };
+
+    private final PropertyArray explicit = new PropertyArray();
+    private final PropertyArray values = new PropertyArray();
+
+    /**
+     * Construct a CompactPropertyList.
+     * @param fObjToAttach The FObj object.
+     * @param parentPropertyList The parent property list.
+     */
+    public CompactPropertyList(FObj fObjToAttach, PropertyList parentPropertyList) {
+        super(fObjToAttach, parentPropertyList);
+    }
+
+    /**
+     * Return the value explicitly specified on this FO.
+     * @param propId The ID of the property whose value is desired.
+     * @return The value if the property is explicitly set, otherwise null.
+     */
+    public Property getExplicit(int propId) {
+        return explicit.get(propId);
+    }
+
+    /**
+     * Set an value defined explicitly on this FO.
+     * @param propId The ID of the property whose value is desired.
+     * @param value The value of the property to set.
+     */
+    public void putExplicit(int propId, Property value) {
+        explicit.put(propId, value);
+        if (values.get(propId) != null) { // if the cached value is set overwrite it
+            values.put(propId, value);
+        }
+    }
+
+    /**
+     * Override PropertyList.get() and provides caching of previously
+     * retrieved property values.
+     * {@inheritDoc}
+     */
+    public Property get(int propId, boolean bTryInherit, boolean bTryDefault)
+        throws PropertyException {
+        Property p = values.get(propId);
+        if (p == null) {
+            p = super.get(propId, bTryInherit, bTryDefault);
+            values.put(propId, p);
+        }
+        return p;
+    }
+
+    /**
+     * A map from property IDs to properties. A bit is set in the bitmap for every ID which
+     * has a property; the properties are stored in ID order, so the index of a property is
+     * the number of bits set below the bit of its ID.
+     */
+    static final class PropertyArray {
+
+        private static final Property[] EMPTY = new Property[0];
+
+        private final long[] bitmap = new long[(Constants.PROPERTY_COUNT >> 6) + 1];
+
+        private Property[] properties = EMPTY;
+
+        private int size;
+
+        /**
+         * @param propId a property ID
+         * @return the property stored for the ID, null if there is none
+         */
+        Property get(int propId) {
+            int word = propId >> 6;
+            long bit = 1L << propId;
+            if ((bitmap[word] & bit) == 0) {
+                return null;
+            }
+            return properties[indexOf(word, bit)];
+        }
+
+        /**
+         * Stores a property, or removes the property stored for the ID if the given
+         * property is null.
+         * @param propId a property ID
+         * @param property the property
+         */
+        void put(int propId, Property property) {
+            int word = propId >> 6;
+            long bit = 1L << propId;
+            int index = indexOf(word, bit);
+            if ((bitmap[word] & bit) != 0) {
+                if (property != null) {
+                    properties[index] = property;
+                } else {
+                    bitmap[word] &= ~bit;
+                    size--;
+                    System.arraycopy(properties, index + 1, properties, index, size - index);
+                    properties[size] = null;
+                }
+            } else if (property != null) {
+                if (size == properties.length) {
+                    Property[] newProperties = new Property[size + (size >> 1) + 4];
+                    System.arraycopy(properties, 0, newProperties, 0, index);
+                    System.arraycopy(properties, index, newProperties, index + 1, size - index);
+                    properties = newProperties;
+                } else {
+                    System.arraycopy(properties, index, properties, index + 1, size - index);
+                }
+                properties[index] = property;
+                bitmap[word] |= bit;
+                size++;
+            }
+        }
+
+        /** @return the number of properties stored */
+        int size() {
+            return size;
+        }
+
+        private int indexOf(int word, long bit) {
+            int index = Long.bitCount(bitmap[word] & (bit - 1));
+            for (int i = 0; i < word; i++) {
+                index += Long.bitCount(bitmap[i]);
+            }
+            return index;
+        }
+    }
+}
@@ -94,6 +94,11 @@ public abstract class DelegatingFOEventHandler extends FOEventHandler {
         delegate.endDocument();
     }
 
+    @Override
+    public void abortDocument() {
+        delegate.abortDocument();
+    }
+
     @Override
     public void startRoot(Root root) {
         delegate.startRoot(root);
@@ -125,6 +125,14 @@ public abstract class FOEventHandler {
     public void endDocument() throws SAXException {
     }
 
+    /**
+     * This method is called when the document run is aborted because of an error, instead of
+     * {@link #endDocument()}. It releases the resources which are otherwise released at the
+     * end of the document.
+     */
+    public void abortDocument() {
+    }
+
     /**
      * Called upon start of root element.
      * @param root element
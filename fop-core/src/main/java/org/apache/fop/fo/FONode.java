@@ -351,6 +351,17 @@ public abstract class FONode implements Cloneable {
         //nop
     }
 
+    /**
+     * Releases this node once it has been laid out. The node is detached from its siblings,
+     * so that it can be reclaimed as soon as its layout manager is gone, even if one of its
+     * siblings is still referenced from elsewhere.
+     * @return the number of nodes released
+     */
+    protected int release() {
+        siblings = null;
+        return 1;
+    }
+
     /**
      * Finalize this node.
      * This method can be overridden by subclasses to perform finishing
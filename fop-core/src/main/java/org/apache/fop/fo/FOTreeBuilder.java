@@ -111,11 +111,7 @@ public class FOTreeBuilder extends DefaultHandler {
                     foUserAgent.getStructureTreeEventHandler(), foEventHandler);
         }
         builderContext = new FOTreeBuilderContext();
-        builderContext.setPropertyListMaker(new PropertyListMaker() {
-            public PropertyList make(FObj fobj, PropertyList parentPropertyList) {
-                return new StaticPropertyList(fobj, parentPropertyList);
-            }
-        });
+        builderContext.setPropertyListMaker(CompactPropertyList.MAKER);
     }
 
     /** {@inheritDoc} */
@@ -157,17 +153,25 @@ public class FOTreeBuilder extends DefaultHandler {
 
     /** {@inheritDoc} */
     public void endDocument() throws SAXException {
-        this.delegate.endDocument();
-        if (this.rootFObj == null && empty) {
-            FOValidationEventProducer eventProducer
-                = FOValidationEventProducer.Provider.get(userAgent.getEventBroadcaster());
-            eventProducer.emptyDocument(this);
-        }
-        rootFObj = null;
-        if (LOG.isDebugEnabled()) {
-            LOG.debug("Parsing of document complete");
+        try {
+            this.delegate.endDocument();
+            if (this.rootFObj == null && empty) {
+                FOValidationEventProducer eventProducer
+                    = FOValidationEventProducer.Provider.get(userAgent.getEventBroadcaster());
+                eventProducer.emptyDocument(this);
+            }
+            rootFObj = null;
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Parsing of document complete");
+            }
+            foEventHandler.endDocument();
+        } catch (SAXException e) {
+            foEventHandler.abortDocument();
+            throw e;
+        } catch (RuntimeException e) {
+            foEventHandler.abortDocument();
+            throw e;
         }
-        foEventHandler.endDocument();
     }
 
     /** {@inheritDoc} */
@@ -179,6 +183,10 @@ public class FOTreeBuilder extends DefaultHandler {
             delegate.startElement(namespaceURI, localName, rawName, attlist);
         } catch (SAXException e) {
             errorinstart = true;
+            foEventHandler.abortDocument();
+            throw e;
+        } catch (RuntimeException e) {
+            foEventHandler.abortDocument();
             throw e;
         }
     }
@@ -187,15 +195,23 @@ public class FOTreeBuilder extends DefaultHandler {
     public void endElement(String uri, String localName, String rawName)
                 throws SAXException {
         if (!errorinstart) {
-            this.delegate.endElement(uri, localName, rawName);
-            this.depth--;
-            if (depth == 0) {
-                if (delegate != mainFOHandler) {
-                    //Return from sub-handler back to main handler
-                    delegate.endDocument();
-                    delegate = mainFOHandler;
-                    delegate.endElement(uri, localName, rawName);
+            try {
+                this.delegate.endElement(uri, localName, rawName);
+                this.depth--;
+                if (depth == 0) {
+                    if (delegate != mainFOHandler) {
+                        //Return from sub-handler back to main handler
+                        delegate.endDocument();
+                        delegate = mainFOHandler;
+                        delegate.endElement(uri, localName, rawName);
+                    }
                 }
+            } catch (SAXException e) {
+                foEventHandler.abortDocument();
+                throw e;
+            } catch (RuntimeException e) {
+                foEventHandler.abortDocument();
+                throw e;
             }
         }
     }
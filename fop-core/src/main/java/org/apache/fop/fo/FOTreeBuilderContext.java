@@ -21,6 +21,7 @@ package org.apache.fop.fo;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Context class providing information needed while building the FO tree.
@@ -48,6 +49,17 @@ public class FOTreeBuilderContext {
      */
     private boolean inMarker;
 
+    /**
+     * The number of descendants of the flows which have been built and not released yet.
+     * Flows laid out in parallel release their nodes from several threads.
+     */
+    private final AtomicInteger retainedFlowNodeCount = new AtomicInteger();
+
+    /**
+     * The number of descendants of the flows which have been released after layout
+     */
+    private final AtomicInteger releasedFlowNodeCount = new AtomicInteger();
+
     /**
      * Returns the set of ID references.
      * @return the ID references
@@ -104,4 +116,38 @@ public class FOTreeBuilderContext {
         return this.inMarker;
     }
 
+    /**
+     * Records the nodes of a flow which has been built.
+     * @param count the number of descendants of the flow
+     */
+    public void addFlowNodes(int count) {
+        retainedFlowNodeCount.addAndGet(count);
+    }
+
+    /**
+     * Records the release of nodes of a flow after they have been laid out.
+     * @param count the number of nodes released
+     */
+    protected void releaseFlowNodes(int count) {
+        retainedFlowNodeCount.addAndGet(-count);
+        releasedFlowNodeCount.addAndGet(count);
+    }
+
+    /**
+     * Returns the number of descendants of the flows which are still part of the FO tree,
+     * that is, which have been built but not released after layout.
+     * @return the number of retained flow nodes
+     */
+    public int getRetainedFlowNodeCount() {
+        return retainedFlowNodeCount.get();
+    }
+
+    /**
+     * Returns the number of descendants of the flows which have been released after layout.
+     * @return the number of released flow nodes
+     */
+    public int getReleasedFlowNodeCount() {
+        return releasedFlowNodeCount.get();
+    }
+
 }
@@ -567,6 +567,52 @@ public abstract class FObj extends FONode implements Constants {
         this.firstChild = null;
     }
 
+    /**
+     * Releases all the child nodes of this node once they have been laid out.
+     * @return the number of nodes released
+     * @see #releaseChildNodesBefore(FONode)
+     */
+    public int releaseChildNodes() {
+        return releaseChildNodesBefore(null);
+    }
+
+    /**
+     * Releases the child nodes preceding the given child once they have been laid out. The
+     * released nodes and their descendants are detached from the FO tree, and are counted
+     * as released in the {@link FOTreeBuilderContext}.
+     * @param child the first child node to keep, or null to release all the child nodes
+     * @return the number of nodes released
+     */
+    public int releaseChildNodesBefore(FONode child) {
+        int count = detachChildNodesBefore(child);
+        if (count > 0) {
+            getBuilderContext().releaseFlowNodes(count);
+        }
+        return count;
+    }
+
+    private int detachChildNodesBefore(FONode child) {
+        int count = 0;
+        FONode node = firstChild;
+        while (node != null && node != child) {
+            FONode next = node.siblings != null ? node.siblings[1] : null;
+            count += node.release();
+            node = next;
+        }
+        firstChild = node;
+        if (node == null) {
+            lastChild = null;
+        } else if (node.siblings != null) {
+            node.siblings[0] = null;
+        }
+        return count;
+    }
+
+    /** {@inheritDoc} */
+    protected int release() {
+        return super.release() + detachChildNodesBefore(null);
+    }
+
     /** @return the "id" property. */
     public String getId() {
         return id;
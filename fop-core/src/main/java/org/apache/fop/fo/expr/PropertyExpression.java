@@ -0,0 +1,356 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fo.expr;
+
+import org.apache.xmlgraphics.util.UnitConv;
+
+import org.apache.fop.datatypes.Length;
+import org.apache.fop.datatypes.LengthBase;
+import org.apache.fop.datatypes.Numeric;
+import org.apache.fop.datatypes.PercentBase;
+import org.apache.fop.fo.properties.ColorProperty;
+import org.apache.fop.fo.properties.FixedLength;
+import org.apache.fop.fo.properties.ListProperty;
+import org.apache.fop.fo.properties.NumberProperty;
+import org.apache.fop.fo.properties.PercentLength;
+import org.apache.fop.fo.properties.Property;
+
+/**
+ * A property expression compiled by the {@link PropertyParser}. Everything which doesn't depend
+ * on the context of the expression is resolved when the expression is compiled; the rest, such
+ * as percentages, relative lengths and function calls, is evaluated against a
+ * {@link PropertyInfo}. Compiled expressions are immutable, so they can be shared between
+ * documents and threads.
+ */
+abstract class PropertyExpression {
+
+    /**
+     * Evaluates this expression.
+     * @param propInfo the context in which the expression is evaluated
+     * @return the resulting property
+     * @throws PropertyException if the expression cannot be evaluated in the given context
+     */
+    abstract Property evaluate(PropertyInfo propInfo) throws PropertyException;
+
+    /** A value which doesn't depend on the context. */
+    static final class Constant extends PropertyExpression {
+
+        private final Property value;
+
+        Constant(Property value) {
+            this.value = value;
+        }
+
+        Property evaluate(PropertyInfo propInfo) {
+            return value;
+        }
+    }
+
+    /** A percentage, which is resolved against the percent base of the context. */
+    static final class Percentage extends PropertyExpression {
+
+        private final double value;
+
+        /**
+         * @param value the percentage as a decimal fraction, eg. 0.5 for 50%
+         */
+        Percentage(double value) {
+            this.value = value;
+        }
+
+        Property evaluate(PropertyInfo propInfo) throws PropertyException {
+            /*
+             * Get the length base value object from the Maker. If null, then
+             * this property can't have % values. Treat it as a real number.
+             */
+            PercentBase pcBase = propInfo.getPercentBase();
+            if (pcBase == null) {
+                // WARNING? Interpret as a decimal fraction, eg. 50% = .5
+                return NumberProperty.getInstance(value);
+            } else if (pcBase.getDimension() == 0) {
+                return NumberProperty.getInstance(value * pcBase.getBaseValue());
+            } else if (pcBase.getDimension() == 1) {
+                if (pcBase instanceof LengthBase) {
+                    if (value == 0.0) {
+                        return FixedLength.ZERO_FIXED_LENGTH;
+                    }
+                    //If the base of the percentage is known
+                    //and absolute, it can be resolved by the
+                    //parser
+                    Length base = ((LengthBase) pcBase).getBaseLength();
+                    if (base != null && base.isAbsolute()) {
+                        return FixedLength.getInstance(value * base.getValue());
+                    }
+                }
+                return new PercentLength(value, pcBase);
+            } else {
+                throw new PropertyException("Illegal percent dimension value");
+            }
+        }
+    }
+
+    /** A length in ems, which is relative to the font-size of the context. */
+    static final class EmLength extends PropertyExpression {
+
+        private final double value;
+
+        EmLength(double value) {
+            this.value = value;
+        }
+
+        Property evaluate(PropertyInfo propInfo) throws PropertyException {
+            return (Property) NumericOp.multiply(NumberProperty.getInstance(value),
+                    propInfo.currentFontSize());
+        }
+    }
+
+    /** A length in pixels, which depends on the source resolution of the context. */
+    static final class PixelLength extends PropertyExpression {
+
+        private final double value;
+
+        PixelLength(double value) {
+            this.value = value;
+        }
+
+        Property evaluate(PropertyInfo propInfo) {
+            //pass the ratio between target-resolution and
+            //the default resolution of 72dpi
+            float resolution = propInfo.getPropertyList().getFObj()
+                    .getUserAgent().getSourceResolution();
+            return FixedLength.getInstance(value, "px", UnitConv.IN2PT / resolution);
+        }
+    }
+
+    /** A color specification, which is resolved using the user agent of the context. */
+    static final class ColorSpecification extends PropertyExpression {
+
+        private final String value;
+
+        ColorSpecification(String value) {
+            this.value = value;
+        }
+
+        Property evaluate(PropertyInfo propInfo) throws PropertyException {
+            return ColorProperty.getInstance(propInfo.getUserAgent(), value);
+        }
+    }
+
+    /** A function call. */
+    static final class FunctionCall extends PropertyExpression {
+
+        private final Function function;
+
+        private final PropertyExpression[] args;
+
+        /**
+         * @param function the function
+         * @param args the arguments which are specified; the missing optional arguments are
+         * given their default value when the function is evaluated
+         */
+        FunctionCall(Function function, PropertyExpression[] args) {
+            this.function = function;
+            this.args = args;
+        }
+
+        Property evaluate(PropertyInfo propInfo) throws PropertyException {
+            // Push new function (for function context: getPercentBase())
+            propInfo.pushFunction(function);
+            int numReq = function.getRequiredArgsCount();
+            int numOpt = function.getOptionalArgsCount();
+            Property[] values = new Property[Math.max(args.length, numReq + numOpt)];
+            for (int i = 0; i < args.length; i++) {
+                values[i] = args[i].evaluate(propInfo);
+            }
+            for (int i = args.length; i < values.length; i++) {
+                values[i] = function.getOptionalArgDefault(i - numReq, propInfo);
+            }
+            Property prop = function.eval(values, propInfo);
+            propInfo.popFunction();
+            return prop;
+        }
+    }
+
+    /** A binary numeric operation. */
+    static final class Operation extends PropertyExpression {
+
+        private final int operator;
+
+        private final PropertyExpression left;
+
+        private final PropertyExpression right;
+
+        /**
+         * @param operator the operator, one of the {@link PropertyTokenizer} operator tokens
+         * @param left the left operand
+         * @param right the right operand
+         */
+        Operation(int operator, PropertyExpression left, PropertyExpression right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        Property evaluate(PropertyInfo propInfo) throws PropertyException {
+            Property op1 = left.evaluate(propInfo);
+            Property op2 = right.evaluate(propInfo);
+            switch (operator) {
+            case PropertyTokenizer.TOK_PLUS:
+                return evalAddition(op1.getNumeric(), op2.getNumeric());
+            case PropertyTokenizer.TOK_MINUS:
+                return evalSubtraction(op1.getNumeric(), op2.getNumeric());
+            case PropertyTokenizer.TOK_MULTIPLY:
+                return evalMultiply(op1.getNumeric(), op2.getNumeric());
+            case PropertyTokenizer.TOK_DIV:
+                return evalDivide(op1.getNumeric(), op2.getNumeric());
+            case PropertyTokenizer.TOK_MOD:
+                return evalModulo(op1.getNumber(), op2.getNumber());
+            default:
+                throw new IllegalStateException("Unknown operator: " + operator);
+            }
+        }
+
+        /**
+         * Evaluate an addition operation. If either of the arguments is null,
+         * this means that it wasn't convertible to a Numeric value.
+         * @param op1 A Numeric object (Number or Length-type object)
+         * @param op2 A Numeric object (Number or Length-type object)
+         * @return A new NumericProperty object holding an object which represents
+         * the sum of the two operands.
+         * @throws PropertyException If either operand is null.
+         */
+        private static Property evalAddition(Numeric op1,
+                                             Numeric op2) throws PropertyException {
+            if (op1 == null || op2 == null) {
+                throw new PropertyException("Non numeric operand in addition");
+            }
+            return (Property) NumericOp.addition(op1, op2);
+        }
+
+        /**
+         * Evaluate a subtraction operation. If either of the arguments is null,
+         * this means that it wasn't convertible to a Numeric value.
+         * @param op1 A Numeric object (Number or Length-type object)
+         * @param op2 A Numeric object (Number or Length-type object)
+         * @return A new NumericProperty object holding an object which represents
+         * the difference of the two operands.
+         * @throws PropertyException If either operand is null.
+         */
+        private static Property evalSubtraction(Numeric op1,
+                                                Numeric op2) throws PropertyException {
+            if (op1 == null || op2 == null) {
+                throw new PropertyException("Non numeric operand in subtraction");
+            }
+            return (Property) NumericOp.subtraction(op1, op2);
+        }
+
+        /**
+         * Evaluate a multiplication operation. If either of the arguments is null,
+         * this means that it wasn't convertible to a Numeric value.
+         * @param op1 A Numeric object (Number or Length-type object)
+         * @param op2 A Numeric object (Number or Length-type object)
+         * @return A new NumericProperty object holding an object which represents
+         * the product of the two operands.
+         * @throws PropertyException If either operand is null.
+         */
+        private static Property evalMultiply(Numeric op1,
+                                             Numeric op2) throws PropertyException {
+            if (op1 == null || op2 == null) {
+                throw new PropertyException("Non numeric operand in multiplication");
+            }
+            return (Property) NumericOp.multiply(op1, op2);
+        }
+
+        /**
+         * Evaluate a division operation. If either of the arguments is null,
+         * this means that it wasn't convertible to a Numeric value.
+         * @param op1 A Numeric object (Number or Length-type object)
+         * @param op2 A Numeric object (Number or Length-type object)
+         * @return A new NumericProperty object holding an object which represents
+         * op1 divided by op2.
+         * @throws PropertyException If either operand is null.
+         */
+        private static Property evalDivide(Numeric op1,
+                                           Numeric op2) throws PropertyException {
+            if (op1 == null || op2 == null) {
+                throw new PropertyException("Non numeric operand in division");
+            }
+            return (Property) NumericOp.divide(op1, op2);
+        }
+
+        /**
+         * Evaluate a modulo operation. If either of the arguments is null,
+         * this means that it wasn't convertible to a Number value.
+         * @param op1 A Number object
+         * @param op2 A Number object
+         * @return A new NumberProperty object holding an object which represents
+         * op1 mod op2.
+         * @throws PropertyException If either operand is null.
+         */
+        private static Property evalModulo(Number op1,
+                                           Number op2) throws PropertyException {
+            if (op1 == null || op2 == null) {
+                throw new PropertyException("Non number operand to modulo");
+            }
+            return NumberProperty.getInstance(op1.doubleValue() % op2.doubleValue());
+        }
+    }
+
+    /** A unary minus operation. */
+    static final class Negation extends PropertyExpression {
+
+        private final PropertyExpression operand;
+
+        Negation(PropertyExpression operand) {
+            this.operand = operand;
+        }
+
+        /**
+         * Evaluate a unary minus operation. If the operand isn't convertible to a
+         * Numeric value, an exception is thrown.
+         * {@inheritDoc}
+         */
+        Property evaluate(PropertyInfo propInfo) throws PropertyException {
+            Numeric op = operand.evaluate(propInfo).getNumeric();
+            if (op == null) {
+                throw new PropertyException("Non numeric operand to unary minus");
+            }
+            return (Property) NumericOp.negate(op);
+        }
+    }
+
+    /** A space separated list of expressions. */
+    static final class ExpressionList extends PropertyExpression {
+
+        private final PropertyExpression[] items;
+
+        ExpressionList(PropertyExpression[] items) {
+            this.items = items;
+        }
+
+        Property evaluate(PropertyInfo propInfo) throws PropertyException {
+            ListProperty propList = new ListProperty(items[0].evaluate(propInfo));
+            for (int i = 1; i < items.length; i++) {
+                propList.addProperty(items[i].evaluate(propInfo));
+            }
+            return propList;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fo.expr;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of compiled property expressions, keyed by the expression text. Since the
+ * compiled expressions don't depend on the property or the FO they are specified on, the same
+ * entry serves every occurrence of a value in every document processed with the same
+ * FopFactory. When the cache is full, the least recently used expression is dropped.
+ * <p>
+ * This class is thread-safe.
+ * <p>
+ * Note: this class should not be considered as part of FOP's external API.
+ */
+public class PropertyExpressionCache {
+
+    /** The default maximum number of expressions kept in the cache */
+    public static final int DEFAULT_MAX_SIZE = 4096;
+
+    private final Map<String, PropertyExpression> expressions;
+
+    /**
+     * Creates a cache holding at most {@link #DEFAULT_MAX_SIZE} expressions.
+     */
+    public PropertyExpressionCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a cache.
+     * @param maxSize the maximum number of expressions kept in the cache
+     */
+    public PropertyExpressionCache(final int maxSize) {
+        this.expressions = new LinkedHashMap<String, PropertyExpression>(64, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PropertyExpression> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the compiled form of an expression, compiling it if it isn't in the cache.
+     * @param expr the expression
+     * @return the compiled expression
+     * @throws PropertyException if the expression cannot be parsed
+     */
+    PropertyExpression get(String expr) throws PropertyException {
+        PropertyExpression compiled;
+        synchronized (expressions) {
+            compiled = expressions.get(expr);
+        }
+        if (compiled == null) {
+            // compiled outside the lock: compiling the same expression twice is harmless
+            compiled = PropertyParser.compile(expr);
+            synchronized (expressions) {
+                expressions.put(expr, compiled);
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * Returns the number of expressions in the cache.
+     * @return the number of expressions
+     */
+    public int size() {
+        synchronized (expressions) {
+            return expressions.size();
+        }
+    }
+
+    /**
+     * Removes all the expressions from the cache.
+     */
+    public void clear() {
+        synchronized (expressions) {
+            expressions.clear();
+        }
+    }
+}
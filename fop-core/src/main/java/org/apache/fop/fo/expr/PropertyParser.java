@@ -22,17 +22,18 @@ package org.apache.fop.fo.expr;
 import java.util.HashMap;
 import java.util.List;
 
-import org.apache.xmlgraphics.util.UnitConv;
-
-import org.apache.fop.datatypes.Length;
-import org.apache.fop.datatypes.LengthBase;
-import org.apache.fop.datatypes.Numeric;
-import org.apache.fop.datatypes.PercentBase;
-import org.apache.fop.fo.properties.ColorProperty;
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.fo.expr.PropertyExpression.ColorSpecification;
+import org.apache.fop.fo.expr.PropertyExpression.Constant;
+import org.apache.fop.fo.expr.PropertyExpression.EmLength;
+import org.apache.fop.fo.expr.PropertyExpression.ExpressionList;
+import org.apache.fop.fo.expr.PropertyExpression.FunctionCall;
+import org.apache.fop.fo.expr.PropertyExpression.Negation;
+import org.apache.fop.fo.expr.PropertyExpression.Operation;
+import org.apache.fop.fo.expr.PropertyExpression.Percentage;
+import org.apache.fop.fo.expr.PropertyExpression.PixelLength;
 import org.apache.fop.fo.properties.FixedLength;
-import org.apache.fop.fo.properties.ListProperty;
 import org.apache.fop.fo.properties.NumberProperty;
-import org.apache.fop.fo.properties.PercentLength;
 import org.apache.fop.fo.properties.Property;
 import org.apache.fop.fo.properties.StringProperty;
 
@@ -40,9 +41,13 @@ import org.apache.fop.fo.properties.StringProperty;
  * Class to parse XSL-FO property expressions.
  * This class is heavily based on the epxression parser in James Clark's
  * XT, an XSLT processor.
+ * <p>
+ * Expressions are compiled into a {@link PropertyExpression}, which is then evaluated in the
+ * context of the property. The compiled expressions are kept in the
+ * {@link PropertyExpressionCache} of the FopFactory, so a value which is specified many times
+ * is only parsed once.
  */
 public final class PropertyParser extends PropertyTokenizer {
-    private PropertyInfo propInfo;    // Maker and propertyList related info
 
     private static final String RELUNIT = "em";
     private static final HashMap FUNCTION_TABLE = new HashMap();
@@ -89,126 +94,96 @@ public final class PropertyParser extends PropertyTokenizer {
     public static Property parse(String expr, PropertyInfo propInfo)
             throws PropertyException {
         try {
-            return new PropertyParser(expr, propInfo).parseProperty();
+            FOUserAgent userAgent = propInfo.getUserAgent();
+            PropertyExpressionCache cache = (userAgent != null)
+                    ? userAgent.getPropertyExpressionCache() : null;
+            PropertyExpression compiled = (cache != null) ? cache.get(expr) : compile(expr);
+            return compiled.evaluate(propInfo);
         } catch (PropertyException exc) {
             exc.setPropertyInfo(propInfo);
             throw exc;
         }
     }
 
+    /**
+     * Compiles a property expression.
+     * @param expr The specified value (attribute on the xml element).
+     * @return the compiled expression
+     * @throws PropertyException If the "expr" cannot be parsed.
+     */
+    static PropertyExpression compile(String expr) throws PropertyException {
+        return new PropertyParser(expr).parseProperty();
+    }
 
     /**
-     * Private constructor. Called by the static parse() method.
+     * Private constructor. Called by the static compile() method.
      * @param propExpr The specified value (attribute on the xml element).
-     * @param pInfo A PropertyInfo object representing the context in
-     * which the property expression is to be evaluated.
      */
-    private PropertyParser(String propExpr, PropertyInfo pInfo) {
+    private PropertyParser(String propExpr) {
         super(propExpr);
-        this.propInfo = pInfo;
     }
 
     /**
      * Parse the property expression described in the instance variables.
-     * Note: If the property expression String is empty, a StringProperty
-     * object holding an empty String is returned.
-     * @return A Property object holding the parsed result.
+     * Note: If the property expression String is empty, an expression
+     * holding an empty String is returned.
+     * @return The compiled expression.
      * @throws PropertyException If the "expr" cannot be parsed as a Property.
      */
-    private Property parseProperty() throws PropertyException {
+    private PropertyExpression parseProperty() throws PropertyException {
         next();
         if (currentToken == TOK_EOF) {
             // if prop value is empty string, force to StringProperty
-            return StringProperty.getInstance("");
+            return new Constant(StringProperty.getInstance(""));
         }
-        ListProperty propList = null;
+        List<PropertyExpression> exprList = new java.util.ArrayList<PropertyExpression>(1);
         while (true) {
-            Property prop = parseAdditiveExpr();
+            exprList.add(parseAdditiveExpr());
             if (currentToken == TOK_EOF) {
-                if (propList != null) {
-                    propList.addProperty(prop);
-                    return propList;
-                } else {
-                    return prop;
-                }
-            } else {
-                if (propList == null) {
-                    propList = new ListProperty(prop);
+                if (exprList.size() > 1) {
+                    return new ExpressionList(
+                            exprList.toArray(new PropertyExpression[exprList.size()]));
                 } else {
-                    propList.addProperty(prop);
+                    return exprList.get(0);
                 }
             }
-            // throw new PropertyException("unexpected token");
         }
-        // return prop;
     }
 
     /**
-     * Try to parse an addition or subtraction expression and return the
-     * resulting Property.
+     * Try to parse an addition or subtraction expression.
      */
-    private Property parseAdditiveExpr() throws PropertyException {
-        // Evaluate and put result on the operand stack
-        Property prop = parseMultiplicativeExpr();
-        loop:
-        while (true) {
-            switch (currentToken) {
-            case TOK_PLUS:
-                next();
-                prop = evalAddition(prop.getNumeric(),
-                                    parseMultiplicativeExpr().getNumeric());
-                break;
-            case TOK_MINUS:
-                next();
-                prop = evalSubtraction(prop.getNumeric(),
-                                    parseMultiplicativeExpr().getNumeric());
-                break;
-            default:
-                break loop;
-            }
+    private PropertyExpression parseAdditiveExpr() throws PropertyException {
+        PropertyExpression expr = parseMultiplicativeExpr();
+        while (currentToken == TOK_PLUS || currentToken == TOK_MINUS) {
+            int operator = currentToken;
+            next();
+            expr = new Operation(operator, expr, parseMultiplicativeExpr());
         }
-        return prop;
+        return expr;
     }
 
     /**
-     * Try to parse a multiply, divide or modulo expression and return
-     * the resulting Property.
+     * Try to parse a multiply, divide or modulo expression.
      */
-    private Property parseMultiplicativeExpr() throws PropertyException {
-        Property prop = parseUnaryExpr();
-        loop:
-        while (true) {
-            switch (currentToken) {
-            case TOK_DIV:
-                next();
-                prop = evalDivide(prop.getNumeric(),
-                                  parseUnaryExpr().getNumeric());
-                break;
-            case TOK_MOD:
-                next();
-                prop = evalModulo(prop.getNumber(),
-                                  parseUnaryExpr().getNumber());
-                break;
-            case TOK_MULTIPLY:
-                next();
-                prop = evalMultiply(prop.getNumeric(),
-                                    parseUnaryExpr().getNumeric());
-                break;
-            default:
-                break loop;
-            }
+    private PropertyExpression parseMultiplicativeExpr() throws PropertyException {
+        PropertyExpression expr = parseUnaryExpr();
+        while (currentToken == TOK_DIV || currentToken == TOK_MOD
+                || currentToken == TOK_MULTIPLY) {
+            int operator = currentToken;
+            next();
+            expr = new Operation(operator, expr, parseUnaryExpr());
         }
-        return prop;
+        return expr;
     }
 
     /**
-     * Try to parse a unary minus expression and return the
-     * resulting Property.
+     * Try to parse a unary minus expression.
      */
-    private Property parseUnaryExpr() throws PropertyException {
+    private PropertyExpression parseUnaryExpr() throws PropertyException {
         if (currentToken == TOK_MINUS) {
             next();
-            return evalNegate(parseUnaryExpr().getNumeric());
+            return new Negation(parseUnaryExpr());
         }
         return parsePrimaryExpr();
     }
@@ -226,15 +201,14 @@ public final class PropertyParser extends PropertyTokenizer {
     }
 
     /**
-     * Try to parse a primary expression and return the
-     * resulting Property.
+     * Try to parse a primary expression.
      * A primary expression is either a parenthesized expression or an
      * expression representing a primitive Property datatype, such as a
      * string literal, an NCname, a number or a unit expression, or a
      * function call expression.
      */
-    private Property parsePrimaryExpr() throws PropertyException {
-        Property prop;
+    private PropertyExpression parsePrimaryExpr() throws PropertyException {
+        PropertyExpression expr;
         if (currentToken == TOK_COMMA) {
             //Simply skip commas, for example for font-family
             next();
@@ -242,62 +216,30 @@ public final class PropertyParser extends PropertyTokenizer {
         switch (currentToken) {
         case TOK_LPAR:
             next();
-            prop = parseAdditiveExpr();
+            expr = parseAdditiveExpr();
             expectRpar();
-            return prop;
+            return expr;
 
         case TOK_LITERAL:
-            prop = StringProperty.getInstance(currentTokenValue);
+            expr = new Constant(StringProperty.getInstance(currentTokenValue));
             break;
 
         case TOK_NCNAME:
             // Interpret this in context of the property or do it later?
-            prop = new NCnameProperty(currentTokenValue);
+            expr = new Constant(new NCnameProperty(currentTokenValue));
             break;
 
         case TOK_FLOAT:
-            prop = NumberProperty.getInstance(Double.valueOf(currentTokenValue));
+            expr = new Constant(NumberProperty.getInstance(Double.valueOf(currentTokenValue)));
             break;
 
         case TOK_INTEGER:
-            prop = NumberProperty.getInstance(Integer.valueOf(currentTokenValue));
+            expr = new Constant(NumberProperty.getInstance(Integer.valueOf(currentTokenValue)));
             break;
 
         case TOK_PERCENT:
-            /*
-             * Get the length base value object from the Maker. If null, then
-             * this property can't have % values. Treat it as a real number.
-             */
-            double pcval = Double.parseDouble(
-                    currentTokenValue.substring(0, currentTokenValue.length() - 1)) / 100.0;
-            PercentBase pcBase = this.propInfo.getPercentBase();
-            if (pcBase != null) {
-                if (pcBase.getDimension() == 0) {
-                    prop = NumberProperty.getInstance(pcval * pcBase.getBaseValue());
-                } else if (pcBase.getDimension() == 1) {
-                    if (pcBase instanceof LengthBase) {
-                        if (pcval == 0.0) {
-                            prop = FixedLength.ZERO_FIXED_LENGTH;
-                            break;
-                        }
-
-                        //If the base of the percentage is known
-                        //and absolute, it can be resolved by the
-                        //parser
-                        Length base = ((LengthBase)pcBase).getBaseLength();
-                        if (base != null && base.isAbsolute()) {
-                            prop = FixedLength.getInstance(pcval * base.getValue());
-                            break;
-                        }
-                    }
-                    prop = new PercentLength(pcval, pcBase);
-                } else {
-                    throw new PropertyException("Illegal percent dimension value");
-                }
-            } else {
-                // WARNING? Interpret as a decimal fraction, eg. 50% = .5
-                prop = NumberProperty.getInstance(pcval);
-            }
+            expr = new Percentage(Double.parseDouble(
+                    currentTokenValue.substring(0, currentTokenValue.length() - 1)) / 100.0);
             break;
 
         case TOK_NUMERIC:
@@ -306,27 +248,17 @@ public final class PropertyParser extends PropertyTokenizer {
             String unitPart = currentTokenValue.substring(numLen);
             double numPart = Double.parseDouble(currentTokenValue.substring(0, numLen));
             if (RELUNIT.equals(unitPart)) {
-                prop = (Property) NumericOp.multiply(
-                                    NumberProperty.getInstance(numPart),
-                                    propInfo.currentFontSize());
+                expr = new EmLength(numPart);
+            } else if ("px".equals(unitPart)) {
+                expr = new PixelLength(numPart);
             } else {
-                if ("px".equals(unitPart)) {
-                    //pass the ratio between target-resolution and
-                    //the default resolution of 72dpi
-                    float resolution = propInfo.getPropertyList().getFObj()
-                            .getUserAgent().getSourceResolution();
-                    prop = FixedLength.getInstance(
-                            numPart, unitPart,
-                             UnitConv.IN2PT / resolution);
-                } else {
-                    //use default resolution of 72dpi
-                    prop = FixedLength.getInstance(numPart, unitPart);
-                }
+                //use default resolution of 72dpi
+                expr = new Constant(FixedLength.getInstance(numPart, unitPart));
             }
             break;
 
         case TOK_COLORSPEC:
-            prop = ColorProperty.getInstance(propInfo.getUserAgent(), currentTokenValue);
+            expr = new ColorSpecification(currentTokenValue);
             break;
 
         case TOK_FUNCTION_LPAR:
@@ -336,40 +268,37 @@ public final class PropertyParser extends PropertyTokenizer {
                                             + currentTokenValue);
             }
             next();
-            // Push new function (for function context: getPercentBase())
-            propInfo.pushFunction(function);
-            prop = function.eval(parseArgs(function), propInfo);
-            propInfo.popFunction();
-            return prop;
+            return new FunctionCall(function, parseArgs(function));
 
         default:
             // TODO: add the token or the expr to the error message.
             throw new PropertyException("syntax error");
         }
         next();
-        return prop;
+        return expr;
     }
 
     /**
      * Parse a comma separated list of function arguments. Each argument
      * may itself be an expression. This method consumes the closing right
-     * parenthesis of the argument list.
+     * parenthesis of the argument list. The missing optional arguments are
+     * given their default value when the function is evaluated.
      * @param function The function object for which the arguments are collected.
-     * @return An array of Property objects representing the arguments found.
+     * @return An array of expressions representing the arguments found.
      * @throws PropertyException If the number of arguments found isn't equal
      * to the number expected or if another argument parsing error occurs.
      */
-    Property[] parseArgs(Function function) throws PropertyException {
+    PropertyExpression[] parseArgs(Function function) throws PropertyException {
         int numReq = function.getRequiredArgsCount();   // # required args
         int numOpt = function.getOptionalArgsCount();   // # optional args
         boolean hasVar = function.hasVariableArgs();    // has variable args
-        List<Property> args = new java.util.ArrayList<Property>(numReq + numOpt);
+        List<PropertyExpression> args = new java.util.ArrayList<PropertyExpression>(numReq + numOpt);
         if (currentToken == TOK_RPAR) {
             // No args: func()
             next();
         } else {
             while (true) {
-                Property p = parseAdditiveExpr();
+                PropertyExpression p = parseAdditiveExpr();
                 int i = args.size();
                 if ((i < numReq) || ((i - numReq) < numOpt) || hasVar) {
                     args.add(p);
@@ -388,115 +317,8 @@ public final class PropertyParser extends PropertyTokenizer {
         if (numArgs < numReq) {
             throw new PropertyException("Expected " + numReq + " required arguments, but only "
                     + numArgs + " specified");
-        } else {
-            for (int i = 0; i < numOpt; i++) {
-                if (args.size() < (numReq + i + 1)) {
-                    args.add(function.getOptionalArgDefault(i, propInfo));
-                }
-            }
-        }
-        return args.toArray(new Property [ args.size() ]);
-    }
-
-    /**
-     * Evaluate an addition operation. If either of the arguments is null,
-     * this means that it wasn't convertible to a Numeric value.
-     * @param op1 A Numeric object (Number or Length-type object)
-     * @param op2 A Numeric object (Number or Length-type object)
-     * @return A new NumericProperty object holding an object which represents
-     * the sum of the two operands.
-     * @throws PropertyException If either operand is null.
-     */
-    private Property evalAddition(Numeric op1,
-                                  Numeric op2) throws PropertyException {
-        if (op1 == null || op2 == null) {
-            throw new PropertyException("Non numeric operand in addition");
-        }
-        return (Property) NumericOp.addition(op1, op2);
-    }
-
-    /**
-     * Evaluate a subtraction operation. If either of the arguments is null,
-     * this means that it wasn't convertible to a Numeric value.
-     * @param op1 A Numeric object (Number or Length-type object)
-     * @param op2 A Numeric object (Number or Length-type object)
-     * @return A new NumericProperty object holding an object which represents
-     * the difference of the two operands.
-     * @throws PropertyException If either operand is null.
-     */
-    private Property evalSubtraction(Numeric op1,
-                                     Numeric op2) throws PropertyException {
-        if (op1 == null || op2 == null) {
-            throw new PropertyException("Non numeric operand in subtraction");
-        }
-        return (Property) NumericOp.subtraction(op1, op2);
-    }
-
-    /**
-     * Evaluate a unary minus operation. If the argument is null,
-     * this means that it wasn't convertible to a Numeric value.
-     * @param op A Numeric object (Number or Length-type object)
-     * @return A new NumericProperty object holding an object which represents
-     * the negative of the operand (multiplication by *1).
-     * @throws PropertyException If the operand is null.
-     */
-    private Property evalNegate(Numeric op) throws PropertyException {
-        if (op == null) {
-            throw new PropertyException("Non numeric operand to unary minus");
-        }
-        return (Property) NumericOp.negate(op);
-    }
-
-    /**
-     * Evaluate a multiplication operation. If either of the arguments is null,
-     * this means that it wasn't convertible to a Numeric value.
-     * @param op1 A Numeric object (Number or Length-type object)
-     * @param op2 A Numeric object (Number or Length-type object)
-     * @return A new NumericProperty object holding an object which represents
-     * the product of the two operands.
-     * @throws PropertyException If either operand is null.
-     */
-    private Property evalMultiply(Numeric op1,
-                                  Numeric op2) throws PropertyException {
-        if (op1 == null || op2 == null) {
-            throw new PropertyException("Non numeric operand in multiplication");
-        }
-        return (Property) NumericOp.multiply(op1, op2);
-    }
-
-
-    /**
-     * Evaluate a division operation. If either of the arguments is null,
-     * this means that it wasn't convertible to a Numeric value.
-     * @param op1 A Numeric object (Number or Length-type object)
-     * @param op2 A Numeric object (Number or Length-type object)
-     * @return A new NumericProperty object holding an object which represents
-     * op1 divided by op2.
-     * @throws PropertyException If either operand is null.
-     */
-    private Property evalDivide(Numeric op1,
-                                Numeric op2) throws PropertyException {
-        if (op1 == null || op2 == null) {
-            throw new PropertyException("Non numeric operand in division");
-        }
-        return (Property) NumericOp.divide(op1, op2);
-    }
-
-    /**
-     * Evaluate a modulo operation. If either of the arguments is null,
-     * this means that it wasn't convertible to a Number value.
-     * @param op1 A Number object
-     * @param op2 A Number object
-     * @return A new NumberProperty object holding an object which represents
-     * op1 mod op2.
-     * @throws PropertyException If either operand is null.
-     */
-    private Property evalModulo(Number op1,
-                                Number op2) throws PropertyException {
-        if (op1 == null || op2 == null) {
-            throw new PropertyException("Non number operand to modulo");
         }
-        return NumberProperty.getInstance(op1.doubleValue() % op2.doubleValue());
+        return args.toArray(new PropertyExpression[numArgs]);
     }
 
 }
@@ -93,6 +93,22 @@ public class Flow extends FObj implements CommonAccessibilityHolder {
             missingChildElementError("marker* (%block;)+");
         }
         getFOEventHandler().endFlow(this);
+        if (getNameId() == FO_FLOW) {
+            getBuilderContext().addFlowNodes(countDescendants(this));
+        }
+    }
+
+    private static int countDescendants(FObj fobj) {
+        int count = 0;
+        FONodeIterator iter = fobj.getChildNodes();
+        while (iter != null && iter.hasNext()) {
+            FONode child = iter.next();
+            count++;
+            if (child instanceof FObj) {
+                count += countDescendants((FObj) child);
+            }
+        }
+        return count;
     }
 
     /**
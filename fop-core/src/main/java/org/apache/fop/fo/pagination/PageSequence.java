@@ -450,6 +450,9 @@ public class PageSequence extends AbstractPageSequence implements WritingModeTra
      * Releases a page-sequence's children after the page-sequence has been fully processed.
      */
     public void releasePageSequence() {
+        if (this.mainFlow != null) {
+            this.mainFlow.releaseChildNodes();
+        }
         this.mainFlow = null;
         this.flowMap.clear();
     }
@@ -24,6 +24,7 @@ import org.xml.sax.Locator;
 
 import org.apache.fop.apps.FOPException;
 import org.apache.fop.fo.FONode;
+import org.apache.fop.fo.FObj;
 import org.apache.fop.fo.ValidationException;
 
 /**
@@ -32,6 +33,8 @@ import org.apache.fop.fo.ValidationException;
  */
 public class StaticContent extends Flow {
 
+    private Boolean pageInvariant;
+
     /**
      * @param parent FONode that is the parent of this object
      */
@@ -72,6 +75,51 @@ public class StaticContent extends Flow {
         }
     }
 
+    /**
+     * Indicates whether this static content produces the same areas on every page it is
+     * laid out on, so that they can be laid out once and reused. That is not the case if
+     * it contains page numbers, citations, retrieved markers, links or change bars (which
+     * are resolved per page), identified objects (which are registered per page) or
+     * extension elements.
+     * @return true if the areas of this static content don't depend on the page
+     */
+    public boolean isPageInvariant() {
+        if (pageInvariant == null) {
+            pageInvariant = isPageInvariant(this);
+        }
+        return pageInvariant;
+    }
+
+    private static boolean isPageInvariant(FObj fobj) {
+        if (fobj.hasId() || !FO_URI.equals(fobj.getNamespaceURI())) {
+            return false;
+        }
+        switch (fobj.getNameId()) {
+        case FO_PAGE_NUMBER:
+        case FO_PAGE_NUMBER_CITATION:
+        case FO_PAGE_NUMBER_CITATION_LAST:
+        case FO_SCALING_VALUE_CITATION:
+        case FO_INDEX_PAGE_CITATION_LIST:
+        case FO_RETRIEVE_MARKER:
+        case FO_RETRIEVE_TABLE_MARKER:
+        case FO_BASIC_LINK:
+        case FO_CHANGE_BAR_BEGIN:
+        case FO_CHANGE_BAR_END:
+            return false;
+        case FO_INSTREAM_FOREIGN_OBJECT:
+            // the foreign content is rendered as is
+            return true;
+        default:
+            for (FONodeIterator it = fobj.getChildNodes(); it != null && it.hasNext();) {
+                FONode child = it.next();
+                if (child instanceof FObj && !isPageInvariant((FObj) child)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
     /** {@inheritDoc} */
     public String getLocalName() {
         return "static-content";
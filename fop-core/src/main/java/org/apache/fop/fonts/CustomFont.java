@@ -30,6 +30,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.fop.apps.io.InternalResourceResolver;
 
@@ -78,8 +79,11 @@ public abstract class CustomFont extends Typeface
     private Map<Integer, Map<Integer, Integer>> kerning;
 
     private boolean useKerning = true;
-    /** the character map, mapping Unicode ranges to glyph indices. */
-    protected List<CMapSegment> cmap = new ArrayList<CMapSegment>();
+    /**
+     * the character map, mapping Unicode ranges to glyph indices. Copied on write, so it can be
+     * searched while a private use mapping is being added.
+     */
+    protected List<CMapSegment> cmap = new CopyOnWriteArrayList<CMapSegment>();
     private boolean useAdvanced = true;
     private boolean simulateStyle;
     protected List<SimpleSingleByteEncoding> additionalEncodings;
@@ -532,8 +536,7 @@ public abstract class CustomFont extends Typeface
      * @param cmap the character map
      */
     public void setCMap(CMapSegment[] cmap) {
-        this.cmap.clear();
-        Collections.addAll(this.cmap, cmap);
+        this.cmap = new CopyOnWriteArrayList<CMapSegment>(cmap);
     }
 
     /**
@@ -581,6 +584,28 @@ public abstract class CustomFont extends Typeface
         this.strikeoutThickness = strikeoutThickness;
     }
 
+    /* The raw values as set, without the fallbacks applied by the size-based getters. */
+
+    int getXHeight() {
+        return xHeight;
+    }
+
+    int getUnderlinePosition() {
+        return underlinePosition;
+    }
+
+    int getUnderlineThickness() {
+        return underlineThickness;
+    }
+
+    int getStrikeoutPosition() {
+        return strikeoutPosition;
+    }
+
+    int getStrikeoutThickness() {
+        return strikeoutThickness;
+    }
+
     /**
      * Returns a Map of used Glyphs.
      * @return Map Map of used Glyphs
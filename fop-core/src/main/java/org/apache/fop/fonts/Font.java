@@ -80,6 +80,9 @@ public class Font implements Substitutable, Positionable {
 
     private final FontMetrics metric;
 
+    /** the shaping of the text runs done with this font, created when it is first needed */
+    private ShapingCache shapingCache;
+
     /**
      * Main constructor
      * @param key key of the font
@@ -102,6 +105,17 @@ public class Font implements Substitutable, Positionable {
         return this.metric;
     }
 
+    /**
+     * Returns the cache of the text runs shaped with this font.
+     * @return the shaping cache
+     */
+    public synchronized ShapingCache getShapingCache() {
+        if (shapingCache == null) {
+            shapingCache = new ShapingCache();
+        }
+        return shapingCache;
+    }
+
     /**
      * Determines whether the font is a multibyte font.
      * @return True if it is multibyte
@@ -49,13 +49,16 @@ public final class FontCacheManagerFactory {
         return new DisabledFontCacheManager();
     }
 
-    private static final class FontCacheManagerImpl implements FontCacheManager {
+    private static final class FontCacheManagerImpl
+            implements FontCacheManager, FontMetricsCacheProvider {
 
         /** Provides a font cache file path **/
         private File cacheFile;
 
         private FontCache fontCache;
 
+        private FontMetricsCache metricsCache;
+
         public FontCache load() {
             if (fontCache == null) {
                 fontCache = FontCache.loadFrom(getCacheFile(false));
@@ -66,14 +69,42 @@ public final class FontCacheManagerFactory {
             return fontCache;
         }
 
+        public synchronized FontMetricsCache loadMetrics() {
+            if (metricsCache == null) {
+                metricsCache = FontMetricsCache.loadFrom(
+                        FontMetricsCache.getMetricsCacheFile(getCacheFile(false)));
+            }
+            return metricsCache;
+        }
+
         public void save() throws FOPException {
             if (fontCache != null && fontCache.hasChanged()) {
                 fontCache.saveTo(getCacheFile(true));
             }
+            FontMetricsCache metrics;
+            synchronized (this) {
+                metrics = metricsCache;
+            }
+            if (metrics != null) {
+                metrics.save();
+            }
         }
 
         public void delete() throws FOPException {
-            if (!getCacheFile(true).delete()) {
+            File file = getCacheFile(true);
+            FontMetricsCache metrics;
+            synchronized (this) {
+                metrics = metricsCache;
+            }
+            //the metrics cache file isn't opened just to be deleted
+            File metricsFile = FontMetricsCache.getMetricsCacheFile(file);
+            boolean deleted = metrics != null ? metrics.delete()
+                    : !metricsFile.exists() || metricsFile.delete();
+            if (!deleted) {
+                throw new FOPException("Failed to flush the font metrics cache file '"
+                        + metricsFile + "'.");
+            }
+            if (!file.delete()) {
                 throw new FOPException("Failed to flush the font cache file '" + cacheFile + "'.");
             }
         }
@@ -85,8 +116,9 @@ public final class FontCacheManagerFactory {
             return FontCache.getDefaultCacheFile(forWriting);
         }
 
-        public void setCacheFile(URI fontCacheURI) {
+        public synchronized void setCacheFile(URI fontCacheURI) {
             cacheFile = new File(fontCacheURI);
+            metricsCache = null;
         }
     }
 
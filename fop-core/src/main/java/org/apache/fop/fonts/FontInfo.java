@@ -19,13 +19,20 @@
 
 package org.apache.fop.fonts;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -56,22 +63,32 @@ public class FontInfo {
     private Map<FontTriplet, Integer> tripletPriorities; //Map<FontTriplet,Integer>
 
     /** look up a font-name to get a font (that implements FontMetrics at least) */
-    private Map<String, Typeface> fonts; //(String = font key)
+    private ConcurrentMap<String, Typeface> fonts; //(String = font key)
 
     /** Cache for Font instances. */
-    private Map<FontTriplet, Map<Integer, Font>> fontInstanceCache;
+    private final ConcurrentMap<FontTriplet, ConcurrentMap<Integer, Font>> fontInstanceCache
+            = new ConcurrentHashMap<FontTriplet, ConcurrentMap<Integer, Font>>();
 
     /** Event listener for font events */
     private FontEventListener eventListener;
 
+    /** The shared font setup this instance is based on (may be null) */
+    private FontRegistry registry;
+
+    /** True while the triplet maps are still the registry's */
+    private boolean sharedTriplets;
+
+    /** True if the fonts are used by several threads at the same time */
+    private boolean concurrentAccess;
+
     /**
      * Main constructor
      */
     public FontInfo() {
         this.triplets = new HashMap<FontTriplet, String>();
         this.tripletPriorities = new HashMap<FontTriplet, Integer>();
-        this.fonts = new HashMap<String, Typeface>();
-        this.usedFonts = new HashMap<String, Typeface>();
+        this.fonts = new ConcurrentHashMap<String, Typeface>();
+        this.usedFonts = new ConcurrentHashMap<String, Typeface>();
     }
 
     /**
@@ -83,6 +100,35 @@ public class FontInfo {
         this.eventListener = listener;
     }
 
+    /**
+     * Indicates whether the fonts are used by several threads at the same time, when
+     * page-sequences are laid out concurrently. The lookups of this class are thread-safe
+     * anyway, but the fonts only synchronize the changes of their state if this is set.
+     * @param concurrentAccess true if several threads use the fonts at the same time
+     */
+    public void setConcurrentAccess(boolean concurrentAccess) {
+        this.concurrentAccess = concurrentAccess;
+        for (Typeface typeface : fonts.values()) {
+            typeface.setConcurrentAccess(concurrentAccess);
+        }
+    }
+
+    /**
+     * Bases this instance on a shared font setup instead of setting up the font collections.
+     * The triplets are shared with the registry until they are changed, fonts are instantiated
+     * for this document when they are first accessed.
+     * @param registry the font registry
+     */
+    public void setFontRegistry(FontRegistry registry) {
+        if (!triplets.isEmpty() || !fonts.isEmpty()) {
+            throw new IllegalStateException("The fonts have already been set up");
+        }
+        this.registry = registry;
+        this.triplets = registry.getTriplets();
+        this.tripletPriorities = registry.getTripletPriorities();
+        this.sharedTriplets = true;
+    }
+
     /**
      * Checks if the font setup is valid (At least the ultimate fallback font
      * must be registered.)
@@ -131,6 +177,13 @@ public class FontInfo {
         if (log.isDebugEnabled()) {
             log.debug("Registering: " + triplet + " under " + internalFontKey);
         }
+        if (sharedTriplets) {
+            triplets = new HashMap<FontTriplet, String>(triplets);
+            if (tripletPriorities != null) {
+                tripletPriorities = new HashMap<FontTriplet, Integer>(tripletPriorities);
+            }
+            sharedTriplets = false;
+        }
         String oldName = triplets.get(triplet);
         int newPriority = triplet.getPriority();
         if (oldName != null) {
@@ -161,9 +214,9 @@ public class FontInfo {
         if (log.isDebugEnabled()) {
             log.debug(triplet
                     + (replacing ? ": Replacing " : ": Not replacing ")
-                    + fonts.get(triplets.get(triplet)).getFullName()
+                    + getTypeface(triplets.get(triplet)).getFullName()
                     + " (priority=" + oldPriority + ") by "
-                    + fonts.get(newKey).getFullName()
+                    + getTypeface(newKey).getFullName()
                     + " (priority=" + newPriority + ")");
         }
     }
@@ -178,10 +231,33 @@ public class FontInfo {
 
         if (metrics instanceof Typeface) {
             ((Typeface)metrics).setEventListener(this.eventListener);
+            ((Typeface)metrics).setConcurrentAccess(concurrentAccess);
         }
         this.fonts.put(internalFontKey, (Typeface)metrics);
     }
 
+    /**
+     * Returns the font for an internal key, instantiating it from the registry if necessary.
+     */
+    private Typeface getTypeface(String internalFontKey) {
+        if (internalFontKey == null) {
+            return null;
+        }
+        Typeface typeface = fonts.get(internalFontKey);
+        if (typeface == null && registry != null) {
+            typeface = registry.newInstance(internalFontKey);
+            if (typeface != null) {
+                typeface.setEventListener(this.eventListener);
+                typeface.setConcurrentAccess(concurrentAccess);
+                Typeface other = fonts.putIfAbsent(internalFontKey, typeface);
+                if (other != null) {
+                    typeface = other;
+                }
+            }
+        }
+        return typeface;
+    }
+
     /**
      * Lookup a font.
      * <br>
@@ -281,14 +357,10 @@ public class FontInfo {
      * @param internalName the internal font name (F1, F2 etc.)
      */
     public void useFont(String internalName) {
-        usedFonts.put(internalName, fonts.get(internalName));
-    }
-
-    private Map<FontTriplet, Map<Integer, Font>> getFontInstanceCache() {
-        if (fontInstanceCache == null) {
-            fontInstanceCache = new HashMap<FontTriplet, Map<Integer, Font>>();
+        Typeface typeface = getTypeface(internalName);
+        if (typeface != null) {
+            usedFonts.put(internalName, typeface);
         }
-        return fontInstanceCache;
     }
 
     /**
@@ -299,10 +371,13 @@ public class FontInfo {
      * @return the requested Font instance
      */
     public Font getFontInstance(FontTriplet triplet, int fontSize) {
-        Map<Integer, Font> sizes = getFontInstanceCache().get(triplet);
+        ConcurrentMap<Integer, Font> sizes = fontInstanceCache.get(triplet);
         if (sizes == null) {
-            sizes = new HashMap<Integer, Font>();
-            getFontInstanceCache().put(triplet, sizes);
+            sizes = new ConcurrentHashMap<Integer, Font>();
+            ConcurrentMap<Integer, Font> other = fontInstanceCache.putIfAbsent(triplet, sizes);
+            if (other != null) {
+                sizes = other;
+            }
         }
         Integer size = fontSize;
         Font font = sizes.get(size);
@@ -311,7 +386,10 @@ public class FontInfo {
             useFont(fontKey);
             FontMetrics metrics = getMetricsFor(fontKey);
             font = new Font(fontKey, triplet, metrics, fontSize);
-            sizes.put(size, font);
+            Font other = sizes.putIfAbsent(size, font);
+            if (other != null) {
+                font = other;
+            }
         }
         return font;
     }
@@ -543,9 +621,16 @@ public class FontInfo {
      * @return a read-only Map with font key/FontMetrics pairs
      */
     public Map<String, Typeface> getFonts() {
+        if (registry != null) {
+            return new RegistryFontMap();
+        }
         return Collections.unmodifiableMap(this.fonts);
     }
 
+    Map<FontTriplet, Integer> getTripletPriorities() {
+        return this.tripletPriorities;
+    }
+
     /**
      * Gets a Map of all registered font triplets.
      * @return a Map with FontTriplet/font key pairs
@@ -570,8 +655,10 @@ public class FontInfo {
      * @return font metrics
      */
     public FontMetrics getMetricsFor(String fontName) {
-        Typeface metrics = fonts.get(fontName);
-        usedFonts.put(fontName, metrics);
+        Typeface metrics = getTypeface(fontName);
+        if (metrics != null) {
+            usedFonts.put(fontName, metrics);
+        }
         return metrics;
     }
 
@@ -656,4 +743,117 @@ public class FontInfo {
         }
         System.out.println(stringBuffer.toString());
     }
+
+    /**
+     * Read-only view of the fonts of a FontInfo based on a registry. Fonts are only instantiated
+     * when they are requested, iterating over the keys or entries doesn't instantiate them.
+     */
+    private final class RegistryFontMap extends AbstractMap<String, Typeface> {
+
+        private Set<String> getKeys() {
+            Set<String> keys = new LinkedHashSet<String>(registry.getFontKeys());
+            keys.addAll(fonts.keySet());
+            return keys;
+        }
+
+        @Override
+        public Typeface get(Object key) {
+            return (key instanceof String) ? getTypeface((String) key) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            if (!(key instanceof String)) {
+                return false;
+            }
+            return registry.hasFont((String) key) || fonts.containsKey(key);
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return Collections.unmodifiableSet(getKeys());
+        }
+
+        @Override
+        public int size() {
+            return getKeys().size();
+        }
+
+        @Override
+        public Set<Map.Entry<String, Typeface>> entrySet() {
+            final Set<String> keys = getKeys();
+            return new AbstractSet<Map.Entry<String, Typeface>>() {
+
+                @Override
+                public Iterator<Map.Entry<String, Typeface>> iterator() {
+                    final Iterator<String> iter = keys.iterator();
+                    return new Iterator<Map.Entry<String, Typeface>>() {
+
+                        public boolean hasNext() {
+                            return iter.hasNext();
+                        }
+
+                        public Map.Entry<String, Typeface> next() {
+                            return new LazyFontEntry(iter.next());
+                        }
+
+                        public void remove() {
+                            throw new UnsupportedOperationException();
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return keys.size();
+                }
+            };
+        }
+    }
+
+    /**
+     * Entry of a {@link RegistryFontMap} which instantiates its font when its value is requested.
+     */
+    private final class LazyFontEntry implements Map.Entry<String, Typeface> {
+
+        private final String key;
+
+        private LazyFontEntry(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public Typeface getValue() {
+            return getTypeface(key);
+        }
+
+        public Typeface setValue(Typeface value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> other = (Map.Entry<?, ?>) obj;
+            Typeface value = getValue();
+            return key.equals(other.getKey())
+                    && (value == null ? other.getValue() == null : value.equals(other.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            Typeface value = getValue();
+            return key.hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + getValue();
+        }
+    }
 }
@@ -20,7 +20,9 @@
 package org.apache.fop.fonts;
 
 import java.net.URI;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.io.InternalResourceResolver;
@@ -52,6 +54,9 @@ public class FontManager {
     /** FontTriplet matcher for fonts that shall be referenced rather than embedded. */
     private FontTriplet.Matcher referencedFontsMatcher;
 
+    /** Shared font setups by configuration key, a null value if the setup can't be shared */
+    private final Map<String, FontRegistry> fontRegistries = new HashMap<String, FontRegistry>();
+
     /**
      * Main constructor
      *
@@ -89,6 +94,7 @@ public class FontManager {
      */
     public void setBase14KerningEnabled(boolean value) {
         this.enableBase14Kerning = value;
+        clearFontRegistries();
     }
 
     /**
@@ -97,6 +103,7 @@ public class FontManager {
      */
     public void setFontSubstitutions(FontSubstitutions substitutions) {
         this.fontSubstitutions = substitutions;
+        clearFontRegistries();
     }
 
     /**
@@ -134,7 +141,22 @@ public class FontManager {
     }
 
     /**
-     * Saves the FontCache as necessary
+     * Returns the cache of font metrics used by this font manager.
+     * @return the font metrics cache or null if font caching is disabled or if the font cache
+     * manager doesn't keep one
+     */
+    public FontMetricsCache getFontMetricsCache() {
+        if (fontCacheManager instanceof FontMetricsCacheProvider) {
+            return ((FontMetricsCacheProvider) fontCacheManager).loadMetrics();
+        }
+        return null;
+    }
+
+    /**
+     * Saves the FontCache and the font metrics cache as necessary. This happens whenever fonts
+     * are configured; the metrics of the fonts loaded while documents are laid out are written
+     * the next time, so applications should call this method before they release the
+     * {@link org.apache.fop.apps.FopFactory}.
      *
      * @throws FOPException fop exception
      */
@@ -162,10 +184,50 @@ public class FontManager {
         for (FontCollection fontCollection : fontCollections) {
             startNum = fontCollection.setup(startNum, fontInfo);
         }
+        FontMetricsCache metricsCache = getFontMetricsCache();
+        if (metricsCache != null) {
+            for (Typeface font : fontInfo.getFonts().values()) {
+                if (font instanceof LazyFont) {
+                    ((LazyFont) font).setMetricsCache(metricsCache);
+                }
+            }
+        }
         // Make any defined substitutions in the font info
         getFontSubstitutions().adjustFontInfo(fontInfo);
     }
 
+    /**
+     * Returns the shared font setup registered for a configuration.
+     * @param key the key identifying the font configuration
+     * @return the font registry or null if there is none (yet)
+     */
+    public synchronized FontRegistry getFontRegistry(String key) {
+        return fontRegistries.get(key);
+    }
+
+    /**
+     * Indicates whether a font setup for a configuration has already been registered.
+     * @param key the key identifying the font configuration
+     * @return true if {@link #setFontRegistry(String, FontRegistry)} has been called for the key
+     */
+    public synchronized boolean hasFontRegistry(String key) {
+        return fontRegistries.containsKey(key);
+    }
+
+    /**
+     * Registers the shared font setup for a configuration.
+     * @param key the key identifying the font configuration
+     * @param registry the font registry or null if the fonts of this configuration cannot be
+     * shared between documents
+     */
+    public synchronized void setFontRegistry(String key, FontRegistry registry) {
+        fontRegistries.put(key, registry);
+    }
+
+    private synchronized void clearFontRegistries() {
+        fontRegistries.clear();
+    }
+
     /**
      * Sets the {@link FontTriplet.Matcher} that can be used to identify the fonts that shall
      * be referenced rather than embedded.
@@ -173,6 +235,7 @@ public class FontManager {
      */
     public void setReferencedFontsMatcher(FontTriplet.Matcher matcher) {
         this.referencedFontsMatcher = matcher;
+        clearFontRegistries();
     }
 
     /**
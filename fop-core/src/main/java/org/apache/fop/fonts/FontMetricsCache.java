@@ -0,0 +1,654 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.awt.Rectangle;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.apache.fop.apps.FOPException;
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.fonts.truetype.FontFileReader;
+import org.apache.fop.fonts.truetype.OFFontLoader;
+import org.apache.fop.fonts.truetype.OTFFile;
+import org.apache.fop.fonts.truetype.OpenFont;
+import org.apache.fop.fonts.truetype.TTFFile;
+import org.apache.fop.util.FileUtil;
+
+/**
+ * A persistent store for the metrics of TrueType and OpenType fonts (widths, glyph bounding
+ * boxes, character maps and kerning), so that those don't have to be parsed from the font
+ * files again in every new JVM. The store is a binary file which is memory-mapped when it is
+ * opened; only its index is read up front, the metrics of a font are decoded on first use.
+ * <p>
+ * Only fonts loaded as CID fonts from local files are stored. An entry is discarded when the
+ * last modification date or the size of the font file change. The advanced typographic tables
+ * (GDEF, GSUB, GPOS) aren't stored since they are complex object graphs; only whether a font
+ * has them is recorded, and they are read from the font file if needed.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class FontMetricsCache {
+
+    /** The file extension of metrics cache files. */
+    public static final String FILE_EXTENSION = ".metrics";
+
+    /** logging instance */
+    private static Log log = LogFactory.getLog(FontMetricsCache.class);
+
+    /** "FOPM" */
+    private static final int MAGIC = 0x464F504D;
+
+    /** Increase this whenever the layout of the file changes. */
+    private static final int VERSION = 1;
+
+    private static final String ENCODING = "UTF-8";
+
+    private static final int FLAG_OTF = 1;
+    private static final int FLAG_ADVANCED_CHECKED = 2;
+    private static final int FLAG_ADVANCED = 4;
+
+    private final File cacheFile;
+
+    /** The mapped cache file, null if there is none */
+    private ByteBuffer mappedFile;
+
+    private final Map<String, Entry> entries = new HashMap<String, Entry>();
+
+    private boolean changed;
+
+    private FontMetricsCache(File cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    /**
+     * Returns the metrics cache file that belongs to a font cache file.
+     * @param fontCacheFile the font cache file
+     * @return the metrics cache file in the same directory
+     */
+    public static File getMetricsCacheFile(File fontCacheFile) {
+        String name = fontCacheFile.getName();
+        int dot = name.lastIndexOf('.');
+        if (dot > 0) {
+            name = name.substring(0, dot);
+        }
+        return new File(fontCacheFile.getParentFile(), name + FILE_EXTENSION);
+    }
+
+    /**
+     * Opens the metrics cache stored in the given file. If the file doesn't exist or cannot be
+     * read, an empty cache is returned which will be saved to that file.
+     * @param cacheFile the cache file
+     * @return the metrics cache
+     */
+    public static FontMetricsCache loadFrom(File cacheFile) {
+        FontMetricsCache cache = new FontMetricsCache(cacheFile);
+        if (cacheFile.exists()) {
+            try {
+                cache.open();
+            } catch (IOException ioe) {
+                log.warn("I/O exception while reading font metrics cache ("
+                        + ioe.getMessage() + "). Discarding font metrics cache file.");
+                cache.entries.clear();
+                cache.mappedFile = null;
+                if (!cacheFile.delete()) {
+                    log.warn("Failed to delete font metrics cache file: "
+                            + cacheFile.getAbsolutePath());
+                }
+            }
+        }
+        return cache;
+    }
+
+    private void open() throws IOException {
+        FileInputStream in = new FileInputStream(cacheFile);
+        ByteBuffer buffer;
+        try {
+            FileChannel channel = in.getChannel();
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("File too large");
+            }
+            //the mapping stays valid after the channel has been closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a font metrics cache");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported version " + version);
+            }
+            int count = buffer.getInt();
+            Map<String, Entry> index = new HashMap<String, Entry>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String key = readString(buffer);
+                Entry entry = new Entry(buffer.getLong(), buffer.getLong());
+                entry.offset = buffer.getInt();
+                entry.length = buffer.getInt();
+                if (entry.offset < 0 || entry.length < 0
+                        || entry.offset > buffer.limit() - entry.length) {
+                    throw new IOException("Invalid entry: " + key);
+                }
+                index.put(key, entry);
+            }
+            entries.clear();
+            entries.putAll(index);
+            mappedFile = buffer;
+        } catch (RuntimeException re) {
+            //BufferUnderflowException etc.
+            throw new IOException("Corrupt font metrics cache: " + re);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Opened font metrics cache " + cacheFile + " with "
+                    + entries.size() + " entries");
+        }
+    }
+
+    /**
+     * Returns the font metrics cache file.
+     * @return the cache file
+     */
+    public File getCacheFile() {
+        return cacheFile;
+    }
+
+    /**
+     * Indicates whether the cache has been changed since it was opened or last saved.
+     * @return true if the cache needs saving
+     */
+    public synchronized boolean hasChanged() {
+        return changed;
+    }
+
+    /**
+     * Returns the number of fonts in the cache.
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Indicates whether a font can be stored in the cache.
+     * @param fontURI the URI of the font file
+     * @return true if it is a file the modification date of which can be checked
+     */
+    public static boolean isCacheable(URI fontURI) {
+        return fontURI != null && "file".equals(fontURI.getScheme()) && !fontURI.isOpaque();
+    }
+
+    private static String createKey(URI fontURI, String subFontName, boolean useKerning,
+            EmbeddingMode embeddingMode) {
+        StringBuilder sb = new StringBuilder(fontURI.toASCIIString());
+        sb.append('|').append(subFontName != null ? subFontName : "");
+        sb.append('|').append(useKerning);
+        sb.append('|').append(embeddingMode);
+        return sb.toString();
+    }
+
+    /**
+     * Creates a font from the cached metrics of an embedded CID font.
+     * @param fontURI the URI of the font file
+     * @param subFontName the name of the font in a TrueType collection (or null)
+     * @param embeddingMode the embedding mode
+     * @param useKerning true if kerning is enabled
+     * @param useAdvanced true if advanced typographic features are enabled
+     * @param simulateStyle true if font styles shall be simulated
+     * @param resourceResolver the resource resolver to access the font file
+     * @return the font or null if it isn't in the cache or the font file has changed
+     */
+    public MultiByteFont getFont(URI fontURI, String subFontName, EmbeddingMode embeddingMode,
+            boolean useKerning, boolean useAdvanced, boolean simulateStyle,
+            InternalResourceResolver resourceResolver) {
+        if (!isCacheable(fontURI)) {
+            return null;
+        }
+        String key = createKey(fontURI, subFontName, useKerning, embeddingMode);
+        ByteBuffer data;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (!entry.isValid(new File(fontURI))) {
+                entries.remove(key);
+                changed = true;
+                return null;
+            }
+            data = entry.getData(mappedFile);
+        }
+        try {
+            MultiByteFont font = decode(data, resourceResolver, embeddingMode);
+            font.setTTCName(subFontName);
+            font.setSimulateStyle(simulateStyle);
+            font.setFontURI(fontURI);
+            font.setEmbedURI(fontURI);
+            if (useAdvanced && hasAdvancedTables(data)) {
+                readAdvancedTypographicTables(font, fontURI, subFontName, resourceResolver);
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Font metrics for " + fontURI + " taken from cache");
+            }
+            return font;
+        } catch (IOException ioe) {
+            log.warn("Cannot use cached font metrics for " + fontURI + ": " + ioe.getMessage());
+            return null;
+        } catch (RuntimeException re) {
+            log.warn("Corrupt cached font metrics for " + fontURI + ": " + re.getMessage());
+            synchronized (this) {
+                entries.remove(key);
+                changed = true;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Stores the metrics of a font. Fonts which aren't plain CID fonts (like CFF fonts
+     * converted to Type 1) and fonts not loaded from a local file are ignored.
+     * @param fontURI the URI of the font file
+     * @param subFontName the name of the font in a TrueType collection (or null)
+     * @param embeddingMode the embedding mode
+     * @param useKerning true if kerning is enabled
+     * @param useAdvanced true if advanced typographic features were enabled when loading
+     * @param font the font as loaded from the font file
+     * @return true if the font has been stored
+     */
+    public boolean putFont(URI fontURI, String subFontName, EmbeddingMode embeddingMode,
+            boolean useKerning, boolean useAdvanced, CustomFont font) {
+        if (!isCacheable(fontURI) || !isEncodable(font)) {
+            return false;
+        }
+        File file = new File(fontURI);
+        Entry entry = new Entry(file.lastModified(), file.length());
+        try {
+            entry.data = encode((MultiByteFont) font, useAdvanced);
+        } catch (IOException ioe) {
+            //Should never happen with an in-memory stream
+            log.warn("Cannot cache font metrics for " + fontURI + ": " + ioe.getMessage());
+            return false;
+        }
+        synchronized (this) {
+            entries.put(createKey(fontURI, subFontName, useKerning, embeddingMode), entry);
+            changed = true;
+        }
+        return true;
+    }
+
+    /**
+     * Writes the cache to its file if it has been changed. The new file is written next to the
+     * old one and then renamed onto it (see {@link FileUtil#replace(File, File)}), so the cache
+     * file can be shared by several processes.
+     * @throws FOPException if the cache cannot be written
+     */
+    public synchronized void save() throws FOPException {
+        if (!changed) {
+            return;
+        }
+        File dir = cacheFile.getAbsoluteFile().getParentFile();
+        File tempFile = null;
+        try {
+            if (dir != null && !dir.exists() && !dir.mkdirs()) {
+                throw new IOException("Cannot create directory " + dir);
+            }
+            tempFile = File.createTempFile("fop-metrics", ".tmp", dir);
+            OutputStream out = new BufferedOutputStream(new FileOutputStream(tempFile));
+            try {
+                write(out);
+            } finally {
+                IOUtils.closeQuietly(out);
+            }
+            //the old file mustn't be mapped anymore when it is replaced
+            releaseMappedFile();
+            FileUtil.replace(tempFile, cacheFile);
+            tempFile = null;
+            changed = false;
+            open();
+            log.trace("Font metrics cache file written.");
+        } catch (IOException ioe) {
+            throw new FOPException("Failed to write the font metrics cache file '"
+                    + cacheFile + "': " + ioe.getMessage(), ioe);
+        } finally {
+            if (tempFile != null && !tempFile.delete()) {
+                tempFile.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Copies the metrics still stored in the mapped file to memory and drops the mapping.
+     */
+    private void releaseMappedFile() {
+        if (mappedFile == null) {
+            return;
+        }
+        for (Entry entry : entries.values()) {
+            if (entry.data == null) {
+                ByteBuffer data = entry.getData(mappedFile);
+                entry.data = new byte[data.remaining()];
+                data.get(entry.data);
+            }
+        }
+        mappedFile = null;
+    }
+
+    private void write(OutputStream out) throws IOException {
+        Map<byte[], Entry> valid = new LinkedHashMap<byte[], Entry>();
+        int indexLength = 12;
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            Entry entry = e.getValue();
+            if (entry.data == null && !entry.isValid(new File(URI.create(getURI(e.getKey()))))) {
+                continue;
+            }
+            byte[] key = e.getKey().getBytes(ENCODING);
+            valid.put(key, entry);
+            indexLength += 4 + key.length + 8 + 8 + 4 + 4;
+        }
+        DataOutputStream dout = new DataOutputStream(out);
+        dout.writeInt(MAGIC);
+        dout.writeInt(VERSION);
+        dout.writeInt(valid.size());
+        int offset = indexLength;
+        for (Map.Entry<byte[], Entry> e : valid.entrySet()) {
+            Entry entry = e.getValue();
+            dout.writeInt(e.getKey().length);
+            dout.write(e.getKey());
+            dout.writeLong(entry.lastModified);
+            dout.writeLong(entry.fileLength);
+            dout.writeInt(offset);
+            dout.writeInt(entry.getLength());
+            offset += entry.getLength();
+        }
+        for (Entry entry : valid.values()) {
+            if (entry.data != null) {
+                dout.write(entry.data);
+            } else {
+                ByteBuffer data = entry.getData(mappedFile);
+                byte[] buf = new byte[data.remaining()];
+                data.get(buf);
+                dout.write(buf);
+            }
+        }
+        dout.flush();
+    }
+
+    private static String getURI(String key) {
+        return key.substring(0, key.indexOf('|'));
+    }
+
+    /**
+     * Deletes the cache file.
+     * @return true if the file has been deleted or didn't exist
+     */
+    public synchronized boolean delete() {
+        entries.clear();
+        mappedFile = null;
+        changed = false;
+        return !cacheFile.exists() || cacheFile.delete();
+    }
+
+    /**
+     * Indicates whether the metrics of a font can be stored: only plain CID fonts can.
+     * @param font the font
+     * @return true if the font can be encoded
+     */
+    static boolean isEncodable(CustomFont font) {
+        return font.getClass() == MultiByteFont.class && font.getFontType() == FontType.TYPE0;
+    }
+
+    static byte[] encode(MultiByteFont font, boolean useAdvanced) throws IOException {
+        ByteArrayOutputStream baout = new ByteArrayOutputStream(1024);
+        DataOutputStream out = new DataOutputStream(baout);
+        int flags = font.isOTFFile() ? FLAG_OTF : 0;
+        if (useAdvanced) {
+            flags |= FLAG_ADVANCED_CHECKED;
+            if (font.getGDEF() != null || font.getGSUB() != null || font.getGPOS() != null) {
+                flags |= FLAG_ADVANCED;
+            }
+        }
+        out.writeInt(flags);
+        writeString(out, font.getFontName());
+        writeString(out, font.getFullName());
+        Set<String> familyNames = font.getFamilyNames();
+        out.writeInt(familyNames.size());
+        for (String familyName : familyNames) {
+            writeString(out, familyName);
+        }
+        writeString(out, font.getFontSubName());
+        out.writeInt(font.getCapHeight());
+        out.writeInt(font.getXHeight());
+        out.writeInt(font.getAscender());
+        out.writeInt(font.getDescender());
+        int[] bbox = font.getFontBBox();
+        for (int i = 0; i < 4; i++) {
+            out.writeInt(bbox[i]);
+        }
+        out.writeInt(font.getUnderlinePosition());
+        out.writeInt(font.getUnderlineThickness());
+        out.writeInt(font.getStrikeoutPosition());
+        out.writeInt(font.getStrikeoutThickness());
+        out.writeInt(font.getFlags());
+        out.writeInt(font.getWeight());
+        out.writeInt(font.getStemV());
+        out.writeInt(font.getItalicAngle());
+        out.writeInt(font.getMissingWidth());
+
+        int[] widths = font.getWidths();
+        out.writeInt(widths.length);
+        for (int width : widths) {
+            out.writeInt(width);
+        }
+        Rectangle[] boxes = font.getBBoxArray();
+        int boxCount = boxes != null ? boxes.length : 0;
+        out.writeInt(boxCount);
+        for (int i = 0; i < boxCount; i++) {
+            out.writeInt(boxes[i].x);
+            out.writeInt(boxes[i].y);
+            out.writeInt(boxes[i].width);
+            out.writeInt(boxes[i].height);
+        }
+        CMapSegment[] cmap = font.getCMap();
+        out.writeInt(cmap.length);
+        for (CMapSegment segment : cmap) {
+            out.writeInt(segment.getUnicodeStart());
+            out.writeInt(segment.getUnicodeEnd());
+            out.writeInt(segment.getGlyphStartIndex());
+        }
+        Map<Integer, Map<Integer, Integer>> kerning = font.getKerningInfo();
+        out.writeInt(kerning.size());
+        for (Map.Entry<Integer, Map<Integer, Integer>> e : kerning.entrySet()) {
+            out.writeInt(e.getKey());
+            out.writeInt(e.getValue().size());
+            for (Map.Entry<Integer, Integer> pair : e.getValue().entrySet()) {
+                out.writeInt(pair.getKey());
+                out.writeInt(pair.getValue());
+            }
+        }
+        out.flush();
+        return baout.toByteArray();
+    }
+
+    private static boolean hasAdvancedTables(ByteBuffer data) {
+        //Fonts stored without advanced features enabled have to be checked
+        int flags = data.getInt(0);
+        return (flags & FLAG_ADVANCED) != 0 || (flags & FLAG_ADVANCED_CHECKED) == 0;
+    }
+
+    static MultiByteFont decode(ByteBuffer in, InternalResourceResolver resourceResolver,
+            EmbeddingMode embeddingMode) throws IOException {
+        ByteBuffer data = in.duplicate();
+        MultiByteFont font = new MultiByteFont(resourceResolver,
+                embeddingMode == EmbeddingMode.AUTO ? EmbeddingMode.SUBSET : embeddingMode);
+        int flags = data.getInt();
+        boolean otf = (flags & FLAG_OTF) != 0;
+        font.setIsOTFFile(otf);
+        font.setCIDType(otf ? CIDFontType.CIDTYPE0 : CIDFontType.CIDTYPE2);
+        font.setFontName(readString(data));
+        font.setFullName(readString(data));
+        int familyCount = data.getInt();
+        Set<String> familyNames = new LinkedHashSet<String>();
+        for (int i = 0; i < familyCount; i++) {
+            familyNames.add(readString(data));
+        }
+        font.setFamilyNames(familyNames);
+        font.setFontSubFamilyName(readString(data));
+        font.setCapHeight(data.getInt());
+        font.setXHeight(data.getInt());
+        font.setAscender(data.getInt());
+        font.setDescender(data.getInt());
+        int[] bbox = new int[4];
+        for (int i = 0; i < 4; i++) {
+            bbox[i] = data.getInt();
+        }
+        font.setFontBBox(bbox);
+        font.setUnderlinePosition(data.getInt());
+        font.setUnderlineThickness(data.getInt());
+        font.setStrikeoutPosition(data.getInt());
+        font.setStrikeoutThickness(data.getInt());
+        font.setFlags(data.getInt());
+        font.setWeight(data.getInt());
+        font.setStemV(data.getInt());
+        font.setItalicAngle(data.getInt());
+        font.setMissingWidth(data.getInt());
+
+        int[] widths = new int[data.getInt()];
+        data.asIntBuffer().get(widths);
+        data.position(data.position() + widths.length * 4);
+        font.setWidthArray(widths);
+        Rectangle[] boxes = new Rectangle[data.getInt()];
+        for (int i = 0; i < boxes.length; i++) {
+            boxes[i] = new Rectangle(data.getInt(), data.getInt(), data.getInt(), data.getInt());
+        }
+        font.setBBoxArray(boxes);
+        CMapSegment[] cmap = new CMapSegment[data.getInt()];
+        for (int i = 0; i < cmap.length; i++) {
+            cmap[i] = new CMapSegment(data.getInt(), data.getInt(), data.getInt());
+        }
+        font.setCMap(cmap);
+        int kerningCount = data.getInt();
+        for (int i = 0; i < kerningCount; i++) {
+            Integer first = data.getInt();
+            int pairCount = data.getInt();
+            Map<Integer, Integer> pairs = new HashMap<Integer, Integer>(pairCount * 2);
+            for (int j = 0; j < pairCount; j++) {
+                pairs.put(data.getInt(), data.getInt());
+            }
+            font.putKerningEntry(first, pairs);
+        }
+        return font;
+    }
+
+    private static void readAdvancedTypographicTables(MultiByteFont font, URI fontURI,
+            String subFontName, InternalResourceResolver resourceResolver) throws IOException {
+        InputStream in = resourceResolver.getResource(fontURI);
+        try {
+            FontFileReader reader = new FontFileReader(in);
+            String header = OFFontLoader.readHeader(reader);
+            OpenFont otf = "OTTO".equals(header) ? new OTFFile(false, true) : new TTFFile(false, true);
+            otf.readAdvancedTypographicTables(reader, header, subFontName);
+            font.setGDEF(otf.getGDEF());
+            font.setGSUB(otf.getGSUB());
+            font.setGPOS(otf.getGPOS());
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = s.getBytes(ENCODING);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(ByteBuffer in) throws UnsupportedEncodingException {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, ENCODING);
+    }
+
+    /** A font in the cache, either mapped from the cache file or newly added. */
+    private static final class Entry {
+
+        private final long lastModified;
+
+        private final long fileLength;
+
+        private int offset;
+
+        private int length;
+
+        /** The encoded metrics of a font that isn't in the cache file yet */
+        private byte[] data;
+
+        Entry(long lastModified, long fileLength) {
+            this.lastModified = lastModified;
+            this.fileLength = fileLength;
+        }
+
+        boolean isValid(File fontFile) {
+            return fontFile.lastModified() == lastModified && fontFile.length() == fileLength;
+        }
+
+        int getLength() {
+            return data != null ? data.length : length;
+        }
+
+        ByteBuffer getData(ByteBuffer mappedFile) {
+            if (data != null) {
+                return ByteBuffer.wrap(data);
+            }
+            ByteBuffer buffer = mappedFile.duplicate();
+            buffer.position(offset);
+            buffer.limit(offset + length);
+            return buffer.slice();
+        }
+    }
+}
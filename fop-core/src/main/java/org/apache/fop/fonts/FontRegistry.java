@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable snapshot of a complete font setup (the font triplets and the fonts registered
+ * under each internal font key) which can be shared by all documents rendered with the same
+ * configuration. A {@link FontInfo} based on a registry only creates its own instances of the
+ * fonts it actually uses, so the font collections don't have to be set up for every document.
+ * <p>
+ * The registry holds unused prototypes of the fonts; the document's instances are created
+ * with {@link Typeface#newInstance()}. Instances of this class are thread-safe.
+ */
+public final class FontRegistry {
+
+    private final Map<FontTriplet, String> triplets;
+
+    private final Map<FontTriplet, Integer> tripletPriorities;
+
+    private final Map<String, Typeface> fonts;
+
+    private FontRegistry(Map<FontTriplet, String> triplets,
+            Map<FontTriplet, Integer> tripletPriorities, Map<String, Typeface> fonts) {
+        this.triplets = Collections.unmodifiableMap(triplets);
+        this.tripletPriorities = Collections.unmodifiableMap(tripletPriorities);
+        this.fonts = Collections.unmodifiableMap(fonts);
+    }
+
+    /**
+     * Creates a registry from a font setup. The given {@link FontInfo} is left untouched and can
+     * still be used for the document it has been set up for.
+     * @param fontInfo a fully set up font info object
+     * @return the registry or null if one of the fonts cannot be shared between documents
+     */
+    public static FontRegistry create(FontInfo fontInfo) {
+        Map<String, Typeface> prototypes = new HashMap<String, Typeface>();
+        for (Map.Entry<String, Typeface> entry : fontInfo.getFonts().entrySet()) {
+            Typeface prototype = entry.getValue().newInstance();
+            if (prototype == null) {
+                return null;
+            }
+            prototypes.put(entry.getKey(), prototype);
+        }
+        Map<FontTriplet, Integer> priorities = fontInfo.getTripletPriorities();
+        return new FontRegistry(new HashMap<FontTriplet, String>(fontInfo.getFontTriplets()),
+                priorities != null ? new HashMap<FontTriplet, Integer>(priorities)
+                        : new HashMap<FontTriplet, Integer>(), prototypes);
+    }
+
+    Map<FontTriplet, String> getTriplets() {
+        return triplets;
+    }
+
+    Map<FontTriplet, Integer> getTripletPriorities() {
+        return tripletPriorities;
+    }
+
+    /**
+     * Returns the internal keys of all fonts in the registry.
+     * @return the font keys
+     */
+    public Set<String> getFontKeys() {
+        return fonts.keySet();
+    }
+
+    /**
+     * Indicates whether the registry contains a font for an internal font key.
+     * @param fontKey the internal font key
+     * @return true if there is such a font
+     */
+    public boolean hasFont(String fontKey) {
+        return fonts.containsKey(fontKey);
+    }
+
+    /**
+     * Creates a new instance of a font for use in a single document.
+     * @param fontKey the internal font key
+     * @return the new font instance or null if there is no such font
+     */
+    Typeface newInstance(String fontKey) {
+        Typeface prototype = fonts.get(fontKey);
+        return prototype != null ? prototype.newInstance() : null;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A cache of the font subsets embedded in documents, shared by all the documents produced with
+ * a {@link org.apache.fop.apps.FopFactory}. The subsets are keyed by the font file and the exact
+ * set of glyphs used: documents using the same glyphs of a font (which is common for documents
+ * produced from the same template) then embed an already built subset, without reading the font
+ * file again. The cache is bounded by the total size of its entries; when it is full, the least
+ * recently used entries are dropped.
+ * <p>
+ * The subsets are cached by the URI of the font file, so {@link #clear()} should be called if
+ * the font files are changed at runtime.
+ * <p>
+ * This class is thread-safe.
+ * <p>
+ * Note: this class should not be considered as part of FOP's external API.
+ */
+public class FontSubsetCache {
+
+    /** The default maximum total size of the entries, in bytes */
+    public static final long DEFAULT_MAX_SIZE = 16L * 1024 * 1024;
+
+    private final long maxSize;
+
+    private final Map<String, byte[]> entries = new LinkedHashMap<String, byte[]>(16, 0.75f, true);
+
+    private long size;
+
+    private long hitCount;
+
+    private long missCount;
+
+    /**
+     * Creates a cache holding at most {@link #DEFAULT_MAX_SIZE} bytes.
+     */
+    public FontSubsetCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a cache.
+     * @param maxSize the maximum total size of the entries, in bytes
+     */
+    public FontSubsetCache(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Creates the key of a font subset.
+     * @param font the font
+     * @param embeddedName the name of the font in the subset, if the subset contains it
+     * @param usedGlyphs the glyphs of the subset (original glyph index to subset glyph index)
+     * @return the key, or null if the subset can't be cached since the font has no file
+     */
+    public static String createSubsetKey(MultiByteFont font, String embeddedName,
+            Map<Integer, Integer> usedGlyphs) {
+        if (font.getEmbedFileURI() == null) {
+            return null;
+        }
+        List<Map.Entry<Integer, Integer>> glyphs
+                = new ArrayList<Map.Entry<Integer, Integer>>(usedGlyphs.entrySet());
+        Collections.sort(glyphs, new Comparator<Map.Entry<Integer, Integer>>() {
+            public int compare(Map.Entry<Integer, Integer> e1, Map.Entry<Integer, Integer> e2) {
+                return e1.getValue().compareTo(e2.getValue());
+            }
+        });
+        StringBuilder key = new StringBuilder();
+        key.append(font.getEmbedFileURI()).append('\n').append(font.getTTCName())
+                .append('\n').append(embeddedName).append('\n');
+        for (Map.Entry<Integer, Integer> glyph : glyphs) {
+            key.append(glyph.getKey()).append(',');
+        }
+        return key.toString();
+    }
+
+    /**
+     * Returns a font subset. The returned array is shared and must not be modified.
+     * @param key the key of the subset
+     * @return the subset, or null if it isn't in the cache
+     */
+    public synchronized byte[] getSubset(String key) {
+        byte[] subset = entries.get(key);
+        if (subset == null) {
+            missCount++;
+        } else {
+            hitCount++;
+        }
+        return subset;
+    }
+
+    /**
+     * Stores a font subset. The array must not be modified once it is in the cache.
+     * @param key the key of the subset
+     * @param subset the subset
+     */
+    public synchronized void putSubset(String key, byte[] subset) {
+        if (subset.length > maxSize) {
+            return;
+        }
+        byte[] previous = entries.put(key, subset);
+        if (previous != null) {
+            size -= previous.length;
+        }
+        size += subset.length;
+        Iterator<byte[]> iter = entries.values().iterator();
+        while (size > maxSize) {
+            size -= iter.next().length;
+            iter.remove();
+        }
+    }
+
+    /** @return the maximum total size of the entries, in bytes */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /** @return the number of subsets in the cache */
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /** @return the total size of the subsets in the cache, in bytes */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /** @return the number of lookups which found the subset in the cache */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /** @return the number of lookups which didn't find the subset in the cache */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Removes all the subsets from the cache.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        size = 0;
+    }
+}
@@ -124,6 +124,31 @@ public class GlyphMapping {
             language = "dflt";
         }
 
+        // 3. to 6. unless the same run has already been processed with this font,
+        // map, position and measure its characters.
+        ShapingCache shapingCache = font.getShapingCache();
+        String icsString = ics.toString();
+        ShapingCache.ShapedRun run = shapingCache.get(icsString, script, language,
+                retainAssociations, retainControls);
+        if (run == null) {
+            run = shape(ics, font, script, language, retainAssociations, retainControls);
+            shapingCache.put(icsString, script, language, retainAssociations, retainControls, run);
+        }
+        CharSequence mcs = run.getMappedText();
+        int[][] gpa = run.copyAdjustments();
+        List associations = run.copyAssociations();
+        MinOptMax ipd = run.getIPD();
+
+        // [TBD] - handle letter spacing
+
+        return new GlyphMapping(startIndex, e, 0, nLS, ipd, endsWithHyphen, false,
+                breakOpportunityChar != 0, font, level, gpa,
+                !dontOptimizeForIdentityMapping && CharUtilities.isSameSequence(mcs, ics) ? null : mcs.toString(),
+                associations);
+    }
+
+    private static ShapingCache.ShapedRun shape(CharSequence ics, final Font font, String script,
+            String language, boolean retainAssociations, boolean retainControls) {
         // 3. perform mapping of chars to glyphs ... to glyphs ... to chars, retaining
         // associations if requested.
         List associations = retainAssociations ? new java.util.ArrayList() : null;
@@ -158,13 +183,7 @@ public class GlyphMapping {
             }
             ipd = ipd.plus(w);
         }
-
-        // [TBD] - handle letter spacing
-
-        return new GlyphMapping(startIndex, e, 0, nLS, ipd, endsWithHyphen, false,
-                breakOpportunityChar != 0, font, level, gpa,
-                !dontOptimizeForIdentityMapping && CharUtilities.isSameSequence(mcs, ics) ? null : mcs.toString(),
-                associations);
+        return new ShapingCache.ShapedRun(mcs.toString(), gpa, associations, ipd);
     }
 
     private static boolean useKerningAdjustments(final Font font, String script, String language) {
@@ -54,8 +54,11 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
     private final String subFontName;
     private final boolean embedded;
     private final InternalResourceResolver resourceResolver;
+    private FontMetricsCache metricsCache;
+    /** The metrics shared with the instances created by {@link #newInstance()} */
+    private final SharedFontMetrics sharedMetrics;
 
-    private boolean isMetricsLoaded;
+    private volatile boolean isMetricsLoaded;
     private Typeface realFont;
     private FontDescriptor realFontDescriptor;
 
@@ -83,6 +86,49 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
         this.subFontName = fontInfo.getSubFontName();
         this.embedded = fontInfo.isEmbedded();
         this.resourceResolver = resourceResolver;
+        this.sharedMetrics = new SharedFontMetrics();
+    }
+
+    private LazyFont(LazyFont template) {
+        this.fontUris = template.fontUris;
+        this.useKerning = template.useKerning;
+        this.useAdvanced = template.useAdvanced;
+        this.simulateStyle = template.simulateStyle;
+        this.embedAsType1 = template.embedAsType1;
+        this.encodingMode = template.encodingMode;
+        this.embeddingMode = template.embeddingMode;
+        this.subFontName = template.subFontName;
+        this.embedded = template.embedded;
+        this.resourceResolver = template.resourceResolver;
+        this.metricsCache = template.metricsCache;
+        this.sharedMetrics = template.sharedMetrics;
+    }
+
+    /**
+     * {@inheritDoc} The new instance doesn't parse the font file again if this font or another
+     * instance has already loaded a CID font; it takes the metrics over instead.
+     */
+    @Override
+    public synchronized Typeface newInstance() {
+        return new LazyFont(this);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized void setConcurrentAccess(boolean concurrentAccess) {
+        super.setConcurrentAccess(concurrentAccess);
+        if (realFont != null) {
+            realFont.setConcurrentAccess(concurrentAccess);
+        }
+    }
+
+    /**
+     * Sets the cache the metrics of the font are taken from (and stored into if necessary)
+     * instead of parsing the font file each time.
+     * @param metricsCache the font metrics cache (may be null)
+     */
+    public synchronized void setMetricsCache(FontMetricsCache metricsCache) {
+        this.metricsCache = metricsCache;
     }
 
     /** {@inheritDoc} */
@@ -98,6 +144,13 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
     }
 
     private void load(boolean fail) {
+        // checked without locking first, as every method of the font loads it
+        if (!isMetricsLoaded) {
+            loadMetrics(fail);
+        }
+    }
+
+    private synchronized void loadMetrics(boolean fail) {
         if (!isMetricsLoaded) {
             try {
                 if (fontUris.getMetrics() != null) {
@@ -118,8 +171,27 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
                     if (fontUris.getEmbed() == null) {
                         throw new RuntimeException("Cannot load font. No font URIs available.");
                     }
-                    realFont = FontLoader.loadFont(fontUris, subFontName, embedded, embeddingMode,
+                    boolean cacheable = isMetricsCacheable();
+                    if (isMetricsShareable()) {
+                        realFont = sharedMetrics.newFont(fontUris.getEmbed(), subFontName, embeddingMode,
+                                simulateStyle, resourceResolver);
+                    }
+                    if (realFont == null && cacheable) {
+                        realFont = metricsCache.getFont(fontUris.getEmbed(), subFontName, embeddingMode,
+                                useKerning, useAdvanced, simulateStyle, resourceResolver);
+                    }
+                    if (realFont == null) {
+                        CustomFont font = FontLoader.loadFont(fontUris, subFontName, embedded, embeddingMode,
                                 encodingMode, useKerning, useAdvanced, resourceResolver, simulateStyle, embedAsType1);
+                        if (cacheable) {
+                            metricsCache.putFont(fontUris.getEmbed(), subFontName, embeddingMode, useKerning,
+                                    useAdvanced, font);
+                        }
+                        realFont = font;
+                    }
+                    if (isMetricsShareable()) {
+                        sharedMetrics.setFont((CustomFont) realFont);
+                    }
                 }
                 if (realFont instanceof FontDescriptor) {
                     realFontDescriptor = (FontDescriptor) realFont;
@@ -136,10 +208,27 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
                 }
             }
             realFont.setEventListener(this.eventListener);
+            realFont.setConcurrentAccess(isConcurrentAccess());
             isMetricsLoaded = true;
         }
     }
 
+    /**
+     * Only embedded CID fonts are shared between instances; {@link SharedFontMetrics} checks
+     * the rest.
+     */
+    private boolean isMetricsShareable() {
+        return embedded && !embedAsType1 && encodingMode != EncodingMode.SINGLE_BYTE;
+    }
+
+    /**
+     * Only embedded CID fonts are held in the metrics cache; the cache checks the rest.
+     */
+    private boolean isMetricsCacheable() {
+        return metricsCache != null && isMetricsShareable()
+                && FontMetricsCache.isCacheable(fontUris.getEmbed());
+    }
+
     /**
      * Gets the real font.
      * @return the real font
@@ -80,6 +80,7 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
     private boolean isOTFFile;
 
     // since for most users the most likely glyphs are in the first cmap segments we store their mapping.
+    // Threads racing to fill in an entry store the same value.
     private static final int NUM_MOST_LIKELY_GLYPHS = 256;
     private int[] mostLikelyGlyphs = new int[NUM_MOST_LIKELY_GLYPHS];
 
@@ -266,7 +267,12 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
      * @param gi glyph index
      * @returns unicode scalar value
      */
-    private int createPrivateUseMapping(int gi) {
+    private synchronized int createPrivateUseMapping(int gi) {
+        // another thread may have created the mapping in the meantime
+        int mapped = findCharacterFromGlyphIndex(gi, false);
+        if (mapped != 0) {
+            return mapped;
+        }
         while ((nextPrivateUse < 0xF900)
                 && (findGlyphIndex(nextPrivateUse) != SingleByteEncoding.NOT_FOUND_CODE_POINT)) {
             nextPrivateUse++;
@@ -360,6 +366,15 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
     /** {@inheritDoc} */
     @Override
     public char mapChar(char c) {
+        if (isConcurrentAccess()) {
+            synchronized (this) {
+                return doMapChar(c);
+            }
+        }
+        return doMapChar(c);
+    }
+
+    private char doMapChar(char c) {
         notifyMapOperation();
         int glyphIndex = findGlyphIndex(c);
         if (glyphIndex == SingleByteEncoding.NOT_FOUND_CODE_POINT) {
@@ -423,6 +438,14 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
         this.boundingBoxes = boundingBoxes;
     }
 
+    /**
+     * Returns the bounding boxes array (not a copy).
+     * @return array of bounding boxes
+     */
+    Rectangle[] getBBoxArray() {
+        return boundingBoxes;
+    }
+
     /**
      * Returns a Map of used Glyphs.
      * @return Map Map of used Glyphs
@@ -437,6 +460,11 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
      * @return The character
      */
     public char getUnicodeFromGID(int glyphIndex) {
+        if (isConcurrentAccess()) {
+            synchronized (this) {
+                return cidSet.getUnicodeFromGID(glyphIndex);
+            }
+        }
         return cidSet.getUnicodeFromGID(glyphIndex);
     }
 
@@ -446,6 +474,11 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
      * @return The glyph index in the font
      */
     public int getGIDFromChar(char ch) {
+        if (isConcurrentAccess()) {
+            synchronized (this) {
+                return cidSet.getGIDFromChar(ch);
+            }
+        }
         return cidSet.getGIDFromChar(ch);
     }
 
@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.fop.traits.MinOptMax;
+
+/**
+ * A cache of the shaping of text runs with a given {@link Font}: the glyph substitution, the
+ * glyph positioning (or kerning) adjustments and the resulting width. Text which is repeated
+ * (column headers, amounts, static content laid out on every page) is then only shaped once.
+ * The runs are keyed by their text, script and language; when the cache is full, the least
+ * recently used run is dropped.
+ * <p>
+ * This class is thread-safe.
+ * <p>
+ * Note: this class should not be considered as part of FOP's external API.
+ */
+public final class ShapingCache {
+
+    /** The default maximum number of runs kept in the cache */
+    public static final int DEFAULT_MAX_RUNS = 1024;
+
+    private final Map<RunKey, ShapedRun> runs;
+
+    private long hitCount;
+
+    private long missCount;
+
+    /**
+     * Creates a cache holding at most {@link #DEFAULT_MAX_RUNS} runs.
+     */
+    public ShapingCache() {
+        this(DEFAULT_MAX_RUNS);
+    }
+
+    /**
+     * Creates a cache.
+     * @param maxRuns the maximum number of runs kept in the cache
+     */
+    public ShapingCache(final int maxRuns) {
+        this.runs = new LinkedHashMap<RunKey, ShapedRun>(64, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<RunKey, ShapedRun> eldest) {
+                return size() > maxRuns;
+            }
+        };
+    }
+
+    /**
+     * Returns the shaping of a run of text, if it is in the cache.
+     * @param text the unmapped text
+     * @param script the script of the text
+     * @param language the language of the text
+     * @param retainAssociations whether character associations were retained
+     * @param retainControls whether control characters were retained
+     * @return the shaped run or null
+     */
+    ShapedRun get(String text, String script, String language, boolean retainAssociations,
+            boolean retainControls) {
+        RunKey key = new RunKey(text, script, language, retainAssociations, retainControls);
+        synchronized (runs) {
+            ShapedRun run = runs.get(key);
+            if (run != null) {
+                hitCount++;
+            } else {
+                missCount++;
+            }
+            return run;
+        }
+    }
+
+    /**
+     * Stores the shaping of a run of text.
+     * @param text the unmapped text
+     * @param script the script of the text
+     * @param language the language of the text
+     * @param retainAssociations whether character associations were retained
+     * @param retainControls whether control characters were retained
+     * @param run the shaped run
+     */
+    void put(String text, String script, String language, boolean retainAssociations,
+            boolean retainControls, ShapedRun run) {
+        RunKey key = new RunKey(text, script, language, retainAssociations, retainControls);
+        synchronized (runs) {
+            runs.put(key, run);
+        }
+    }
+
+    /**
+     * Returns the number of runs in the cache.
+     * @return the number of runs
+     */
+    public int size() {
+        synchronized (runs) {
+            return runs.size();
+        }
+    }
+
+    /** @return the number of lookups which found the run in the cache */
+    public long getHitCount() {
+        synchronized (runs) {
+            return hitCount;
+        }
+    }
+
+    /** @return the number of lookups which didn't find the run in the cache */
+    public long getMissCount() {
+        synchronized (runs) {
+            return missCount;
+        }
+    }
+
+    /**
+     * The result of shaping a run of text. The adjustments and associations are copied when
+     * they are handed out, since their users may modify them (for instance when reversing
+     * right-to-left words).
+     */
+    static final class ShapedRun {
+
+        private final String mappedText;
+
+        private final int[][] adjustments;
+
+        private final List associations;
+
+        private final MinOptMax ipd;
+
+        /**
+         * @param mappedText the text after glyph substitution and mark reordering
+         * @param adjustments the glyph position adjustments or null
+         * @param associations the character associations or null
+         * @param ipd the width of the run
+         */
+        ShapedRun(String mappedText, int[][] adjustments, List associations, MinOptMax ipd) {
+            this.mappedText = mappedText;
+            this.adjustments = adjustments;
+            this.associations = associations;
+            this.ipd = ipd;
+        }
+
+        String getMappedText() {
+            return mappedText;
+        }
+
+        int[][] copyAdjustments() {
+            if (adjustments == null) {
+                return null;
+            }
+            int[][] copy = new int[adjustments.length][];
+            for (int i = 0; i < adjustments.length; i++) {
+                copy[i] = adjustments[i] == null ? null : adjustments[i].clone();
+            }
+            return copy;
+        }
+
+        List copyAssociations() {
+            return associations == null ? null : new ArrayList(associations);
+        }
+
+        MinOptMax getIPD() {
+            return ipd;
+        }
+    }
+
+    private static final class RunKey {
+
+        private final String text;
+
+        private final String script;
+
+        private final String language;
+
+        private final boolean retainAssociations;
+
+        private final boolean retainControls;
+
+        RunKey(String text, String script, String language, boolean retainAssociations,
+                boolean retainControls) {
+            this.text = text;
+            this.script = script;
+            this.language = language;
+            this.retainAssociations = retainAssociations;
+            this.retainControls = retainControls;
+        }
+
+        /** {@inheritDoc} */
+        public boolean equals(Object obj) {
+            if (!(obj instanceof RunKey)) {
+                return false;
+            }
+            RunKey other = (RunKey) obj;
+            return text.equals(other.text) && script.equals(other.script)
+                    && language.equals(other.language)
+                    && retainAssociations == other.retainAssociations
+                    && retainControls == other.retainControls;
+        }
+
+        /** {@inheritDoc} */
+        public int hashCode() {
+            int hash = text.hashCode();
+            hash = hash * 31 + script.hashCode();
+            hash = hash * 31 + language.hashCode();
+            hash = hash * 4 + (retainAssociations ? 2 : 0) + (retainControls ? 1 : 0);
+            return hash;
+        }
+    }
+}
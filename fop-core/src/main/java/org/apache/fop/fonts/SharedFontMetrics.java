@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.complexscripts.fonts.GlyphDefinitionTable;
+import org.apache.fop.complexscripts.fonts.GlyphPositioningTable;
+import org.apache.fop.complexscripts.fonts.GlyphSubstitutionTable;
+
+/**
+ * The metrics of a CID font loaded by a {@link LazyFont}, shared with the instances created from
+ * it for other documents by {@link LazyFont#newInstance()} so that the font file is only parsed
+ * once. The metrics are kept in the encoded form of the {@link FontMetricsCache} and every
+ * document decodes its own {@link MultiByteFont} from them, as a font records the glyphs used
+ * by the document. The advanced typographic tables are shared as they are: their lookup
+ * caches are the only state changed after they have been read, and these are thread-safe.
+ * <p>
+ * This class is thread-safe.
+ */
+final class SharedFontMetrics {
+
+    private byte[] data;
+
+    private GlyphDefinitionTable gdef;
+
+    private GlyphSubstitutionTable gsub;
+
+    private GlyphPositioningTable gpos;
+
+    /**
+     * Keeps the metrics of a font unless some have already been kept.
+     * @param font the font loaded from its file
+     */
+    synchronized void setFont(CustomFont font) {
+        if (data != null || !FontMetricsCache.isEncodable(font)) {
+            return;
+        }
+        MultiByteFont mbFont = (MultiByteFont) font;
+        try {
+            data = FontMetricsCache.encode(mbFont, false);
+        } catch (IOException ioe) {
+            //Should never happen with an in-memory stream
+            return;
+        }
+        gdef = mbFont.getGDEF();
+        gsub = mbFont.getGSUB();
+        gpos = mbFont.getGPOS();
+    }
+
+    /**
+     * Creates a new font from the shared metrics.
+     * @param fontURI the URI of the font file
+     * @param subFontName the name of the font in a TrueType collection (or null)
+     * @param embeddingMode the embedding mode
+     * @param simulateStyle true if font styles shall be simulated
+     * @param resourceResolver the resource resolver to access the font file
+     * @return the new font or null if no metrics have been kept yet
+     */
+    MultiByteFont newFont(URI fontURI, String subFontName, EmbeddingMode embeddingMode,
+            boolean simulateStyle, InternalResourceResolver resourceResolver) {
+        byte[] metrics;
+        synchronized (this) {
+            metrics = data;
+        }
+        if (metrics == null) {
+            return null;
+        }
+        MultiByteFont font;
+        try {
+            font = FontMetricsCache.decode(ByteBuffer.wrap(metrics), resourceResolver, embeddingMode);
+        } catch (IOException ioe) {
+            //Should never happen with metrics that have just been encoded
+            return null;
+        }
+        font.setTTCName(subFontName);
+        font.setSimulateStyle(simulateStyle);
+        font.setFontURI(fontURI);
+        font.setEmbedURI(fontURI);
+        synchronized (this) {
+            font.setGDEF(gdef);
+            font.setGSUB(gsub);
+            font.setGPOS(gpos);
+        }
+        return font;
+    }
+}
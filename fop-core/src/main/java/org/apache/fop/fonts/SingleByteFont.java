@@ -206,6 +206,15 @@ public class SingleByteFont extends CustomFont {
     /** {@inheritDoc} */
     @Override
     public char mapChar(char c) {
+        if (isConcurrentAccess()) {
+            synchronized (this) {
+                return doMapChar(c);
+            }
+        }
+        return doMapChar(c);
+    }
+
+    private char doMapChar(char c) {
         notifyMapOperation();
         char d = lookupChar(c);
         if (d == SingleByteEncoding.NOT_FOUND_CODE_POINT) {
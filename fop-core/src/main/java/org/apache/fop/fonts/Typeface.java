@@ -53,6 +53,9 @@ public abstract class Typeface implements FontMetrics {
 
     private Set<Character> warnedChars;
 
+    /** True if several threads use this font at the same time */
+    private boolean concurrentAccess;
+
     /**
      * Get the encoding of the font.
      * @return the encoding
@@ -122,12 +125,41 @@ public abstract class Typeface implements FontMetrics {
     }
 
     /**
-     * Provide proper warning if a glyph is not available.
+     * Indicates whether this font is used by several threads at the same time (the threads
+     * laying out page-sequences concurrently). Only then do the methods changing the state of
+     * the font during layout have to synchronize.
+     * @param concurrentAccess true if several threads use the font at the same time
+     */
+    public void setConcurrentAccess(boolean concurrentAccess) {
+        this.concurrentAccess = concurrentAccess;
+    }
+
+    /**
+     * Indicates whether this font is used by several threads at the same time.
+     * @return true if the methods changing the state of the font have to synchronize
+     */
+    protected boolean isConcurrentAccess() {
+        return concurrentAccess;
+    }
+
+    /**
+     * Creates a new, unused instance of this typeface for another document. Typefaces keep
+     * per-document state (used characters, event listener), so they cannot be shared directly.
+     * @return the new instance or null if this typeface cannot be instantiated again
+     * @see FontRegistry
+     */
+    public Typeface newInstance() {
+        return null;
+    }
+
+    /**
+     * Provide proper warning if a glyph is not available. Synchronized, as fonts may be used by
+     * the threads laying out page-sequences concurrently.
      *
      * @param c
      *            the character which is missing.
      */
-    protected void warnMissingGlyph(char c) {
+    protected synchronized void warnMissingGlyph(char c) {
         // Give up, character is not available
         Character ch = c;
         if (warnedChars == null) {
@@ -794,6 +794,30 @@ public abstract class OpenFont {
 
     }
 
+    /**
+     * Reads only the advanced typographic tables (GDEF, GSUB and GPOS) of a font. This is
+     * used when the remaining font metrics are already available from another source, like
+     * the {@link org.apache.fop.fonts.FontMetricsCache}.
+     *
+     * @param in The FontFileReader to use
+     * @param header the font header
+     * @param name The name of the font in a TrueType collection (may be null)
+     * @throws IOException In case of an I/O problem
+     */
+    public void readAdvancedTypographicTables(FontFileReader in, String header, String name)
+            throws IOException {
+        //The table reader needs nothing but the table directory and the units per em,
+        //so the (expensive) CFF parsing done by initializeFont() isn't necessary
+        fontFile = in;
+        if (!checkTTC(header, name)) {
+            throw new IOException("Name does not exist in the TrueType collection: " + name);
+        }
+        readDirTabs();
+        readFontHeader();
+        getNumGlyphs();
+        handleCharacterSpacing(in);
+    }
+
     protected void createCMaps() {
         cmaps = new ArrayList<CMapSegment>();
         int unicodeStart;
@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.hyphenation;
+
+/**
+ * <p>The hyphenation patterns of a language, which hyphenate words. Implementations don't
+ * change once they have been loaded, so they can be shared by all threads.</p>
+ */
+public interface HyphenationPatterns {
+
+    /**
+     * Hyphenate word and return a Hyphenation object.
+     * @param word the word to be hyphenated
+     * @param remainCharCount Minimum number of characters allowed
+     * before the hyphenation point.
+     * @param pushCharCount Minimum number of characters allowed after
+     * the hyphenation point.
+     * @return a {@link Hyphenation Hyphenation} object representing
+     * the hyphenated word or null if word is not hyphenated.
+     */
+    Hyphenation hyphenate(String word, int remainCharCount, int pushCharCount);
+
+    /**
+     * Hyphenate word and return an array of hyphenation points.
+     * @param w char array that contains the word
+     * @param offset Offset to first character in word
+     * @param len Length of word
+     * @param remainCharCount Minimum number of characters allowed
+     * before the hyphenation point.
+     * @param pushCharCount Minimum number of characters allowed after
+     * the hyphenation point.
+     * @return a {@link Hyphenation Hyphenation} object representing
+     * the hyphenated word or null if word is not hyphenated.
+     */
+    Hyphenation hyphenate(char[] w, int offset, int len, int remainCharCount, int pushCharCount);
+
+    /**
+     * Find pattern.
+     * @param pat a pattern
+     * @return the interletter values of the pattern, an empty string if there is no such pattern
+     */
+    String findPattern(String pat);
+}
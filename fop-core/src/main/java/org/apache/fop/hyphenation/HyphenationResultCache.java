@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.hyphenation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.events.EventBroadcaster;
+
+/**
+ * <p>A cache of the hyphenation of words, so that a word which occurs many times, in one or
+ * several documents, is only looked up in the hyphenation patterns once. There is a bounded
+ * cache per language (and country); when it is full, the least recently used word is dropped.
+ * Words which can't be hyphenated are cached as well.</p>
+ *
+ * <p>The cache keeps track of its hits and misses. It is thread-safe.</p>
+ *
+ * <p>Note: this class should not be considered as part of FOP's external API.</p>
+ */
+public class HyphenationResultCache {
+
+    /** The default maximum number of words kept per language */
+    public static final int DEFAULT_MAX_WORDS = 8192;
+
+    /** Marks the words which have no hyphenation points */
+    private static final Hyphenation NO_HYPHENATION = new Hyphenation("", new int[0]);
+
+    private final int maxWords;
+
+    private final ConcurrentMap<String, Map<WordKey, Hyphenation>> languages
+            = new ConcurrentHashMap<String, Map<WordKey, Hyphenation>>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * Creates a cache holding at most {@link #DEFAULT_MAX_WORDS} words per language.
+     */
+    public HyphenationResultCache() {
+        this(DEFAULT_MAX_WORDS);
+    }
+
+    /**
+     * Creates a cache.
+     * @param maxWords the maximum number of words kept per language
+     */
+    public HyphenationResultCache(int maxWords) {
+        this.maxWords = maxWords;
+    }
+
+    /**
+     * Hyphenates a word, using the cached hyphenation if the word has already been hyphenated
+     * in the same language with the same constraints.
+     * @param lang the language
+     * @param country the optional country code (may be null or "none")
+     * @param resourceResolver resolver to find the hyphenation files
+     * @param hyphPatNames the map with user-configured hyphenation pattern file names
+     * @param word the word to hyphenate
+     * @param leftMin the minimum number of characters before the hyphenation point
+     * @param rightMin the minimum number of characters after the hyphenation point
+     * @param eventBroadcaster the event broadcaster used if the patterns can't be found
+     * @return the hyphenation result, or null if the word can't be hyphenated
+     * @see Hyphenator#hyphenate(String, String, InternalResourceResolver, Map, String, int,
+     * int, EventBroadcaster)
+     */
+    public Hyphenation hyphenate(String lang, String country, InternalResourceResolver resourceResolver,
+            Map hyphPatNames, String word, int leftMin, int rightMin, EventBroadcaster eventBroadcaster) {
+        Map<WordKey, Hyphenation> words = getWords(HyphenationTreeCache.constructLlccKey(lang, country));
+        WordKey key = new WordKey(word, leftMin, rightMin);
+        Hyphenation hyph;
+        synchronized (words) {
+            hyph = words.get(key);
+        }
+        if (hyph != null) {
+            hitCount.incrementAndGet();
+            return hyph == NO_HYPHENATION ? null : hyph;
+        }
+        missCount.incrementAndGet();
+        hyph = Hyphenator.hyphenate(lang, country, resourceResolver, hyphPatNames, word, leftMin,
+                rightMin, eventBroadcaster);
+        synchronized (words) {
+            words.put(key, hyph == null ? NO_HYPHENATION : hyph);
+        }
+        return hyph;
+    }
+
+    private Map<WordKey, Hyphenation> getWords(String llccKey) {
+        Map<WordKey, Hyphenation> words = languages.get(llccKey);
+        if (words == null) {
+            words = new LinkedHashMap<WordKey, Hyphenation>(256, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<WordKey, Hyphenation> eldest) {
+                    return size() > maxWords;
+                }
+            };
+            Map<WordKey, Hyphenation> existing = languages.putIfAbsent(llccKey, words);
+            if (existing != null) {
+                words = existing;
+            }
+        }
+        return words;
+    }
+
+    /** @return the number of lookups which were answered from the cache */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /** @return the number of lookups which required the hyphenation patterns */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /** @return the proportion of lookups answered from the cache, 0 if there was none */
+    public double getHitRate() {
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Returns the number of words in the cache, for all languages.
+     * @return the number of words
+     */
+    public int size() {
+        int size = 0;
+        for (Map<WordKey, Hyphenation> words : languages.values()) {
+            synchronized (words) {
+                size += words.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Removes all the words from the cache and resets the hit and miss counts. This should be
+     * called if the hyphenation patterns are changed at runtime.
+     * @see Hyphenator#clearHyphenationTreeCache()
+     */
+    public void clear() {
+        languages.clear();
+        hitCount.set(0);
+        missCount.set(0);
+    }
+
+    private static final class WordKey {
+
+        private final String word;
+
+        private final int leftMin;
+
+        private final int rightMin;
+
+        WordKey(String word, int leftMin, int rightMin) {
+            this.word = word;
+            this.leftMin = leftMin;
+            this.rightMin = rightMin;
+        }
+
+        /** {@inheritDoc} */
+        public boolean equals(Object obj) {
+            if (!(obj instanceof WordKey)) {
+                return false;
+            }
+            WordKey other = (WordKey) obj;
+            return word.equals(other.word) && leftMin == other.leftMin && rightMin == other.rightMin;
+        }
+
+        /** {@inheritDoc} */
+        public int hashCode() {
+            return (word.hashCode() * 31 + leftMin) * 31 + rightMin;
+        }
+    }
+}
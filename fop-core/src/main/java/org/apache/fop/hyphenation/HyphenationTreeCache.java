@@ -19,37 +19,56 @@
 
 package org.apache.fop.hyphenation;
 
-import java.util.Hashtable;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * <p>This is a cache for HyphenationTree instances.</p>
+ * <p>This is a cache for the hyphenation patterns ({@link HyphenationPatterns} instances).</p>
+ * <p>The cache doesn't use any locks: looking up a tree, which happens for every word to
+ * hyphenate, never blocks. Two threads may load the same pattern file at the same time; one of
+ * the resulting trees is then simply dropped.</p>
  */
 public class HyphenationTreeCache {
 
     /** Contains the cached hyphenation trees */
-    private Hashtable hyphenTrees = new Hashtable();
+    private final Map<String, HyphenationPatterns> hyphenTrees
+            = new ConcurrentHashMap<String, HyphenationPatterns>();
     /** Used to avoid multiple error messages for the same language if a pattern file is missing. */
-    private Set missingHyphenationTrees;
+    private final Set<String> missingHyphenationTrees
+            = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
     /**
      * Looks in the cache if a hyphenation tree is available and returns it if it is found.
      * @param lang the language
      * @param country the country (may be null or "none")
-     * @return the HyhenationTree instance or null if it's not in the cache
+     * @return the HyhenationTree instance or null if it's not in the cache or the cached
+     * patterns have been loaded from a file in the binary pattern format
+     * @deprecated use {@link #getHyphenationPatterns(String, String)}
      */
+    @Deprecated
     public HyphenationTree getHyphenationTree(String lang, String country) {
+        HyphenationPatterns patterns = getHyphenationPatterns(lang, country);
+        return (patterns instanceof HyphenationTree) ? (HyphenationTree) patterns : null;
+    }
+
+    /**
+     * Looks in the cache if hyphenation patterns are available and returns them if they are
+     * found.
+     * @param lang the language
+     * @param country the country (may be null or "none")
+     * @return the patterns or null if they're not in the cache
+     */
+    public HyphenationPatterns getHyphenationPatterns(String lang, String country) {
         String key = constructLlccKey(lang, country);
 
         // first try to find it in the cache
-        if (hyphenTrees.containsKey(key)) {
-            return (HyphenationTree)hyphenTrees.get(key);
-        } else if (hyphenTrees.containsKey(lang)) {
-            return (HyphenationTree)hyphenTrees.get(lang);
-        } else {
-            return null;
+        HyphenationPatterns hTree = hyphenTrees.get(key);
+        if (hTree == null) {
+            hTree = hyphenTrees.get(lang);
         }
+        return hTree;
     }
 
     /**
@@ -89,8 +108,19 @@ public class HyphenationTreeCache {
      * Cache a hyphenation tree under its key.
      * @param key the key (ex. "de_CH" or "en")
      * @param hTree the hyphenation tree
+     * @deprecated use {@link #cachePatterns(String, HyphenationPatterns)}
      */
+    @Deprecated
     public void cache(String key, HyphenationTree hTree) {
+        cachePatterns(key, hTree);
+    }
+
+    /**
+     * Cache hyphenation patterns under their key.
+     * @param key the key (ex. "de_CH" or "en")
+     * @param hTree the hyphenation patterns
+     */
+    public void cachePatterns(String key, HyphenationPatterns hTree) {
         hyphenTrees.put(key, hTree);
     }
 
@@ -101,9 +131,6 @@ public class HyphenationTreeCache {
      * @param key the key (ex. "de_CH" or "en")
      */
     public void noteMissing(String key) {
-        if (missingHyphenationTrees == null) {
-            missingHyphenationTrees = new java.util.HashSet();
-        }
         missingHyphenationTrees.add(key);
     }
 
@@ -115,7 +142,7 @@ public class HyphenationTreeCache {
      * @return true if the hyphenation tree is unavailable
      */
     public boolean isMissing(String key) {
-        return (missingHyphenationTrees != null && missingHyphenationTrees.contains(key));
+        return missingHyphenationTrees.contains(key);
     }
 
 }
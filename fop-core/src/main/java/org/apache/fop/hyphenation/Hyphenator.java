@@ -20,10 +20,12 @@
 package org.apache.fop.hyphenation;
 
 import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.net.URISyntaxException;
+import java.net.URL;
 import java.util.Map;
 
 import org.xml.sax.InputSource;
@@ -47,7 +49,8 @@ public final class Hyphenator {
     /** logging instance */
     private static final Log log = LogFactory.getLog(Hyphenator.class);
 
-    private static HyphenationTreeCache hTreeCache;
+    /** the cache shared by all FopFactory instances */
+    private static volatile HyphenationTreeCache hTreeCache = new HyphenationTreeCache();
 
     /** Enables a dump of statistics. Note: If activated content is sent to System.out! */
     private static boolean statisticsDump;
@@ -61,10 +64,7 @@ public final class Hyphenator {
     private Hyphenator() { }
 
     /** @return the default (static) hyphenation tree cache */
-    public static synchronized HyphenationTreeCache getHyphenationTreeCache() {
-        if (hTreeCache == null) {
-            hTreeCache = new HyphenationTreeCache();
-        }
+    public static HyphenationTreeCache getHyphenationTreeCache() {
         return hTreeCache;
     }
 
@@ -72,7 +72,7 @@ public final class Hyphenator {
      * Clears the default hyphenation tree cache.<br>
      * This method can be used if the underlying data files are changed at runtime.
      */
-    public static synchronized void clearHyphenationTreeCache() {
+    public static void clearHyphenationTreeCache() {
         hTreeCache = new HyphenationTreeCache();
     }
 
@@ -84,14 +84,68 @@ public final class Hyphenator {
      * @param country the country (may be null or "none")
      * @param resolver resolver to find the hyphenation files
      * @param hyphPatNames the map with user-configured hyphenation pattern file names
-     * @return the hyphenation tree
+     * @return the hyphenation tree or null if the patterns are not available or have been
+     * loaded from a file in the binary pattern format
+     * @deprecated use {@link #getHyphenationPatterns(String, String, InternalResourceResolver, Map)}
      */
+    @Deprecated
     public static HyphenationTree getHyphenationTree(String lang, String country,
                                                      InternalResourceResolver resolver, Map hyphPatNames) {
-        return getHyphenationTree(lang, country, resolver, hyphPatNames, null);
+        return toHyphenationTree(getHyphenationPatterns(lang, country, resolver, hyphPatNames));
     }
 
+    /**
+     * Returns a hyphenation tree for a given language and country,
+     * with fallback from (lang,country) to (lang).
+     * The hyphenation trees are cached.
+     * @param lang the language
+     * @param country the country (may be null or "none")
+     * @param resourceResolver resolver to find the hyphenation files
+     * @param hyphPatNames the map with user-configured hyphenation pattern file names
+     * @param eventBroadcaster the event broadcaster notified of missing patterns (may be null)
+     * @return the hyphenation tree or null if the patterns are not available or have been
+     * loaded from a file in the binary pattern format
+     * @deprecated use {@link #getHyphenationPatterns(String, String, InternalResourceResolver,
+     * Map, EventBroadcaster)}
+     */
+    @Deprecated
     public static HyphenationTree getHyphenationTree(String lang, String country,
+            InternalResourceResolver resourceResolver, Map hyphPatNames, EventBroadcaster eventBroadcaster) {
+        return toHyphenationTree(getHyphenationPatterns(lang, country, resourceResolver, hyphPatNames,
+                eventBroadcaster));
+    }
+
+    private static HyphenationTree toHyphenationTree(HyphenationPatterns patterns) {
+        return (patterns instanceof HyphenationTree) ? (HyphenationTree) patterns : null;
+    }
+
+    /**
+     * Returns the hyphenation patterns for a given language and country,
+     * with fallback from (lang,country) to (lang).
+     * The hyphenation patterns are cached.
+     * @param lang the language
+     * @param country the country (may be null or "none")
+     * @param resolver resolver to find the hyphenation files
+     * @param hyphPatNames the map with user-configured hyphenation pattern file names
+     * @return the hyphenation patterns or null if they are not available
+     */
+    public static HyphenationPatterns getHyphenationPatterns(String lang, String country,
+                                                     InternalResourceResolver resolver, Map hyphPatNames) {
+        return getHyphenationPatterns(lang, country, resolver, hyphPatNames, null);
+    }
+
+    /**
+     * Returns the hyphenation patterns for a given language and country,
+     * with fallback from (lang,country) to (lang).
+     * The hyphenation patterns are cached.
+     * @param lang the language
+     * @param country the country (may be null or "none")
+     * @param resourceResolver resolver to find the hyphenation files
+     * @param hyphPatNames the map with user-configured hyphenation pattern file names
+     * @param eventBroadcaster the event broadcaster notified of missing patterns (may be null)
+     * @return the hyphenation patterns or null if they are not available
+     */
+    public static HyphenationPatterns getHyphenationPatterns(String lang, String country,
                        InternalResourceResolver resourceResolver, Map hyphPatNames, EventBroadcaster eventBroadcaster) {
         String llccKey = HyphenationTreeCache.constructLlccKey(lang, country);
         HyphenationTreeCache cache = getHyphenationTreeCache();
@@ -101,9 +155,9 @@ public final class Hyphenator {
             return null;
         }
 
-        HyphenationTree hTree;
+        HyphenationPatterns hTree;
         // first try to find it in the cache
-        hTree = getHyphenationTreeCache().getHyphenationTree(lang, country);
+        hTree = getHyphenationTreeCache().getHyphenationPatterns(lang, country);
         if (hTree != null) {
             return hTree;
         }
@@ -113,19 +167,19 @@ public final class Hyphenator {
             key = llccKey;
         }
         if (resourceResolver != null) {
-            hTree = getUserHyphenationTree(key, resourceResolver);
+            hTree = getUserHyphenationPatterns(key, resourceResolver);
         }
         if (hTree == null) {
-            hTree = getFopHyphenationTree(key);
+            hTree = getFopHyphenationPatterns(key);
         }
 
         if (hTree == null && country != null && !country.equals("none")) {
-            return getHyphenationTree(lang, null, resourceResolver, hyphPatNames, eventBroadcaster);
+            return getHyphenationPatterns(lang, null, resourceResolver, hyphPatNames, eventBroadcaster);
         }
 
         // put it into the pattern cache
         if (hTree != null) {
-            cache.cache(llccKey, hTree);
+            cache.cachePatterns(llccKey, hTree);
         } else {
             if (eventBroadcaster == null) {
                 log.error("Couldn't find hyphenation pattern " + llccKey);
@@ -139,8 +193,8 @@ public final class Hyphenator {
         return hTree;
     }
 
-    private static InputStream getResourceStream(String key) {
-        InputStream is = null;
+    private static URL getResource(String key) {
+        URL url = null;
         // Try to use Context Class Loader to load the properties file.
         try {
             java.lang.reflect.Method getCCL = Thread.class.getMethod(
@@ -149,8 +203,7 @@ public final class Hyphenator {
                 ClassLoader contextClassLoader = (ClassLoader)getCCL.invoke(
                         Thread.currentThread(),
                         new Object[0]);
-                is = contextClassLoader.getResourceAsStream("hyph/" + key
-                                                            + ".hyp");
+                url = contextClassLoader.getResource("hyph/" + key + ".hyp");
             }
         } catch (NoSuchMethodException e) {
             //ignore, fallback further down
@@ -160,19 +213,28 @@ public final class Hyphenator {
             //ignore, fallback further down
         }
 
-        if (is == null) {
-            is = Hyphenator.class.getResourceAsStream("/hyph/" + key
-                                                      + ".hyp");
+        if (url == null) {
+            url = Hyphenator.class.getResource("/hyph/" + key + ".hyp");
         }
 
-        return is;
+        return url;
     }
 
-    private static HyphenationTree readHyphenationTree(InputStream in) {
-        HyphenationTree hTree = null;
+    /**
+     * Reads a precompiled hyphenation tree, which is either in the binary pattern format or
+     * a serialized {@link HyphenationTree}.
+     * @param in the stream to read from, which must support {@link InputStream#mark(int)}
+     * @return the hyphenation tree or null if it couldn't be read
+     */
+    private static HyphenationPatterns readHyphenationTree(InputStream in) {
+        HyphenationPatterns hTree = null;
         try {
-            ObjectInputStream ois = new ObjectInputStream(in);
-            hTree = (HyphenationTree)ois.readObject();
+            if (MappedHyphenationTree.isBinaryPatternFile(in)) {
+                hTree = MappedHyphenationTree.read(in);
+            } else {
+                ObjectInputStream ois = new ObjectInputStream(in);
+                hTree = (HyphenationTree)ois.readObject();
+            }
         } catch (IOException ioe) {
             log.error("I/O error while loading precompiled hyphenation pattern file", ioe);
         } catch (ClassNotFoundException cnfe) {
@@ -182,29 +244,49 @@ public final class Hyphenator {
     }
 
     /**
-     * Returns a hyphenation tree. This method looks in the resources (getResourceStream) for
+     * Returns a hyphenation tree. This method looks in the resources (getResource) for
      * the hyphenation patterns.
      * @param key the language/country key
-     * @return the hyphenation tree or null if it wasn't found in the resources
+     * @return the hyphenation tree or null if it wasn't found in the resources or is in the
+     * binary pattern format
+     * @deprecated use {@link #getFopHyphenationPatterns(String)}
      */
+    @Deprecated
     public static HyphenationTree getFopHyphenationTree(String key) {
-        HyphenationTree hTree = null;
-        ObjectInputStream ois = null;
+        return toHyphenationTree(getFopHyphenationPatterns(key));
+    }
+
+    /**
+     * Returns hyphenation patterns. This method looks in the resources (getResource) for
+     * the hyphenation patterns. Pattern files in the binary format which are plain files are
+     * memory-mapped rather than read.
+     * @param key the language/country key
+     * @return the hyphenation patterns or null if they weren't found in the resources
+     */
+    public static HyphenationPatterns getFopHyphenationPatterns(String key) {
+        URL url = getResource(key);
+        if (url == null) {
+            if (log.isDebugEnabled()) {
+                log.debug("Couldn't find precompiled hyphenation pattern "
+                          + key + " in resources");
+            }
+            return null;
+        }
         InputStream is = null;
         try {
-            is = getResourceStream(key);
-            if (is == null) {
-                if (log.isDebugEnabled()) {
-                    log.debug("Couldn't find precompiled hyphenation pattern "
-                              + key + " in resources");
-                }
-                return null;
+            is = new BufferedInputStream(url.openStream());
+            if ("file".equals(url.getProtocol()) && MappedHyphenationTree.isBinaryPatternFile(is)) {
+                return MappedHyphenationTree.map(new File(url.toURI()));
             }
-            hTree = readHyphenationTree(is);
+            return readHyphenationTree(is);
+        } catch (IOException ioe) {
+            log.error("I/O error while loading precompiled hyphenation pattern file", ioe);
+            return null;
+        } catch (URISyntaxException use) {
+            return readHyphenationTree(is);
         } finally {
-            IOUtils.closeQuietly(ois);
+            IOUtils.closeQuietly(is);
         }
-        return hTree;
     }
 
     /**
@@ -212,11 +294,26 @@ public final class Hyphenator {
      * using configuration settings
      * @param key language key for the requested hyphenation file
      * @param resourceResolver resource resolver to find the hyphenation files
-     * @return the requested HypenationTree or null if it is not available
+     * @return the requested HypenationTree or null if it is not available or is in the binary
+     * pattern format
+     * @deprecated use {@link #getUserHyphenationPatterns(String, InternalResourceResolver)}
      */
+    @Deprecated
     public static HyphenationTree getUserHyphenationTree(String key,
             InternalResourceResolver resourceResolver) {
-        HyphenationTree hTree = null;
+        return toHyphenationTree(getUserHyphenationPatterns(key, resourceResolver));
+    }
+
+    /**
+     * Load the patterns from a precompiled file (serialized or in the binary pattern format) or
+     * xml file using configuration settings
+     * @param key language key for the requested hyphenation file
+     * @param resourceResolver resource resolver to find the hyphenation files
+     * @return the requested patterns or null if they are not available
+     */
+    public static HyphenationPatterns getUserHyphenationPatterns(String key,
+            InternalResourceResolver resourceResolver) {
+        HyphenationPatterns hTree = null;
         // I use here the following convention. The file name specified in
         // the configuration is taken as the base name. First we try
         // name + ".hyp" assuming a serialized HyphenationTree. If that fails
@@ -248,21 +345,21 @@ public final class Hyphenator {
         if (key.endsWith(XMLTYPE)) {
             name = key.replace(XMLTYPE, "");
         }
-        hTree = new HyphenationTree();
+        HyphenationTree xmlTree = new HyphenationTree();
         try {
             InputStream in = getHyphenationTreeStream(name, resourceResolver);
             try {
                 InputSource src = new InputSource(in);
                 src.setSystemId(name);
-                hTree.loadPatterns(src);
+                xmlTree.loadPatterns(src);
             } finally {
                 IOUtils.closeQuietly(in);
             }
             if (statisticsDump) {
                 System.out.println("Stats: ");
-                hTree.printStats();
+                xmlTree.printStats();
             }
-            return hTree;
+            return xmlTree;
         } catch (HyphenationException ex) {
             log.error("Can't load user patterns from XML file " + name + ": " + ex.getMessage());
             return null;
@@ -304,7 +401,8 @@ public final class Hyphenator {
     public static Hyphenation hyphenate(String lang, String country, InternalResourceResolver resourceResolver,
                                         Map hyphPatNames, String word, int leftMin, int rightMin,
                                         EventBroadcaster eventBroadcaster) {
-        HyphenationTree hTree = getHyphenationTree(lang, country, resourceResolver, hyphPatNames, eventBroadcaster);
+        HyphenationPatterns hTree = getHyphenationPatterns(lang, country, resourceResolver, hyphPatNames,
+                eventBroadcaster);
         if (hTree == null) {
             return null;
         }
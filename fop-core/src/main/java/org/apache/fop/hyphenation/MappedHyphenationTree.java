@@ -0,0 +1,440 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.hyphenation;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * <p>A read-only hyphenation tree which reads its patterns directly from a buffer in the binary
+ * pattern format, typically a memory-mapped pattern file. Loading such a tree doesn't depend
+ * on the number of patterns, and the patterns don't take up any heap space. The tree is
+ * immutable, so a single instance can be shared by all threads. Unlike
+ * {@link HyphenationTree}, it can't be serialized; its binary pattern file is written with
+ * {@link #write(HyphenationTree, OutputStream)}.</p>
+ *
+ * <p>The binary pattern format is made of (all values are big-endian):</p>
+ * <ul>
+ * <li>the magic number 'FHYP' and the format version (ints);</li>
+ * <li>the pattern tree (see {@link MappedTernaryTree});</li>
+ * <li>the length of the value space (int) followed by the packed interletter values;</li>
+ * <li>the character class tree (see {@link MappedTernaryTree});</li>
+ * <li>the number of exceptions (int), each of which is the word (string) followed by the
+ * number of its parts (int) and the parts, either a string (tag 0) or a hyphen (tag 1)
+ * made of its pre-break, no-break and post-break strings.</li>
+ * </ul>
+ * <p>Strings are stored as their length (int, -1 for null) followed by their chars.</p>
+ */
+public final class MappedHyphenationTree implements HyphenationPatterns {
+
+    /** The magic number which starts a binary pattern file ("FHYP"). */
+    public static final int MAGIC = 0x46485950;
+
+    /** The version of the binary pattern format. */
+    public static final int VERSION = 1;
+
+    private static final byte STRING_PART = 0;
+
+    private static final byte HYPHEN_PART = 1;
+
+    private final MappedTernaryTree patterns;
+
+    /** the packed interletter values */
+    private final ByteBuffer values;
+
+    /** the character classes */
+    private final MappedTernaryTree classmap;
+
+    /** the hyphenation exceptions */
+    final Map<String, List<Object>> stoplist;
+
+    private MappedHyphenationTree(MappedTernaryTree patterns, ByteBuffer values,
+            MappedTernaryTree classmap, Map<String, List<Object>> stoplist) {
+        this.patterns = patterns;
+        this.values = values;
+        this.classmap = classmap;
+        this.stoplist = stoplist;
+    }
+
+    /**
+     * Creates a tree from a buffer in the binary pattern format. The buffer is not copied: the
+     * tree reads its patterns from it for as long as it is used.
+     * @param buffer the buffer, from its position
+     * @return the hyphenation tree
+     * @throws IOException if the buffer doesn't contain a valid pattern file
+     */
+    public static MappedHyphenationTree read(ByteBuffer buffer) throws IOException {
+        ByteBuffer buf = buffer.slice();
+        try {
+            if (buf.getInt() != MAGIC) {
+                throw new IOException("Not a binary hyphenation pattern file");
+            }
+            int version = buf.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported binary hyphenation pattern file version: " + version);
+            }
+            MappedTernaryTree patterns = MappedTernaryTree.read(buf);
+            int valueCount = buf.getInt();
+            ByteBuffer values = buf.slice();
+            values.limit(valueCount);
+            buf.position(buf.position() + valueCount);
+            MappedTernaryTree classmap = MappedTernaryTree.read(buf);
+            Map<String, List<Object>> stoplist = readExceptions(buf);
+            return new MappedHyphenationTree(patterns, values, classmap, stoplist);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated binary hyphenation pattern file");
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt binary hyphenation pattern file");
+        }
+    }
+
+    /**
+     * Creates a tree from a stream in the binary pattern format. The stream is read into a
+     * buffer outside of the heap.
+     * @param in the stream
+     * @return the hyphenation tree
+     * @throws IOException if an I/O error occurs or the stream doesn't contain a valid pattern file
+     */
+    public static MappedHyphenationTree read(InputStream in) throws IOException {
+        byte[] data = IOUtils.toByteArray(in);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+        buffer.put(data);
+        buffer.flip();
+        return read(buffer);
+    }
+
+    /**
+     * Creates a tree by memory-mapping a file in the binary pattern format.
+     * @param file the file
+     * @return the hyphenation tree
+     * @throws IOException if an I/O error occurs or the file isn't a valid pattern file
+     */
+    public static MappedHyphenationTree map(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            // the mapping stays valid once the file is closed
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Indicates whether a stream contains a pattern file in the binary format. The stream must
+     * support {@link InputStream#mark(int)}; it is reset to its current position.
+     * @param in the stream
+     * @return true if the stream starts with the magic number of the binary format
+     * @throws IOException if an I/O error occurs
+     */
+    public static boolean isBinaryPatternFile(InputStream in) throws IOException {
+        in.mark(4);
+        try {
+            return new DataInputStream(in).readInt() == MAGIC;
+        } catch (EOFException e) {
+            return false;
+        } finally {
+            in.reset();
+        }
+    }
+
+    /**
+     * Writes a hyphenation tree in the binary pattern format.
+     * @param tree the hyphenation tree, loaded from a pattern file
+     * @param out the stream to write to, which is not closed
+     * @throws IOException if an I/O error occurs
+     */
+    public static void write(HyphenationTree tree, OutputStream out) throws IOException {
+        DataOutputStream dout = new DataOutputStream(new BufferedOutputStream(out));
+        dout.writeInt(MAGIC);
+        dout.writeInt(VERSION);
+        MappedTernaryTree.write(tree, dout);
+        dout.writeInt(tree.vspace.length());
+        dout.write(tree.vspace.getArray(), 0, tree.vspace.length());
+        MappedTernaryTree.write(tree.classmap, dout);
+        writeExceptions(tree.stoplist, dout);
+        dout.flush();
+    }
+
+    private static void writeExceptions(Map<?, ?> stoplist, DataOutputStream out) throws IOException {
+        out.writeInt(stoplist.size());
+        for (Map.Entry<?, ?> entry : stoplist.entrySet()) {
+            writeString((String) entry.getKey(), out);
+            List<?> parts = (List<?>) entry.getValue();
+            out.writeInt(parts.size());
+            for (Object part : parts) {
+                if (part instanceof Hyphen) {
+                    Hyphen hyphen = (Hyphen) part;
+                    out.writeByte(HYPHEN_PART);
+                    writeString(hyphen.preBreak, out);
+                    writeString(hyphen.noBreak, out);
+                    writeString(hyphen.postBreak, out);
+                } else {
+                    out.writeByte(STRING_PART);
+                    writeString((String) part, out);
+                }
+            }
+        }
+    }
+
+    private static Map<String, List<Object>> readExceptions(ByteBuffer buf) throws IOException {
+        int count = buf.getInt();
+        Map<String, List<Object>> stoplist = new HashMap<String, List<Object>>(Math.max(23, count * 2));
+        for (int i = 0; i < count; i++) {
+            String word = readString(buf);
+            int partCount = buf.getInt();
+            List<Object> parts = new ArrayList<Object>(partCount);
+            for (int j = 0; j < partCount; j++) {
+                byte tag = buf.get();
+                if (tag == HYPHEN_PART) {
+                    parts.add(new Hyphen(readString(buf), readString(buf), readString(buf)));
+                } else if (tag == STRING_PART) {
+                    parts.add(readString(buf));
+                } else {
+                    throw new IOException("Corrupt binary hyphenation pattern file");
+                }
+            }
+            stoplist.put(word, parts);
+        }
+        return stoplist;
+    }
+
+    private static void writeString(String s, DataOutputStream out) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(s.length());
+            out.writeChars(s);
+        }
+    }
+
+    private static String readString(ByteBuffer buf) {
+        int length = buf.getInt();
+        if (length < 0) {
+            return null;
+        }
+        char[] chars = new char[length];
+        buf.asCharBuffer().get(chars);
+        buf.position(buf.position() + length * 2);
+        return new String(chars);
+    }
+
+    /** {@inheritDoc} */
+    public Hyphenation hyphenate(String word, int remainCharCount, int pushCharCount) {
+        return PatternHyphenator.hyphenate(new MappedLookup(), word, remainCharCount, pushCharCount);
+    }
+
+    /** {@inheritDoc} */
+    public Hyphenation hyphenate(char[] w, int offset, int len, int remainCharCount,
+            int pushCharCount) {
+        return PatternHyphenator.hyphenate(new MappedLookup(), w, offset, len, remainCharCount,
+                pushCharCount);
+    }
+
+    /** {@inheritDoc} */
+    public String findPattern(String pat) {
+        int k = patterns.find(pat);
+        if (k >= 0) {
+            return unpackValues(k);
+        }
+        return "";
+    }
+
+    /** @return the number of patterns */
+    public int size() {
+        return patterns.size();
+    }
+
+    /**
+     * Returns the patterns of the tree, in the order of {@link HyphenationTree#keys()}.
+     * @return an enumeration of the patterns (strings)
+     */
+    public Enumeration keys() {
+        return patterns.keys();
+    }
+
+    /**
+     * Print statistics.
+     */
+    public void printStats() {
+        System.out.println("Value space size = " + Integer.toString(values.capacity()));
+        patterns.printStats();
+    }
+
+    private String unpackValues(int k) {
+        StringBuffer buf = new StringBuffer();
+        byte v = values.get(k++);
+        while (v != 0) {
+            char c = (char)((v >>> 4) - 1 + '0');
+            buf.append(c);
+            c = (char)(v & 0x0f);
+            if (c == 0) {
+                break;
+            }
+            c = (char)(c - 1 + '0');
+            buf.append(c);
+            v = values.get(k++);
+        }
+        return buf.toString();
+    }
+
+    private byte[] getValues(int k) {
+        int n = 0;
+        byte[] res = new byte[8];
+        byte v = values.get(k++);
+        while (v != 0) {
+            if (n + 2 > res.length) {
+                byte[] aux = new byte[res.length * 2];
+                System.arraycopy(res, 0, aux, 0, n);
+                res = aux;
+            }
+            res[n++] = (byte)((v >>> 4) - 1);
+            int low = v & 0x0f;
+            if (low == 0) {
+                break;
+            }
+            res[n++] = (byte)(low - 1);
+            v = values.get(k++);
+        }
+        byte[] trimmed = new byte[n];
+        System.arraycopy(res, 0, trimmed, 0, n);
+        return trimmed;
+    }
+
+    /**
+     * String compare, returns 0 if equal or the key in the key vector is a substring of s.
+     * @param s a character array
+     * @param si starting index into the array
+     * @param ti starting index into the key vector
+     * @return an integer
+     */
+    private int hstrcmp(char[] s, int si, int ti) {
+        for (; s[si] == patterns.kvBuffer.get(ti); si++, ti++) {
+            if (s[si] == 0) {
+                return 0;
+            }
+        }
+        char t = patterns.kvBuffer.get(ti);
+        if (t == 0) {
+            return 0;
+        }
+        return s[si] - t;
+    }
+
+    private void updateValues(int k, int index, byte[] il) {
+        byte[] values = getValues(k);
+        int j = index;
+        for (byte value : values) {
+            if (j < il.length && value > il[j]) {
+                il[j] = value;
+            }
+            j++;
+        }
+    }
+
+    /**
+     * Updates the interletter values with all the patterns matching a word from an index.
+     * This is the search of {@link HyphenationTree#searchPatterns(char[], int, byte[])} on the
+     * nodes in the buffer.
+     * @param word null terminated word to match
+     * @param index start index from word
+     * @param il interletter values array to update
+     */
+    private void searchPatterns(char[] word, int index, byte[] il) {
+        int nodeCount = patterns.nodeCount;
+        int i = index;
+        char p;
+        char q;
+        char sp = word[i];
+        p = patterns.root;
+
+        while (p > 0 && p < nodeCount) {
+            char s = patterns.scBuffer.get(p);
+            if (s == 0xFFFF) {
+                if (hstrcmp(word, i, patterns.loBuffer.get(p)) == 0) {
+                    updateValues(patterns.eqBuffer.get(p), index, il);    // data pointer is in eq
+                }
+                return;
+            }
+            int d = sp - s;
+            if (d == 0) {
+                if (sp == 0) {
+                    break;
+                }
+                sp = word[++i];
+                p = patterns.eqBuffer.get(p);
+                q = p;
+
+                // look for a pattern ending at this position by searching for
+                // the null char ( splitchar == 0 )
+                while (q > 0 && q < nodeCount) {
+                    char qs = patterns.scBuffer.get(q);
+                    if (qs == 0xFFFF) {        // stop at compressed branch
+                        break;
+                    }
+                    if (qs == 0) {
+                        updateValues(patterns.eqBuffer.get(q), index, il);
+                        break;
+                    } else {
+                        q = patterns.loBuffer.get(q);
+                    }
+                }
+            } else {
+                p = d < 0 ? patterns.loBuffer.get(p) : patterns.hiBuffer.get(p);
+            }
+        }
+    }
+
+    /** Looks up the classes, exceptions and patterns in the buffer. */
+    private final class MappedLookup implements PatternHyphenator.Lookup {
+
+        private final char[] key = new char[2];
+
+        public int findClass(char c) {
+            key[0] = c;
+            return classmap.find(key, 0);
+        }
+
+        public List getException(String word) {
+            return stoplist.get(word);
+        }
+
+        public void searchPatterns(char[] word, int index, byte[] il) {
+            MappedHyphenationTree.this.searchPatterns(word, index, il);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.hyphenation;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.Enumeration;
+import java.util.NoSuchElementException;
+import java.util.Stack;
+
+/**
+ * <p>A read-only ternary tree whose nodes are read from a buffer, typically a memory-mapped
+ * pattern file, instead of being held in arrays on the heap. Its nodes are laid out as in
+ * {@link TernaryTree}, whose lookups it implements on the buffer.</p>
+ *
+ * <p>In the buffer, a tree is stored as the number of keys (int), the root (char), the number
+ * of nodes (int), the lo, hi, eq and sc node values (one char each per node, in four
+ * consecutive runs), the length of the key vector (int) and the key vector itself. All
+ * values are big-endian.</p>
+ */
+final class MappedTernaryTree {
+
+    /** the number of keys */
+    private final int length;
+
+    /** the root node */
+    final char root;
+
+    /** the number of nodes */
+    final int nodeCount;
+
+    /** low branches and pointers into the key vector of compressed branches */
+    final CharBuffer loBuffer;
+
+    /** high branches */
+    final CharBuffer hiBuffer;
+
+    /** equal branches and data of the string terminators */
+    final CharBuffer eqBuffer;
+
+    /** split chars */
+    final CharBuffer scBuffer;
+
+    /** the trailing parts of the keys of the compressed branches */
+    final CharBuffer kvBuffer;
+
+    private MappedTernaryTree(int length, char root, CharBuffer lo, CharBuffer hi, CharBuffer eq,
+            CharBuffer sc, CharBuffer kv) {
+        this.length = length;
+        this.root = root;
+        this.nodeCount = lo.capacity();
+        this.loBuffer = lo;
+        this.hiBuffer = hi;
+        this.eqBuffer = eq;
+        this.scBuffer = sc;
+        this.kvBuffer = kv;
+    }
+
+    /**
+     * Reads a tree from the current position of a buffer, leaving the position after the tree.
+     * The nodes are not copied: the tree uses views of the buffer.
+     * @param buffer the buffer
+     * @return the tree
+     */
+    static MappedTernaryTree read(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        char root = buffer.getChar();
+        int nodeCount = buffer.getInt();
+        CharBuffer lo = charView(buffer, nodeCount);
+        CharBuffer hi = charView(buffer, nodeCount);
+        CharBuffer eq = charView(buffer, nodeCount);
+        CharBuffer sc = charView(buffer, nodeCount);
+        CharBuffer kv = charView(buffer, buffer.getInt());
+        return new MappedTernaryTree(length, root, lo, hi, eq, sc, kv);
+    }
+
+    private static CharBuffer charView(ByteBuffer buffer, int count) {
+        ByteBuffer slice = buffer.slice();
+        slice.limit(count * 2);
+        buffer.position(buffer.position() + count * 2);
+        return slice.asCharBuffer();
+    }
+
+    /**
+     * Writes a tree in the format read by {@link #read(ByteBuffer)}.
+     * @param tree the tree
+     * @param out the stream to write to
+     * @throws IOException if an I/O error occurs
+     */
+    static void write(TernaryTree tree, DataOutputStream out) throws IOException {
+        int nodeCount = tree.freenode;
+        out.writeInt(tree.length);
+        out.writeChar(tree.root);
+        out.writeInt(nodeCount);
+        writeChars(tree.lo, nodeCount, out);
+        writeChars(tree.hi, nodeCount, out);
+        writeChars(tree.eq, nodeCount, out);
+        writeChars(tree.sc, nodeCount, out);
+        out.writeInt(tree.kv.length());
+        writeChars(tree.kv.getArray(), tree.kv.length(), out);
+    }
+
+    private static void writeChars(char[] chars, int count, DataOutputStream out) throws IOException {
+        for (int i = 0; i < count; i++) {
+            out.writeChar(chars[i]);
+        }
+    }
+
+    /**
+     * Compares a null terminated char array with a null terminated key in the key vector.
+     * @param a a character array
+     * @param startA an index into the character array
+     * @param startB an index into the key vector
+     * @return 0 if the keys are equal
+     */
+    int strcmp(char[] a, int startA, int startB) {
+        for (; a[startA] == kvBuffer.get(startB); startA++, startB++) {
+            if (a[startA] == 0) {
+                return 0;
+            }
+        }
+        return a[startA] - kvBuffer.get(startB);
+    }
+
+    /**
+     * Find key.
+     * @param key the null terminated key
+     * @param start the index of the key in the array
+     * @return the value of the key, -1 if the key isn't in the tree
+     */
+    int find(char[] key, int start) {
+        int d;
+        char p = root;
+        int i = start;
+        char c;
+
+        while (p != 0) {
+            char s = scBuffer.get(p);
+            if (s == 0xFFFF) {
+                if (strcmp(key, i, loBuffer.get(p)) == 0) {
+                    return eqBuffer.get(p);
+                } else {
+                    return -1;
+                }
+            }
+            c = key[i];
+            d = c - s;
+            if (d == 0) {
+                if (c == 0) {
+                    return eqBuffer.get(p);
+                }
+                i++;
+                p = eqBuffer.get(p);
+            } else if (d < 0) {
+                p = loBuffer.get(p);
+            } else {
+                p = hiBuffer.get(p);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Find key.
+     * @param key the key
+     * @return the value of the key, -1 if the key isn't in the tree
+     */
+    int find(String key) {
+        int len = key.length();
+        char[] strkey = new char[len + 1];
+        key.getChars(0, len, strkey, 0);
+        strkey[len] = 0;
+        return find(strkey, 0);
+    }
+
+    /** @return the number of keys */
+    int size() {
+        return length;
+    }
+
+    /**
+     * Returns the keys of the tree, in the order of {@link TernaryTree#keys()}.
+     * @return an enumeration of the keys (strings)
+     */
+    Enumeration keys() {
+        return new KeyEnumeration();
+    }
+
+    /** Prints the statistics of the tree. */
+    void printStats() {
+        System.out.println("Number of keys = " + Integer.toString(length));
+        System.out.println("Node count = " + Integer.toString(nodeCount));
+        System.out.println("Key Array length = " + Integer.toString(kvBuffer.capacity()));
+    }
+
+    /** Walks the nodes of the tree like {@link TernaryTree.Iterator}. */
+    private final class KeyEnumeration implements Enumeration {
+
+        /** current node index */
+        private int cur;
+
+        /** current key */
+        private String curkey;
+
+        /** node stack: the parent nodes and the child visited last (0 lo, 1 eq, 2 hi) */
+        private final Stack<int[]> ns = new Stack<int[]>();
+
+        /** key stack */
+        private final StringBuffer ks = new StringBuffer();
+
+        KeyEnumeration() {
+            cur = root;
+            run();
+        }
+
+        public boolean hasMoreElements() {
+            return cur != -1;
+        }
+
+        public Object nextElement() {
+            if (cur == -1) {
+                throw new NoSuchElementException();
+            }
+            String res = curkey;
+            cur = up();
+            run();
+            return res;
+        }
+
+        /** traverse upwards */
+        private int up() {
+            if (ns.empty()) {
+                return -1;
+            }
+            if (cur != 0 && scBuffer.get(cur) == 0) {
+                return loBuffer.get(cur);
+            }
+            while (true) {
+                int[] item = ns.peek();
+                char parent = (char) item[0];
+                item[1]++;
+                switch (item[1]) {
+                case 1:
+                    if (scBuffer.get(parent) != 0) {
+                        ks.append(scBuffer.get(parent));
+                        return eqBuffer.get(parent);
+                    }
+                    item[1]++;
+                    return hiBuffer.get(parent);
+                case 2:
+                    if (ks.length() > 0) {
+                        ks.setLength(ks.length() - 1);    // pop
+                    }
+                    return hiBuffer.get(parent);
+                default:
+                    ns.pop();
+                    if (ns.empty()) {
+                        return -1;
+                    }
+                    break;
+                }
+            }
+        }
+
+        /** traverse the tree to find next key */
+        private void run() {
+            if (cur == -1) {
+                return;
+            }
+            boolean leaf = false;
+            while (true) {
+                // first go down on low branch until leaf or compressed branch
+                while (cur != 0) {
+                    if (scBuffer.get(cur) == 0xFFFF) {
+                        leaf = true;
+                        break;
+                    }
+                    ns.push(new int[] {cur, 0});
+                    if (scBuffer.get(cur) == 0) {
+                        leaf = true;
+                        break;
+                    }
+                    cur = loBuffer.get(cur);
+                }
+                if (leaf) {
+                    break;
+                }
+                // nothing found, go up one node and try again
+                cur = up();
+                if (cur == -1) {
+                    return;
+                }
+            }
+            // the current node is a data node and the key is in the key stack, at least partially
+            StringBuffer buf = new StringBuffer(ks.toString());
+            if (scBuffer.get(cur) == 0xFFFF) {
+                int p = loBuffer.get(cur);
+                while (kvBuffer.get(p) != 0) {
+                    buf.append(kvBuffer.get(p++));
+                }
+            }
+            curkey = buf.toString();
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.hyphenation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Hyphenates words with the character classes, the exceptions and the patterns of a language.
+ * This is the part of the hyphenation which doesn't depend on how the patterns are stored.
+ *
+ * This work was originally authored by Carlos Villegas cav@uniscope.co.jp
+ */
+final class PatternHyphenator {
+
+    /** The lookups in the patterns of a language which the hyphenation of a word is made of. */
+    interface Lookup {
+
+        /**
+         * Returns the normalization char of the class of a character.
+         * @param c the character
+         * @return the normalization char, or -1 if the character isn't a letter
+         */
+        int findClass(char c);
+
+        /**
+         * Returns the hyphenation of a word given as an exception.
+         * @param word the normalized word
+         * @return the alternating strings and {@link Hyphen hyphens}, or null if the word
+         * isn't an exception
+         */
+        List getException(String word);
+
+        /**
+         * Updates the interletter values with all the patterns matching a word from an index.
+         * @param word null terminated word to match
+         * @param index start index from word
+         * @param il interletter values array to update
+         */
+        void searchPatterns(char[] word, int index, byte[] il);
+    }
+
+    private PatternHyphenator() {
+    }
+
+    /**
+     * Hyphenate word and return a Hyphenation object.
+     * @param lookup the lookups in the patterns of the language
+     * @param word the word to be hyphenated
+     * @param remainCharCount Minimum number of characters allowed
+     * before the hyphenation point.
+     * @param pushCharCount Minimum number of characters allowed after
+     * the hyphenation point.
+     * @return a {@link Hyphenation Hyphenation} object representing
+     * the hyphenated word or null if word is not hyphenated.
+     */
+    static Hyphenation hyphenate(Lookup lookup, String word, int remainCharCount,
+                                 int pushCharCount) {
+        char[] w = word.toCharArray();
+        if (isMultiPartWord(lookup, w, w.length)) {
+            List<char[]> words = splitOnNonCharacters(lookup, w);
+            return new Hyphenation(new String(w),
+                    getHyphPointsForWords(lookup, words, remainCharCount, pushCharCount));
+        } else {
+            return hyphenate(lookup, w, 0, w.length, remainCharCount, pushCharCount);
+        }
+    }
+
+    private static boolean isMultiPartWord(Lookup lookup, char[] w, int len) {
+        int wordParts = 0;
+        for (int i = 0; i < len; i++) {
+            int nc = lookup.findClass(w[i]);
+            if (nc > 0) {
+                if (wordParts > 1) {
+                    return true;
+                }
+                wordParts = 1;
+            } else {
+                if (wordParts == 1) {
+                    wordParts++;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static List<char[]> splitOnNonCharacters(Lookup lookup, char[] word) {
+        List<Integer> breakPoints = getNonLetterBreaks(lookup, word);
+        if (breakPoints.size() == 0) {
+            return Collections.emptyList();
+        }
+        List<char[]> words = new ArrayList<char[]>();
+        for (int ibreak = 0; ibreak < breakPoints.size(); ibreak++) {
+            char[] newWord = getWordFromCharArray(word, ((ibreak == 0)
+                    ? 0 : breakPoints.get(ibreak - 1)), breakPoints.get(ibreak));
+            words.add(newWord);
+        }
+        if (word.length - breakPoints.get(breakPoints.size() - 1) - 1 > 1) {
+            char[] newWord = getWordFromCharArray(word, breakPoints.get(breakPoints.size() - 1),
+                    word.length);
+            words.add(newWord);
+        }
+        return words;
+    }
+
+    private static List<Integer> getNonLetterBreaks(Lookup lookup, char[] word) {
+        List<Integer> breakPoints = new ArrayList<Integer>();
+        boolean foundLetter = false;
+        for (int i = 0; i < word.length; i++) {
+            if (lookup.findClass(word[i]) < 0) {
+                if (foundLetter) {
+                    breakPoints.add(i);
+                }
+            } else {
+                foundLetter = true;
+            }
+        }
+        return breakPoints;
+    }
+
+    private static char[] getWordFromCharArray(char[] word, int startIndex, int endIndex) {
+        char[] newWord = new char[endIndex - ((startIndex == 0) ? startIndex : startIndex + 1)];
+        int iChar = 0;
+        for (int i = (startIndex == 0) ? 0 : startIndex + 1; i < endIndex; i++) {
+            newWord[iChar++] = word[i];
+        }
+        return newWord;
+    }
+
+    private static int[] getHyphPointsForWords(Lookup lookup, List<char[]> nonLetterWords,
+            int remainCharCount, int pushCharCount) {
+        int[] breaks = new int[0];
+        for (int iNonLetterWord = 0; iNonLetterWord < nonLetterWords.size(); iNonLetterWord++) {
+            char[] nonLetterWord = nonLetterWords.get(iNonLetterWord);
+            Hyphenation curHyph = hyphenate(lookup, nonLetterWord, 0, nonLetterWord.length,
+                    (iNonLetterWord == 0) ? remainCharCount : 1,
+                    (iNonLetterWord == nonLetterWords.size() - 1) ? pushCharCount : 1);
+            if (curHyph == null) {
+                continue;
+            }
+            int[] combined = new int[breaks.length + curHyph.getHyphenationPoints().length];
+            int[] hyphPoints = curHyph.getHyphenationPoints();
+            int foreWordsSize = calcForeWordsSize(nonLetterWords, iNonLetterWord);
+            for (int i = 0; i < hyphPoints.length; i++) {
+                hyphPoints[i] += foreWordsSize;
+            }
+            System.arraycopy(breaks, 0, combined, 0, breaks.length);
+            System.arraycopy(hyphPoints, 0, combined, breaks.length, hyphPoints.length);
+            breaks = combined;
+        }
+        return breaks;
+    }
+
+    private static int calcForeWordsSize(List<char[]> nonLetterWords, int iNonLetterWord) {
+        int result = 0;
+        for (int i = 0; i < iNonLetterWord; i++) {
+            result += nonLetterWords.get(i).length + 1;
+        }
+        return result;
+    }
+
+    /**
+     * w = "****nnllllllnnn*****",
+     * where n is a non-letter, l is a letter,
+     * all n may be absent, the first n is at offset,
+     * the first l is at offset + iIgnoreAtBeginning;
+     * word = ".llllll.'\0'***",
+     * where all l in w are copied into word.
+     * In the first part of the routine len = w.length,
+     * in the second part of the routine len = word.length.
+     * Three indices are used:
+     * index(w), the index in w,
+     * index(word), the index in word,
+     * letterindex(word), the index in the letter part of word.
+     * The following relations exist:
+     * index(w) = offset + i - 1
+     * index(word) = i - iIgnoreAtBeginning
+     * letterindex(word) = index(word) - 1
+     * (see first loop).
+     * It follows that:
+     * index(w) - index(word) = offset - 1 + iIgnoreAtBeginning
+     * index(w) = letterindex(word) + offset + iIgnoreAtBeginning
+     */
+
+    /**
+     * Hyphenate word and return an array of hyphenation points.
+     * @param lookup the lookups in the patterns of the language
+     * @param w char array that contains the word
+     * @param offset Offset to first character in word
+     * @param len Length of word
+     * @param remainCharCount Minimum number of characters allowed
+     * before the hyphenation point.
+     * @param pushCharCount Minimum number of characters allowed after
+     * the hyphenation point.
+     * @return a {@link Hyphenation Hyphenation} object representing
+     * the hyphenated word or null if word is not hyphenated.
+     */
+    static Hyphenation hyphenate(Lookup lookup, char[] w, int offset, int len,
+                                 int remainCharCount, int pushCharCount) {
+        int i;
+        char[] word = new char[len + 3];
+
+        // normalize word
+        int iIgnoreAtBeginning = 0;
+        int iLength = len;
+        boolean bEndOfLetters = false;
+        for (i = 1; i <= len; i++) {
+            int nc = lookup.findClass(w[offset + i - 1]);
+            if (nc < 0) {    // found a non-letter character ...
+                if (i == (1 + iIgnoreAtBeginning)) {
+                    // ... before any letter character
+                    iIgnoreAtBeginning++;
+                } else {
+                    // ... after a letter character
+                    bEndOfLetters = true;
+                }
+                iLength--;
+            } else {
+                if (!bEndOfLetters) {
+                    word[i - iIgnoreAtBeginning] = (char)nc;
+                } else {
+                    return null;
+                }
+            }
+        }
+
+        len = iLength;
+        if (len < (remainCharCount + pushCharCount)) {
+            // word is too short to be hyphenated
+            return null;
+        }
+        int[] result = new int[len + 1];
+        int k = 0;
+
+        // check exception list first
+        String sw = new String(word, 1, len);
+        List hw = lookup.getException(sw);
+        if (hw != null) {
+            // assume only simple hyphens (Hyphen.pre="-", Hyphen.post = Hyphen.no = null)
+            int j = 0;
+            for (i = 0; i < hw.size(); i++) {
+                Object o = hw.get(i);
+                // j = index(sw) = letterindex(word)?
+                // result[k] = corresponding index(w)
+                if (o instanceof String) {
+                    j += ((String)o).length();
+                    if (j >= remainCharCount && j < (len - pushCharCount)) {
+                        result[k++] = j + iIgnoreAtBeginning;
+                    }
+                }
+            }
+        } else {
+            // use algorithm to get hyphenation points
+            word[0] = '.';                    // word start marker
+            word[len + 1] = '.';              // word end marker
+            word[len + 2] = 0;                // null terminated
+            byte[] il = new byte[len + 3];    // initialized to zero
+            for (i = 0; i < len + 1; i++) {
+                lookup.searchPatterns(word, i, il);
+            }
+
+            // hyphenation points are located where interletter value is odd
+            // i is letterindex(word),
+            // i + 1 is index(word),
+            // result[k] = corresponding index(w)
+            for (i = 0; i < len; i++) {
+                if (((il[i + 1] & 1) == 1) && i >= remainCharCount
+                        && i <= (len - pushCharCount)) {
+                    result[k++] = i + iIgnoreAtBeginning;
+                }
+            }
+        }
+
+
+        if (k > 0) {
+            // trim result array
+            int[] res = new int[k];
+            System.arraycopy(result, 0, res, 0, k);
+            return new Hyphenation(new String(w, offset, len), res);
+        } else {
+            return null;
+        }
+    }
+}
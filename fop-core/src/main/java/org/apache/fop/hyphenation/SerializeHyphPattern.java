@@ -22,11 +22,12 @@ package org.apache.fop.hyphenation;
 import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 
 /**
  * <p>Serialize hyphenation patterns.</p>
- * <p>For all xml files in the source directory a pattern file is built in the target directory.</p>
+ * <p>For all xml files in the source directory a pattern file is built in the target directory.
+ * The pattern files are written in the binary format read by {@link MappedHyphenationTree}.</p>
  * <p>This class may be called from the ant build file in a java task.</p>
  */
 public class SerializeHyphPattern {
@@ -73,13 +74,11 @@ public class SerializeHyphPattern {
         startProcess = rebuild(infile, outfile);
         if (startProcess) {
             HyphenationTree hTree = buildPatternFile(infile);
-            // serialize class
+            // write the binary pattern file
             try {
                 // @SuppressFBWarnings("OS_OPEN_STREAM_EXCEPTION_PATH")
-                ObjectOutputStream out = new ObjectOutputStream(
-                        new java.io.BufferedOutputStream(
-                        new java.io.FileOutputStream(outfile)));
-                out.writeObject(hTree);
+                OutputStream out = new java.io.FileOutputStream(outfile);
+                MappedHyphenationTree.write(hTree, out);
                 out.close();
             } catch (IOException ioe) {
                 System.err.println("Can't write compiled pattern file: "
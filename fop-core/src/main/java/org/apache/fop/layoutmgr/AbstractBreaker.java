@@ -264,6 +264,31 @@ public abstract class AbstractBreaker {
         return false;
     }
 
+    /**
+     * Returns the maximum number of active nodes per part the page breaking algorithm keeps.
+     * @return the beam width, 0 if the number of active nodes is not limited
+     */
+    protected int getBeamWidth() {
+        return 0;
+    }
+
+    /**
+     * Indicates whether the parts may be added as soon as the breaking algorithm has committed
+     * them, before the whole element list has been broken.
+     * @return true if the element list may be broken incrementally
+     */
+    protected boolean isIncrementalLayoutEnabled() {
+        return false;
+    }
+
+    /**
+     * Prepares the layout of the parts following the ones which have been added while
+     * breaking an element list incrementally.
+     * @param breakClass the break class of the last break
+     */
+    protected void handleCommittedBreak(int breakClass) {
+    }
+
     /**
      * Returns the PageProvider if any. PageBreaker overrides this method because each
      * page may have a different available BPD which needs to be accessible to the breaking
@@ -405,14 +430,18 @@ public abstract class AbstractBreaker {
                 //*** Phase 2: Alignment and breaking ***
                 log.debug("PLM> start of algorithm (" + this.getClass().getName()
                         + "), flow BPD =" + flowBPD);
-                PageBreakingAlgorithm alg = new PageBreakingAlgorithm(getTopLevelLM(),
-                         getPageProvider(), createLayoutListener(),
-                         alignment, alignmentLast, footnoteSeparatorLength,
-                         isPartOverflowRecoveryActivated(), autoHeight, isSinglePartFavored());
-
-                alg.setConstantLineWidth(flowBPD);
+                PageBreakingAlgorithm alg = createPageBreakingAlgorithm(flowBPD, autoHeight);
                 int optimalPageCount = alg.findBreakingPoints(blockList, 1, true,
                         BreakingAlgorithm.ALL_BREAKS);
+                while (alg.isBreakingInterrupted()) {
+                    // add the committed parts, then break the rest of the list
+                    int startIndex = addCommittedAreas(alg, optimalPageCount, blockList);
+                    PageBreakingAlgorithm interrupted = alg;
+                    alg = createPageBreakingAlgorithm(flowBPD, autoHeight);
+                    alg.resumeAfter(interrupted);
+                    optimalPageCount = alg.findBreakingPoints(blockList, startIndex, 1, true,
+                            BreakingAlgorithm.ALL_BREAKS);
+                }
                 boolean ipdChangesOnNextPage = (alg.getIPDdifference() != 0);
                 boolean onLastPageAndIPDChanges = false;
                 if (!ipdChangesOnNextPage) {
@@ -465,6 +494,39 @@ public abstract class AbstractBreaker {
         return true;
     }
 
+    private PageBreakingAlgorithm createPageBreakingAlgorithm(int flowBPD, boolean autoHeight) {
+        PageBreakingAlgorithm alg = new PageBreakingAlgorithm(getTopLevelLM(),
+                getPageProvider(), createLayoutListener(),
+                alignment, alignmentLast, footnoteSeparatorLength,
+                isPartOverflowRecoveryActivated(), autoHeight, isSinglePartFavored());
+        alg.setConstantLineWidth(flowBPD);
+        alg.setBeamWidth(getBeamWidth());
+        alg.setIncremental(isIncrementalLayoutEnabled());
+        return alg;
+    }
+
+    /**
+     * Adds the areas for the parts found by an interrupted breaking algorithm, and prepares
+     * the layout of the following parts.
+     * @param alg the interrupted breaking algorithm
+     * @param partCount the number of parts found
+     * @param blockList the element list
+     * @return the index of the element at which the breaking has to be restarted
+     */
+    private int addCommittedAreas(PageBreakingAlgorithm alg, int partCount, BlockSequence blockList) {
+        addAreas(alg, partCount, blockList, blockList);
+        int breakIndex = alg.getPageBreaks().getLast().getLeafPos();
+        // notify the space resolution about the break before the next part, as addAreas()
+        // would have done it if the parts had been added in one go
+        int lastBreak = ((KnuthElement) blockList.get(breakIndex)).isGlue() ? breakIndex - 1 : breakIndex;
+        SpaceResolver.performConditionalsNotification(blockList, 0, -1, lastBreak);
+        handleCommittedBreak(getBreakClass(blockList, lastBreak));
+        int startIndex = alg.par.getFirstBoxIndex(breakIndex + 1);
+        // make sure we only add the areas we haven't added already
+        blockList.ignoreAtStart = startIndex;
+        return startIndex;
+    }
+
     private LayoutManager getRestartAtLM(PageBreakingAlgorithm alg, boolean ipdChangesOnNextPage,
                                          boolean onLastPageAndIPDChanges, boolean visitedBefore,
                                          BlockSequence blockList, int start) {
@@ -625,23 +687,7 @@ public abstract class AbstractBreaker {
             if (p == 0) {
                 lastBreakClass = effectiveList.getStartOn();
             } else {
-                ListElement lastBreakElement = effectiveList.getElement(endElementIndex);
-                if (lastBreakElement.isPenalty()) {
-                    KnuthPenalty pen = (KnuthPenalty) lastBreakElement;
-                    if (pen.getPenalty() == KnuthPenalty.INFINITE) {
-                        /**
-                         * That means that there was a keep.within-page="always", but that
-                         * it's OK to break at a column. TODO The break class is being
-                         * abused to implement keep.within-column and keep.within-page.
-                         * This is very misleading and must be revised.
-                         */
-                        lastBreakClass = Constants.EN_COLUMN;
-                    } else {
-                        lastBreakClass = pen.getBreakClass();
-                    }
-                } else {
-                    lastBreakClass = Constants.EN_COLUMN;
-                }
+                lastBreakClass = getBreakClass(effectiveList, endElementIndex);
             }
 
             // the end of the new part
@@ -714,6 +760,27 @@ public abstract class AbstractBreaker {
                     startElementIndex, endElementIndex);
         }
     }
+
+    private static int getBreakClass(BlockSequence effectiveList, int breakIndex) {
+        ListElement lastBreakElement = effectiveList.getElement(breakIndex);
+        if (lastBreakElement.isPenalty()) {
+            KnuthPenalty pen = (KnuthPenalty) lastBreakElement;
+            if (pen.getPenalty() == KnuthPenalty.INFINITE) {
+                /**
+                 * That means that there was a keep.within-page="always", but that
+                 * it's OK to break at a column. TODO The break class is being
+                 * abused to implement keep.within-column and keep.within-page.
+                 * This is very misleading and must be revised.
+                 */
+                return Constants.EN_COLUMN;
+            } else {
+                return pen.getBreakClass();
+            }
+        } else {
+            return Constants.EN_COLUMN;
+        }
+    }
+
     /**
      * Notifies the layout managers about the space and conditional length situation based on
      * the break decisions.
@@ -467,7 +467,7 @@ public abstract class AbstractLayoutManager extends AbstractBaseLayoutManager im
                 lm = lm.getParent();
             }
             if (lm instanceof FlowLayoutManager && !preserveChildrenAtEndOfLayout) {
-                fobj.clearChildNodes();
+                fobj.releaseChildNodes();
                 fobjIter = null;
             }
         }
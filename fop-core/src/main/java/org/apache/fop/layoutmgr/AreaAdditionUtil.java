@@ -36,8 +36,9 @@ public final class AreaAdditionUtil {
      * @param parentLM the parent layout manager
      * @param parentIter the position iterator
      * @param layoutContext the layout context
+     * @return the last child layout manager which added areas, or null if there was none
      */
-    public static void addAreas(AbstractLayoutManager parentLM,
+    public static LayoutManager addAreas(AbstractLayoutManager parentLM,
             PositionIterator parentIter, LayoutContext layoutContext) {
         LayoutManager childLM;
         LayoutContext lc = LayoutContext.offspringOf(layoutContext);
@@ -79,7 +80,7 @@ public final class AreaAdditionUtil {
             }
         }
         if (firstPos == null) {
-            return; //Nothing to do, return early
+            return null; //Nothing to do, return early
             //TODO This is a hack to avoid an NPE in the code block below.
             //If there's no firstPos/lastPos there's currently no way to
             //correctly determine first and last conditions. The Iterator
@@ -119,8 +120,7 @@ public final class AreaAdditionUtil {
                     parentLM.isFirst(firstPos),
                     parentLM.isLast(lastPos));
         }
-
-
+        return lastLM;
     }
 
 }
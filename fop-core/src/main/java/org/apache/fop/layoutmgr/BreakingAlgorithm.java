@@ -557,6 +557,11 @@ public abstract class BreakingAlgorithm {
             previousIsBox = handleElementAt(
                     elementIndex, previousIsBox, allowedBreaks).isBox();
 
+            if (isBreakingInterrupted()) {
+                int result = handleInterruption();
+                return result;
+            }
+
             if (activeNodeCount == 0) {
                 if (handlingFloat()) {
                     return handleFloat();
@@ -624,6 +629,23 @@ public abstract class BreakingAlgorithm {
         throw new IllegalStateException();
     }
 
+    /**
+     * Indicates whether the breaking should stop before the end of the sequence, because the
+     * breaks found so far can already be used.
+     * @return true if the breaking has been interrupted
+     */
+    protected boolean isBreakingInterrupted() {
+        return false;
+    }
+
+    /**
+     * Creates the breaks up to the point at which the breaking was interrupted.
+     * @return the number of effective breaks
+     */
+    protected int handleInterruption() {
+        throw new IllegalStateException();
+    }
+
     /**
      * Recover from a {@link KnuthNode} leading to a line that is too long.
      * The default implementation creates a new node corresponding to a break
@@ -730,6 +752,23 @@ public abstract class BreakingAlgorithm {
         return this.lastTooShort;
     }
 
+    /**
+     * Return the last deactivated node that was a good candidate for a break.
+     * @return  the node that would be reactivated if no feasible breaks can be found
+     */
+    protected final KnuthNode getLastDeactivated() {
+        return this.lastDeactivated;
+    }
+
+    /**
+     * Return the node the algorithm rolls back to when moving overflowing content to the
+     * next line/page failed too many times.
+     * @return  the recovery point, null if there is none
+     */
+    protected final KnuthNode getLastRecovered() {
+        return this.lastRecovered;
+    }
+
     /**
      * Generic handler for a {@link KnuthElement} at the given {@code position},
      * taking into account whether the preceding element was a box, and which
@@ -29,6 +29,7 @@ import org.apache.commons.logging.LogFactory;
 
 import org.apache.fop.area.Area;
 import org.apache.fop.area.BlockParent;
+import org.apache.fop.fo.FONode;
 import org.apache.fop.fo.pagination.Flow;
 import org.apache.fop.util.ListUtil;
 
@@ -364,8 +365,42 @@ public class FlowLayoutManager extends BlockStackingLayoutManager {
     /** {@inheritDoc} */
     @Override
     public void addAreas(PositionIterator parentIter, LayoutContext layoutContext) {
-        AreaAdditionUtil.addAreas(this, parentIter, layoutContext);
+        LayoutManager lastLM = AreaAdditionUtil.addAreas(this, parentIter, layoutContext);
         flush();
+        if (lastLM != null) {
+            releaseChildLMsBefore(lastLM);
+        }
+    }
+
+    /**
+     * Releases the child LMs preceding the one which contains the given LM, together with
+     * their formatting objects. All their areas have been added, and the layout is never
+     * restarted before the last position whose areas have been added, so they will not be
+     * needed any more.
+     * @param lm the layout manager which added the last areas
+     */
+    private void releaseChildLMsBefore(LayoutManager lm) {
+        while (lm != null && lm.getParent() != this) {
+            lm = lm.getParent();
+        }
+        if (lm == null || childLMs == null) {
+            return;
+        }
+        int index = childLMs.indexOf(lm);
+        if (index <= 0 || childLMs.indexOf(curChildLM) < index) {
+            return;
+        }
+        FONode node = lm.getFObj();
+        while (node != null && node.getParent() != fobj) {
+            node = node.getParent();
+        }
+        if (node == null) {
+            return;
+        }
+        childLMs.subList(0, index).clear();
+        // the iterator over the child LMs has to follow the removal
+        setCurrentChildLM(curChildLM);
+        fobj.releaseChildNodesBefore(node);
     }
 
     /**
@@ -104,6 +104,25 @@ public class PageBreaker extends AbstractBreaker {
         return pslm.getPageProvider();
     }
 
+    /** {@inheritDoc} */
+    protected int getBeamWidth() {
+        return pslm.getPageSequence().getUserAgent().getPageBreakingBeamWidth();
+    }
+
+    /** {@inheritDoc} */
+    protected boolean isIncrementalLayoutEnabled() {
+        return getBeamWidth() > 0 && !layoutRedone && !handlingFloat()
+                && !pslm.getCurrentPage().isPagePositionOnly && !lastPageHasIPDChange();
+    }
+
+    /** {@inheritDoc} */
+    protected void handleCommittedBreak(int breakClass) {
+        handleBreakTrait(breakClass);
+        pageBreakHandled = true;
+        pageProvider.setStartOfNextElementList(pslm.getCurrentPageNum(),
+                pslm.getCurrentPV().getCurrentSpan().getCurrentFlowIndex(), this.spanAllActive);
+    }
+
     /**
      * Starts the page breaking process.
      * @param flowBPD the constant available block-progression-dimension (used for every part)
@@ -341,7 +360,8 @@ public class PageBreaker extends AbstractBreaker {
     protected void prepareToRedoLayout(PageBreakingAlgorithm alg, int partCount,
             BlockSequence originalList,
             BlockSequence effectiveList) {
-        int newStartPos = 0;
+        // the list may already have been partly added while breaking it incrementally
+        int newStartPos = effectiveList.ignoreAtStart;
         int restartPoint = pageProvider.getStartingPartIndexForLastPage(partCount);
         if (restartPoint > 0 && !layoutRedone) {
             // Add definitive areas for the parts before the
@@ -386,7 +406,8 @@ public class PageBreaker extends AbstractBreaker {
     private void redoLayout(PageBreakingAlgorithm alg, int partCount,
             BlockSequence originalList, BlockSequence effectiveList) {
 
-        int newStartPos = 0;
+        // the list may already have been partly added while breaking it incrementally
+        int newStartPos = effectiveList.ignoreAtStart;
         int restartPoint = pageProvider.getStartingPartIndexForLastPage(partCount);
         if (restartPoint > 0) {
             //Add definitive areas for the parts before the
@@ -535,14 +556,17 @@ public class PageBreaker extends AbstractBreaker {
             for (List<KnuthElement> footnote : pslm.getTableHeaderFootnotes()) {
                 addFootnoteAreas(footnote);
             }
-            // call addAreas() for each FootnoteBodyLM
-            for (int i = pbp.footnoteFirstListIndex; i <= pbp.footnoteLastListIndex; i++) {
-                List elementList = alg.getFootnoteList(i);
-                int firstIndex = (i == pbp.footnoteFirstListIndex
-                        ? pbp.footnoteFirstElementIndex : 0);
-                int lastIndex = (i == pbp.footnoteLastListIndex
-                        ? pbp.footnoteLastElementIndex : elementList.size() - 1);
-                addFootnoteAreas(elementList, firstIndex, lastIndex + 1);
+            if (pbp.footnoteFirstListIndex < pbp.footnoteLastListIndex
+                    || pbp.footnoteFirstElementIndex <= pbp.footnoteLastElementIndex) {
+                // call addAreas() for each FootnoteBodyLM
+                for (int i = pbp.footnoteFirstListIndex; i <= pbp.footnoteLastListIndex; i++) {
+                    List elementList = alg.getFootnoteList(i);
+                    int firstIndex = (i == pbp.footnoteFirstListIndex
+                            ? pbp.footnoteFirstElementIndex : 0);
+                    int lastIndex = (i == pbp.footnoteLastListIndex
+                            ? pbp.footnoteLastElementIndex : elementList.size() - 1);
+                    addFootnoteAreas(elementList, firstIndex, lastIndex + 1);
+                }
             }
             for (List<KnuthElement> footnote : pslm.getTableFooterFootnotes()) {
                 addFootnoteAreas(footnote);
@@ -20,6 +20,7 @@
 package org.apache.fop.layoutmgr;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
@@ -111,6 +112,24 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
     private int previousFootnoteElementIndex = -2;
     private boolean relayingFootnotes;
 
+    /** Minimum number of committed pages before the breaking is interrupted in incremental mode. */
+    private static final int MIN_INCREMENTAL_PAGES = 10;
+
+    /** Maximum number of active nodes per page, 0 if the number of active nodes is not limited. */
+    private int beamWidth;
+    /** In beam mode, the last break shared by all the layouts that are still possible. */
+    private KnuthNode committedNode;
+    /** True if an active node has been removed since the committed node was last updated. */
+    private boolean activeNodesRemoved;
+    /** The nodes the breaking could restart from when the committed node was last updated. */
+    private final KnuthNode[] restartNodes = new KnuthNode[7];
+    /** True if the breaking may stop once enough pages have been committed. */
+    private boolean incremental;
+    /** The committed node at which the breaking was interrupted. */
+    private KnuthNode interruptionNode;
+    /** The node of an interrupted breaking this breaking resumes from. */
+    private KnuthPageNode resumedNode;
+
     /**
      * Construct a page breaking algorithm.
      * @param topLevelLM the top level layout manager
@@ -247,6 +266,15 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
         insertedFootnotesLength = 0;
         footnoteListIndex = 0;
         footnoteElementIndex = -1;
+        committedNode = null;
+        activeNodesRemoved = false;
+        Arrays.fill(restartNodes, null);
+        interruptionNode = null;
+        if (resumedNode != null) {
+            insertedFootnotesLength = resumedNode.insertedFootnotes;
+            footnoteListIndex = resumedNode.footnoteListIndex;
+            footnoteElementIndex = resumedNode.footnoteElementIndex;
+        }
         if (topLevelLM instanceof PageSequenceLayoutManager) {
             PageSequenceLayoutManager pslm = (PageSequenceLayoutManager) topLevelLM;
             if (pslm.handlingStartOfFloat() || pslm.handlingEndOfFloat()) {
@@ -509,6 +537,217 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
         }
         super.considerLegalBreak(element, elementIdx);
         newFootnotes = false;
+        if (beamWidth > 0) {
+            pruneActiveNodes();
+            updateCommittedNode();
+        }
+    }
+
+    /**
+     * Sets the maximum number of active nodes the algorithm keeps for each page. When a new
+     * break is registered and a page has more active nodes, the ones with the most demerits
+     * are dropped. This keeps the cost of breaking very long flows linear, at the expense of
+     * the optimality of the chosen breaks.
+     * @param beamWidth the maximum number of active nodes per page, 0 for no limit
+     */
+    public void setBeamWidth(int beamWidth) {
+        this.beamWidth = beamWidth;
+    }
+
+    /** @return the maximum number of active nodes per page, 0 if there is no limit */
+    public int getBeamWidth() {
+        return beamWidth;
+    }
+
+    /**
+     * Controls whether the breaking stops as soon as a number of pages have been committed
+     * (see {@link #getCommittedNode()}), so that their areas can be added before the rest of
+     * the sequence is broken. The breaking then has to be restarted after the last break.
+     * Only effective in beam mode.
+     * @param incremental true to enable incremental breaking
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    /**
+     * Returns the last break which is common to all the layouts that are still possible for the
+     * content handled so far. The pages up to this break won't change anymore, whatever the rest
+     * of the content is. Only tracked in beam mode.
+     * @return the committed node, null if the layouts haven't converged yet
+     */
+    KnuthNode getCommittedNode() {
+        return committedNode;
+    }
+
+    private void pruneActiveNodes() {
+        if (activeNodeCount <= beamWidth) {
+            return;
+        }
+        for (int line = startLine; line < endLine; line++) {
+            int count = 0;
+            for (KnuthNode node = getNode(line); node != null; node = node.next) {
+                count++;
+            }
+            for (; count > beamWidth; count--) {
+                KnuthNode worst = getNode(line);
+                for (KnuthNode node = worst.next; node != null; node = node.next) {
+                    if (node.totalDemerits > worst.totalDemerits) {
+                        worst = node;
+                    }
+                }
+                if (log.isTraceEnabled()) {
+                    log.trace("Pruning " + worst);
+                }
+                removeNode(line, worst);
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void removeNode(int line, KnuthNode node) {
+        super.removeNode(line, node);
+        activeNodesRemoved = true;
+    }
+
+    /**
+     * Updates the committed node. New active nodes descend from existing ones, so the common
+     * ancestor can only move on when an active node has been removed or when one of the nodes
+     * the breaking could restart from has been replaced; otherwise nothing is done. The chains
+     * of breaks are never followed further back than the current committed node.
+     */
+    private void updateCommittedNode() {
+        if (activeNodeCount == 0) {
+            return;
+        }
+        // the layout may still restart from one of the recovery nodes
+        boolean changed = updateRestartNode(0, getLastTooShort());
+        changed |= updateRestartNode(1, getLastTooLong());
+        changed |= updateRestartNode(2, getLastDeactivated());
+        changed |= updateRestartNode(3, getLastRecovered());
+        changed |= updateRestartNode(4, lastBeforeKeepContextSwitch);
+        changed |= updateRestartNode(5, bestNodeForIPDChange);
+        changed |= updateRestartNode(6, bestFloatEdgeNode);
+        if (!changed && !activeNodesRemoved) {
+            return;
+        }
+        activeNodesRemoved = false;
+        KnuthNode ancestor = null;
+        for (KnuthNode node : restartNodes) {
+            ancestor = commonAncestor(ancestor, node);
+        }
+        for (int line = startLine; line < endLine && ancestor != committedNode; line++) {
+            for (KnuthNode node = getNode(line); node != null && ancestor != committedNode;
+                    node = node.next) {
+                ancestor = commonAncestor(ancestor, node);
+            }
+        }
+        if (ancestor != null && (committedNode == null || ancestor.line > committedNode.line)) {
+            committedNode = ancestor;
+            if (log.isDebugEnabled()) {
+                log.debug("Breaks up to page " + committedNode.line + " committed at element "
+                        + committedNode.position);
+            }
+            if (incremental && committedNode.line >= MIN_INCREMENTAL_PAGES
+                    && canInterruptAt(committedNode)) {
+                interruptionNode = committedNode;
+            }
+        }
+    }
+
+    /**
+     * Checks whether the breaking can be restarted after the given node without changing the
+     * layout: the node must end a page which isn't an empty page inserted to recover from an
+     * overflow, there must be content after it, and all the footnotes cited so far must have
+     * been placed before it.
+     */
+    private boolean canInterruptAt(KnuthNode node) {
+        if (handlingFloat() || bestNodeForIPDChange != null || ipdDifference != 0
+                || node.fitRecoveryCounter > 0 || node.position == node.previous.position
+                || par.getFirstBoxIndex(node.position + 1) >= par.size()) {
+            return false;
+        }
+        if (pageProvider != null && !pageProvider.endPage(node.line - 1)) {
+            return false;
+        }
+        if (footnotesList != null && footnotesList.isEmpty()) {
+            // the footnotes have been reset by a restart and not been met again yet
+            return false;
+        } else if (footnotesPending) {
+            KnuthPageNode pageNode = (KnuthPageNode) node;
+            int lastListIndex = footnotesList.size() - 1;
+            return pageNode.footnoteListIndex == lastListIndex
+                    && pageNode.footnoteElementIndex == getFootnoteList(lastListIndex).size() - 1;
+        }
+        return true;
+    }
+
+    /**
+     * Prepares this algorithm to break the elements following the interruption node of the
+     * given one: the footnotes placed up to that node are taken over, so that the footnote
+     * indexes of the following pages are the same as if the breaking had not been interrupted.
+     * @param interrupted the algorithm whose breaking has been interrupted
+     */
+    void resumeAfter(PageBreakingAlgorithm interrupted) {
+        resumedNode = (KnuthPageNode) interrupted.interruptionNode;
+        if (interrupted.footnotesPending) {
+            footnotesPending = true;
+            int listCount = resumedNode.footnoteListIndex + 1;
+            footnotesList = new ArrayList<List<KnuthElement>>(interrupted.footnotesList.subList(0, listCount));
+            lengthList = new ArrayList<Integer>(interrupted.lengthList.subList(0, listCount));
+            totalFootnotesLength = resumedNode.totalFootnotes;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected boolean isBreakingInterrupted() {
+        return interruptionNode != null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected int handleInterruption() {
+        log.debug("Breaking interrupted after page " + interruptionNode.line);
+        // there is content after the interruption node, so it doesn't end the last page
+        calculateBreakPoints(interruptionNode, par, interruptionNode.line + 1);
+        activeLines = null;
+        return interruptionNode.line;
+    }
+
+    private boolean updateRestartNode(int index, KnuthNode node) {
+        if (restartNodes[index] == node) {
+            return false;
+        }
+        restartNodes[index] = node;
+        return true;
+    }
+
+    /**
+     * Returns the last node shared by the chains of breaks leading to the given nodes. A null
+     * node doesn't constrain the result. All chains start at the node for the beginning of
+     * the sequence, so two nodes always have a common ancestor. The chains aren't followed
+     * further back than the committed node, which is returned if it is reached.
+     */
+    private KnuthNode commonAncestor(KnuthNode node1, KnuthNode node2) {
+        if (node1 == null || node2 == null) {
+            return (node1 == null) ? node2 : node1;
+        }
+        KnuthNode n1 = node1;
+        KnuthNode n2 = node2;
+        while (n1 != null && n2 != null && n1 != n2) {
+            if (committedNode != null
+                    && (n1.line <= committedNode.line || n2.line <= committedNode.line)) {
+                return committedNode;
+            }
+            if (n1.line >= n2.line) {
+                n1 = n1.previous;
+            } else {
+                n2 = n2.previous;
+            }
+        }
+        return (n1 == n2) ? n1 : null;
     }
 
     /** {@inheritDoc} */
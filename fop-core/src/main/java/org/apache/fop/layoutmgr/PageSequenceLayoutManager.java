@@ -21,7 +21,9 @@ package org.apache.fop.layoutmgr;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -30,6 +32,7 @@ import org.apache.fop.area.Area;
 import org.apache.fop.area.AreaTreeHandler;
 import org.apache.fop.area.AreaTreeModel;
 import org.apache.fop.area.LineArea;
+import org.apache.fop.area.RegionReference;
 import org.apache.fop.complexscripts.bidi.BidiResolver;
 import org.apache.fop.fo.Constants;
 import org.apache.fop.fo.pagination.PageSequence;
@@ -63,6 +66,9 @@ public class PageSequenceLayoutManager extends AbstractPageSequenceLayoutManager
     private int startIntrusionAdjustment;
     private int endIntrusionAdjustment;
 
+    /** The areas of page-invariant static content, laid out once per side region. */
+    private final Map<SideRegion, List<Area>> staticContentAreas = new HashMap<SideRegion, List<Area>>();
+
     /**
      * Constructor
      *
@@ -222,10 +228,24 @@ public class PageSequenceLayoutManager extends AbstractPageSequenceLayoutManager
             return;
         }
 
+        RegionReference region = curPage.getPageViewport().getRegionReference(regionID);
+        List<Area> areas = staticContentAreas.get(reg);
+        if (areas != null) {
+            for (Area area : areas) {
+                region.addChildArea(area);
+            }
+            return;
+        }
+
         StaticContentLayoutManager lm = getLayoutManagerMaker()
                                             .makeStaticContentLayoutManager(
                                                 this, sc, reg);
         lm.doLayout();
+        if (sc.isPageInvariant() && !lm.isOverflow()
+                && !getPageSequence().getUserAgent().isAccessibilityEnabled()) {
+            // the areas are identical on the following pages with the same region, share them
+            staticContentAreas.put(reg, new ArrayList<Area>(region.getBlocks()));
+        }
     }
 
     /** {@inheritDoc} */
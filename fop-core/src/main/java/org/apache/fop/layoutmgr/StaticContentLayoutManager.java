@@ -44,6 +44,8 @@ public class StaticContentLayoutManager extends BlockStackingLayoutManager {
     private int contentAreaIPD;
     private int contentAreaBPD = -1;
 
+    private boolean overflow;
+
     /**
      * Creates a new StaticContentLayoutManager.
      * @param pslm PageSequenceLayoutManager this layout manager belongs to
@@ -138,7 +140,8 @@ public class StaticContentLayoutManager extends BlockStackingLayoutManager {
         setContentAreaBPD(targetBPD);
         breaker = new StaticContentBreaker(this, targetIPD, targetAlign);
         breaker.doLayout(targetBPD, autoHeight);
-        if (breaker.isOverflow()) {
+        overflow = breaker.isOverflow();
+        if (overflow) {
             if (!autoHeight) {
                 String page = getPSLM().getCurrentPage().getPageViewport().getPageNumberString();
 
@@ -155,6 +158,14 @@ public class StaticContentLayoutManager extends BlockStackingLayoutManager {
         }
     }
 
+    /**
+     * Indicates whether the content didn't fit in the region during the last layout.
+     * @return true if the content overflowed
+     */
+    public boolean isOverflow() {
+        return overflow;
+    }
+
     /**
      * Convenience method that returns the Static Content node.
      * @return the static content node
@@ -29,6 +29,7 @@ import java.util.ListIterator;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.area.Area;
 import org.apache.fop.area.LineArea;
 import org.apache.fop.area.Trait;
@@ -44,7 +45,6 @@ import org.apache.fop.fonts.Font;
 import org.apache.fop.fonts.FontInfo;
 import org.apache.fop.fonts.FontTriplet;
 import org.apache.fop.hyphenation.Hyphenation;
-import org.apache.fop.hyphenation.Hyphenator;
 import org.apache.fop.layoutmgr.Adjustment;
 import org.apache.fop.layoutmgr.BlockLayoutManager;
 import org.apache.fop.layoutmgr.BlockLevelLayoutManager;
@@ -1428,14 +1428,16 @@ public class LineLayoutManager extends InlineStackingLayoutManager
         // TextLM which generate the hyphenation buffer,
         // since these properties inherit and could be specified
         // on an inline or wrapper below the block level.
-        Hyphenation hyph = Hyphenator.hyphenate(hyphenationProperties.language.getString(),
+        FOUserAgent userAgent = getFObj().getUserAgent();
+        Hyphenation hyph = userAgent.getHyphenationResultCache().hyphenate(
+                               hyphenationProperties.language.getString(),
                                hyphenationProperties.country.getString(),
-                               getFObj().getUserAgent().getHyphenationResourceResolver(),
-                               getFObj().getUserAgent().getHyphenationPatternNames(),
+                               userAgent.getHyphenationResourceResolver(),
+                               userAgent.getHyphenationPatternNames(),
                                sbChars.toString(),
                                hyphenationProperties.hyphenationRemainCharacterCount.getValue(),
                                hyphenationProperties.hyphenationPushCharacterCount.getValue(),
-                               getFObj().getUserAgent().getEventBroadcaster());
+                               userAgent.getEventBroadcaster());
         // They hyph structure contains the information we need
         // Now start from prev: reset to that position, ask that LM to get
         // a Position for the first hyphenation offset. If the offset isn't in
@@ -22,6 +22,10 @@ package org.apache.fop.pdf;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.commons.io.output.CountingOutputStream;
 
@@ -41,6 +45,11 @@ public abstract class AbstractPDFStream extends PDFObject {
 
     private PDFNumber refLength = new PDFNumber();
 
+    /** The stream being encoded on a worker thread, if any */
+    private Future<StreamCache> pendingEncoding;
+
+    private boolean filterListPrepared;
+
     protected AbstractPDFStream() {
         this(true);
     }
@@ -87,6 +96,7 @@ public abstract class AbstractPDFStream extends PDFObject {
                 getDocumentSafely().getFilterMap(),
                 getDefaultFilterName());
         }
+        getFilterList().applyFlateSettings(getDocumentSafely().getFlateSettings());
         prepareImplicitFilters();
         getDocument().applyEncryption(this);
     }
@@ -176,6 +186,60 @@ public abstract class AbstractPDFStream extends PDFObject {
         return encodedStream;
     }
 
+    /**
+     * Indicates whether this stream may be encoded on another thread before it is output.
+     * This is only the case if the stream's data is complete once the stream has been
+     * registered and if encoding it doesn't access the document.
+     * @return true if the stream may be encoded concurrently
+     */
+    protected boolean isConcurrentEncodingSupported() {
+        return true;
+    }
+
+    /**
+     * Starts encoding the stream on the given executor if that is supported and worthwhile.
+     * The filters are set up on the calling thread; {@link #output(OutputStream)} later waits
+     * for the encoded stream.
+     * @param executor the executor running the encoding
+     */
+    void startEncoding(ExecutorService executor) {
+        if (pendingEncoding != null || !isConcurrentEncodingSupported()) {
+            return;
+        }
+        setupFilterList();
+        filterListPrepared = true;
+        if (!getFilterList().hasFlateFilterToApply()) {
+            return;
+        }
+        pendingEncoding = executor.submit(new Callable<StreamCache>() {
+            public StreamCache call() throws IOException {
+                return encodeStream();
+            }
+        });
+    }
+
+    private StreamCache awaitEncoding() throws IOException {
+        try {
+            return pendingEncoding.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the stream to be encoded");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new RuntimeException(cause);
+            }
+        } finally {
+            pendingEncoding = null;
+        }
+    }
+
     /**
      * Encodes and writes a stream directly to an OutputStream. The length of
      * the stream, in this case, is set on a PDFNumber object that has to be
@@ -217,14 +281,27 @@ public abstract class AbstractPDFStream extends PDFObject {
      */
     @Override
     public int output(OutputStream stream) throws IOException {
-        setupFilterList();
+        StreamCache encodedStream = null;
+        if (pendingEncoding != null) {
+            encodedStream = awaitEncoding();
+        } else if (!filterListPrepared) {
+            setupFilterList();
+        }
+        filterListPrepared = false;
 
         CountingOutputStream cout = new CountingOutputStream(stream);
         StringBuilder textBuffer = new StringBuilder(64);
 
-        StreamCache encodedStream = null;
         final Object lengthEntry;
-        if (encodeOnTheFly) {
+        if (encodedStream != null) {
+            //Encoded in advance: keep the indirect /Length object if one has been registered
+            if (encodeOnTheFly && refLength.hasObjectNumber()) {
+                refLength.setNumber(encodedStream.getSize());
+                lengthEntry = refLength;
+            } else {
+                lengthEntry = encodedStream.getSize();
+            }
+        } else if (encodeOnTheFly) {
             if (!refLength.hasObjectNumber()) {
                 registerChildren();
             }
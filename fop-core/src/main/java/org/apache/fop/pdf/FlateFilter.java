@@ -21,8 +21,11 @@ package org.apache.fop.pdf;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 
 import org.apache.xmlgraphics.util.io.FlateEncodeOutputStream;
+import org.apache.xmlgraphics.util.io.Finalizable;
 
 /**
  * A filter to deflate a stream.
@@ -79,6 +82,7 @@ public class FlateFilter extends PDFFilter {
     private int colors;
     private int bitsPerComponent;
     private int columns;
+    private FlateSettings settings;
 
     /**
      * Get the name of this filter.
@@ -208,12 +212,64 @@ public class FlateFilter extends PDFFilter {
     }
 
 
+    /**
+     * Sets the compression level and strategy for this filter.
+     *
+     * @param settings the settings, null for the defaults
+     */
+    public void setSettings(FlateSettings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Get the compression level and strategy for this filter.
+     *
+     * @return the settings, null if none have been set
+     */
+    public FlateSettings getSettings() {
+        return settings;
+    }
+
     /** {@inheritDoc} */
     public OutputStream applyFilter(OutputStream out) throws IOException {
         if (isApplied()) {
             return out;
-        } else {
+        } else if (settings == null || settings.isDefault()) {
             return new FlateEncodeOutputStream(out);
+        } else {
+            Deflater deflater = new Deflater(settings.getLevel());
+            deflater.setStrategy(settings.getStrategy());
+            return new ConfiguredFlateEncodeOutputStream(out, deflater);
+        }
+    }
+
+    /**
+     * Deflating stream with a caller-supplied {@link Deflater}, released when the stream is
+     * finished.
+     */
+    private static class ConfiguredFlateEncodeOutputStream extends DeflaterOutputStream
+            implements Finalizable {
+
+        ConfiguredFlateEncodeOutputStream(OutputStream out, Deflater deflater) {
+            super(out, deflater);
+        }
+
+        public void finalizeStream() throws IOException {
+            finish();
+            flush();
+            def.end();
+            if (out instanceof Finalizable) {
+                ((Finalizable) out).finalizeStream();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                def.end();
+            }
         }
     }
 
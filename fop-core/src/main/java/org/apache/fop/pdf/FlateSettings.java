@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.util.zip.Deflater;
+
+/**
+ * The compression level and strategy used by a {@link FlateFilter}. Instances are immutable.
+ */
+public final class FlateSettings {
+
+    /** The settings used if nothing else is configured. */
+    public static final FlateSettings DEFAULT
+            = new FlateSettings(Deflater.DEFAULT_COMPRESSION, Deflater.DEFAULT_STRATEGY);
+
+    private final int level;
+
+    private final int strategy;
+
+    /**
+     * Creates new settings.
+     * @param level the compression level (0-9 or {@link Deflater#DEFAULT_COMPRESSION})
+     * @param strategy the compression strategy ({@link Deflater#DEFAULT_STRATEGY},
+     * {@link Deflater#FILTERED} or {@link Deflater#HUFFMAN_ONLY})
+     */
+    public FlateSettings(int level, int strategy) {
+        if ((level < 0 || level > 9) && level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+        if (strategy != Deflater.DEFAULT_STRATEGY && strategy != Deflater.FILTERED
+                && strategy != Deflater.HUFFMAN_ONLY) {
+            throw new IllegalArgumentException("Invalid compression strategy: " + strategy);
+        }
+        this.level = level;
+        this.strategy = strategy;
+    }
+
+    /**
+     * Returns the compression level.
+     * @return the compression level
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Returns the compression strategy.
+     * @return the compression strategy
+     */
+    public int getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Indicates whether these are the default settings of the {@link Deflater}.
+     * @return true if neither level nor strategy differ from the default
+     */
+    public boolean isDefault() {
+        return level == Deflater.DEFAULT_COMPRESSION && strategy == Deflater.DEFAULT_STRATEGY;
+    }
+
+    /**
+     * Returns the strategy for the given name.
+     * @param name "default", "filtered" or "huffman-only"
+     * @return the strategy
+     */
+    public static int getStrategy(String name) {
+        if (name == null || "default".equals(name)) {
+            return Deflater.DEFAULT_STRATEGY;
+        } else if ("filtered".equals(name)) {
+            return Deflater.FILTERED;
+        } else if ("huffman-only".equals(name)) {
+            return Deflater.HUFFMAN_ONLY;
+        } else {
+            throw new IllegalArgumentException("Unsupported compression strategy: " + name);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof FlateSettings)) {
+            return false;
+        }
+        FlateSettings other = (FlateSettings) obj;
+        return level == other.level && strategy == other.strategy;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int hashCode() {
+        return 31 * level + strategy;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "FlateSettings[level=" + level + ", strategy=" + strategy + "]";
+    }
+}
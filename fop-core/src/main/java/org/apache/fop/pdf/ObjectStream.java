@@ -57,6 +57,12 @@ public class ObjectStream extends PDFStream {
         return reference;
     }
 
+    /** The contained objects are serialized while encoding. */
+    @Override
+    protected boolean isConcurrentEncodingSupported() {
+        return false;
+    }
+
     @Override
     protected void outputRawStreamData(OutputStream out) throws IOException {
         int currentOffset = 0;
@@ -422,6 +422,12 @@ public class PDFCMap extends PDFStream {
         return new CMapBuilder(writer, this.name);
     }
 
+    /** The CMap is only written when the stream is output. */
+    @Override
+    protected boolean isConcurrentEncodingSupported() {
+        return false;
+    }
+
     /** {@inheritDoc} */
     public int output(OutputStream stream) throws IOException {
         CMapBuilder builder = createCMapBuilder(getBufferWriter());
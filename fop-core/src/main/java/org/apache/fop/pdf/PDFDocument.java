@@ -32,10 +32,17 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.apache.fop.fonts.FontSubsetCache;
 import org.apache.fop.pdf.StandardStructureAttributes.Table.Scope;
 import org.apache.fop.pdf.xref.CrossReferenceStream;
 import org.apache.fop.pdf.xref.CrossReferenceTable;
@@ -136,6 +143,16 @@ public class PDFDocument {
 
     private Map<String, List<String>> filterMap = new HashMap<String, List<String>>();
 
+    private Map<String, FlateSettings> flateSettings = new HashMap<String, FlateSettings>();
+
+    private static final long COMPRESSION_THREAD_KEEP_ALIVE_SECONDS = 30;
+
+    private int compressionThreads = 1;
+
+    private FontSubsetCache fontSubsetCache;
+
+    private ExecutorService compressionExecutor;
+
     private List<PDFGState> gstates = new ArrayList<PDFGState>();
 
     private List<PDFFunction> functions = new ArrayList<PDFFunction>();
@@ -146,6 +163,12 @@ public class PDFDocument {
 
     private List<PDFLink> links = new ArrayList<PDFLink>();
 
+    /** The links registered in streaming mode which haven't been added to linkNumbers yet */
+    private List<PDFLink> pendingLinks = new ArrayList<PDFLink>();
+
+    /** The object numbers of the links registered in streaming mode, by content */
+    private Map<String, PDFObjectNumber> linkNumbers = new HashMap<String, PDFObjectNumber>();
+
     private List<PDFDestination> destinations;
 
     private List<PDFFileSpec> filespecs = new ArrayList<PDFFileSpec>();
@@ -174,6 +197,10 @@ public class PDFDocument {
 
     private boolean linearizationEnabled;
 
+    private boolean streamingEnabled;
+
+    private boolean sharedContentEnabled = true;
+
     protected boolean outputStarted;
 
     /**
@@ -336,6 +363,98 @@ public class PDFDocument {
         return this.filterMap;
     }
 
+    /**
+     * Sets the compression level and strategy of the flate filters for each stream type.
+     *
+     * @param settings the settings keyed by stream type (see {@link PDFFilterList})
+     */
+    public void setFlateSettings(Map<String, FlateSettings> settings) {
+        this.flateSettings = settings;
+    }
+
+    /**
+     * Returns the compression level and strategy of the flate filters for each stream type.
+     *
+     * @return the settings keyed by stream type
+     */
+    public Map<String, FlateSettings> getFlateSettings() {
+        return this.flateSettings;
+    }
+
+    /**
+     * Sets the number of threads compressing streams. With more than one thread, streams are
+     * compressed on a pool of worker threads as soon as they are complete, while the objects
+     * are still written in order. This has no effect when encryption or linearization is
+     * active.
+     *
+     * @param threads the number of compression threads
+     * @throws IllegalArgumentException if threads is smaller than 1
+     */
+    public void setCompressionThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of compression threads must be at least 1");
+        }
+        this.compressionThreads = threads;
+    }
+
+    /**
+     * Returns the number of threads compressing streams.
+     *
+     * @return the number of compression threads
+     */
+    public int getCompressionThreads() {
+        return this.compressionThreads;
+    }
+
+    /**
+     * Sets the cache of the embedded font programs shared with other documents.
+     *
+     * @param fontSubsetCache the font subset cache, or null to read and subset the fonts for
+     * this document only
+     */
+    public void setFontSubsetCache(FontSubsetCache fontSubsetCache) {
+        this.fontSubsetCache = fontSubsetCache;
+    }
+
+    /**
+     * Returns the cache of the embedded font programs shared with other documents.
+     *
+     * @return the font subset cache, or null
+     */
+    public FontSubsetCache getFontSubsetCache() {
+        return this.fontSubsetCache;
+    }
+
+    private boolean isConcurrentCompressionEnabled() {
+        return compressionThreads > 1 && !isEncryptionActive() && !isLinearizationEnabled();
+    }
+
+    private void startEncoding(PDFObject object) {
+        if (object instanceof AbstractPDFStream && object.getDocument() == this
+                && isConcurrentCompressionEnabled()) {
+            if (compressionExecutor == null) {
+                ThreadPoolExecutor pool = new ThreadPoolExecutor(compressionThreads,
+                        compressionThreads, COMPRESSION_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<Runnable>(), new CompressionThreadFactory());
+                //the threads end by themselves if the document is abandoned without being closed
+                pool.allowCoreThreadTimeOut(true);
+                compressionExecutor = pool;
+            }
+            ((AbstractPDFStream) object).startEncoding(compressionExecutor);
+        }
+    }
+
+    private static final class CompressionThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "fop-pdf-compression-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
     /**
      * Returns the {@link PDFPages} object associated with the root object.
      *
@@ -506,13 +625,22 @@ public class PDFDocument {
         }
         if (obj instanceof PDFPage) {
             this.pages.notifyKidRegistered((PDFPage)obj);
-            pageObjs.add((PDFPage) obj);
+            //Only linearization needs the page objects after they've been written
+            if (!isStreamingEnabled()) {
+                pageObjs.add((PDFPage) obj);
+            }
         }
         if (obj instanceof PDFLaunch) {
             this.launches.add((PDFLaunch) obj);
         }
         if (obj instanceof PDFLink) {
-            this.links.add((PDFLink) obj);
+            if (isStreamingEnabled()) {
+                //The previous links are complete: only their lookup data is kept
+                rememberLinks();
+                this.pendingLinks.add((PDFLink) obj);
+            } else {
+                this.links.add((PDFLink) obj);
+            }
         }
         if (obj instanceof PDFFileSpec) {
             this.filespecs.add((PDFFileSpec) obj);
@@ -689,9 +817,31 @@ public class PDFDocument {
      * @return the link if found, null otherwise
      */
     protected PDFLink findLink(PDFLink compare) {
+        if (isStreamingEnabled()) {
+            rememberLinks();
+            String key = compare.getLookupKey();
+            PDFObjectNumber number = key != null ? linkNumbers.get(key) : null;
+            if (number == null) {
+                return null;
+            }
+            //The link may have been written and released already, so the template, which has the
+            //same content, stands in for it
+            compare.setObjectNumber(number);
+            return compare;
+        }
         return (PDFLink)findPDFObject(this.links, compare);
     }
 
+    private void rememberLinks() {
+        for (PDFLink link : pendingLinks) {
+            String key = link.getLookupKey();
+            if (key != null && !linkNumbers.containsKey(key)) {
+                linkNumbers.put(key, link.getObjectNumber());
+            }
+        }
+        pendingLinks.clear();
+    }
+
     /**
      * Finds a file spec.
      *
@@ -870,6 +1020,8 @@ public class PDFDocument {
         // create a new XObject
         xObject = new PDFImageXObject(++this.xObjectCount, img);
         registerObject(xObject);
+        //the image data is complete: compress it while the page is still being painted
+        startEncoding(xObject);
         this.resources.addXObject(xObject);
         if (res != null) {
             res.addXObject(xObject);
@@ -986,6 +1138,10 @@ public class PDFDocument {
      */
     public void output(OutputStream stream) throws IOException {
         outputStarted = true;
+        //Compress the queued streams concurrently; each one is waited for when it is written
+        for (PDFObject object : this.objects) {
+            startEncoding(object);
+        }
         //Write out objects until the list is empty. This approach (used with a
         //LinkedList) allows for output() methods to create and register objects
         //on the fly even during serialization.
@@ -1098,6 +1254,18 @@ public class PDFDocument {
         outputTrailerObjectsAndXref(stream);
     }
 
+    /**
+     * Releases the threads compressing the streams of this document. This is called once the
+     * document has been written, or when its production is abandoned: the pending compressions
+     * are cancelled, so the streams not written yet can't be written anymore.
+     */
+    public void close() {
+        if (compressionExecutor != null) {
+            compressionExecutor.shutdownNow();
+            compressionExecutor = null;
+        }
+    }
+
     private void createDestinations() {
         if (hasDestinations()) {
             Collections.sort(this.destinations, new DestinationComparator());
@@ -1229,4 +1397,48 @@ public class PDFDocument {
         linearizationEnabled = b;
     }
 
+    /**
+     * Indicates whether streaming output is active. In streaming mode, objects that have been
+     * written (pages, their content streams and annotations) are not retained by the document,
+     * so that only their offsets in the cross-reference table survive. Objects that are
+     * referenced before they can be completed (fonts, the page tree, the structure tree) are
+     * still held back until the trailer is written. Linearization needs the complete document
+     * and therefore takes precedence over streaming.
+     *
+     * @return true if streaming output is active
+     */
+    public boolean isStreamingEnabled() {
+        return streamingEnabled && !linearizationEnabled;
+    }
+
+    /**
+     * Enables or disables streaming output.
+     *
+     * @param b true to enable streaming output
+     * @see #isStreamingEnabled()
+     */
+    public void setStreamingEnabled(boolean b) {
+        streamingEnabled = b;
+    }
+
+    /**
+     * Indicates whether content that repeats on several pages (headers, footers, region
+     * backgrounds) may be written once as a Form XObject and referenced from each page.
+     *
+     * @return true if repeated content is shared
+     */
+    public boolean isSharedContentEnabled() {
+        return sharedContentEnabled;
+    }
+
+    /**
+     * Enables or disables the sharing of repeated content.
+     *
+     * @param b true to share repeated content as Form XObjects
+     * @see #isSharedContentEnabled()
+     */
+    public void setSharedContentEnabled(boolean b) {
+        sharedContentEnabled = b;
+    }
+
 }
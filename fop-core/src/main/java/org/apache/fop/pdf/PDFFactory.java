@@ -52,6 +52,7 @@ import org.apache.fop.fonts.CustomFont;
 import org.apache.fop.fonts.EmbeddingMode;
 import org.apache.fop.fonts.FontDescriptor;
 import org.apache.fop.fonts.FontMetrics;
+import org.apache.fop.fonts.FontSubsetCache;
 import org.apache.fop.fonts.FontType;
 import org.apache.fop.fonts.LazyFont;
 import org.apache.fop.fonts.MultiByteFont;
@@ -1359,8 +1360,15 @@ public class PDFFactory {
 
         CustomFont font = getCustomFont(desc);
 
+        String subsetKey = getFontSubsetKey(desc, font, fontPrefix);
         InputStream in = null;
         try {
+            if (subsetKey != null) {
+                byte[] fontBytes = document.getFontSubsetCache().getSubset(subsetKey);
+                if (fontBytes != null) {
+                    return getFontStream(font, fontBytes, isCFFFont(desc, (MultiByteFont) font));
+                }
+            }
             in = font.getInputStream();
             if (in == null) {
                 return null;
@@ -1380,7 +1388,7 @@ public class PDFFactory {
                     }
                 } else {
                     fontBytes = getFontSubsetBytes(reader, mbfont, header, fontPrefix, desc,
-                            isCFF);
+                            isCFF, subsetKey);
                 }
                 embeddedFont = getFontStream(font, fontBytes, isCFF);
             } else if (desc.getFontType() == FontType.TYPE1) {
@@ -1401,7 +1409,8 @@ public class PDFFactory {
                 if (font.getEmbeddingMode() == EmbeddingMode.SUBSET) {
                     FontFileReader reader = new FontFileReader(in);
                     String header = OFFontLoader.readHeader(reader);
-                    byte[] fontBytes = getFontSubsetBytes(reader, (MultiByteFont) font, header, fontPrefix, desc, true);
+                    byte[] fontBytes = getFontSubsetBytes(reader, (MultiByteFont) font, header, fontPrefix, desc,
+                            true, subsetKey);
                     embeddedFont = getFontStream(font, fontBytes, true);
                 } else {
                     byte[] file = IOUtils.toByteArray(in);
@@ -1447,17 +1456,51 @@ public class PDFFactory {
         return embeddedFont;
     }
 
+    /**
+     * Returns the key of the subset of a font in the font subset cache.
+     * @return the key, or null if the font isn't subset or its subset can't be cached
+     */
+    private String getFontSubsetKey(FontDescriptor desc, CustomFont font, String fontPrefix) {
+        if (document.getFontSubsetCache() == null || !(font instanceof MultiByteFont)) {
+            return null;
+        }
+        boolean subset;
+        if (desc.getFontType() == FontType.TYPE0) {
+            subset = font.getEmbeddingMode() != EmbeddingMode.FULL;
+        } else {
+            subset = desc.getFontType() == FontType.TYPE1C
+                    && font.getEmbeddingMode() == EmbeddingMode.SUBSET;
+        }
+        if (!subset) {
+            return null;
+        }
+        MultiByteFont mbfont = (MultiByteFont) font;
+        //the name of the font is only part of CFF subsets
+        return FontSubsetCache.createSubsetKey(mbfont,
+                isCFFFont(desc, mbfont) ? fontPrefix + desc.getEmbedFontName() : null,
+                mbfont.getUsedGlyphs());
+    }
+
+    private static boolean isCFFFont(FontDescriptor desc, MultiByteFont mbfont) {
+        return desc.getFontType() == FontType.TYPE1C || mbfont.isOTFFile();
+    }
+
     private byte[] getFontSubsetBytes(FontFileReader reader, MultiByteFont mbfont, String header,
-            String fontPrefix, FontDescriptor desc, boolean isCFF) throws IOException {
+            String fontPrefix, FontDescriptor desc, boolean isCFF, String subsetKey) throws IOException {
+        byte[] subset;
         if (isCFF) {
             OTFSubSetFile otfFile = new OTFSubSetFile();
             otfFile.readFont(reader, fontPrefix + desc.getEmbedFontName(), mbfont);
-            return otfFile.getFontSubset();
+            subset = otfFile.getFontSubset();
         } else {
             TTFSubSetFile otfFile = new TTFSubSetFile();
             otfFile.readFont(reader, mbfont.getTTCName(), header, mbfont.getUsedGlyphs());
-            return otfFile.getFontSubset();
+            subset = otfFile.getFontSubset();
+        }
+        if (subsetKey != null) {
+            document.getFontSubsetCache().putSubset(subsetKey, subset);
         }
+        return subset;
     }
 
     private AbstractPDFStream getFontStream(CustomFont font, byte[] fontBytes, boolean isCFF)
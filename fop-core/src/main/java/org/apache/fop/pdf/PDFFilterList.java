@@ -54,6 +54,8 @@ public class PDFFilterList {
 
     private boolean disableAllFilters;
 
+    private String type;
+
     /**
      * Default constructor.
      * <p>
@@ -164,6 +166,7 @@ public class PDFFilterList {
      * @param type which filter list to modify
      */
     public void addDefaultFilters(Map filters, String type) {
+        this.type = type;
         if (METADATA_FILTER.equals(type)) {
             //XMP metadata should not be embedded in clear-text
             addFilter(new NullFilter());
@@ -198,6 +201,58 @@ public class PDFFilterList {
         }
     }
 
+    /**
+     * Applies the compression settings for the type of this filter list (or the default
+     * settings if there are none for that type) to the flate filters which haven't been
+     * configured individually.
+     * @param settingsMap the compression settings by filter list type
+     */
+    public void applyFlateSettings(Map<String, FlateSettings> settingsMap) {
+        if (settingsMap == null || settingsMap.isEmpty()) {
+            return;
+        }
+        FlateSettings settings = (type != null ? settingsMap.get(type) : null);
+        if (settings == null) {
+            settings = settingsMap.get(DEFAULT_FILTER);
+        }
+        if (settings != null) {
+            for (PDFFilter filter : filters) {
+                if (filter instanceof FlateFilter && ((FlateFilter) filter).getSettings() == null) {
+                    ((FlateFilter) filter).setSettings(settings);
+                }
+            }
+        }
+    }
+
+    /**
+     * Indicates whether the filters compress the data, so encoding the stream is worth
+     * doing on another thread.
+     * @return true if an unapplied flate filter is present
+     */
+    boolean hasFlateFilterToApply() {
+        if (isDisableAllFilters()) {
+            return false;
+        }
+        for (PDFFilter filter : filters) {
+            if (filter instanceof FlateFilter && !filter.isApplied()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the flate filter if it is the only filter of the list, as is the case with the
+     * default filters for most types of streams.
+     * @return the flate filter, or null if there are other filters or none
+     */
+    public FlateFilter getSingleFlateFilter() {
+        if (isDisableAllFilters() || filters.size() != 1 || !(filters.get(0) instanceof FlateFilter)) {
+            return null;
+        }
+        return (FlateFilter) filters.get(0);
+    }
+
     List<PDFFilter> getFilters() {
         return Collections.unmodifiableList(filters);
     }
@@ -179,6 +179,12 @@ public class PDFImageXObject extends PDFXObject {
         return pdfimage.multipleFiltersAllowed();
     }
 
+    /** For PDF/VT, the image data is read a second time to build the GTS_XID entry. */
+    @Override
+    protected boolean isConcurrentEncodingSupported() {
+        return !getDocumentSafely().getProfile().isPDFVTActive();
+    }
+
     @Override
     public void getChildren(Set<PDFObject> children) {
         super.getChildren(children);
@@ -144,6 +144,18 @@ public class PDFLink extends PDFObject {
         return true;
     }
 
+    /**
+     * Returns a key identifying the content of this link, so that equal links can be found
+     * without keeping them.
+     * @return the key, or null if the link has no action yet
+     */
+    String getLookupKey() {
+        if (action == null) {
+            return null;
+        }
+        return ulx + " " + uly + " " + brx + " " + bry + " " + color + " " + action.getAction();
+    }
+
     @Override
     public void getChildren(Set<PDFObject> children) {
         super.getChildren(children);
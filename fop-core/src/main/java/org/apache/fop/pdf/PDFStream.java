@@ -189,13 +189,25 @@ public class PDFStream extends AbstractPDFStream {
         final int len = super.output(stream);
 
         //Now that the data has been written, it can be discarded.
-//        this.data = null;
+        PDFDocument doc = getDocument();
+        if (doc != null && doc.isStreamingEnabled() && hasObjectNumber()) {
+            data.clear();
+        }
         return len;
     }
 
     public int streamHashCode() throws IOException {
+        return Arrays.hashCode(getData());
+    }
+
+    /**
+     * Returns the contents of the stream, before any filtering.
+     * @return the contents as a byte array
+     * @throws IOException in case of an I/O problem
+     */
+    public byte[] getData() throws IOException {
         ByteArrayOutputStream bos = new ByteArrayOutputStream();
         outputRawStreamData(bos);
-        return Arrays.hashCode(bos.toByteArray());
+        return bos.toByteArray();
     }
 }
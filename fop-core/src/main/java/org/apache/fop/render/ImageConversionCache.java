@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render;
+
+import java.awt.image.ColorModel;
+import java.awt.image.RenderedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.xmlgraphics.image.loader.Image;
+import org.apache.xmlgraphics.image.loader.ImageInfo;
+import org.apache.xmlgraphics.image.loader.impl.ImageRendered;
+
+/**
+ * A cache of the images converted and encoded for an output format, shared by all the documents
+ * produced with a {@link org.apache.fop.apps.FopFactory}. The image loader already caches the
+ * decoded images, but the conversion to what a format needs (pixel data in the right color
+ * model, compressed and so on) was done again for each document. Image handlers store the
+ * result of that conversion here, under a key made of the image URI, the target format and the
+ * settings which influence the conversion. The cache is bounded by the total size of its
+ * entries; when it is full, the least recently used entries are dropped.
+ * <p>
+ * This class is thread-safe.
+ * <p>
+ * Note: this class should not be considered as part of FOP's external API.
+ */
+public class ImageConversionCache {
+
+    /** The default maximum total size of the entries, in bytes */
+    public static final long DEFAULT_MAX_SIZE = 64L * 1024 * 1024;
+
+    private final long maxSize;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+    private long size;
+
+    private long hitCount;
+
+    private long missCount;
+
+    /**
+     * Creates a cache holding at most {@link #DEFAULT_MAX_SIZE} bytes.
+     */
+    public ImageConversionCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a cache.
+     * @param maxSize the maximum total size of the entries, in bytes
+     */
+    public ImageConversionCache(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Creates the key of a converted image.
+     * @param image the image to convert
+     * @param target the output format and the kind of conversion (for instance "pdf:mask")
+     * @param settings the settings of the output format which influence the conversion
+     * @return the key, or null if the image can't be cached since it has no URI
+     */
+    public static String createKey(Image image, String target, String settings) {
+        ImageInfo info = image.getInfo();
+        if (info == null || info.getOriginalURI() == null) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder(info.getOriginalURI());
+        key.append('\n').append(target).append('\n').append(image.getFlavor());
+        if (image instanceof ImageRendered) {
+            //the same URI may be rendered at different resolutions (SVG, for instance)
+            RenderedImage ri = ((ImageRendered) image).getRenderedImage();
+            ColorModel cm = ri.getColorModel();
+            key.append('\n').append(ri.getWidth()).append('x').append(ri.getHeight())
+                    .append(' ').append(cm.getPixelSize()).append('/').append(cm.getNumComponents())
+                    .append('/').append(cm.getTransparency())
+                    .append('/').append(cm.getColorSpace().getType());
+        }
+        key.append('\n').append(settings);
+        return key.toString();
+    }
+
+    /**
+     * Returns a converted image.
+     * @param key the key of the image
+     * @return the converted image, or null if it isn't in the cache
+     */
+    public synchronized Object get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return entry.value;
+    }
+
+    /**
+     * Stores a converted image. The value must not be modified once it is in the cache. Values
+     * larger than the cache are not stored.
+     * @param key the key of the image
+     * @param value the converted image
+     * @param valueSize the (approximate) size of the converted image, in bytes
+     */
+    public synchronized void put(String key, Object value, long valueSize) {
+        if (valueSize > maxSize) {
+            return;
+        }
+        Entry previous = entries.put(key, new Entry(value, valueSize));
+        if (previous != null) {
+            size -= previous.size;
+        }
+        size += valueSize;
+        Iterator<Entry> iter = entries.values().iterator();
+        while (size > maxSize) {
+            size -= iter.next().size;
+            iter.remove();
+        }
+    }
+
+    /** @return the maximum total size of the entries, in bytes */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /** @return the number of converted images in the cache */
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /** @return the total size of the converted images in the cache, in bytes */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /** @return the number of lookups which found the converted image in the cache */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /** @return the number of lookups which didn't find the converted image in the cache */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Removes all the converted images from the cache. This should be called if images are
+     * changed at runtime.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        size = 0;
+    }
+
+    private static final class Entry {
+
+        private final Object value;
+
+        private final long size;
+
+        Entry(Object value, long size) {
+            this.value = value;
+            this.size = size;
+        }
+    }
+}
@@ -33,6 +33,7 @@ import org.apache.fop.fonts.FontConfigurator;
 import org.apache.fop.fonts.FontEventAdapter;
 import org.apache.fop.fonts.FontInfo;
 import org.apache.fop.fonts.FontManager;
+import org.apache.fop.fonts.FontRegistry;
 import org.apache.fop.render.RendererConfig.RendererConfigParser;
 import org.apache.fop.render.intermediate.IFDocumentHandler;
 import org.apache.fop.render.intermediate.IFDocumentHandlerConfigurator;
@@ -123,9 +124,29 @@ public abstract class PrintRendererConfigurator extends AbstractRendererConfigur
     /** {@inheritDoc} */
     public void setupFontInfo(String mimeType, FontInfo fontInfo) throws FOPException {
         FontManager fontManager = userAgent.getFontManager();
+        String registryKey = getFontRegistryKey(mimeType);
+        FontRegistry registry = fontManager.getFontRegistry(registryKey);
+        if (registry != null) {
+            fontInfo.setFontRegistry(registry);
+            return;
+        }
         List<FontCollection> fontCollections = getDefaultFontCollection();
         fontCollections.add(getCustomFontCollection(fontManager.getResourceResolver(), mimeType));
         fontManager.setup(fontInfo, fontCollections.toArray(new FontCollection[fontCollections.size()]));
+        if (!fontManager.hasFontRegistry(registryKey)) {
+            fontManager.setFontRegistry(registryKey, FontRegistry.create(fontInfo));
+        }
+    }
+
+    /**
+     * Returns the key under which the font setup for the given output format is shared by all
+     * documents of the {@link org.apache.fop.apps.FopFactory}. Subclasses whose font setup
+     * depends on more than the configuration and the complex scripts setting must extend it.
+     * @param mimeType the renderer MIME type
+     * @return the key identifying the font setup
+     */
+    protected String getFontRegistryKey(String mimeType) {
+        return getClass().getName() + ";" + mimeType + ";" + userAgent.isComplexScriptFeaturesEnabled();
     }
 
     protected abstract List<FontCollection> getDefaultFontCollection();
@@ -153,6 +153,15 @@ public interface AFPCustomizable {
      */
     boolean isStrokeGOCAText();
 
+    /**
+     * Controls whether the encoded resource objects are shared with the other documents
+     * produced with the same {@link org.apache.fop.apps.FopFactory}. Shared resource objects
+     * are named from the cache instead of the document, so the output of a document depends
+     * on the documents produced before it.
+     * @param shared true to take the resource objects from the cache of the factory
+     */
+    void setSharedResources(boolean shared);
+
     /**
      * Sets the default resource group URI
      * @param uri the default resource group URI
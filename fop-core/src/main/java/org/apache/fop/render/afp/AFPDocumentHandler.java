@@ -549,6 +549,11 @@ public class AFPDocumentHandler extends AbstractBinaryWritingIFDocumentHandler
         return  paintingState.getFS45();
     }
 
+    /** {@inheritDoc} */
+    public void setSharedResources(boolean shared) {
+        resourceManager.setResourceCache(shared ? getUserAgent().getAFPResourceCache() : null);
+    }
+
     public void setDefaultResourceGroupUri(URI uri) {
         resourceManager.setDefaultResourceGroupUri(uri);
     }
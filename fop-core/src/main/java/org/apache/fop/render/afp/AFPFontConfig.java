@@ -37,6 +37,7 @@ import org.apache.fop.afp.fonts.AFPFont;
 import org.apache.fop.afp.fonts.AFPFontInfo;
 import org.apache.fop.afp.fonts.CharacterSet;
 import org.apache.fop.afp.fonts.CharacterSetBuilder;
+import org.apache.fop.afp.fonts.CharacterSetMetricsCache;
 import org.apache.fop.afp.fonts.CharacterSetType;
 import org.apache.fop.afp.fonts.DoubleByteFont;
 import org.apache.fop.afp.fonts.OutlineFont;
@@ -331,7 +332,8 @@ public final class AFPFontConfig implements FontConfig {
         }
 
         abstract AFPFontInfo getFontInfo(InternalResourceResolver resourceResolver,
-                AFPEventProducer eventProducer) throws IOException;
+                AFPEventProducer eventProducer, CharacterSetMetricsCache metricsCache)
+                throws IOException;
 
         AFPResourceAccessor getAccessor(InternalResourceResolver resourceResolver) {
             return new AFPResourceAccessor(resourceResolver, uri);
@@ -352,11 +354,13 @@ public final class AFPFontConfig implements FontConfig {
         }
 
         @Override
-        AFPFontInfo getFontInfo(InternalResourceResolver resourceResolver, AFPEventProducer eventProducer)
+        AFPFontInfo getFontInfo(InternalResourceResolver resourceResolver, AFPEventProducer eventProducer,
+                CharacterSetMetricsCache metricsCache)
                 throws IOException {
             AFPResourceAccessor accessor = getAccessor(resourceResolver);
             CharacterSet characterSet = CharacterSetBuilder.getDoubleByteInstance().buildDBCS(
-                    characterset, super.codePage, super.encoding, charsetType, accessor, eventProducer);
+                    characterset, super.codePage, super.encoding, charsetType, accessor, eventProducer,
+                    metricsCache);
             return getFontInfo(new DoubleByteFont(super.codePage, super.embeddable, characterSet,
                     eventProducer), this);
         }
@@ -377,7 +381,8 @@ public final class AFPFontConfig implements FontConfig {
         }
 
         @Override
-        AFPFontInfo getFontInfo(InternalResourceResolver resourceResolver, AFPEventProducer eventProducer)
+        AFPFontInfo getFontInfo(InternalResourceResolver resourceResolver, AFPEventProducer eventProducer,
+                CharacterSetMetricsCache metricsCache)
                 throws IOException {
             try {
                 Typeface tf = new LazyFont(new EmbedFontInfo(
@@ -431,7 +436,8 @@ public final class AFPFontConfig implements FontConfig {
         }
 
         @Override
-        AFPFontInfo getFontInfo(InternalResourceResolver resourceResolver, AFPEventProducer eventProducer)
+        AFPFontInfo getFontInfo(InternalResourceResolver resourceResolver, AFPEventProducer eventProducer,
+                CharacterSetMetricsCache metricsCache)
                 throws IOException {
             CharacterSet characterSet = null;
             if (base14 != null) {
@@ -448,7 +454,7 @@ public final class AFPFontConfig implements FontConfig {
             } else {
                 AFPResourceAccessor accessor = getAccessor(resourceResolver);
                 characterSet = CharacterSetBuilder.getSingleByteInstance().buildSBCS(
-                        characterset, super.codePage, super.encoding, accessor, eventProducer);
+                        characterset, super.codePage, super.encoding, accessor, eventProducer, metricsCache);
             }
             return getFontInfo(new OutlineFont(super.name, super.embeddable, characterSet,
                     eventProducer), this);
@@ -486,7 +492,8 @@ public final class AFPFontConfig implements FontConfig {
         }
 
         @Override
-        AFPFontInfo getFontInfo(InternalResourceResolver resourceResolver, AFPEventProducer eventProducer)
+        AFPFontInfo getFontInfo(InternalResourceResolver resourceResolver, AFPEventProducer eventProducer,
+                CharacterSetMetricsCache metricsCache)
                 throws IOException {
             RasterFont rasterFont = new RasterFont(super.name, super.embeddable);
             for (RasterCharactersetData charset : charsets) {
@@ -511,7 +518,8 @@ public final class AFPFontConfig implements FontConfig {
                     AFPResourceAccessor accessor = getAccessor(resourceResolver);
                     rasterFont.addCharacterSet(charset.size,
                             CharacterSetBuilder.getSingleByteInstance().buildSBCS(charset.characterset,
-                                    super.codePage, super.encoding, accessor, eventProducer));
+                                    super.codePage, super.encoding, accessor, eventProducer,
+                                    metricsCache));
                 }
             }
             return getFontInfo(rasterFont, this);
@@ -55,6 +55,7 @@ import org.apache.fop.afp.AFPResourceInfo;
 import org.apache.fop.afp.AFPResourceManager;
 import org.apache.fop.afp.ioca.ImageContent;
 import org.apache.fop.afp.modca.ResourceObject;
+import org.apache.fop.render.ImageConversionCache;
 import org.apache.fop.render.ImageHandler;
 import org.apache.fop.render.RenderingContext;
 import org.apache.fop.util.bitmap.BitmapImageUtil;
@@ -132,7 +133,22 @@ public class AFPImageHandlerRenderedImage extends AFPImageHandler implements Ima
         if (!included) {
             long start = System.currentTimeMillis();
             //encode only if the same image has not been encoded, yet
-            encoder.encodeImage(imageObjectInfo, paintingState);
+            ImageConversionCache conversionCache = context.getUserAgent() != null
+                    ? context.getUserAgent().getImageConversionCache() : null;
+            String cacheKey = conversionCache != null
+                    ? ImageConversionCache.createKey(image, "afp", encoder.getSettings(paintingState))
+                    : null;
+            EncodedImage encoded = cacheKey != null ? (EncodedImage) conversionCache.get(cacheKey) : null;
+            if (encoded != null) {
+                //the same image was already encoded with the same settings (by another document)
+                encoded.applyTo(imageObjectInfo);
+            } else {
+                encoder.encodeImage(imageObjectInfo, paintingState);
+                if (cacheKey != null) {
+                    encoded = new EncodedImage(imageObjectInfo);
+                    conversionCache.put(cacheKey, encoded, imageObjectInfo.getData().length);
+                }
+            }
             if (log.isDebugEnabled()) {
                 long duration = System.currentTimeMillis() - start;
                 log.debug("Image encoding took " + duration + "ms.");
@@ -149,6 +165,41 @@ public class AFPImageHandlerRenderedImage extends AFPImageHandler implements Ima
             && targetContext instanceof AFPRenderingContext;
     }
 
+    /**
+     * The result of encoding an image: the image data and the properties of the image object
+     * which depend on the encoding.
+     */
+    private static final class EncodedImage {
+
+        private final byte[] data;
+        private final String mimeType;
+        private final int bitsPerPixel;
+        private final int compression;
+        private final boolean color;
+        private final boolean subtractive;
+        private final boolean createPageSegment;
+
+        private EncodedImage(AFPImageObjectInfo imageObjectInfo) {
+            this.data = imageObjectInfo.getData();
+            this.mimeType = imageObjectInfo.getMimeType();
+            this.bitsPerPixel = imageObjectInfo.getBitsPerPixel();
+            this.compression = imageObjectInfo.getCompression();
+            this.color = imageObjectInfo.isColor();
+            this.subtractive = imageObjectInfo.isSubtractive();
+            this.createPageSegment = imageObjectInfo.isCreatePageSegment();
+        }
+
+        private void applyTo(AFPImageObjectInfo imageObjectInfo) {
+            imageObjectInfo.setData(data);
+            imageObjectInfo.setMimeType(mimeType);
+            imageObjectInfo.setBitsPerPixel(bitsPerPixel);
+            imageObjectInfo.setCompression(compression);
+            imageObjectInfo.setColor(color);
+            imageObjectInfo.setSubtractive(subtractive);
+            imageObjectInfo.setCreatePageSegment(createPageSegment);
+        }
+    }
+
     private static final class RenderedImageEncoder {
 
         private enum FunctionSet {
@@ -239,6 +290,27 @@ public class AFPImageHandlerRenderedImage extends AFPImageHandler implements Ima
             objectAreaInfo.setHeightRes(resolution);
         }
 
+        /**
+         * Returns the settings which influence the encoding of the image, once
+         * {@link #prepareEncoding(AFPImageObjectInfo, AFPPaintingState)} has been called.
+         */
+        private String getSettings(AFPPaintingState paintingState) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(maxPixelSize).append(' ').append(paintingState.getBitsPerPixel())
+                    .append(' ').append(paintingState.isColorImages())
+                    .append(' ').append(paintingState.canEmbedJpeg())
+                    .append(' ').append(paintingState.getBitmapEncodingQuality())
+                    .append(' ').append(paintingState.getResolution())
+                    .append(' ').append(paintingState.getFS45())
+                    .append(' ').append(paintingState.getWrapPSeg());
+            if (usePageSegments) {
+                sb.append(" pseg ").append(resampledDim.width).append('x').append(resampledDim.height)
+                        .append(' ').append(resample)
+                        .append(' ').append(paintingState.getDitheringQuality());
+            }
+            return sb.toString();
+        }
+
         private AFPDataObjectInfo encodeImage(
             AFPImageObjectInfo imageObjectInfo,
              AFPPaintingState paintingState)
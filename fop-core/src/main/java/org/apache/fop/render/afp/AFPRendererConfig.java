@@ -62,6 +62,7 @@ import static org.apache.fop.render.afp.AFPRendererOption.LINE_WIDTH_CORRECTION;
 import static org.apache.fop.render.afp.AFPRendererOption.RENDERER_RESOLUTION;
 import static org.apache.fop.render.afp.AFPRendererOption.RESOURCE_GROUP_URI;
 import static org.apache.fop.render.afp.AFPRendererOption.SHADING;
+import static org.apache.fop.render.afp.AFPRendererOption.SHARED_RESOURCES;
 
 /**
  * The AFP renderer config object.
@@ -190,6 +191,10 @@ public final class AFPRendererConfig implements RendererConfig {
         return getParam(GOCA_TEXT, Boolean.class);
     }
 
+    public Boolean isSharedResources() {
+        return getParam(SHARED_RESOURCES, Boolean.class);
+    }
+
     private <T> T getParam(AFPRendererOption options, Class<T> type) {
         assert options.getType().equals(type);
         return type.cast(params.get(options));
@@ -268,6 +273,7 @@ public final class AFPRendererConfig implements RendererConfig {
             String strokeGocaText = gocaCfg.getAttribute(GOCA_TEXT.getName(), "default");
             setParam(GOCA_TEXT, "stroke".equalsIgnoreCase(strokeGocaText)
                             || "shapes".equalsIgnoreCase(strokeGocaText));
+            setParam(SHARED_RESOURCES, cfg.getChild(SHARED_RESOURCES.getName()).getValueAsBoolean(false));
             //TODO remove
             createResourceGroupFile();
             createResourceLevel();
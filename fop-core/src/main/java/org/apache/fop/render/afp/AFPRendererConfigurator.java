@@ -30,10 +30,12 @@ import org.apache.fop.afp.AFPEventProducer;
 import org.apache.fop.afp.AFPResourceLevelDefaults;
 import org.apache.fop.afp.fonts.AFPFontCollection;
 import org.apache.fop.afp.fonts.AFPFontInfo;
+import org.apache.fop.afp.fonts.CharacterSetMetricsCache;
 import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.fonts.FontCollection;
+import org.apache.fop.fonts.FontMetricsCache;
 import org.apache.fop.render.PrintRendererConfigurator;
 import org.apache.fop.render.RendererConfig.RendererConfigParser;
 import org.apache.fop.render.afp.AFPFontConfig.AFPFontConfigData;
@@ -111,6 +113,9 @@ public class AFPRendererConfigurator extends PrintRendererConfigurator {
         if (config.isStrokeGocaText() != null) {
             documentHandler.setStrokeGOCAText(config.isStrokeGocaText());
         }
+        if (config.isSharedResources() != null) {
+            documentHandler.setSharedResources(config.isSharedResources());
+        }
         if (config.getDefaultResourceGroupUri() != null) {
             documentHandler.setDefaultResourceGroupUri(config.getDefaultResourceGroupUri());
         }
@@ -147,10 +152,32 @@ public class AFPRendererConfigurator extends PrintRendererConfigurator {
     private List<AFPFontInfo> createFontsList(AFPFontConfig fontConfig, String mimeType)
             throws FOPException, IOException {
         List<AFPFontInfo> afpFonts = new ArrayList<AFPFontInfo>();
+        CharacterSetMetricsCache metricsCache = getCharacterSetMetricsCache();
         for (AFPFontConfigData config : fontConfig.getFontConfig()) {
             afpFonts.add(config.getFontInfo(userAgent.getFontManager().getResourceResolver(),
-                    eventProducer));
+                    eventProducer, metricsCache));
+        }
+        if (metricsCache != null && metricsCache.hasChanged()) {
+            try {
+                metricsCache.save();
+            } catch (FOPException fe) {
+                log.warn(fe.getMessage());
+            }
         }
         return afpFonts;
     }
+
+    /**
+     * Returns the persistent cache of AFP character set metrics, which is kept next to the
+     * font metrics cache.
+     * @return the cache or null if font caching is disabled
+     */
+    private CharacterSetMetricsCache getCharacterSetMetricsCache() {
+        FontMetricsCache fontMetricsCache = userAgent.getFontManager().getFontMetricsCache();
+        if (fontMetricsCache == null) {
+            return null;
+        }
+        return CharacterSetMetricsCache.getInstance(
+                CharacterSetMetricsCache.getMetricsCacheFile(fontMetricsCache.getCacheFile()));
+    }
 }
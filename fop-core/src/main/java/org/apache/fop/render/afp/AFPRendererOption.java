@@ -42,7 +42,8 @@ public enum AFPRendererOption implements RendererConfigOption {
     SHADING("shading", AFPShadingMode.class),
     LINE_WIDTH_CORRECTION("line-width-correction", Float.class),
     GOCA("goca", Boolean.class),
-    GOCA_TEXT("text", Boolean.class);
+    GOCA_TEXT("text", Boolean.class),
+    SHARED_RESOURCES("shared-resources", Boolean.class);
 
     private final String name;
 
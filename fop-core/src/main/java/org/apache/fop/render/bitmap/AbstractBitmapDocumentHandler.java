@@ -24,6 +24,7 @@ import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.RenderedImage;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Map;
@@ -36,6 +37,7 @@ import org.apache.xmlgraphics.image.writer.ImageWriter;
 import org.apache.xmlgraphics.image.writer.ImageWriterRegistry;
 import org.apache.xmlgraphics.image.writer.MultiImageWriter;
 
+import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.FopFactoryConfig;
 import org.apache.fop.fonts.FontInfo;
 import org.apache.fop.render.intermediate.AbstractBinaryWritingIFDocumentHandler;
@@ -69,9 +71,24 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
     private MultiFileRenderingUtil multiFileUtil;
 
     private int pageCount;
+    private int writtenPageCount;
     private Dimension currentPageDimensions;
     private BufferedImage currentImage;
 
+    /** Rasterizes the pages on worker threads, if more than one thread is configured */
+    private ParallelPageRasterizer pageRasterizer;
+    private PageRecording currentRecording;
+    private int currentBitmapWidth;
+    private int currentBitmapHeight;
+    private double currentScale;
+    private Point2D currentOffset;
+    private boolean currentPageBanded;
+    private final ParallelPageRasterizer.PageWriter pageWriter = new ParallelPageRasterizer.PageWriter() {
+        public void writePage(BufferedImage image) throws IFException {
+            AbstractBitmapDocumentHandler.this.writePage(image);
+        }
+    };
+
     private BitmapRenderingSettings bitmapSettings = new BitmapRenderingSettings();
 
     private double scaleFactor = 1.0;
@@ -153,8 +170,33 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
                         getUserAgent().getOutputFile());
             }
             this.pageCount = 0;
+            this.writtenPageCount = 0;
+            if (getSettings().getRasterizerThreads() > 1) {
+                FontInfo[] fontInfos = new FontInfo[getSettings().getRasterizerThreads()];
+                for (int i = 0; i < fontInfos.length; i++) {
+                    fontInfos[i] = createFontInfo();
+                }
+                this.pageRasterizer = new ParallelPageRasterizer(fontInfos);
+            }
         } catch (IOException e) {
             throw new IFException("I/O error in startDocument()", e);
+        } catch (FOPException e) {
+            throw new IFException("Error while setting up the fonts of the rasterizer threads", e);
+        }
+    }
+
+    /**
+     * Sets up the fonts like they are set up for this document handler, for painting on another
+     * thread.
+     */
+    private FontInfo createFontInfo() throws FOPException {
+        FontInfo fontInfo = new FontInfo();
+        IFDocumentHandlerConfigurator configurator = getConfigurator();
+        if (configurator != null) {
+            configurator.setupFontInfo(getMimeType(), fontInfo);
+            return fontInfo;
+        } else {
+            return Java2DUtil.buildDefaultJava2DBasedFontInfo(fontInfo, getUserAgent());
         }
     }
 
@@ -165,6 +207,11 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
     /** {@inheritDoc} */
     public void endDocument() throws IFException {
         try {
+            if (this.pageRasterizer != null) {
+                ParallelPageRasterizer rasterizer = this.pageRasterizer;
+                this.pageRasterizer = null;
+                rasterizer.finish(pageWriter);
+            }
             if (this.multiImageWriter != null) {
                 this.multiImageWriter.close();
             }
@@ -228,12 +275,38 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
             bitmapHeight = (int) ((this.currentPageDimensions.height * scale / 1000f) + 0.5f);
         }
 
+        int bandHeight = getSettings().getBandHeight();
+        this.currentPageBanded = bandHeight > 0 && bitmapHeight > bandHeight;
+        if (pageRasterizer != null || currentPageBanded) {
+            //The page is painted later, by one of the rasterizer threads or band by band
+            this.currentBitmapWidth = bitmapWidth;
+            this.currentBitmapHeight = bitmapHeight;
+            this.currentScale = scale;
+            this.currentOffset = offset;
+            this.currentRecording = new PageRecording(getContext());
+            return this.currentRecording;
+        }
+
         //Set up bitmap to paint on
         if (currentImage == null || currentImage.getWidth() != bitmapWidth
                 || currentImage.getHeight() != bitmapHeight) {
             currentImage = createBufferedImage(bitmapWidth, bitmapHeight);
         }
-        Graphics2D graphics2D = this.currentImage.createGraphics();
+        Graphics2D graphics2D = createGraphics2D(currentImage, scale, offset);
+        return new Java2DPainter(graphics2D, getContext(), getFontInfo(), this);
+    }
+
+    /**
+     * Creates the graphics to paint a page on.
+     * @param image the bitmap of the page
+     * @param scale the scale of the page
+     * @param offset the offset of the page on the bitmap, or null
+     * @return the graphics
+     */
+    private Graphics2D createGraphics2D(BufferedImage image, double scale, Point2D offset) {
+        int bitmapWidth = image.getWidth();
+        int bitmapHeight = image.getHeight();
+        Graphics2D graphics2D = image.createGraphics();
 
         // draw page background
         if (!getSettings().hasTransparentPageBackground()) {
@@ -246,7 +319,7 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
         graphics2D.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS,
                 RenderingHints.VALUE_FRACTIONALMETRICS_ON);
         if (getSettings().isAntiAliasingEnabled()
-                && this.currentImage.getColorModel().getPixelSize() > 1) {
+                && image.getColorModel().getPixelSize() > 1) {
             graphics2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
                     RenderingHints.VALUE_ANTIALIAS_ON);
             graphics2D.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
@@ -272,8 +345,7 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
             graphics2D.translate(offset.getX(), offset.getY());
         }
         graphics2D.scale(scale / 1000f, scale / 1000f);
-
-        return new Java2DPainter(graphics2D, getContext(), getFontInfo(), this);
+        return graphics2D;
     }
 
     /**
@@ -288,18 +360,83 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
 
     /** {@inheritDoc} */
     public void endPageContent() throws IFException {
+        if (currentPageBanded) {
+            if (pageRasterizer != null) {
+                pageRasterizer.flush(pageWriter);
+            }
+            writeBandedPage();
+        } else if (pageRasterizer != null) {
+            final PageRecording recording = this.currentRecording;
+            final int bitmapWidth = this.currentBitmapWidth;
+            final int bitmapHeight = this.currentBitmapHeight;
+            final double scale = this.currentScale;
+            final Point2D offset = this.currentOffset;
+            this.currentRecording = null;
+            pageRasterizer.addPage(new ParallelPageRasterizer.Task() {
+                public BufferedImage rasterize(FontInfo fontInfo) throws IFException {
+                    BufferedImage image = createBufferedImage(bitmapWidth, bitmapHeight);
+                    Graphics2D graphics2D = createGraphics2D(image, scale, offset);
+                    IFContext context = new IFContext(getUserAgent());
+                    recording.replay(new Java2DPainter(graphics2D, context, fontInfo,
+                            AbstractBitmapDocumentHandler.this), context);
+                    graphics2D.dispose();
+                    return image;
+                }
+            }, pageWriter);
+        } else {
+            writePage(this.currentImage);
+        }
+    }
+
+    /**
+     * Writes the recorded page, which is painted band by band while it is encoded.
+     * @throws IFException if an error occurs while painting or writing the page
+     */
+    private void writeBandedPage() throws IFException {
+        final PageRecording recording = this.currentRecording;
+        final double scale = this.currentScale;
+        final Point2D offset = this.currentOffset;
+        this.currentRecording = null;
+        BandedPageImage.BandPainter painter = new BandedPageImage.BandPainter() {
+            public void paintBand(BufferedImage band, int y) throws IFException {
+                //the band is painted like the whole page, shifted upwards
+                Point2D bandOffset = new Point2D.Double(offset != null ? offset.getX() : 0,
+                        (offset != null ? offset.getY() : 0) - y);
+                Graphics2D graphics2D = createGraphics2D(band, scale, bandOffset);
+                IFContext context = new IFContext(getUserAgent());
+                recording.replay(new Java2DPainter(graphics2D, context, getFontInfo(),
+                        AbstractBitmapDocumentHandler.this), context);
+                graphics2D.dispose();
+            }
+        };
+        BufferedImage band = createBufferedImage(this.currentBitmapWidth, getSettings().getBandHeight());
+        BandedPageImage image = new BandedPageImage(band, this.currentBitmapHeight, painter);
+        try {
+            writePage(image);
+        } catch (BandedPageImage.BandPaintingException e) {
+            throw e.getIFException();
+        }
+    }
+
+    /**
+     * Writes the bitmap of the next page.
+     * @param image the bitmap
+     * @throws IFException if an error occurs while writing the bitmap
+     */
+    private void writePage(RenderedImage image) throws IFException {
+        writtenPageCount++;
         try {
             if (this.multiImageWriter == null) {
-                switch (this.pageCount) {
+                switch (this.writtenPageCount) {
                 case 1:
                     this.imageWriter.writeImage(
-                            this.currentImage, this.outputStream,
+                            image, this.outputStream,
                             getSettings().getWriterParams());
                     IOUtils.closeQuietly(this.outputStream);
                     this.outputStream = null;
                     break;
                 default:
-                    OutputStream out = this.multiFileUtil.createOutputStream(this.pageCount - 1);
+                    OutputStream out = this.multiFileUtil.createOutputStream(this.writtenPageCount - 1);
                     if (out == null) {
                         BitmapRendererEventProducer eventProducer
                             = BitmapRendererEventProducer.Provider.get(
@@ -308,7 +445,7 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
                     } else {
                         try {
                             this.imageWriter.writeImage(
-                                    this.currentImage, out,
+                                    image, out,
                                     getSettings().getWriterParams());
                         } finally {
                             IOUtils.closeQuietly(out);
@@ -316,7 +453,7 @@ public abstract class AbstractBitmapDocumentHandler extends AbstractBinaryWritin
                     }
                 }
             } else {
-                this.multiImageWriter.writeImage(this.currentImage,
+                this.multiImageWriter.writeImage(image,
                         getSettings().getWriterParams());
             }
         } catch (IOException ioe) {
@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.bitmap;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Vector;
+
+import org.apache.fop.render.intermediate.IFException;
+
+/**
+ * A page bitmap which is painted one horizontal band at a time, as its pixels are requested.
+ * Only one band is held in memory, so the image writers which read the image by strips or by
+ * rows (like the TIFF and PNG writers) encode the page with a memory footprint bounded by the
+ * band height rather than by the page area. Every band is a tile of the image.
+ */
+class BandedPageImage implements RenderedImage {
+
+    private final BufferedImage band;
+
+    private final int width;
+
+    private final int height;
+
+    private final int bandHeight;
+
+    private final BandPainter painter;
+
+    private int paintedBand = -1;
+
+    /**
+     * Paints the bands of a page.
+     */
+    interface BandPainter {
+
+        /**
+         * Paints a band of the page.
+         * @param band the bitmap of the band, cleared
+         * @param y the vertical position of the band on the page, in pixels
+         * @throws IFException if an error occurs while painting the band
+         */
+        void paintBand(BufferedImage band, int y) throws IFException;
+    }
+
+    /**
+     * Thrown when a band can't be painted while the image writer reads the image.
+     */
+    static class BandPaintingException extends RuntimeException {
+
+        private static final long serialVersionUID = 3209481376554712380L;
+
+        BandPaintingException(IFException cause) {
+            super(cause);
+        }
+
+        /** @return the exception thrown while painting the band */
+        IFException getIFException() {
+            return (IFException) getCause();
+        }
+    }
+
+    /**
+     * @param band the bitmap to paint the bands on, whose size is the width of the page and the
+     * height of a band
+     * @param height the height of the page, in pixels
+     * @param painter paints the bands
+     */
+    BandedPageImage(BufferedImage band, int height, BandPainter painter) {
+        this.band = band;
+        this.width = band.getWidth();
+        this.height = height;
+        this.bandHeight = band.getHeight();
+        this.painter = painter;
+    }
+
+    private void paintBand(int index) {
+        if (index == paintedBand) {
+            return;
+        }
+        paintedBand = -1;
+        Graphics2D g2d = band.createGraphics();
+        g2d.setComposite(AlphaComposite.Clear);
+        g2d.fillRect(0, 0, width, bandHeight);
+        g2d.dispose();
+        try {
+            painter.paintBand(band, index * bandHeight);
+        } catch (IFException e) {
+            throw new BandPaintingException(e);
+        }
+        paintedBand = index;
+    }
+
+    /** {@inheritDoc} */
+    public Vector<RenderedImage> getSources() {
+        return null;
+    }
+
+    /** {@inheritDoc} */
+    public Object getProperty(String name) {
+        return Image.UndefinedProperty;
+    }
+
+    /** {@inheritDoc} */
+    public String[] getPropertyNames() {
+        return null;
+    }
+
+    /** {@inheritDoc} */
+    public ColorModel getColorModel() {
+        return band.getColorModel();
+    }
+
+    /** {@inheritDoc} */
+    public SampleModel getSampleModel() {
+        return band.getSampleModel();
+    }
+
+    /** {@inheritDoc} */
+    public int getWidth() {
+        return width;
+    }
+
+    /** {@inheritDoc} */
+    public int getHeight() {
+        return height;
+    }
+
+    /** {@inheritDoc} */
+    public int getMinX() {
+        return 0;
+    }
+
+    /** {@inheritDoc} */
+    public int getMinY() {
+        return 0;
+    }
+
+    /** {@inheritDoc} */
+    public int getNumXTiles() {
+        return 1;
+    }
+
+    /** {@inheritDoc} */
+    public int getNumYTiles() {
+        return (height + bandHeight - 1) / bandHeight;
+    }
+
+    /** {@inheritDoc} */
+    public int getMinTileX() {
+        return 0;
+    }
+
+    /** {@inheritDoc} */
+    public int getMinTileY() {
+        return 0;
+    }
+
+    /** {@inheritDoc} */
+    public int getTileWidth() {
+        return width;
+    }
+
+    /** {@inheritDoc} */
+    public int getTileHeight() {
+        return bandHeight;
+    }
+
+    /** {@inheritDoc} */
+    public int getTileGridXOffset() {
+        return 0;
+    }
+
+    /** {@inheritDoc} */
+    public int getTileGridYOffset() {
+        return 0;
+    }
+
+    /** {@inheritDoc} */
+    public Raster getTile(int tileX, int tileY) {
+        //the band bitmap is reused, so the tile is a copy
+        return getData(new Rectangle(0, tileY * bandHeight, width, bandHeight));
+    }
+
+    /** {@inheritDoc} */
+    public Raster getData() {
+        return getData(new Rectangle(0, 0, width, height));
+    }
+
+    /** {@inheritDoc} */
+    public Raster getData(Rectangle rect) {
+        return copyData(band.getRaster().createCompatibleWritableRaster(
+                rect.x, rect.y, rect.width, rect.height));
+    }
+
+    /** {@inheritDoc} */
+    public WritableRaster copyData(WritableRaster raster) {
+        if (raster == null) {
+            raster = band.getRaster().createCompatibleWritableRaster(0, 0, width, height);
+        }
+        Rectangle bounds = raster.getBounds();
+        int first = Math.max(0, bounds.y / bandHeight);
+        int last = Math.min(getNumYTiles(), (bounds.y + bounds.height + bandHeight - 1) / bandHeight);
+        for (int index = first; index < last; index++) {
+            Rectangle area = bounds.intersection(new Rectangle(0, index * bandHeight, width, bandHeight));
+            if (area.isEmpty()) {
+                continue;
+            }
+            paintBand(index);
+            Raster source = band.getRaster().createChild(area.x, area.y - index * bandHeight,
+                    area.width, area.height, area.x, area.y, null);
+            raster.setDataElements(0, 0, source);
+        }
+        return raster;
+    }
+}
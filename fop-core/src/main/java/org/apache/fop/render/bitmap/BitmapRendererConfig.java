@@ -37,8 +37,10 @@ import org.apache.fop.util.ColorUtil;
 
 import static org.apache.fop.render.bitmap.BitmapRendererOption.ANTI_ALIASING;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.BACKGROUND_COLOR;
+import static org.apache.fop.render.bitmap.BitmapRendererOption.BAND_HEIGHT;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.COLOR_MODE;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.JAVA2D_TRANSPARENT_PAGE_BACKGROUND;
+import static org.apache.fop.render.bitmap.BitmapRendererOption.RASTERIZER_THREADS;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.RENDERING_QUALITY;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.RENDERING_QUALITY_ELEMENT;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.RENDERING_SPEED;
@@ -77,6 +79,14 @@ public class BitmapRendererConfig implements RendererConfig {
         return (Integer) get(COLOR_MODE);
     }
 
+    public Integer getRasterizerThreads() {
+        return (Integer) get(RASTERIZER_THREADS);
+    }
+
+    public Integer getBandHeight() {
+        return (Integer) get(BAND_HEIGHT);
+    }
+
     public boolean hasTransparentBackround() {
         Object result = get(JAVA2D_TRANSPARENT_PAGE_BACKGROUND);
         return (Boolean) (result != null ? result
@@ -134,6 +144,14 @@ public class BitmapRendererConfig implements RendererConfig {
                 String color = getValue(cfg, COLOR_MODE);
                 setParam(config, COLOR_MODE,
                         getBufferedImageIntegerFromColor(BitmapRendererOption.getValue(color)));
+
+                setParam(config, RASTERIZER_THREADS,
+                        getChild(cfg, RASTERIZER_THREADS).getValueAsInteger(
+                                (Integer) RASTERIZER_THREADS.getDefaultValue()));
+
+                setParam(config, BAND_HEIGHT,
+                        getChild(cfg, BAND_HEIGHT).getValueAsInteger(
+                                (Integer) BAND_HEIGHT.getDefaultValue()));
             }
         }
 
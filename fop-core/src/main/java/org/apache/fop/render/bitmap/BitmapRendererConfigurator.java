@@ -83,6 +83,12 @@ public class BitmapRendererConfigurator extends Java2DRendererConfigurator {
         if (config.getColorMode() != null) {
             settings.setBufferedImageType(config.getColorMode());
         }
+        if (config.getRasterizerThreads() != null) {
+            settings.setRasterizerThreads(config.getRasterizerThreads());
+        }
+        if (config.getBandHeight() != null) {
+            settings.setBandHeight(config.getBandHeight());
+        }
     }
 
     @Override
@@ -40,7 +40,9 @@ public enum BitmapRendererOption implements RendererConfigOption {
     COLOR_MODE_RGB("rgb"),
     COLOR_MODE_GRAY("gray"),
     COLOR_MODE_BINARY("binary"),
-    COLOR_MODE_BILEVEL("bi-level");
+    COLOR_MODE_BILEVEL("bi-level"),
+    RASTERIZER_THREADS("rasterizer-threads", 1),
+    BAND_HEIGHT("band-height", 0);
 
     private final String name;
     private final Object defaultValue;
@@ -24,7 +24,9 @@ import org.apache.xmlgraphics.image.writer.ImageWriterParams;
 import org.apache.fop.render.java2d.Java2DRenderingSettings;
 
 import static org.apache.fop.render.bitmap.BitmapRendererOption.ANTI_ALIASING;
+import static org.apache.fop.render.bitmap.BitmapRendererOption.BAND_HEIGHT;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.COLOR_MODE;
+import static org.apache.fop.render.bitmap.BitmapRendererOption.RASTERIZER_THREADS;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.RENDERING_QUALITY;
 
 /**
@@ -44,6 +46,12 @@ public class BitmapRenderingSettings extends Java2DRenderingSettings {
     /** true if qualityRendering is set */
     private boolean qualityRendering = (Boolean) RENDERING_QUALITY.getDefaultValue();
 
+    /** the number of threads rasterizing the pages */
+    private int rasterizerThreads = (Integer) RASTERIZER_THREADS.getDefaultValue();
+
+    /** the height of the bands the pages are rasterized in, 0 to rasterize whole pages */
+    private int bandHeight = (Integer) BAND_HEIGHT.getDefaultValue();
+
     /**
      * Default constructor. Initializes the settings to their default values.
      */
@@ -107,6 +115,51 @@ public class BitmapRenderingSettings extends Java2DRenderingSettings {
         return this.qualityRendering;
     }
 
+    /**
+     * Sets the number of threads rasterizing the pages. With more than one thread, the painting
+     * of each page is recorded and the pages are rasterized on a pool of worker threads, while
+     * they are still written in order.
+     * @param threads the number of rasterizer threads
+     * @throws IllegalArgumentException if threads is smaller than 1
+     */
+    public void setRasterizerThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of rasterizer threads must be at least 1");
+        }
+        this.rasterizerThreads = threads;
+    }
+
+    /**
+     * Returns the number of threads rasterizing the pages.
+     * @return the number of rasterizer threads
+     */
+    public int getRasterizerThreads() {
+        return this.rasterizerThreads;
+    }
+
+    /**
+     * Sets the height of the bands the pages are rasterized in. The painting of a page taller
+     * than a band is recorded and replayed for every band while the image writer encodes the
+     * page, so only one band of the page is held in memory. Such pages are rasterized on the
+     * calling thread.
+     * @param bandHeight the band height, in pixels, or 0 to rasterize whole pages
+     * @throws IllegalArgumentException if bandHeight is negative
+     */
+    public void setBandHeight(int bandHeight) {
+        if (bandHeight < 0) {
+            throw new IllegalArgumentException("The band height must not be negative");
+        }
+        this.bandHeight = bandHeight;
+    }
+
+    /**
+     * Returns the height of the bands the pages are rasterized in.
+     * @return the band height, in pixels, or 0 if whole pages are rasterized
+     */
+    public int getBandHeight() {
+        return this.bandHeight;
+    }
+
     /**
      * Sets the compression method for the image writer.
      * @param compressionMethod the compression method name
@@ -0,0 +1,303 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.bitmap;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Paint;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.w3c.dom.Document;
+
+import org.apache.xmlgraphics.util.QName;
+
+import org.apache.fop.render.intermediate.IFContext;
+import org.apache.fop.render.intermediate.IFException;
+import org.apache.fop.render.intermediate.IFPainter;
+import org.apache.fop.traits.BorderProps;
+import org.apache.fop.traits.RuleStyle;
+
+/**
+ * An {@link IFPainter} which records the painting of a page, so that the page can be painted
+ * later, on another thread. The arguments which the caller may reuse are copied, and the
+ * changes of the {@link IFContext} the painters depend on (foreign attributes, language,
+ * location) are recorded along with the painting.
+ */
+class PageRecording implements IFPainter {
+
+    private final IFContext context;
+
+    private final int pageIndex;
+
+    private final int pageNumber;
+
+    private final List<Command> commands = new ArrayList<Command>();
+
+    private Map<QName, String> recordedForeignAttributes;
+
+    private Locale recordedLanguage;
+
+    private String recordedLocation;
+
+    /**
+     * @param context the context of the document handler, whose state is recorded
+     */
+    PageRecording(IFContext context) {
+        this.context = context;
+        this.pageIndex = context.getPageIndex();
+        this.pageNumber = context.getPageNumber();
+    }
+
+    /**
+     * Paints the recorded page.
+     * @param painter the painter
+     * @param painterContext the context used by the painter, which is set up as it was during
+     * the recording
+     * @throws IFException if an error occurs while painting
+     */
+    void replay(IFPainter painter, IFContext painterContext) throws IFException {
+        painterContext.setPageIndex(pageIndex);
+        painterContext.setPageNumber(pageNumber);
+        for (Command command : commands) {
+            command.execute(painter, painterContext);
+        }
+    }
+
+    private void record(Command command) {
+        @SuppressWarnings("unchecked")
+        final Map<QName, String> foreignAttributes = context.getForeignAttributes();
+        final Locale language = context.getLanguage();
+        final String location = context.getLocation();
+        if (foreignAttributes != recordedForeignAttributes || language != recordedLanguage
+                || location != recordedLocation) {
+            commands.add(new Command() {
+                void execute(IFPainter painter, IFContext painterContext) {
+                    painterContext.setForeignAttributes(foreignAttributes);
+                    painterContext.setLanguage(language);
+                    painterContext.setLocation(location);
+                }
+            });
+            recordedForeignAttributes = foreignAttributes;
+            recordedLanguage = language;
+            recordedLocation = location;
+        }
+        commands.add(command);
+    }
+
+    private static Rectangle copy(Rectangle rect) {
+        return rect != null ? new Rectangle(rect) : null;
+    }
+
+    private static AffineTransform copy(AffineTransform transform) {
+        return transform != null ? new AffineTransform(transform) : null;
+    }
+
+    private static AffineTransform[] copy(AffineTransform[] transforms) {
+        AffineTransform[] copy = new AffineTransform[transforms.length];
+        for (int i = 0; i < transforms.length; i++) {
+            copy[i] = copy(transforms[i]);
+        }
+        return copy;
+    }
+
+    /** {@inheritDoc} */
+    public void startViewport(AffineTransform transform, Dimension size, Rectangle clipRect) {
+        final AffineTransform t = copy(transform);
+        final Dimension s = new Dimension(size);
+        final Rectangle c = copy(clipRect);
+        record(new Command() {
+            void execute(IFPainter painter, IFContext painterContext) throws IFException {
+                painter.startViewport(t, s, c);
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    public void startViewport(AffineTransform[] transforms, Dimension size, Rectangle clipRect) {
+        final AffineTransform[] t = copy(transforms);
+        final Dimension s = new Dimension(size);
+        final Rectangle c = copy(clipRect);
+        record(new Command() {
+            void execute(IFPainter painter, IFContext painterContext) throws IFException {
+                painter.startViewport(t, s, c);
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    public void endViewport() {
+        record(new Command() {
+            void execute(IFPainter painter, IFContext painterContext) throws IFException {
+                painter.endViewport();
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    public void startGroup(AffineTransform[] transforms, final String layer) {
+        final AffineTransform[] t = copy(transforms);
+        record(new Command() {
+            void execute(IFPainter painter, IFContext painterContext) throws IFException {
+                painter.startGroup(t, layer);
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    public void startGroup(AffineTransform transform, final String layer) {
+        final AffineTransform t = copy(transform);
+        record(new Command() {
+            void execute(IFPainter painter, IFContext painterContext) throws IFException {
+                painter.startGroup(t, layer);
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    public void endGroup() {
+        record(new Command() {
+            void execute(IFPainter painter, IFContext painterContext) throws IFException {
+                painter.endGroup();
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    public void setFont(final String family, final String style, final Integer weight,
+            final String variant, final Integer size, final Color color) {
+        record(new Command() {
+            void execute(IFPainter painter, IFContext painterContext) throws IFException {
+                painter.setFont(family, style, weight, variant, size, color);
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    public void drawText(final int x, final int y, final int letterSpacing, final int wordSpacing,
+            int[][] dp, final String text) {
+        //the caller reuses the adjustment arrays
+        final int[][] adjustments;
+        if (dp != null) {
+            adjustments = new int[dp.length][];
+            for (int i = 0; i < dp.length; i++) {
+                adjustments[i] = dp[i] != null ? dp[i].clone() : null;
+            }
+        } else {
+            adjustments = null;
+        }
+        record(new Command() {
+            void execute(IFPainter painter, IFContext painterContext) throws IFException {
+                painter.drawText(x, y, letterSpacing, wordSpacing, adjustments, text);
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    public void clipRect(Rectangle rect) {
+        final Rectangle r = copy(rect);
+        record(new Command() {
+            void execute(IFPainter painter, IFContext painterContext) throws IFException {
+                painter.clipRect(r);
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    public void clipBackground(Rectangle rect, final BorderProps bpsBefore,
+            final BorderProps bpsAfter, final BorderProps bpsStart, final BorderProps bpsEnd) {
+        final Rectangle r = copy(rect);
+        record(new Command() {
+            void execute(IFPainter painter, IFContext painterContext) throws IFException {
+                painter.clipBackground(r, bpsBefore, bpsAfter, bpsStart, bpsEnd);
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    public boolean isBackgroundRequired(BorderProps bpsBefore, BorderProps bpsAfter,
+            BorderProps bpsStart, BorderProps bpsEnd) {
+        //as answered by the Java2DPainter
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    public void fillRect(Rectangle rect, final Paint fill) {
+        final Rectangle r = copy(rect);
+        record(new Command() {
+            void execute(IFPainter painter, IFContext painterContext) throws IFException {
+                painter.fillRect(r, fill);
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    public void drawBorderRect(Rectangle rect, final BorderProps top, final BorderProps bottom,
+            final BorderProps left, final BorderProps right, final Color innerBackgroundColor) {
+        final Rectangle r = copy(rect);
+        record(new Command() {
+            void execute(IFPainter painter, IFContext painterContext) throws IFException {
+                painter.drawBorderRect(r, top, bottom, left, right, innerBackgroundColor);
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    public void drawLine(Point start, Point end, final int width, final Color color,
+            final RuleStyle style) {
+        final Point s = new Point(start);
+        final Point e = new Point(end);
+        record(new Command() {
+            void execute(IFPainter painter, IFContext painterContext) throws IFException {
+                painter.drawLine(s, e, width, color, style);
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    public void drawImage(final String uri, Rectangle rect) {
+        final Rectangle r = copy(rect);
+        record(new Command() {
+            void execute(IFPainter painter, IFContext painterContext) throws IFException {
+                painter.drawImage(uri, r);
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    public void drawImage(final Document doc, Rectangle rect) {
+        final Rectangle r = copy(rect);
+        record(new Command() {
+            void execute(IFPainter painter, IFContext painterContext) throws IFException {
+                painter.drawImage(doc, r);
+            }
+        });
+    }
+
+    private abstract static class Command {
+
+        abstract void execute(IFPainter painter, IFContext painterContext) throws IFException;
+    }
+}
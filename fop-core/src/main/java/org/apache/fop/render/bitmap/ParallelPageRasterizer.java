@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.bitmap;
+
+import java.awt.image.BufferedImage;
+import java.util.LinkedList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.fop.fonts.FontInfo;
+import org.apache.fop.render.intermediate.IFException;
+
+/**
+ * Rasterizes recorded pages on a pool of worker threads and hands the bitmaps back in page
+ * order. The Java2D font metrics are not thread-safe, so each worker paints with a font setup
+ * of its own. At most twice as many pages as there are threads are kept in memory; adding a
+ * page waits for the oldest one to be written beyond that.
+ */
+class ParallelPageRasterizer {
+
+    private static final long THREAD_KEEP_ALIVE_SECONDS = 30;
+
+    private final ExecutorService executor;
+
+    private final BlockingQueue<FontInfo> fontInfos;
+
+    private final LinkedList<Future<BufferedImage>> pendingPages = new LinkedList<Future<BufferedImage>>();
+
+    private final int maxPendingPages;
+
+    /**
+     * Rasterizes a page.
+     */
+    interface Task {
+
+        /**
+         * Paints a page on a bitmap.
+         * @param fontInfo the font setup to paint with, which isn't shared with another thread
+         * @return the bitmap
+         * @throws IFException if an error occurs while painting the page
+         */
+        BufferedImage rasterize(FontInfo fontInfo) throws IFException;
+    }
+
+    /**
+     * Writes the rasterized pages.
+     */
+    interface PageWriter {
+
+        /**
+         * Writes a page.
+         * @param image the bitmap of the page
+         * @throws IFException if an error occurs while writing the page
+         */
+        void writePage(BufferedImage image) throws IFException;
+    }
+
+    /**
+     * @param fontInfos one font setup per thread
+     */
+    ParallelPageRasterizer(FontInfo[] fontInfos) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(fontInfos.length, fontInfos.length,
+                THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new RasterizerThreadFactory());
+        //the threads end by themselves if the document is abandoned before its end
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+        this.fontInfos = new ArrayBlockingQueue<FontInfo>(fontInfos.length);
+        for (FontInfo fontInfo : fontInfos) {
+            this.fontInfos.add(fontInfo);
+        }
+        this.maxPendingPages = 2 * fontInfos.length;
+    }
+
+    /**
+     * Adds a page to rasterize and writes the pages before it which are ready.
+     * @param task rasterizes the page
+     * @param writer writes the rasterized pages
+     * @throws IFException if an error occurs while rasterizing or writing a page
+     */
+    void addPage(final Task task, PageWriter writer) throws IFException {
+        pendingPages.add(executor.submit(new Callable<BufferedImage>() {
+            public BufferedImage call() throws IFException, InterruptedException {
+                FontInfo fontInfo = fontInfos.take();
+                try {
+                    return task.rasterize(fontInfo);
+                } finally {
+                    fontInfos.add(fontInfo);
+                }
+            }
+        }));
+        boolean written = false;
+        try {
+            while (!pendingPages.isEmpty()
+                    && (pendingPages.getFirst().isDone() || pendingPages.size() > maxPendingPages)) {
+                writer.writePage(waitFor(pendingPages.removeFirst()));
+            }
+            written = true;
+        } finally {
+            if (!written) {
+                abort();
+            }
+        }
+    }
+
+    /**
+     * Writes the pages which have been added so far, waiting for them to be rasterized.
+     * @param writer writes the rasterized pages
+     * @throws IFException if an error occurs while rasterizing or writing a page
+     */
+    void flush(PageWriter writer) throws IFException {
+        boolean written = false;
+        try {
+            while (!pendingPages.isEmpty()) {
+                writer.writePage(waitFor(pendingPages.removeFirst()));
+            }
+            written = true;
+        } finally {
+            if (!written) {
+                abort();
+            }
+        }
+    }
+
+    /**
+     * Writes the remaining pages and stops the worker threads.
+     * @param writer writes the rasterized pages
+     * @throws IFException if an error occurs while rasterizing or writing a page
+     */
+    void finish(PageWriter writer) throws IFException {
+        flush(writer);
+        executor.shutdown();
+    }
+
+    /**
+     * Drops the pages which haven't been written yet and stops the worker threads. The pages
+     * waiting for a thread are not rasterized, and the threads rasterizing a page are
+     * interrupted. This is done when rasterizing or writing a page fails, since the document
+     * can't be completed anymore.
+     */
+    void abort() {
+        for (Future<BufferedImage> page : pendingPages) {
+            page.cancel(true);
+        }
+        pendingPages.clear();
+        executor.shutdownNow();
+    }
+
+    private BufferedImage waitFor(Future<BufferedImage> page) throws IFException {
+        try {
+            return page.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IFException("Interrupted while waiting for a page to be rasterized", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IFException) {
+                throw (IFException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new IFException("Error while rasterizing a page", (Exception) cause);
+            }
+        }
+    }
+
+    private static final class RasterizerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "fop-bitmap-rasterizer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
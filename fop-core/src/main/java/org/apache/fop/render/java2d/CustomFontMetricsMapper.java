@@ -120,6 +120,13 @@ public class CustomFontMetricsMapper extends Typeface implements FontMetricsMapp
         return typeface.mapChar(c);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public void setConcurrentAccess(boolean concurrentAccess) {
+        super.setConcurrentAccess(concurrentAccess);
+        typeface.setConcurrentAccess(concurrentAccess);
+    }
+
     /** {@inheritDoc} */
     public final Font getFont(final int size) {
         if (this.size == size) {
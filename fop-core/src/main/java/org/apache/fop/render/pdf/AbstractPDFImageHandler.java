@@ -26,6 +26,7 @@ import org.apache.xmlgraphics.image.loader.Image;
 
 import org.apache.fop.pdf.PDFImage;
 import org.apache.fop.pdf.PDFXObject;
+import org.apache.fop.render.ImageConversionCache;
 import org.apache.fop.render.ImageHandler;
 import org.apache.fop.render.RenderingContext;
 import org.apache.fop.render.pdf.PDFLogicalStructureHandler.MarkedContentInfo;
@@ -42,7 +43,8 @@ abstract class AbstractPDFImageHandler implements ImageHandler {
         assert context instanceof PDFRenderingContext;
         PDFRenderingContext pdfContext = (PDFRenderingContext)context;
         PDFContentGenerator generator = pdfContext.getGenerator();
-        PDFImage pdfimage = createPDFImage(image, image.getInfo().getOriginalURI());
+        PDFImage pdfimage = createPDFImage(image, image.getInfo().getOriginalURI(),
+                context.getUserAgent().getImageConversionCache());
         PDFXObject xobj = generator.getDocument().addImage(
                 generator.getResourceContext(), pdfimage);
 
@@ -63,8 +65,10 @@ abstract class AbstractPDFImageHandler implements ImageHandler {
      *
      * @param image an image
      * @param xobjectKey a key for retrieval of the image from the document's XObject collection
+     * @param conversionCache the cache of the images converted for other documents
      * @return a suitable {@link PDFImage} implementation that can handle the flavour of
      * the given image
      */
-    abstract PDFImage createPDFImage(Image image, String xobjectKey);
+    abstract PDFImage createPDFImage(Image image, String xobjectKey,
+            ImageConversionCache conversionCache);
 }
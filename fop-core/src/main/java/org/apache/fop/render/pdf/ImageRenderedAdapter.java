@@ -25,6 +25,7 @@ import java.awt.image.ColorModel;
 import java.awt.image.IndexColorModel;
 import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 
@@ -36,13 +37,17 @@ import org.apache.xmlgraphics.image.loader.impl.ImageRendered;
 import org.apache.xmlgraphics.ps.ImageEncodingHelper;
 
 import org.apache.fop.pdf.AlphaRasterImage;
+import org.apache.fop.pdf.FlateFilter;
+import org.apache.fop.pdf.FlateSettings;
 import org.apache.fop.pdf.PDFColor;
 import org.apache.fop.pdf.PDFDeviceColorSpace;
 import org.apache.fop.pdf.PDFDictionary;
 import org.apache.fop.pdf.PDFDocument;
 import org.apache.fop.pdf.PDFFilter;
 import org.apache.fop.pdf.PDFFilterList;
+import org.apache.fop.pdf.PDFImage;
 import org.apache.fop.pdf.PDFReference;
+import org.apache.fop.render.ImageConversionCache;
 
 /**
  * PDFImage implementation for the PDF renderer which handles RenderedImages.
@@ -58,6 +63,10 @@ public class ImageRenderedAdapter extends AbstractImageAdapter {
     private String maskRef;
     private PDFReference softMask;
 
+    private ImageConversionCache conversionCache;
+    /** the compressed image data, if it has been taken from (or put into) the cache */
+    private byte[] deflatedData;
+
     /**
      * Creates a new PDFImage from an Image instance.
      * @param image the image
@@ -68,6 +77,19 @@ public class ImageRenderedAdapter extends AbstractImageAdapter {
         this.encodingHelper = new ImageEncodingHelper(image.getRenderedImage());
     }
 
+    /**
+     * Creates a new PDFImage from an Image instance, whose compressed data is shared with the
+     * other documents through a cache.
+     * @param image the image
+     * @param key XObject key
+     * @param conversionCache the cache of converted images, may be null
+     */
+    public ImageRenderedAdapter(ImageRendered image, String key,
+            ImageConversionCache conversionCache) {
+        this(image, key);
+        this.conversionCache = conversionCache;
+    }
+
     /**
      * Returns the ImageRendered instance for this adapter.
      * @return the ImageRendered instance
@@ -119,6 +141,15 @@ public class ImageRenderedAdapter extends AbstractImageAdapter {
 
         super.setup(doc);
 
+        //The data can only be compressed beforehand if nothing but flate is used
+        FlateFilter flate = null;
+        if (conversionCache != null) {
+            PDFFilterList filters = new PDFFilterList(doc.isEncryptionActive());
+            filters.addDefaultFilters(doc.getFilterMap(), getFilterHint());
+            filters.applyFlateSettings(doc.getFlateSettings());
+            flate = filters.getSingleFlateFilter();
+        }
+
         //Handle transparency mask if applicable
         ColorModel orgcm = ri.getColorModel();
         if (orgcm.hasAlpha() && orgcm.getTransparency() == ColorModel.TRANSLUCENT) {
@@ -129,9 +160,71 @@ public class ImageRenderedAdapter extends AbstractImageAdapter {
             Raster raster = GraphicsUtil.getAlphaRaster(ri);
             if (raster != null) {
                 AlphaRasterImage alphaImage = new AlphaRasterImage("Mask:" + getKey(), raster);
+                final byte[] maskData = (flate != null
+                        ? getDeflatedData(alphaImage, "pdf:mask", flate) : null);
+                if (maskData != null) {
+                    alphaImage = new AlphaRasterImage("Mask:" + getKey(), raster) {
+                        @Override
+                        public void outputContents(OutputStream out) throws IOException {
+                            out.write(maskData);
+                        }
+
+                        @Override
+                        public PDFFilter getPDFFilter() {
+                            return createAppliedFlateFilter();
+                        }
+
+                        @Override
+                        public boolean multipleFiltersAllowed() {
+                            return false;
+                        }
+                    };
+                }
                 this.softMask = doc.addImage(null, alphaImage).makeReference();
             }
         }
+
+        if (flate != null) {
+            this.deflatedData = getDeflatedData(this, "pdf", flate);
+            if (deflatedData != null) {
+                this.pdfFilter = createAppliedFlateFilter();
+                disallowMultipleFilters();
+            }
+        }
+    }
+
+    /**
+     * Returns the compressed data of an image from the cache, compressing it and adding it to
+     * the cache if necessary.
+     */
+    private byte[] getDeflatedData(PDFImage pdfImage, String target, FlateFilter flate) {
+        FlateSettings settings = flate.getSettings();
+        String cacheKey = ImageConversionCache.createKey(image, target, settings == null
+                ? "flate" : "flate " + settings.getLevel() + " " + settings.getStrategy());
+        if (cacheKey == null) {
+            return null;
+        }
+        byte[] data = (byte[]) conversionCache.get(cacheKey);
+        if (data == null) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            try {
+                OutputStream out = flate.applyFilter(baos);
+                pdfImage.outputContents(out);
+                out.close();
+            } catch (IOException ioe) {
+                log.debug("Image data could not be compressed for the cache", ioe);
+                return null;
+            }
+            data = baos.toByteArray();
+            conversionCache.put(cacheKey, data, data.length);
+        }
+        return data;
+    }
+
+    private static PDFFilter createAppliedFlateFilter() {
+        FlateFilter flate = new FlateFilter();
+        flate.setApplied(true);
+        return flate;
     }
 
     /** {@inheritDoc} */
@@ -199,6 +292,10 @@ public class ImageRenderedAdapter extends AbstractImageAdapter {
 
     /** {@inheritDoc} */
     public void outputContents(OutputStream out) throws IOException {
+        if (deflatedData != null) {
+            out.write(deflatedData);
+            return;
+        }
         long start = System.currentTimeMillis();
         encodingHelper.setBWInvert(true);
         encodingHelper.encode(out);
@@ -220,7 +317,7 @@ public class ImageRenderedAdapter extends AbstractImageAdapter {
 
     /** {@inheritDoc} */
     public String getFilterHint() {
-        return PDFFilterList.IMAGE_FILTER;
+        return deflatedData != null ? PDFFilterList.PRECOMPRESSED_FILTER : PDFFilterList.IMAGE_FILTER;
     }
 
 }
@@ -54,6 +54,9 @@ public class PDFContentGenerator {
     /** the current stream to add PDF commands to */
     private PDFStream currentStream;
 
+    /** the stream of the page, while the content is being captured */
+    private PDFStream outerStream;
+
     private PDFColorHandler colorHandler;
 
     /** drawing state */
@@ -381,6 +384,41 @@ public class PDFContentGenerator {
         getStream().add(content);
     }
 
+    /**
+     * Adds content to the stream.
+     * @param content the PDF content
+     * @throws IOException in case of an I/O problem
+     */
+    public void add(byte[] content) throws IOException {
+        getStream().getBufferOutputStream().write(content);
+    }
+
+    /**
+     * Starts writing the content to a separate buffer instead of the stream, so that it can be
+     * examined before it is added to the stream.
+     * @see #endCapture()
+     */
+    void startCapture() {
+        endTextObject();
+        outerStream = currentStream;
+        currentStream = document.getFactory().makeStream(PDFFilterList.CONTENT_FILTER, false);
+    }
+
+    /**
+     * Stops capturing the content. The captured content isn't added to the stream.
+     * @return the content written since {@link #startCapture()}
+     * @throws IOException in case of an I/O problem
+     */
+    byte[] endCapture() throws IOException {
+        endTextObject();
+        byte[] content = currentStream.getData();
+        //release the buffer, which may be backed by a temporary file
+        currentStream.setData(new byte[0]);
+        currentStream = outerStream;
+        outerStream = null;
+        return content;
+    }
+
     /**
      * Formats a float value (normally coordinates in points) as Strings.
      * @param value the value
@@ -91,6 +91,9 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
     /** the current page's PDF reference */
     private PageReference currentPageRef;
 
+    /** Shares the content repeated on several pages, null if disabled */
+    private PDFSharedContentHandler sharedContentHandler;
+
     /** Used for bookmarks/outlines. */
     private Map<Integer, PageReference> pageReferences = new HashMap<Integer, PageReference>();
 
@@ -152,6 +155,10 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
         return generator;
     }
 
+    PDFSharedContentHandler getSharedContentHandler() {
+        return sharedContentHandler;
+    }
+
     /** {@inheritDoc} */
     public void startDocument() throws IFException {
         super.startDocument();
@@ -160,6 +167,9 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
             this.accessEnabled = getUserAgent().isAccessibilityEnabled();
             if (accessEnabled) {
                 setupAccessibility();
+            } else if (pdfDoc.isSharedContentEnabled()) {
+                //with accessibility, the marked content of each page must stay on the page
+                sharedContentHandler = new PDFSharedContentHandler(pdfDoc);
             }
         } catch (IOException e) {
             throw new IFException("I/O error in startDocument()", e);
@@ -183,20 +193,23 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
 
     /** {@inheritDoc} */
     public void endDocument() throws IFException {
-        pdfDoc.getResources().addFonts(pdfDoc, fontInfo);
         try {
+            pdfDoc.getResources().addFonts(pdfDoc, fontInfo);
             if (pdfDoc.isLinearizationEnabled()) {
                 generator.flushPDFDoc();
             } else {
                 pdfDoc.outputTrailer(this.outputStream);
             }
+        } catch (IOException ioe) {
+            throw new IFException("I/O error in endDocument()", ioe);
+        } finally {
+            pdfDoc.close();
             this.pdfDoc = null;
 
             pdfResources = null;
+            sharedContentHandler = null;
             this.generator = null;
             currentPage = null;
-        } catch (IOException ioe) {
-            throw new IFException("I/O error in endDocument()", ioe);
         }
         super.endDocument();
     }
@@ -250,6 +263,8 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
         }
         if (accessEnabled) {
             logicalStructureHandler.startPage(currentPage);
+        } else if (sharedContentHandler != null) {
+            sharedContentHandler.startPage(mediaBox);
         }
 
         pdfUtil.generatePageLabel(index, name);
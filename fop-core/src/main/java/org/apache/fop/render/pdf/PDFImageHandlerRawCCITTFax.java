@@ -24,6 +24,7 @@ import org.apache.xmlgraphics.image.loader.ImageFlavor;
 import org.apache.xmlgraphics.image.loader.impl.ImageRawCCITTFax;
 
 import org.apache.fop.pdf.PDFImage;
+import org.apache.fop.render.ImageConversionCache;
 import org.apache.fop.render.RenderingContext;
 
 /**
@@ -37,7 +38,7 @@ public class PDFImageHandlerRawCCITTFax extends AbstractPDFImageHandler {
     };
 
     @Override
-    PDFImage createPDFImage(Image image, String xobjectKey) {
+    PDFImage createPDFImage(Image image, String xobjectKey, ImageConversionCache conversionCache) {
         return new ImageRawCCITTFaxAdapter((ImageRawCCITTFax) image, xobjectKey);
     }
 
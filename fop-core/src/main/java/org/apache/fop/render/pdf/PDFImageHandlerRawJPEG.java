@@ -24,6 +24,7 @@ import org.apache.xmlgraphics.image.loader.ImageFlavor;
 import org.apache.xmlgraphics.image.loader.impl.ImageRawJPEG;
 
 import org.apache.fop.pdf.PDFImage;
+import org.apache.fop.render.ImageConversionCache;
 import org.apache.fop.render.RenderingContext;
 
 /**
@@ -41,7 +42,7 @@ public class PDFImageHandlerRawJPEG extends AbstractPDFImageHandler {
     }
 
     @Override
-    PDFImage createPDFImage(Image image, String xobjectKey) {
+    PDFImage createPDFImage(Image image, String xobjectKey, ImageConversionCache conversionCache) {
         return new ImageRawJPEGAdapter((ImageRawJPEG) image, xobjectKey);
     }
 
@@ -26,6 +26,7 @@ import org.apache.xmlgraphics.image.loader.ImageFlavor;
 import org.apache.xmlgraphics.image.loader.impl.ImageRawPNG;
 
 import org.apache.fop.pdf.PDFImage;
+import org.apache.fop.render.ImageConversionCache;
 import org.apache.fop.render.RenderingContext;
 
 /**
@@ -37,7 +38,7 @@ public class PDFImageHandlerRawPNG extends AbstractPDFImageHandler {
     private static final ImageFlavor[] FLAVORS = new ImageFlavor[] {ImageFlavor.RAW_PNG};
 
     @Override
-    PDFImage createPDFImage(Image image, String xobjectKey) {
+    PDFImage createPDFImage(Image image, String xobjectKey, ImageConversionCache conversionCache) {
         return new ImageRawPNGAdapter((ImageRawPNG) image, xobjectKey);
     }
 
@@ -24,6 +24,7 @@ import org.apache.xmlgraphics.image.loader.ImageFlavor;
 import org.apache.xmlgraphics.image.loader.impl.ImageRendered;
 
 import org.apache.fop.pdf.PDFImage;
+import org.apache.fop.render.ImageConversionCache;
 import org.apache.fop.render.RenderingContext;
 
 /**
@@ -37,8 +38,8 @@ public class PDFImageHandlerRenderedImage extends AbstractPDFImageHandler {
     };
 
     @Override
-    PDFImage createPDFImage(Image image, String xobjectKey) {
-        return new ImageRenderedAdapter((ImageRendered) image, xobjectKey);
+    PDFImage createPDFImage(Image image, String xobjectKey, ImageConversionCache conversionCache) {
+        return new ImageRenderedAdapter((ImageRendered) image, xobjectKey, conversionCache);
     }
 
     /** {@inheritDoc} */
@@ -86,6 +86,11 @@ public class PDFPainter extends AbstractIFPainter<PDFDocumentHandler> {
 
     private final LanguageAvailabilityChecker languageAvailabilityChecker;
 
+    private final PDFSharedContentHandler sharedContentHandler;
+
+    /** the nesting level of the viewports and groups */
+    private int groupLevel;
+
     private static class LanguageAvailabilityChecker {
 
         private final IFContext context;
@@ -136,11 +141,16 @@ public class PDFPainter extends AbstractIFPainter<PDFDocumentHandler> {
         languageAvailabilityChecker = accessEnabled
                 ? new LanguageAvailabilityChecker(documentHandler.getContext())
                 : null;
+        this.sharedContentHandler = documentHandler.getSharedContentHandler();
     }
 
     /** {@inheritDoc} */
     public void startViewport(AffineTransform transform, Dimension size, Rectangle clipRect)
             throws IFException {
+        if (groupLevel++ == 0 && sharedContentHandler != null) {
+            //a region: capture its content, which may be the same as on other pages
+            generator.startCapture();
+        }
         generator.saveGraphicsState();
         generator.concatenate(toPoints(transform));
         if (clipRect != null) {
@@ -151,10 +161,18 @@ public class PDFPainter extends AbstractIFPainter<PDFDocumentHandler> {
     /** {@inheritDoc} */
     public void endViewport() throws IFException {
         generator.restoreGraphicsState();
+        if (--groupLevel == 0 && sharedContentHandler != null) {
+            try {
+                sharedContentHandler.addContent(generator, generator.endCapture());
+            } catch (IOException ioe) {
+                throw new IFException("I/O error while adding the content of a region", ioe);
+            }
+        }
     }
 
     /** {@inheritDoc} */
     public void startGroup(AffineTransform transform, String layer) throws IFException {
+        groupLevel++;
         generator.saveGraphicsState(layer);
         generator.concatenate(toPoints(transform));
     }
@@ -162,6 +180,7 @@ public class PDFPainter extends AbstractIFPainter<PDFDocumentHandler> {
     /** {@inheritDoc} */
     public void endGroup() throws IFException {
         generator.restoreGraphicsState();
+        groupLevel--;
     }
 
     /** {@inheritDoc} */
@@ -24,6 +24,7 @@ import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.Deflater;
 
 import org.apache.avalon.framework.configuration.Configuration;
 import org.apache.avalon.framework.configuration.ConfigurationException;
@@ -37,6 +38,7 @@ import org.apache.fop.apps.MimeConstants;
 import org.apache.fop.fonts.DefaultFontConfig;
 import org.apache.fop.fonts.DefaultFontConfig.DefaultFontConfigParser;
 import org.apache.fop.fonts.FontEventAdapter;
+import org.apache.fop.pdf.FlateSettings;
 import org.apache.fop.pdf.PDFEncryptionParams;
 import org.apache.fop.pdf.PDFFilterList;
 import org.apache.fop.render.RendererConfig;
@@ -56,8 +58,10 @@ import static org.apache.fop.render.pdf.PDFEncryptionOption.NO_PRINT;
 import static org.apache.fop.render.pdf.PDFEncryptionOption.NO_PRINTHQ;
 import static org.apache.fop.render.pdf.PDFEncryptionOption.OWNER_PASSWORD;
 import static org.apache.fop.render.pdf.PDFEncryptionOption.USER_PASSWORD;
+import static org.apache.fop.render.pdf.PDFRendererOption.COMPRESSION_THREADS;
 import static org.apache.fop.render.pdf.PDFRendererOption.DISABLE_SRGB_COLORSPACE;
 import static org.apache.fop.render.pdf.PDFRendererOption.FILTER_LIST;
+import static org.apache.fop.render.pdf.PDFRendererOption.FLATE_SETTINGS;
 import static org.apache.fop.render.pdf.PDFRendererOption.LINEARIZATION;
 import static org.apache.fop.render.pdf.PDFRendererOption.MERGE_FONTS;
 import static org.apache.fop.render.pdf.PDFRendererOption.OUTPUT_PROFILE;
@@ -65,6 +69,8 @@ import static org.apache.fop.render.pdf.PDFRendererOption.PDF_A_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_UA_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_VT_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_X_MODE;
+import static org.apache.fop.render.pdf.PDFRendererOption.SHARED_CONTENT;
+import static org.apache.fop.render.pdf.PDFRendererOption.STREAMING;
 import static org.apache.fop.render.pdf.PDFRendererOption.VERSION;
 
 /**
@@ -142,6 +148,8 @@ public final class PDFRendererConfig implements RendererConfig {
         private void configure(Configuration cfg, FOUserAgent userAgent, boolean strict) throws FOPException {
             try {
                 buildFilterMapFromConfiguration(cfg);
+                buildFlateSettingsFromConfiguration(cfg);
+                parseAndPut(COMPRESSION_THREADS, cfg);
                 parseAndPut(PDF_A_MODE, cfg);
                 parseAndPut(PDF_UA_MODE, cfg);
                 parseAndPut(PDF_X_MODE, cfg);
@@ -151,6 +159,8 @@ public final class PDFRendererConfig implements RendererConfig {
                 parseAndPut(DISABLE_SRGB_COLORSPACE, cfg);
                 parseAndPut(MERGE_FONTS, cfg);
                 parseAndPut(LINEARIZATION, cfg);
+                parseAndPut(STREAMING, cfg);
+                parseAndPut(SHARED_CONTENT, cfg);
 
                 parseAndPut(VERSION, cfg);
             } catch (ConfigurationException e) {
@@ -215,6 +225,29 @@ public final class PDFRendererConfig implements RendererConfig {
             put(FILTER_LIST, filterMap);
         }
 
+        private void buildFlateSettingsFromConfiguration(Configuration cfg)
+                throws ConfigurationException {
+            Map<String, FlateSettings> settingsMap = new HashMap<String, FlateSettings>();
+            for (Configuration flateCfg : cfg.getChildren(FLATE_SETTINGS.getName())) {
+                String type = flateCfg.getAttribute("type", PDFFilterList.DEFAULT_FILTER);
+                if (settingsMap.get(type) != null) {
+                    throw new ConfigurationException("Flate settings of type '"
+                            + type + "' have already been defined");
+                }
+                int level = flateCfg.getAttributeAsInteger("level", Deflater.DEFAULT_COMPRESSION);
+                try {
+                    int strategy = FlateSettings.getStrategy(flateCfg.getAttribute("strategy", null));
+                    settingsMap.put(type, new FlateSettings(level, strategy));
+                } catch (IllegalArgumentException e) {
+                    throw new ConfigurationException(e.getMessage(), e);
+                }
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Flate settings for type " + type + ": " + settingsMap.get(type));
+                }
+            }
+            put(FLATE_SETTINGS, settingsMap);
+        }
+
         private String parseConfig(Configuration cfg, RendererConfigOption option) {
             Configuration child = cfg.getChild(option.getName());
             return child.getValue(null);
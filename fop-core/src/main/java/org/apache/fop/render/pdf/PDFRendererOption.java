@@ -37,6 +37,23 @@ public enum PDFRendererOption implements RendererConfigOption {
             throw new UnsupportedOperationException();
         }
     },
+    /**
+     * Rendering Options key for the compression level and strategy of the flate filter, per
+     * stream type like the filter lists, datatype: Map&lt;String, FlateSettings&gt;
+     */
+    FLATE_SETTINGS("flate", null) {
+        @Override
+        Object deserialize(String value) {
+            throw new UnsupportedOperationException();
+        }
+    },
+    /** Rendering Options key for the number of threads compressing streams, default: 1 */
+    COMPRESSION_THREADS("compression-threads", 1) {
+        @Override
+        Integer deserialize(String value) {
+            return Integer.valueOf(value);
+        }
+    },
     /** Rendering Options key for the PDF/A mode, default: {@link PDFAMode#DISABLED} */
     PDF_A_MODE("pdf-a-mode", PDFAMode.DISABLED) {
         @Override
@@ -93,6 +110,26 @@ public enum PDFRendererOption implements RendererConfigOption {
             return Boolean.valueOf(value);
         }
     },
+    /**
+     * Rendering Options key for streaming output: completed pages are written and released
+     * immediately so memory does not grow with the page count, default: false
+     */
+    STREAMING("streaming", false) {
+        @Override
+        Boolean deserialize(String value) {
+            return Boolean.valueOf(value);
+        }
+    },
+    /**
+     * Rendering Options key for sharing the content of regions that repeats on several pages
+     * as Form XObjects, default: true
+     */
+    SHARED_CONTENT("shared-content", true) {
+        @Override
+        Boolean deserialize(String value) {
+            return Boolean.valueOf(value);
+        }
+    },
     /** Rendering Options key for the ICC profile for the output intent. */
     OUTPUT_PROFILE("output-profile") {
         @Override
@@ -24,6 +24,7 @@ import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.fop.pdf.FlateSettings;
 import org.apache.fop.pdf.PDFAMode;
 import org.apache.fop.pdf.PDFEncryptionParams;
 import org.apache.fop.pdf.PDFUAMode;
@@ -31,8 +32,10 @@ import org.apache.fop.pdf.PDFVTMode;
 import org.apache.fop.pdf.PDFXMode;
 import org.apache.fop.pdf.Version;
 
+import static org.apache.fop.render.pdf.PDFRendererOption.COMPRESSION_THREADS;
 import static org.apache.fop.render.pdf.PDFRendererOption.DISABLE_SRGB_COLORSPACE;
 import static org.apache.fop.render.pdf.PDFRendererOption.FILTER_LIST;
+import static org.apache.fop.render.pdf.PDFRendererOption.FLATE_SETTINGS;
 import static org.apache.fop.render.pdf.PDFRendererOption.LINEARIZATION;
 import static org.apache.fop.render.pdf.PDFRendererOption.MERGE_FONTS;
 import static org.apache.fop.render.pdf.PDFRendererOption.OUTPUT_PROFILE;
@@ -40,6 +43,8 @@ import static org.apache.fop.render.pdf.PDFRendererOption.PDF_A_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_UA_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_VT_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_X_MODE;
+import static org.apache.fop.render.pdf.PDFRendererOption.SHARED_CONTENT;
+import static org.apache.fop.render.pdf.PDFRendererOption.STREAMING;
 import static org.apache.fop.render.pdf.PDFRendererOption.VERSION;
 
 /**
@@ -103,6 +108,14 @@ public final class PDFRendererOptionsConfig {
         return (Map<String, List<String>>) properties.get(FILTER_LIST);
     }
 
+    public Map<String, FlateSettings> getFlateSettings() {
+        return (Map<String, FlateSettings>) properties.get(FLATE_SETTINGS);
+    }
+
+    public Integer getCompressionThreads() {
+        return (Integer) properties.get(COMPRESSION_THREADS);
+    }
+
     public PDFAMode getPDFAMode() {
         return (PDFAMode) properties.get(PDF_A_MODE);
     }
@@ -142,4 +155,12 @@ public final class PDFRendererOptionsConfig {
     public Boolean getLinearizationEnabled() {
         return (Boolean)properties.get(LINEARIZATION);
     }
+
+    public Boolean getStreamingEnabled() {
+        return (Boolean)properties.get(STREAMING);
+    }
+
+    public Boolean getSharedContentEnabled() {
+        return (Boolean)properties.get(SHARED_CONTENT);
+    }
 }
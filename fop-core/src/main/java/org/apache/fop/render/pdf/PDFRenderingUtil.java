@@ -596,6 +596,9 @@ class PDFRenderingUtil {
         updateInfo();
         updatePDFProfiles();
         pdfDoc.setFilterMap(rendererConfig.getFilterMap());
+        pdfDoc.setFlateSettings(rendererConfig.getFlateSettings());
+        pdfDoc.setCompressionThreads(rendererConfig.getCompressionThreads());
+        pdfDoc.setFontSubsetCache(userAgent.getFontSubsetCache());
         pdfDoc.outputHeader(out);
 
         //Setup encryption if necessary
@@ -621,6 +624,8 @@ class PDFRenderingUtil {
         this.pdfDoc.enableAccessibility(userAgent.isAccessibilityEnabled());
         pdfDoc.setMergeFontsEnabled(rendererConfig.getMergeFontsEnabled());
         pdfDoc.setLinearizationEnabled(rendererConfig.getLinearizationEnabled());
+        pdfDoc.setStreamingEnabled(rendererConfig.getStreamingEnabled());
+        pdfDoc.setSharedContentEnabled(rendererConfig.getSharedContentEnabled());
 
         return this.pdfDoc;
     }
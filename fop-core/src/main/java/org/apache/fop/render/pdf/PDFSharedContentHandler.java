@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.pdf;
+
+import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.fop.pdf.PDFDocument;
+import org.apache.fop.pdf.PDFFilterList;
+import org.apache.fop.pdf.PDFFormXObject;
+import org.apache.fop.pdf.PDFStream;
+import org.apache.fop.pdf.PDFText;
+
+/**
+ * Shares the content of the regions which are painted identically on several pages (headers,
+ * footers, backgrounds). The first time some content is seen, it is written to the page as
+ * usual. When the same content is painted again, it is written once as a Form XObject, and
+ * that page and the following ones only draw the Form XObject.
+ * <p>
+ * The content is compared as it would be written to the page. Since the painter sets the
+ * colors, line widths and fonts it uses whenever they differ from the current ones, the same
+ * bytes give the same result wherever they are drawn from.
+ */
+class PDFSharedContentHandler {
+
+    /** Content smaller than this isn't worth an object of its own */
+    static final int MIN_SHARED_CONTENT_LENGTH = 256;
+
+    /** The maximum number of digests kept for the content seen only once */
+    private static final int MAX_UNSHARED_CONTENTS = 256;
+
+    private final PDFDocument pdfDoc;
+
+    private final Map<String, PDFFormXObject> forms = new HashMap<String, PDFFormXObject>();
+
+    private final Map<String, Boolean> unshared = new LinkedHashMap<String, Boolean>(64, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_UNSHARED_CONTENTS;
+        }
+    };
+
+    private Rectangle2D pageBox;
+
+    /**
+     * @param pdfDoc the PDF document
+     */
+    PDFSharedContentHandler(PDFDocument pdfDoc) {
+        this.pdfDoc = pdfDoc;
+    }
+
+    /**
+     * Sets the page on which the following content is painted.
+     * @param mediaBox the media box of the page, in the coordinates of the painter (millipoints)
+     */
+    void startPage(Rectangle mediaBox) {
+        pageBox = new Rectangle2D.Double(mediaBox.getX() / 1000, mediaBox.getY() / 1000,
+                mediaBox.getWidth() / 1000, mediaBox.getHeight() / 1000);
+    }
+
+    /**
+     * Adds the content of a region to the page, either directly or as a reference to the Form
+     * XObject holding the same content.
+     * @param generator the content generator of the page
+     * @param content the content of the region
+     * @throws IOException if an I/O error occurs
+     */
+    void addContent(PDFContentGenerator generator, byte[] content) throws IOException {
+        if (content.length < MIN_SHARED_CONTENT_LENGTH) {
+            generator.add(content);
+            return;
+        }
+        String key = digest(content);
+        PDFFormXObject form = forms.get(key);
+        if (form == null) {
+            if (unshared.put(key, Boolean.TRUE) == null) {
+                generator.add(content);
+                return;
+            }
+            unshared.remove(key);
+            PDFStream stream = pdfDoc.getFactory().makeStream(PDFFilterList.CONTENT_FILTER, false);
+            stream.setData(content);
+            form = pdfDoc.addFormXObject(generator.getResourceContext(), stream,
+                    pdfDoc.getResources().makeReference(), key);
+            form.setBBox(pageBox);
+            forms.put(key, form);
+        } else {
+            generator.getResourceContext().addXObject(form);
+        }
+        generator.add(form.getName() + " Do\n");
+    }
+
+    private String digest(byte[] content) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Internal error", e);
+        }
+        // the bounding box is part of the key, since it clips the content
+        md.update(PDFDocument.encode(pageBox.toString()));
+        return "region:" + PDFText.toHex(md.digest(content), false);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.ps;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.xmlgraphics.image.loader.Image;
+import org.apache.xmlgraphics.ps.ImageEncoder;
+import org.apache.xmlgraphics.util.io.FlateEncodeOutputStream;
+
+import org.apache.fop.render.ImageConversionCache;
+import org.apache.fop.render.RenderingContext;
+
+/**
+ * ImageEncoder implementation which writes the data produced earlier by another encoder. The
+ * data is kept in the {@link ImageConversionCache}, so an image used by several documents is
+ * only encoded (and, from PostScript level 3 on, compressed) once.
+ */
+final class CachedImageEncoder implements ImageEncoder {
+
+    private final byte[] data;
+
+    private final String implicitFilter;
+
+    private CachedImageEncoder(byte[] data, String implicitFilter) {
+        this.data = data;
+        this.implicitFilter = implicitFilter;
+    }
+
+    /**
+     * Returns an encoder for an image which takes its data from the conversion cache. The data
+     * is written by the given encoder if it isn't in the cache yet.
+     * @param context the rendering context
+     * @param image the image to encode
+     * @param target the kind of conversion, to tell apart the encoders used for the same image
+     * @param encoder the encoder which produces the data
+     * @return the cached encoder, or the given encoder if the image can't be cached
+     * @throws IOException if an I/O error occurs while encoding the image
+     */
+    static ImageEncoder getInstance(RenderingContext context, Image image, String target,
+            ImageEncoder encoder) throws IOException {
+        ImageConversionCache conversionCache = context.getUserAgent() != null
+                ? context.getUserAgent().getImageConversionCache() : null;
+        if (conversionCache == null) {
+            return encoder;
+        }
+        int level = ((PSRenderingContext) context).getGenerator().getPSLevel();
+        //without an implicit filter, the data is compressed in the way the level allows
+        boolean compress = encoder.getImplicitFilter() == null && level >= 3;
+        String cacheKey = ImageConversionCache.createKey(image, target, compress ? "flate" : "none");
+        if (cacheKey == null) {
+            return encoder;
+        }
+        CachedImageEncoder cached = (CachedImageEncoder) conversionCache.get(cacheKey);
+        if (cached == null) {
+            ByteArrayOutputStream bout = new ByteArrayOutputStream();
+            if (compress) {
+                FlateEncodeOutputStream out = new FlateEncodeOutputStream(bout);
+                encoder.writeTo(out);
+                out.close();
+                cached = new CachedImageEncoder(bout.toByteArray(), "/FlateDecode");
+            } else {
+                encoder.writeTo(bout);
+                cached = new CachedImageEncoder(bout.toByteArray(), encoder.getImplicitFilter());
+            }
+            conversionCache.put(cacheKey, cached, cached.data.length);
+        }
+        return cached;
+    }
+
+    /** {@inheritDoc} */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(data);
+    }
+
+    /** {@inheritDoc} */
+    public String getImplicitFilter() {
+        return implicitFilter;
+    }
+}
@@ -56,7 +56,8 @@ public class PSImageHandlerRawPNG implements PSImageHandler {
         float h = (float) pos.getHeight() / 1000f;
         Rectangle2D targetRect = new Rectangle2D.Float(x, y, w, h);
 
-        ImageEncoder encoder = new ImageEncoderPNG(png);
+        ImageEncoder encoder = CachedImageEncoder.getInstance(context, image, "ps",
+                new ImageEncoderPNG(png));
         ImageInfo info = image.getInfo();
         Dimension imgDim = info.getSize().getDimensionPx();
         String imgDescription = image.getClass().getName();
@@ -40,6 +40,7 @@ import org.apache.xmlgraphics.ps.ImageFormGenerator;
 import org.apache.xmlgraphics.ps.PSGenerator;
 import org.apache.xmlgraphics.ps.PSImageUtils;
 
+import org.apache.fop.render.ImageConversionCache;
 import org.apache.fop.render.RenderingContext;
 
 /**
@@ -68,16 +69,28 @@ public class PSImageHandlerRenderedImage implements PSImageHandler {
         RenderedImage ri = imageRend.getRenderedImage();
 
         if (ri instanceof BufferedImage && ri.getColorModel().hasAlpha()) {
-            BufferedImage convertedImg = new BufferedImage(ri.getWidth(), ri.getHeight(), BufferedImage.TYPE_INT_RGB);
-            Graphics2D g = (Graphics2D) convertedImg.getGraphics();
-            g.setBackground(Color.WHITE);
-            g.clearRect(0, 0, ri.getWidth(), ri.getHeight());
-            g.drawImage((BufferedImage)ri, 0, 0, null);
-            g.dispose();
+            ImageConversionCache conversionCache = context.getUserAgent() != null
+                    ? context.getUserAgent().getImageConversionCache() : null;
+            String cacheKey = conversionCache != null
+                    ? ImageConversionCache.createKey(image, "ps:flattened", "white") : null;
+            BufferedImage convertedImg = cacheKey != null
+                    ? (BufferedImage) conversionCache.get(cacheKey) : null;
+            if (convertedImg == null) {
+                convertedImg = new BufferedImage(ri.getWidth(), ri.getHeight(), BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = (Graphics2D) convertedImg.getGraphics();
+                g.setBackground(Color.WHITE);
+                g.clearRect(0, 0, ri.getWidth(), ri.getHeight());
+                g.drawImage((BufferedImage)ri, 0, 0, null);
+                g.dispose();
+                if (cacheKey != null) {
+                    conversionCache.put(cacheKey, convertedImg, 4L * ri.getWidth() * ri.getHeight());
+                }
+            }
             ri = convertedImg;
         }
 
-        ImageEncoder encoder = ImageEncodingHelper.createRenderedImageEncoder(ri);
+        ImageEncoder encoder = CachedImageEncoder.getInstance(context, image, "ps",
+                ImageEncodingHelper.createRenderedImageEncoder(ri));
         Dimension imgDim = new Dimension(ri.getWidth(), ri.getHeight());
         String imgDescription = ri.getClass().getName();
         ImageEncodingHelper helper = new ImageEncodingHelper(ri);
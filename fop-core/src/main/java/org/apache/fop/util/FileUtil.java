@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.util;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Provides helper functions for {@link java.io.File}.
+ */
+public final class FileUtil {
+
+    private FileUtil() {
+        // Utility class.
+    }
+
+    /**
+     * Replaces a file with another one. The file is renamed, which is atomic on most file
+     * systems, so that other processes reading the target see either the old or the new file.
+     * Where a file cannot be renamed onto an existing one, the target is deleted first, and
+     * where it cannot be renamed at all (for example across file systems), it is copied.
+     *
+     * @param source the file to move
+     * @param target the file to replace (it may not exist)
+     * @throws IOException if the file cannot be moved
+     */
+    public static void replace(File source, File target) throws IOException {
+        if (source.renameTo(target)) {
+            return;
+        }
+        if (target.exists() && !target.delete()) {
+            throw new IOException("Cannot delete " + target);
+        }
+        if (!source.renameTo(target)) {
+            FileUtils.copyFile(source, target);
+            if (!source.delete()) {
+                source.deleteOnExit();
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.afp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AFPResourceCacheTestCase {
+
+    private static AFPResourceCache.Resource createResource(int size) {
+        return new AFPResourceCache.Resource("C0000001", false, new byte[size]);
+    }
+
+    @Test
+    public void testCreateName() {
+        AFPResourceCache cache = new AFPResourceCache();
+        String name = cache.createName();
+        assertEquals(8, name.length());
+        assertTrue(name.startsWith("C"));
+        assertFalse(name.equals(cache.createName()));
+    }
+
+    @Test
+    public void testNamesAreNotReused() {
+        AFPResourceCache cache = new AFPResourceCache();
+        String last = null;
+        for (String name = cache.createName(); name != null; name = cache.createName()) {
+            last = name;
+        }
+        assertEquals("C9999999", last);
+        assertNull(cache.createName());
+    }
+
+    @Test
+    public void testHitsAndMisses() {
+        AFPResourceCache cache = new AFPResourceCache();
+        AFPResourceCache.Resource resource = createResource(100);
+        assertNull(cache.get("a"));
+        cache.put("a", resource);
+        assertSame(resource, cache.get("a"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(100, cache.getSize());
+
+        cache.put("a", createResource(50));
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(50, cache.getSize());
+
+        cache.clear();
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreDropped() {
+        AFPResourceCache cache = new AFPResourceCache(100);
+        AFPResourceCache.Resource a = createResource(40);
+        AFPResourceCache.Resource c = createResource(40);
+        cache.put("a", a);
+        cache.put("b", createResource(40));
+        cache.get("a");
+        cache.put("c", c);
+        assertEquals(2, cache.getEntryCount());
+        assertEquals(80, cache.getSize());
+        assertNull(cache.get("b"));
+        assertSame(a, cache.get("a"));
+        assertSame(c, cache.get("c"));
+
+        // resources larger than the cache are not stored
+        cache.put("d", createResource(101));
+        assertNull(cache.get("d"));
+        assertEquals(2, cache.getEntryCount());
+    }
+}
@@ -26,6 +26,8 @@ import java.io.IOException;
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -82,6 +84,74 @@ public class AFPResourceManagerTestCase {
         assertTrue(sut.tryIncludeObject(dataInfo));
     }
 
+    private static AFPResourceManager createResourceManager(AFPResourceCache cache,
+            ByteArrayOutputStream outStream) throws IOException {
+        AFPResourceManager resourceManager = new AFPResourceManager(
+                ResourceResolverFactory.createDefaultInternalResourceResolver(new File(".").toURI()));
+        resourceManager.setResourceCache(cache);
+        DataStream stream = resourceManager.createDataStream(new AFPPaintingState(), outStream);
+        stream.startPage(0, 0, 0, 10, 10);
+        return resourceManager;
+    }
+
+    private static AFPImageObjectInfo createImageObjectInfo(String uri) {
+        AFPImageObjectInfo imageInfo = new AFPImageObjectInfo();
+        imageInfo.setMimeType(MimeConstants.MIME_AFP_IOCA_FS10);
+        imageInfo.setBitsPerPixel(1);
+        imageInfo.setData(new byte[] {1, 2, 3});
+        imageInfo.getResourceInfo().setUri(uri);
+        imageInfo.setObjectAreaInfo(new AFPObjectAreaInfo(0, 0, 10, 10, 1, 0));
+        return imageInfo;
+    }
+
+    /**
+     * Ensures that an object created by a document is included by another document sharing the
+     * resource cache, which writes the same resource object.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    public void testObjectIsSharedBetweenDocuments() throws IOException {
+        AFPResourceCache cache = new AFPResourceCache();
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        AFPResourceManager resourceManager = createResourceManager(cache, first);
+        AFPImageObjectInfo imageInfo = createImageObjectInfo("test.png");
+        imageInfo.setCreatePageSegment(true);
+        assertFalse(resourceManager.tryIncludeObject(imageInfo));
+        resourceManager.createObject(imageInfo);
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(1, cache.getMissCount());
+
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        resourceManager = createResourceManager(cache, second);
+        imageInfo = createImageObjectInfo("test.png");
+        assertTrue(resourceManager.tryIncludeObject(imageInfo));
+        assertEquals(1, cache.getHitCount());
+        assertTrue(imageInfo.isCreatePageSegment());
+        // the print-file resource group is written as the resources are added
+        assertArrayEquals(first.toByteArray(), second.toByteArray());
+        // the other uses in the document are included by the document itself
+        assertTrue(resourceManager.tryIncludeObject(createImageObjectInfo("test.png")));
+        assertEquals(1, cache.getHitCount());
+    }
+
+    /**
+     * Ensures that objects without a URI, whose identity is only known to the document, aren't
+     * shared between documents.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    public void testInstreamObjectIsNotShared() throws IOException {
+        AFPResourceCache cache = new AFPResourceCache();
+        AFPResourceManager resourceManager = createResourceManager(cache, new ByteArrayOutputStream());
+        resourceManager.createObject(createImageObjectInfo(null));
+        assertEquals(0, cache.getEntryCount());
+
+        resourceManager = createResourceManager(cache, new ByteArrayOutputStream());
+        assertFalse(resourceManager.tryIncludeObject(createImageObjectInfo(null)));
+    }
+
     private AFPDataObjectInfo createAFPDataObjectInfo() {
         AFPDataObjectInfo dataInfo = new AFPDataObjectInfo();
         dataInfo.setMimeType(MimeConstants.MIME_TIFF);
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.afp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.fop.afp.modca.TagLogicalElement;
+
+/**
+ * Test case for {@link DataStream}.
+ */
+public class DataStreamTestCase {
+
+    /** End Page structured field identifier */
+    private static final byte[] END_PAGE = new byte[] {(byte) 0xD3, (byte) 0xA9, (byte) 0xAF};
+
+    private static int count(byte[] data, byte[] sequence) {
+        int count = 0;
+        for (int i = 0; i <= data.length - sequence.length; i++) {
+            int j = 0;
+            while (j < sequence.length && data[i + j] == sequence[j]) {
+                j++;
+            }
+            if (j == sequence.length) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testPagesOfPageGroupAreWrittenWhenTheyEnd() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataStream dataStream = new DataStream(new Factory(), new AFPPaintingState(), out);
+        dataStream.startDocument();
+        dataStream.startPageGroup();
+        dataStream.createInvokeMediumMap("MEDMAP01");
+        dataStream.createTagLogicalElement("name", "value", TagLogicalElement.State.ENCODING_NONE);
+        for (int i = 1; i <= 3; i++) {
+            dataStream.startPage(1000, 1000, 0, 1440, 1440);
+            dataStream.endPage();
+            // the page doesn't wait for the end of its page group
+            assertEquals(i, count(out.toByteArray(), END_PAGE));
+        }
+        dataStream.endPageGroup();
+        dataStream.endDocument();
+        assertEquals(3, count(out.toByteArray(), END_PAGE));
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.afp.fonts;
+
+import java.awt.Rectangle;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import org.apache.commons.io.FileUtils;
+
+import org.apache.fop.afp.AFPEventProducer;
+import org.apache.fop.afp.util.AFPResourceAccessor;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+
+public class CharacterSetMetricsCacheTestCase {
+
+    private static final String CHARACTER_SET_NAME = "C0TEST01";
+
+    private static final String CODE_PAGE_NAME = "T1TEST01";
+
+    private static final String ENCODING = "Cp500";
+
+    private final AFPEventProducer eventProducer = mock(AFPEventProducer.class);
+
+    private File dir;
+
+    private File cacheFile;
+
+    private File charSetFile;
+
+    private File codePageFile;
+
+    private AFPResourceAccessor accessor;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = File.createTempFile("fop-afp", "");
+        dir.delete();
+        dir.mkdir();
+        cacheFile = new File(dir, "fop-fonts" + CharacterSetMetricsCache.FILE_EXTENSION);
+        charSetFile = createFile(CHARACTER_SET_NAME);
+        codePageFile = createFile(CODE_PAGE_NAME);
+        accessor = new AFPResourceAccessor(
+                ResourceResolverFactory.createDefaultInternalResourceResolver(dir.toURI()),
+                dir.toURI().toString());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    private File createFile(String name) throws IOException {
+        File file = new File(dir, name);
+        //not a valid FOCA file: the builder fails if it tries to parse it
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(new byte[] {1, 2, 3});
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    private CharacterSet createCharacterSet() {
+        CharacterSet characterSet = new CharacterSet(CODE_PAGE_NAME, ENCODING,
+                CharacterSetType.SINGLE_BYTE, CHARACTER_SET_NAME, accessor, eventProducer);
+        characterSet.setNominalVerticalSize(10000);
+        CharacterSetOrientation cso = new CharacterSetOrientation(0, 278, 1000, 500);
+        cso.setAscender(718);
+        cso.setDescender(-207);
+        cso.setCapHeight(718);
+        cso.setXHeight(523);
+        cso.setUnderscoreWidth(50);
+        cso.setUnderscorePosition(-100);
+        cso.setCharacterMetrics('A', 667, new Rectangle(14, 0, 640, 718));
+        cso.setCharacterMetrics('\u20AC', 556, new Rectangle(-12, -19, 580, 729));
+        characterSet.addCharacterSetOrientation(cso);
+        return characterSet;
+    }
+
+    private CharacterSet getCachedCharacterSet(CharacterSetMetricsCache cache) {
+        return cache.getCharacterSet(charSetFile.toURI(), codePageFile.toURI(), CHARACTER_SET_NAME,
+                CODE_PAGE_NAME, ENCODING, CharacterSetType.SINGLE_BYTE, accessor, eventProducer);
+    }
+
+    private CharacterSetMetricsCache createCache() throws Exception {
+        CharacterSetMetricsCache cache = CharacterSetMetricsCache.loadFrom(cacheFile);
+        assertTrue(cache.putCharacterSet(charSetFile.toURI(), codePageFile.toURI(), ENCODING,
+                CharacterSetType.SINGLE_BYTE, createCharacterSet()));
+        assertTrue(cache.hasChanged());
+        cache.save();
+        assertFalse(cache.hasChanged());
+        return CharacterSetMetricsCache.loadFrom(cacheFile);
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        CharacterSet characterSet = createCharacterSet();
+        CharacterSetMetricsCache cache = createCache();
+        assertEquals(1, cache.size());
+
+        CharacterSet cached = getCachedCharacterSet(cache);
+        assertNotNull(cached);
+        assertEquals(characterSet.getName(), cached.getName());
+        assertEquals(characterSet.getCodePage(), cached.getCodePage());
+        assertEquals(characterSet.getNominalVerticalSize(), cached.getNominalVerticalSize());
+        assertEquals(characterSet.getSpaceIncrement(), cached.getSpaceIncrement());
+        assertEquals(characterSet.getEmSpaceIncrement(), cached.getEmSpaceIncrement());
+        assertEquals(characterSet.getNominalCharIncrement(), cached.getNominalCharIncrement());
+        assertEquals(characterSet.getAscender(), cached.getAscender());
+        assertEquals(characterSet.getDescender(), cached.getDescender());
+        assertEquals(characterSet.getCapHeight(), cached.getCapHeight());
+        assertEquals(characterSet.getXHeight(), cached.getXHeight());
+        assertEquals(characterSet.getUnderscoreWidth(), cached.getUnderscoreWidth());
+        assertEquals(characterSet.getUnderscorePosition(), cached.getUnderscorePosition());
+        for (char c : new char[] {'A', '\u20AC', 'B'}) {
+            assertEquals(characterSet.getWidth(c, 12), cached.getWidth(c, 12));
+            assertEquals(characterSet.getCharacterBox(c, 12), cached.getCharacterBox(c, 12));
+        }
+    }
+
+    @Test
+    public void testModifiedFilesAreNotUsed() throws Exception {
+        CharacterSetMetricsCache cache = createCache();
+        assertTrue(codePageFile.setLastModified(codePageFile.lastModified() - 10000));
+        assertNull(getCachedCharacterSet(cache));
+        assertTrue(cache.hasChanged());
+        cache.save();
+        assertEquals(0, CharacterSetMetricsCache.loadFrom(cacheFile).size());
+    }
+
+    @Test
+    public void testDifferentEncodingsAreNotShared() throws Exception {
+        CharacterSetMetricsCache cache = createCache();
+        assertNull(cache.getCharacterSet(charSetFile.toURI(), codePageFile.toURI(),
+                CHARACTER_SET_NAME, CODE_PAGE_NAME, "Cp1047", CharacterSetType.SINGLE_BYTE,
+                accessor, eventProducer));
+    }
+
+    @Test
+    public void testMappedEntriesSurviveSave() throws Exception {
+        CharacterSetMetricsCache cache = createCache();
+        assertTrue(cache.putCharacterSet(charSetFile.toURI(), codePageFile.toURI(), "Cp1047",
+                CharacterSetType.SINGLE_BYTE, createCharacterSet()));
+        cache.save();
+        assertEquals(2, cache.size());
+        assertNotNull(getCachedCharacterSet(cache));
+        assertEquals(2, CharacterSetMetricsCache.loadFrom(cacheFile).size());
+    }
+
+    @Test
+    public void testSaveReplacesFileMappedByAnotherCache() throws Exception {
+        CharacterSetMetricsCache cache = createCache();
+        CharacterSetMetricsCache other = CharacterSetMetricsCache.loadFrom(cacheFile);
+        assertTrue(other.putCharacterSet(charSetFile.toURI(), codePageFile.toURI(), "Cp1047",
+                CharacterSetType.SINGLE_BYTE, createCharacterSet()));
+        other.save();
+        assertNotNull(getCachedCharacterSet(cache));
+        assertEquals(2, CharacterSetMetricsCache.loadFrom(cacheFile).size());
+    }
+
+    @Test
+    public void testOnlyLocalFilesAreCached() throws Exception {
+        CharacterSetMetricsCache cache = CharacterSetMetricsCache.loadFrom(cacheFile);
+        assertFalse(cache.putCharacterSet(URI.create("http://localhost/" + CHARACTER_SET_NAME),
+                codePageFile.toURI(), ENCODING, CharacterSetType.SINGLE_BYTE, createCharacterSet()));
+        assertFalse(cache.hasChanged());
+    }
+
+    @Test
+    public void testCorruptFileIsDiscarded() throws Exception {
+        OutputStream out = new FileOutputStream(cacheFile);
+        try {
+            out.write(new byte[] {'F', 'O', 'P', 'A', 0, 0});
+        } finally {
+            out.close();
+        }
+        CharacterSetMetricsCache cache = CharacterSetMetricsCache.loadFrom(cacheFile);
+        assertEquals(0, cache.size());
+        assertFalse(cacheFile.exists());
+    }
+
+    @Test
+    public void testBuilderUsesCache() throws Exception {
+        CharacterSetMetricsCache cache = createCache();
+        CharacterSet characterSet = CharacterSetBuilder.getSingleByteInstance().buildSBCS(
+                CHARACTER_SET_NAME, CODE_PAGE_NAME, ENCODING, accessor, eventProducer, cache);
+        assertEquals(667 * 12, characterSet.getWidth('A', 12));
+        assertFalse(cache.hasChanged());
+    }
+}
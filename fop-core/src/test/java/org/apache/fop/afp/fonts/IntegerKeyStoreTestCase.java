@@ -19,6 +19,8 @@
 
 package org.apache.fop.afp.fonts;
 
+import java.util.Arrays;
+
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -45,4 +47,15 @@ public class IntegerKeyStoreTestCase {
         }
     }
 
+    @Test
+    public void getIndices() {
+        IntegerKeyStore<Integer> sut = new IntegerKeyStore<Integer>();
+        assertEquals(0, sut.getIndices().size());
+        sut.put(1000, 1);
+        sut.put(3, 2);
+        sut.put(255, 3);
+        sut.put(256, 4);
+        sut.put(256, null);
+        assertEquals(Arrays.asList(3, 255, 1000), sut.getIndices());
+    }
 }
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.afp.modca;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * Tests the {@link ChunkedDataOutputStream} class.
+ */
+public class ChunkedDataOutputStreamTestCase {
+
+    private static byte[] createData(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 7);
+        }
+        return data;
+    }
+
+    private static byte[] writeChunks(byte[] data, byte[] header, int lengthOffset, int chunkSize)
+            throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        AbstractAFPObject.writeChunksToStream(data, header.clone(), lengthOffset, chunkSize, expected);
+        return expected.toByteArray();
+    }
+
+    private static void testLength(int length, byte[] header, int lengthOffset) throws IOException {
+        byte[] data = createData(length);
+        byte[] expected = writeChunks(data, header, lengthOffset, 10);
+
+        // written in one call
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ChunkedDataOutputStream out = new ChunkedDataOutputStream(header.clone(), lengthOffset, 10, baos);
+        out.write(data);
+        out.finish();
+        assertArrayEquals(expected, baos.toByteArray());
+
+        // written byte by byte and in uneven pieces
+        baos.reset();
+        out = new ChunkedDataOutputStream(header.clone(), lengthOffset, 10, baos);
+        int off = 0;
+        for (int piece = 1; off < length; piece = piece % 13 + 3) {
+            int len = Math.min(piece, length - off);
+            if (len == 1) {
+                out.write(data[off]);
+            } else {
+                out.write(data, off, len);
+            }
+            off += len;
+        }
+        out.finish();
+        assertArrayEquals(expected, baos.toByteArray());
+    }
+
+    @Test
+    public void testSameChunksAsWriteChunksToStream() throws IOException {
+        byte[] sfHeader = new byte[9];
+        AbstractAFPObject.copySF(sfHeader, AbstractAFPObject.SF_CLASS, AbstractAFPObject.Type.DATA,
+                AbstractAFPObject.Category.IMAGE);
+        byte[] iocaHeader = new byte[] {(byte) 0xFE, (byte) 0x92, 0x00, 0x00};
+        for (int length : new int[] {0, 1, 9, 10, 11, 20, 37, 100}) {
+            testLength(length, sfHeader, 1);
+            testLength(length, iocaHeader, 2);
+        }
+    }
+}
@@ -44,6 +44,7 @@ import static org.apache.fop.render.afp.AFPRendererOption.LINE_WIDTH_CORRECTION;
 import static org.apache.fop.render.afp.AFPRendererOption.RENDERER_RESOLUTION;
 import static org.apache.fop.render.afp.AFPRendererOption.RESOURCE_GROUP_URI;
 import static org.apache.fop.render.afp.AFPRendererOption.SHADING;
+import static org.apache.fop.render.afp.AFPRendererOption.SHARED_RESOURCES;
 
 /**
  * A config builder specific to a particular renderer for specific MIME type.
@@ -73,6 +74,10 @@ public final class AFPRendererConfBuilder extends RendererConfBuilder {
         return createTextElement(LINE_WIDTH_CORRECTION, String.valueOf(value));
     }
 
+    public AFPRendererConfBuilder setSharedResources(boolean value) {
+        return createTextElement(SHARED_RESOURCES, String.valueOf(value));
+    }
+
     public ImagesBuilder startImages(AFPRendererConfig.ImagesModeOptions mode) {
         images = new ImagesBuilder(mode);
         return images;
@@ -23,8 +23,10 @@ import org.apache.fop.apps.FopConfBuilder.RendererConfBuilder;
 
 import static org.apache.fop.render.bitmap.BitmapRendererOption.ANTI_ALIASING;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.BACKGROUND_COLOR;
+import static org.apache.fop.render.bitmap.BitmapRendererOption.BAND_HEIGHT;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.COLOR_MODE;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.JAVA2D_TRANSPARENT_PAGE_BACKGROUND;
+import static org.apache.fop.render.bitmap.BitmapRendererOption.RASTERIZER_THREADS;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.RENDERING_QUALITY_ELEMENT;
 
 public class BitmapRendererConfBuilder extends RendererConfBuilder {
@@ -62,6 +64,16 @@ public class BitmapRendererConfBuilder extends RendererConfBuilder {
         return this;
     }
 
+    public BitmapRendererConfBuilder setRasterizerThreads(int threads) {
+        createTextElement(RASTERIZER_THREADS, String.valueOf(threads));
+        return this;
+    }
+
+    public BitmapRendererConfBuilder setBandHeight(int bandHeight) {
+        createTextElement(BAND_HEIGHT, String.valueOf(bandHeight));
+        return this;
+    }
+
     public static String getMimeType() {
         return "Bitmap";
     }
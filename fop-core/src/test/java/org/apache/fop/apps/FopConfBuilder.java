@@ -201,6 +201,26 @@ public class FopConfBuilder implements FontConfigurator<FopConfBuilder> {
         return this;
     }
 
+    /**
+     * Set the &lt;image-conversion-cache-size&gt; tag within the fop.xconf.
+     *
+     * @param size the maximum size of the image conversion cache in bytes
+     * @return <b>this</b>
+     */
+    public FopConfBuilder setImageConversionCacheSize(long size) {
+        return createElement("image-conversion-cache-size", String.valueOf(size));
+    }
+
+    /**
+     * Set the &lt;font-subset-cache-size&gt; tag within the fop.xconf.
+     *
+     * @param size the maximum size of the font subset cache in bytes
+     * @return <b>this</b>
+     */
+    public FopConfBuilder setFontSubsetCacheSize(long size) {
+        return createElement("font-subset-cache-size", String.valueOf(size));
+    }
+
     /**
      * Sets whether the fonts cache is used or not.
      *
@@ -30,6 +30,7 @@ import org.xml.sax.SAXException;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -129,6 +130,30 @@ public class FopConfParserTestCase {
         assertTrue(buildFactory().getRendererFactory().isRendererPreferred());
     }
 
+    @Test
+    public void testImageConversionCacheSize() {
+        builder.setImageConversionCacheSize(1024);
+        assertEquals(1024, buildFactory().getImageConversionCache().getMaxSize());
+    }
+
+    @Test
+    public void testImageConversionCacheDisabled() {
+        builder.setImageConversionCacheSize(0);
+        assertNull(buildFactory().getImageConversionCache());
+    }
+
+    @Test
+    public void testFontSubsetCacheSize() {
+        builder.setFontSubsetCacheSize(1024);
+        assertEquals(1024, buildFactory().getFontSubsetCache().getMaxSize());
+    }
+
+    @Test
+    public void testFontSubsetCacheDisabled() {
+        builder.setFontSubsetCacheSize(0);
+        assertNull(buildFactory().getFontSubsetCache());
+    }
+
     @Test
     public void testRelativeURINoBaseNoFont() throws Exception {
         checkRelativeURIs("test/config/relative-uri/no-base_no-font.xconf",
@@ -94,6 +94,10 @@ public class FopFactoryBuilderTestCase {
         assertEquals(FopFactoryConfig.DEFAULT_PAGE_HEIGHT, factory.getPageHeight());
         assertEquals(FopFactoryConfig.DEFAULT_PAGE_WIDTH, factory.getPageWidth());
         assertFalse(factory.getRendererFactory().isRendererPreferred());
+        assertEquals(FopFactoryConfig.DEFAULT_IMAGE_CONVERSION_CACHE_SIZE,
+                factory.getImageConversionCache().getMaxSize());
+        assertEquals(FopFactoryConfig.DEFAULT_FONT_SUBSET_CACHE_SIZE,
+                factory.getFontSubsetCache().getMaxSize());
     }
 
     @Test
@@ -241,6 +245,48 @@ public class FopFactoryBuilderTestCase {
         });
     }
 
+    @Test
+    public void testGetSetImageConversionCacheSize() {
+        runSetterTest(new Runnable() {
+            public void run() {
+                defaultBuilder.setImageConversionCacheSize(1024);
+                assertEquals(1024, buildFopFactory().getImageConversionCache().getMaxSize());
+            }
+        });
+    }
+
+    @Test
+    public void testImageConversionCacheDisabled() {
+        defaultBuilder.setImageConversionCacheSize(0);
+        assertNull(buildFopFactory().getImageConversionCache());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeImageConversionCacheSize() {
+        defaultBuilder.setImageConversionCacheSize(-1);
+    }
+
+    @Test
+    public void testGetSetFontSubsetCacheSize() {
+        runSetterTest(new Runnable() {
+            public void run() {
+                defaultBuilder.setFontSubsetCacheSize(1024);
+                assertEquals(1024, buildFopFactory().getFontSubsetCache().getMaxSize());
+            }
+        });
+    }
+
+    @Test
+    public void testFontSubsetCacheDisabled() {
+        defaultBuilder.setFontSubsetCacheSize(0);
+        assertNull(buildFopFactory().getFontSubsetCache());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeFontSubsetCacheSize() {
+        defaultBuilder.setFontSubsetCacheSize(-1);
+    }
+
     @Test
     public void testGetSetIsNamespaceIgnored() {
         runSetterTest(new Runnable() {
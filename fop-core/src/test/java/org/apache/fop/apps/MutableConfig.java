@@ -129,6 +129,14 @@ public final class MutableConfig implements FopFactoryConfig {
         return delegate.isComplexScriptFeaturesEnabled();
     }
 
+    public long getImageConversionCacheSize() {
+        return delegate.getImageConversionCacheSize();
+    }
+
+    public long getFontSubsetCacheSize() {
+        return delegate.getFontSubsetCacheSize();
+    }
+
     public Map<String, String> getHyphenationPatternNames() {
         return delegate.getHyphenationPatternNames();
     }
@@ -29,8 +29,10 @@ import static org.apache.fop.render.pdf.PDFEncryptionOption.ENCRYPTION_LENGTH;
 import static org.apache.fop.render.pdf.PDFEncryptionOption.ENCRYPTION_PARAMS;
 import static org.apache.fop.render.pdf.PDFEncryptionOption.OWNER_PASSWORD;
 import static org.apache.fop.render.pdf.PDFEncryptionOption.USER_PASSWORD;
+import static org.apache.fop.render.pdf.PDFRendererOption.COMPRESSION_THREADS;
 import static org.apache.fop.render.pdf.PDFRendererOption.DISABLE_SRGB_COLORSPACE;
 import static org.apache.fop.render.pdf.PDFRendererOption.FILTER_LIST;
+import static org.apache.fop.render.pdf.PDFRendererOption.FLATE_SETTINGS;
 import static org.apache.fop.render.pdf.PDFRendererOption.OUTPUT_PROFILE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_A_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_X_MODE;
@@ -68,6 +70,23 @@ public final class PDFRendererConfBuilder extends RendererConfBuilder {
         return this;
     }
 
+    public PDFRendererConfBuilder createFlateSettings(String type, int level, String strategy) {
+        Element flateEl = createElement(FLATE_SETTINGS.getName());
+        if (type != null) {
+            flateEl.setAttribute("type", type);
+        }
+        flateEl.setAttribute("level", String.valueOf(level));
+        if (strategy != null) {
+            flateEl.setAttribute("strategy", strategy);
+        }
+        return this;
+    }
+
+    public PDFRendererConfBuilder setCompressionThreads(int threads) {
+        createTextElement(COMPRESSION_THREADS, String.valueOf(threads));
+        return this;
+    }
+
     public PDFRendererConfBuilder setPDFAMode(String value) {
         createTextElement(PDF_A_MODE, value);
         return this;
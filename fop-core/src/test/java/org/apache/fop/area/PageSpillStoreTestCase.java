@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.awt.Rectangle;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.xmlgraphics.io.Resource;
+import org.apache.xmlgraphics.io.TempResourceResolver;
+
+import org.apache.fop.apps.io.ResourceResolverFactory;
+import org.apache.fop.fo.Constants;
+
+public class PageSpillStoreTestCase {
+
+    private final MemoryTempResourceResolver tempResolver = new MemoryTempResourceResolver();
+
+    private final PageSpillStore store = new PageSpillStore(
+            ResourceResolverFactory.createInternalResourceResolver(new File(".").toURI(),
+                    ResourceResolverFactory.createTempAwareResourceResolver(tempResolver,
+                            ResourceResolverFactory.createDefaultResourceResolver())), 2);
+
+    /** Keeps the temporary resources in memory and deletes them once they have been read. */
+    private static final class MemoryTempResourceResolver implements TempResourceResolver {
+
+        private final Map<String, ByteArrayOutputStream> resources
+                = new HashMap<String, ByteArrayOutputStream>();
+
+        public Resource getResource(String id) throws IOException {
+            ByteArrayOutputStream out = resources.remove(id);
+            if (out == null) {
+                throw new IOException(id + " doesn't exist");
+            }
+            return new Resource(new ByteArrayInputStream(out.toByteArray()));
+        }
+
+        public OutputStream getOutputStream(String id) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            resources.put(id, out);
+            return out;
+        }
+    }
+
+    @After
+    public void tearDown() {
+        store.close();
+    }
+
+    private PageViewport createPage(int number) {
+        PageViewport pageViewport = new PageViewport(new Rectangle(0, 0, 10000, 20000), number,
+                String.valueOf(number), "master", false);
+        pageViewport.setKey("P" + number);
+        Page page = new Page();
+        RegionViewport body = new RegionViewport(new Rectangle(0, 0, 10000, 20000));
+        body.setBPD(number * 1000);
+        page.setRegionViewport(Constants.FO_REGION_BODY, body);
+        pageViewport.setPage(page);
+        return pageViewport;
+    }
+
+    private int getBodyBPD(PageViewport pageViewport) {
+        return pageViewport.getPage().getRegionViewport(Constants.FO_REGION_BODY).getBPD();
+    }
+
+    @Test
+    public void testPagesAreSpilledBeyondLimit() throws Exception {
+        List<PageViewport> pages = new ArrayList<PageViewport>();
+        for (int i = 1; i <= 5; i++) {
+            PageViewport page = createPage(i);
+            store.store(page);
+            pages.add(page);
+        }
+        assertEquals(2, store.getResidentPageCount());
+        assertEquals(3, store.getSpilledPageCount());
+        assertNull(pages.get(2).getPage());
+        assertNotNull(pages.get(3).getPage());
+
+        for (PageViewport page : pages) {
+            store.restore(page);
+            assertEquals(page.getPageNumber() * 1000, getBodyBPD(page));
+        }
+        assertEquals(0, store.getResidentPageCount());
+        assertEquals(0, store.getSpilledPageCount());
+        assertTrue(tempResolver.resources.isEmpty());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedPageIsSpilled() throws Exception {
+        PageViewport first = createPage(1);
+        PageViewport second = createPage(2);
+        store.store(first);
+        store.store(second);
+        store.store(first);
+        store.store(createPage(3));
+        assertEquals(1, store.getSpilledPageCount());
+        assertNotNull(first.getPage());
+        assertNull(second.getPage());
+    }
+
+    @Test
+    public void testSegmentsAreReleased() throws Exception {
+        for (int round = 0; round < 3; round++) {
+            List<PageViewport> pages = new ArrayList<PageViewport>();
+            for (int i = 1; i <= 4; i++) {
+                PageViewport page = createPage(round * 10 + i);
+                store.store(page);
+                pages.add(page);
+            }
+            assertEquals(2, store.getSpilledPageCount());
+            // restoring the second spilled page reads the first one back too
+            for (int i = 3; i >= 0; i--) {
+                store.restore(pages.get(i));
+                assertEquals(1000 * (round * 10 + i + 1), getBodyBPD(pages.get(i)));
+            }
+            assertEquals(0, store.getResidentPageCount());
+            assertTrue(tempResolver.resources.isEmpty());
+        }
+    }
+
+    @Test
+    public void testPagesReadBackAreSpilledAgain() throws Exception {
+        List<PageViewport> pages = new ArrayList<PageViewport>();
+        for (int i = 1; i <= 5; i++) {
+            PageViewport page = createPage(i);
+            store.store(page);
+            pages.add(page);
+        }
+        // reads back pages 1 and 2, which are now the most recently used ones
+        store.restore(pages.get(2));
+        assertEquals(2, store.getResidentPageCount());
+        assertNotNull(pages.get(0).getPage());
+        assertNotNull(pages.get(1).getPage());
+        assertNull(pages.get(3).getPage());
+        assertNull(pages.get(4).getPage());
+        for (PageViewport page : pages) {
+            store.restore(page);
+            assertEquals(page.getPageNumber() * 1000, getBodyBPD(page));
+        }
+        assertTrue(tempResolver.resources.isEmpty());
+    }
+
+    @Test
+    public void testCloseReleasesUnreadSegments() throws Exception {
+        for (int i = 1; i <= 4; i++) {
+            store.store(createPage(i));
+        }
+        assertEquals(2, store.getSpilledPageCount());
+        assertEquals(1, tempResolver.resources.size());
+        store.close();
+        assertTrue(tempResolver.resources.isEmpty());
+    }
+
+    @Test
+    public void testPagesStoredWhileReadingGoToNewSegment() throws Exception {
+        List<PageViewport> pages = new ArrayList<PageViewport>();
+        for (int i = 1; i <= 5; i++) {
+            pages.add(createPage(i));
+        }
+        for (int i = 0; i < 4; i++) {
+            store.store(pages.get(i));
+        }
+        store.restore(pages.get(0));
+        store.store(pages.get(4));
+        assertNull(pages.get(2).getPage());
+        assertEquals(1, tempResolver.resources.size());
+        for (int i = 1; i < 5; i++) {
+            store.restore(pages.get(i));
+            assertEquals((i + 1) * 1000, getBodyBPD(pages.get(i)));
+        }
+        assertTrue(tempResolver.resources.isEmpty());
+    }
+
+    @Test
+    public void testReferenceResolvedWhileSpilled() throws Exception {
+        PageViewport page = createPage(1);
+        Area body = page.getPage().getRegionViewport(Constants.FO_REGION_BODY);
+        page.addUnresolvedIDRef("target", new LinkResolver("target", body));
+        store.store(page);
+        store.store(createPage(2));
+        store.store(createPage(3));
+        assertNull(page.getPage());
+        assertFalse(page.isResolved());
+
+        page.resolveIDRef("target", Collections.singletonList(createPage(4)));
+        assertTrue(page.isResolved());
+        store.restore(page);
+        Trait.InternalLink link = (Trait.InternalLink) page.getPage()
+                .getRegionViewport(Constants.FO_REGION_BODY).getTrait(Trait.INTERNAL_LINK);
+        assertEquals("P4", link.getPVKey());
+    }
+}
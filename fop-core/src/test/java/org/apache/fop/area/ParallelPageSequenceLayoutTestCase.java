@@ -0,0 +1,275 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.xml.sax.SAXException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.apache.fop.apps.FOPException;
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.events.Event;
+import org.apache.fop.events.EventListener;
+import org.apache.fop.fo.FODocumentParser;
+import org.apache.fop.fo.FODocumentParser.FOEventHandlerFactory;
+import org.apache.fop.fo.FOEventHandler;
+import org.apache.fop.fo.LoadingException;
+
+public class ParallelPageSequenceLayoutTestCase {
+
+    private static final String GLYPH_NOT_AVAILABLE
+            = "org.apache.fop.fonts.FontEventProducer.glyphNotAvailable";
+
+    /** Page numbers of the document, one list per page-sequence */
+    private static final List<List<String>> PAGE_NUMBERS = Arrays.asList(
+            // force-page-count="even"
+            Arrays.asList("1", "2", "3", "4"),
+            // force-page-count="auto" followed by an odd initial-page-number
+            Arrays.asList("11", "12", "13", "14"),
+            Arrays.asList("21"),
+            // auto numbering, refers to the IDs of the preceding page-sequences
+            Arrays.asList("22"),
+            Arrays.asList("41", "42"));
+
+    private static String createPageSequence(String initialPageNumber, String forcePageCount,
+            String... blocks) {
+        StringBuilder fo = new StringBuilder("<fo:page-sequence master-reference=\"page\"");
+        if (initialPageNumber != null) {
+            fo.append(" initial-page-number=\"").append(initialPageNumber).append("\"");
+        }
+        if (forcePageCount != null) {
+            fo.append(" force-page-count=\"").append(forcePageCount).append("\"");
+        }
+        fo.append("><fo:flow flow-name=\"xsl-region-body\">");
+        for (int i = 0; i < blocks.length; i++) {
+            fo.append(i > 0 ? "<fo:block break-before=\"page\"" : "<fo:block");
+            fo.append(">").append(blocks[i]).append("</fo:block>");
+        }
+        return fo.append("</fo:flow></fo:page-sequence>").toString();
+    }
+
+    private static String createDocument(String... pageSequences) {
+        StringBuilder fo = new StringBuilder();
+        fo.append("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+                + "<fo:layout-master-set><fo:simple-page-master master-name=\"page\""
+                + " page-height=\"100pt\" page-width=\"200pt\"><fo:region-body/>"
+                + "</fo:simple-page-master></fo:layout-master-set>");
+        for (String pageSequence : pageSequences) {
+            fo.append(pageSequence);
+        }
+        return fo.append("</fo:root>").toString();
+    }
+
+    private static String createDocument() {
+        return createDocument(
+                createPageSequence("1", "even",
+                        "<fo:inline id=\"a1\">First</fo:inline>", "Second", "Third"),
+                createPageSequence("11", null, "First", "<fo:inline id=\"b1\">Second</fo:inline>",
+                        "Third"),
+                createPageSequence("21", null, "<fo:block id=\"c1\">First</fo:block>"),
+                createPageSequence(null, null, "See pages <fo:page-number-citation ref-id=\"b1\"/>"
+                        + " and <fo:page-number-citation ref-id=\"c1\"/>"),
+                createPageSequence("41", null, "First", "Second"));
+    }
+
+    private static class RecordingAreaTreeHandler extends AreaTreeHandler {
+
+        private final ByteArrayOutputStream out;
+
+        private final List<List<String>> pageNumbers = new ArrayList<List<String>>();
+
+        /** The number of page-sequences handed to the model when each page-sequence ended */
+        private final List<Integer> finishedPageSequences = new ArrayList<Integer>();
+
+        private boolean ended;
+
+        private boolean aborted;
+
+        RecordingAreaTreeHandler(FOUserAgent userAgent, ByteArrayOutputStream out)
+                throws FOPException {
+            super(userAgent, MimeConstants.MIME_FOP_AREA_TREE, out);
+            this.out = out;
+        }
+
+        @Override
+        protected void setupModel(FOUserAgent userAgent, String outputFormat, OutputStream stream)
+                throws FOPException {
+            model = new RenderPagesModel(userAgent, outputFormat, fontInfo, stream) {
+                @Override
+                public void startPageSequence(PageSequence pageSequence) {
+                    super.startPageSequence(pageSequence);
+                    pageNumbers.add(new ArrayList<String>());
+                }
+
+                @Override
+                public void addPage(PageViewport page) {
+                    pageNumbers.get(pageNumbers.size() - 1).add(page.getPageNumberString());
+                    super.addPage(page);
+                }
+            };
+        }
+
+        @Override
+        public void endPageSequence(org.apache.fop.fo.pagination.PageSequence pageSequence) {
+            super.endPageSequence(pageSequence);
+            finishedPageSequences.add(pageNumbers.size());
+        }
+
+        @Override
+        public void endDocument() throws SAXException {
+            super.endDocument();
+            ended = true;
+        }
+
+        @Override
+        public void abortDocument() {
+            aborted = true;
+            super.abortDocument();
+        }
+
+        /** @return the area tree XML without the page keys, which depend on the layout order */
+        String getAreaTree() throws Exception {
+            return out.toString("UTF-8").replaceAll(" key=\"P\\d+\"", "");
+        }
+    }
+
+    private RecordingAreaTreeHandler handler;
+
+    private void layout(String document, final int threads, EventListener eventListener)
+            throws Exception {
+        FODocumentParser parser = FODocumentParser.newInstance(new FOEventHandlerFactory() {
+            public FOEventHandler newFOEventHandler(FOUserAgent foUserAgent) {
+                foUserAgent.setPageSequenceLayoutThreads(threads);
+                try {
+                    handler = new RecordingAreaTreeHandler(foUserAgent,
+                            new ByteArrayOutputStream());
+                } catch (FOPException e) {
+                    throw new RuntimeException(e);
+                }
+                return handler;
+            }
+        });
+        parser.setEventListener(eventListener);
+        parser.parse(new ByteArrayInputStream(document.getBytes("UTF-8")));
+    }
+
+    private RecordingAreaTreeHandler layout(String document, int threads) throws Exception {
+        layout(document, threads, null);
+        assertTrue(handler.ended);
+        assertFalse(handler.aborted);
+        return handler;
+    }
+
+    @Test
+    public void testParallelLayoutMatchesSerialLayout() throws Exception {
+        String document = createDocument();
+        RecordingAreaTreeHandler serial = layout(document, 1);
+        RecordingAreaTreeHandler parallel = layout(document, 4);
+        assertEquals(PAGE_NUMBERS, serial.pageNumbers);
+        assertEquals(PAGE_NUMBERS, parallel.pageNumbers);
+        assertEquals(serial.getAreaTree(), parallel.getAreaTree());
+    }
+
+    @Test
+    public void testIDsOfParallelPageSequencesAreMerged() throws Exception {
+        IDTracker idTracker = layout(createDocument(), 4).getIDTracker();
+        assertEquals("1", idTracker.getFirstPageViewportContaining("a1").getPageNumberString());
+        assertEquals("12", idTracker.getFirstPageViewportContaining("b1").getPageNumberString());
+        assertEquals("21", idTracker.getFirstPageViewportContaining("c1").getPageNumberString());
+        for (String id : new String[] {"a1", "b1", "c1"}) {
+            assertTrue(idTracker.alreadyResolvedID(id));
+            assertEquals(1, idTracker.getPageViewportsContainingID(id).size());
+        }
+    }
+
+    @Test
+    public void testIndependentPageSequences() throws Exception {
+        final List<Boolean> independent = new ArrayList<Boolean>();
+        FODocumentParser parser = FODocumentParser.newInstance(new FOEventHandlerFactory() {
+            public FOEventHandler newFOEventHandler(FOUserAgent foUserAgent) {
+                return new FOEventHandler(foUserAgent) {
+                    @Override
+                    public void endPageSequence(
+                            org.apache.fop.fo.pagination.PageSequence pageSequence) {
+                        independent.add(ParallelPageSequenceLayout.isIndependent(pageSequence));
+                    }
+                };
+            }
+        });
+        parser.parse(new ByteArrayInputStream(createDocument().getBytes("UTF-8")));
+        assertEquals(Arrays.asList(true, true, true, false, true), independent);
+    }
+
+    @Test
+    public void testPendingPageSequencesAreLimited() throws Exception {
+        int threads = 2;
+        int count = 12;
+        String[] pageSequences = new String[count];
+        for (int i = 0; i < count; i++) {
+            pageSequences[i] = createPageSequence(Integer.toString(i * 10 + 1), null, "First", "Second");
+        }
+        RecordingAreaTreeHandler parallel = layout(createDocument(pageSequences), threads);
+        int maxPending = threads * ParallelPageSequenceLayout.MAX_PENDING_PER_THREAD;
+        for (int i = 0; i < count; i++) {
+            int finished = parallel.finishedPageSequences.get(i);
+            assertTrue(finished + " page-sequences finished after " + (i + 1),
+                    finished >= i + 1 - maxPending);
+        }
+        assertEquals(count, parallel.pageNumbers.size());
+    }
+
+    @Test
+    public void testFailingLayoutAbortsDocument() throws Exception {
+        String document = createDocument(
+                createPageSequence("1", null, "First"),
+                createPageSequence("11", null, "Missing glyph: \u4E00"),
+                createPageSequence(null, null, "First"),
+                createPageSequence("41", null, "First"));
+        try {
+            layout(document, 4, new EventListener() {
+                public void processEvent(Event event) {
+                    if (GLYPH_NOT_AVAILABLE.equals(event.getEventID())) {
+                        throw new IllegalStateException("Layout failed");
+                    }
+                }
+            });
+            fail("The failure of the layout must be reported");
+        } catch (LoadingException e) {
+            // expected
+        }
+        assertTrue(handler.aborted);
+        assertFalse(handler.ended);
+        // the layout fails before the page-sequence following it is laid out, the one before
+        // it ends on an even page because of the odd initial-page-number of the failing one
+        assertEquals(Arrays.asList(Arrays.asList("1", "2")), handler.pageNumbers);
+    }
+}
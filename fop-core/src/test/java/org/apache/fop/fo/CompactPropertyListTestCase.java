@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fo;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.apache.fop.fo.CompactPropertyList.PropertyArray;
+import org.apache.fop.fo.properties.EnumProperty;
+import org.apache.fop.fo.properties.NumberProperty;
+import org.apache.fop.fo.properties.Property;
+
+public class CompactPropertyListTestCase {
+
+    @Test
+    public void testPropertyArrayMatchesFullArray() {
+        Random random = new Random(42);
+        Property[] reference = new Property[Constants.PROPERTY_COUNT + 1];
+        PropertyArray properties = new PropertyArray();
+        int count = 0;
+        for (int i = 0; i < 5000; i++) {
+            int propId = random.nextInt(reference.length);
+            Property property = random.nextInt(4) == 0 ? null : NumberProperty.getInstance(i);
+            if (reference[propId] != null) {
+                count--;
+            }
+            if (property != null) {
+                count++;
+            }
+            reference[propId] = property;
+            properties.put(propId, property);
+            assertEquals(count, properties.size());
+        }
+        for (int propId = 0; propId < reference.length; propId++) {
+            assertSame(reference[propId], properties.get(propId));
+        }
+    }
+
+    @Test
+    public void testExplicitOverwritesCachedValue() throws Exception {
+        PropertyList pList = new CompactPropertyList(null, null);
+        assertNull(pList.getExplicit(Constants.PR_BREAK_BEFORE));
+        Property page = EnumProperty.getInstance(Constants.EN_PAGE, "PAGE");
+        pList.putExplicit(Constants.PR_BREAK_BEFORE, page);
+        assertSame(page, pList.getExplicit(Constants.PR_BREAK_BEFORE));
+        assertSame(page, pList.get(Constants.PR_BREAK_BEFORE));
+
+        Property column = EnumProperty.getInstance(Constants.EN_COLUMN, "COLUMN");
+        pList.putExplicit(Constants.PR_BREAK_BEFORE, column);
+        assertSame(column, pList.get(Constants.PR_BREAK_BEFORE));
+        assertNull(pList.getExplicit(Constants.PR_BREAK_AFTER));
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fo.expr;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.apache.fop.fo.Constants;
+import org.apache.fop.fo.PropertyList;
+import org.apache.fop.fo.properties.FixedLength;
+import org.apache.fop.fo.properties.ListProperty;
+import org.apache.fop.fo.properties.Property;
+
+public class PropertyExpressionCacheTestCase {
+
+    private PropertyInfo createPropertyInfo(int fontSize) throws PropertyException {
+        PropertyList pList = mock(PropertyList.class);
+        when(pList.get(Constants.PR_FONT_SIZE)).thenReturn(FixedLength.getInstance(fontSize, "pt"));
+        return new PropertyInfo(null, pList);
+    }
+
+    private double evaluate(PropertyExpression expr, int fontSize) throws PropertyException {
+        return expr.evaluate(createPropertyInfo(fontSize)).getNumeric().getNumericValue();
+    }
+
+    @Test
+    public void testExpressionsAreCompiledOnce() throws PropertyException {
+        PropertyExpressionCache cache = new PropertyExpressionCache();
+        PropertyExpression expr = cache.get("2em + 1pt");
+        assertSame(expr, cache.get("2em + 1pt"));
+        assertEquals(1, cache.size());
+        // the compiled expression is evaluated in the context of every use
+        assertEquals(21000, evaluate(expr, 10), 0);
+        assertEquals(25000, evaluate(expr, 12), 0);
+    }
+
+    @Test
+    public void testCompiledExpressionsGiveParsedValues() throws PropertyException {
+        PropertyExpressionCache cache = new PropertyExpressionCache();
+        assertEquals(7000, evaluate(cache.get("1pt + 2pt * 3"), 10), 0);
+        assertEquals(9000, evaluate(cache.get("(1pt + 2pt) * 3"), 10), 0);
+        assertEquals(-5000, evaluate(cache.get("-(0.5em)"), 10), 0);
+        assertEquals(3000, evaluate(cache.get("max(1pt, 3pt)"), 10), 0);
+        assertEquals(1, evaluate(cache.get("7 mod 2"), 10), 0);
+
+        PropertyExpression list = cache.get("1pt 2pt");
+        Property first = list.evaluate(createPropertyInfo(10));
+        Property second = list.evaluate(createPropertyInfo(10));
+        assertEquals(2, ((ListProperty) first).getList().size());
+        // lists are mutable, so they are created again on every evaluation
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedExpressionIsDropped() throws PropertyException {
+        PropertyExpressionCache cache = new PropertyExpressionCache(2);
+        PropertyExpression first = cache.get("1pt");
+        cache.get("2pt");
+        cache.get("1pt");
+        cache.get("3pt");
+        assertEquals(2, cache.size());
+        assertSame(first, cache.get("1pt"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testInvalidExpressionIsNotCached() {
+        PropertyExpressionCache cache = new PropertyExpressionCache();
+        try {
+            cache.get("1pt +");
+            fail("syntax error expected");
+        } catch (PropertyException e) {
+            assertEquals(0, cache.size());
+        }
+        try {
+            cache.get("nosuchfunction(1)");
+            fail("unknown function expected");
+        } catch (PropertyException e) {
+            assertEquals(0, cache.size());
+        }
+    }
+}
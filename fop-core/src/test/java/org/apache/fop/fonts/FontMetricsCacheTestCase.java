@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.io.FileUtils;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+
+public class FontMetricsCacheTestCase {
+
+    private InternalResourceResolver resolver =
+            ResourceResolverFactory.createDefaultInternalResourceResolver(new File(".").toURI());
+
+    private File cacheFile;
+
+    private File fontFile;
+
+    private URI fontURI;
+
+    @Before
+    public void setUp() throws IOException {
+        cacheFile = File.createTempFile("fop-metrics", FontMetricsCache.FILE_EXTENSION);
+        cacheFile.delete();
+        fontFile = File.createTempFile("fop-font", ".ttf");
+        FileUtils.copyFile(new File("test/resources/fonts/ttf/DejaVuLGCSerif.ttf"), fontFile);
+        fontURI = fontFile.toURI();
+    }
+
+    @After
+    public void tearDown() {
+        cacheFile.delete();
+        fontFile.delete();
+    }
+
+    private CustomFont loadFont() throws IOException {
+        return FontLoader.loadFont(new FontUris(fontURI, null), null, true, EmbeddingMode.AUTO,
+                EncodingMode.AUTO, true, false, resolver, false, false);
+    }
+
+    private MultiByteFont getCachedFont(FontMetricsCache cache) {
+        return cache.getFont(fontURI, null, EmbeddingMode.AUTO, true, false, false, resolver);
+    }
+
+    private FontMetricsCache createCache(CustomFont font) throws Exception {
+        FontMetricsCache cache = FontMetricsCache.loadFrom(cacheFile);
+        assertTrue(cache.putFont(fontURI, null, EmbeddingMode.AUTO, true, false, font));
+        assertTrue(cache.hasChanged());
+        cache.save();
+        assertFalse(cache.hasChanged());
+        return FontMetricsCache.loadFrom(cacheFile);
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        MultiByteFont font = (MultiByteFont) loadFont();
+        FontMetricsCache cache = createCache(font);
+        assertEquals(1, cache.size());
+
+        MultiByteFont cached = getCachedFont(cache);
+        assertNotNull(cached);
+        assertEquals(font.getFontName(), cached.getFontName());
+        assertEquals(font.getFullName(), cached.getFullName());
+        assertEquals(font.getFamilyNames(), cached.getFamilyNames());
+        assertEquals(font.getCIDType(), cached.getCIDType());
+        assertEquals(font.getAscender(), cached.getAscender());
+        assertEquals(font.getDescender(), cached.getDescender());
+        assertEquals(font.getCapHeight(), cached.getCapHeight());
+        assertEquals(font.getXHeight(10), cached.getXHeight(10));
+        assertEquals(font.getUnderlinePosition(10), cached.getUnderlinePosition(10));
+        assertEquals(font.getStrikeoutThickness(10), cached.getStrikeoutThickness(10));
+        assertEquals(font.getWeight(), cached.getWeight());
+        assertArrayEquals(font.getFontBBox(), cached.getFontBBox());
+        assertArrayEquals(font.getWidths(), cached.getWidths());
+        assertArrayEquals(font.getCMap(), cached.getCMap());
+        assertEquals(font.getKerningInfo(), cached.getKerningInfo());
+        char glyph = font.mapChar('\u00E9');
+        assertEquals(glyph, cached.mapChar('\u00E9'));
+        assertEquals(font.getBoundingBox(glyph, 10), cached.getBoundingBox(glyph, 10));
+        assertEquals(fontURI, cached.getEmbedFileURI());
+    }
+
+    @Test
+    public void testAdvancedTablesAreReadFromFontFile() throws Exception {
+        MultiByteFont font = (MultiByteFont) FontLoader.loadFont(new FontUris(fontURI, null), null,
+                true, EmbeddingMode.AUTO, EncodingMode.AUTO, true, true, resolver, false, false);
+        FontMetricsCache cache = FontMetricsCache.loadFrom(cacheFile);
+        cache.putFont(fontURI, null, EmbeddingMode.AUTO, true, true, font);
+        MultiByteFont cached = cache.getFont(fontURI, null, EmbeddingMode.AUTO, true, true, false, resolver);
+        assertEquals(font.getGSUB() != null, cached.getGSUB() != null);
+        assertEquals(font.getGPOS() != null, cached.getGPOS() != null);
+        assertTrue(cached.performsSubstitution() || cached.performsPositioning());
+    }
+
+    @Test
+    public void testModifiedFontFileIsNotUsed() throws Exception {
+        FontMetricsCache cache = createCache(loadFont());
+        assertTrue(fontFile.setLastModified(fontFile.lastModified() - 10000));
+        assertNull(getCachedFont(cache));
+        assertTrue(cache.hasChanged());
+        cache.save();
+        assertEquals(0, FontMetricsCache.loadFrom(cacheFile).size());
+    }
+
+    @Test
+    public void testDifferentSettingsAreNotShared() throws Exception {
+        FontMetricsCache cache = createCache(loadFont());
+        assertNull(cache.getFont(fontURI, null, EmbeddingMode.AUTO, false, false, false, resolver));
+        assertNull(cache.getFont(fontURI, null, EmbeddingMode.FULL, true, false, false, resolver));
+    }
+
+    @Test
+    public void testOnlyLocalFilesAreCached() throws Exception {
+        FontMetricsCache cache = FontMetricsCache.loadFrom(cacheFile);
+        assertFalse(cache.putFont(URI.create("http://localhost/font.ttf"), null,
+                EmbeddingMode.AUTO, true, false, loadFont()));
+        assertFalse(cache.hasChanged());
+    }
+
+    @Test
+    public void testSaveReplacesOpenedFile() throws Exception {
+        CustomFont font = loadFont();
+        FontMetricsCache cache = createCache(font);
+        assertTrue(cache.putFont(fontURI, null, EmbeddingMode.FULL, true, false, font));
+        cache.save();
+        assertNotNull(getCachedFont(cache));
+        assertEquals(2, FontMetricsCache.loadFrom(cacheFile).size());
+    }
+
+    @Test
+    public void testCacheManagerDeletesMetricsCache() throws Exception {
+        createCache(loadFont());
+        File fontCacheFile = new File(cacheFile.getParentFile(),
+                cacheFile.getName().replace(FontMetricsCache.FILE_EXTENSION, ".cache"));
+        assertTrue(fontCacheFile.createNewFile());
+        FontCacheManager cacheManager = FontCacheManagerFactory.createDefault();
+        cacheManager.setCacheFile(fontCacheFile.toURI());
+        cacheManager.delete();
+        assertFalse(fontCacheFile.exists());
+        assertFalse(cacheFile.exists());
+    }
+
+    @Test
+    public void testCorruptFileIsDiscarded() throws Exception {
+        OutputStream out = new FileOutputStream(cacheFile);
+        try {
+            out.write(new byte[] {'F', 'O', 'P', 'M', 0, 0});
+        } finally {
+            out.close();
+        }
+        FontMetricsCache cache = FontMetricsCache.loadFrom(cacheFile);
+        assertEquals(0, cache.size());
+        assertFalse(cacheFile.exists());
+    }
+
+    @Test
+    public void testLazyFontUsesCache() throws Exception {
+        FontMetricsCache cache = FontMetricsCache.loadFrom(cacheFile);
+        EmbedFontInfo fontInfo = new EmbedFontInfo(new FontUris(fontURI, null), true, false, null, null);
+        LazyFont lazyFont = new LazyFont(fontInfo, resolver, false);
+        lazyFont.setMetricsCache(cache);
+        assertEquals("DejaVuLGCSerif", lazyFont.getFontName());
+        assertEquals(1, cache.size());
+        cache.save();
+
+        cache = FontMetricsCache.loadFrom(cacheFile);
+        lazyFont = new LazyFont(fontInfo, resolver, false);
+        lazyFont.setMetricsCache(cache);
+        assertEquals("DejaVuLGCSerif", lazyFont.getFontName());
+        assertFalse(cache.hasChanged());
+    }
+}
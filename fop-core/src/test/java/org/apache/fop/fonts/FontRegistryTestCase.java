@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.apache.commons.io.FileUtils;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+
+public class FontRegistryTestCase {
+
+    private static final FontTriplet SERIF = new FontTriplet("DejaVu", "normal", 400);
+
+    private static final FontTriplet SANS = new FontTriplet("Gladiator", "normal", 700);
+
+    private InternalResourceResolver resolver =
+            ResourceResolverFactory.createDefaultInternalResourceResolver(new File(".").toURI());
+
+    private FontInfo template;
+
+    private FontRegistry registry;
+
+    @Before
+    public void setUp() {
+        List<EmbedFontInfo> fonts = Arrays.asList(
+                createFontInfo("test/resources/fonts/ttf/DejaVuLGCSerif.ttf", SERIF, Font.DEFAULT_FONT),
+                createFontInfo("test/resources/fonts/ttf/glb12.ttf", SANS));
+        template = new FontInfo();
+        new CustomFontCollection(resolver, fonts, false).setup(1, template);
+        registry = FontRegistry.create(template);
+    }
+
+    private EmbedFontInfo createFontInfo(String file, FontTriplet... triplets) {
+        return new EmbedFontInfo(new FontUris(new File(file).toURI(), null), true, false,
+                Arrays.asList(triplets), null);
+    }
+
+    @Test
+    public void testFontsAreInstantiatedPerDocument() {
+        assertNotNull(registry);
+        assertEquals(2, registry.getFontKeys().size());
+
+        FontInfo first = new FontInfo();
+        first.setFontRegistry(registry);
+        FontInfo second = new FontInfo();
+        second.setFontRegistry(registry);
+        assertTrue(first.isSetupValid());
+
+        FontTriplet triplet = first.fontLookup("DejaVu", "normal", 400);
+        String key = first.getInternalFontKey(triplet);
+        assertEquals(template.getInternalFontKey(SERIF), key);
+        first.getFontInstance(triplet, 10000);
+        assertEquals(1, first.getUsedFonts().size());
+        assertTrue(second.getUsedFonts().isEmpty());
+
+        Typeface firstFont = first.getFonts().get(key);
+        Typeface secondFont = second.getFonts().get(key);
+        assertNotSame(firstFont, secondFont);
+        assertNotSame(template.getFonts().get(key), firstFont);
+        assertSame(firstFont, first.getFonts().get(key));
+        assertEquals("DejaVuLGCSerif", firstFont.getFontName());
+    }
+
+    @Test
+    public void testFontFileIsParsedOnce() throws Exception {
+        File fontFile = File.createTempFile("fop-font", ".ttf");
+        try {
+            FileUtils.copyFile(new File("test/resources/fonts/ttf/DejaVuLGCSerif.ttf"), fontFile);
+            FontInfo setup = new FontInfo();
+            new CustomFontCollection(resolver, Arrays.asList(new EmbedFontInfo(
+                    new FontUris(fontFile.toURI(), null), true, false, Arrays.asList(SERIF), null)),
+                    false).setup(1, setup);
+            FontRegistry fontRegistry = FontRegistry.create(setup);
+            LazyFont first = (LazyFont) setup.getFonts().get("F1");
+            assertEquals("DejaVuLGCSerif", first.getFontName());
+            char glyph = first.mapChar('A');
+            assertTrue(fontFile.delete());
+
+            FontInfo fontInfo = new FontInfo();
+            fontInfo.setFontRegistry(fontRegistry);
+            LazyFont second = (LazyFont) fontInfo.getFonts().get("F1");
+            assertEquals("DejaVuLGCSerif", second.getFontName());
+            assertNotSame(first.getRealFont(), second.getRealFont());
+            assertFalse(second.hadMappingOperations());
+            assertEquals(glyph, second.mapChar('A'));
+            assertEquals(first.getWidth(glyph, 10), second.getWidth(glyph, 10));
+        } finally {
+            fontFile.delete();
+        }
+    }
+
+    @Test
+    public void testGetFontsContainsAllFonts() {
+        FontInfo fontInfo = new FontInfo();
+        fontInfo.setFontRegistry(registry);
+        assertEquals(template.getFonts().keySet(), fontInfo.getFonts().keySet());
+        assertNull(fontInfo.getFonts().get("F99"));
+        assertFalse(fontInfo.getFonts().containsKey("F99"));
+    }
+
+    @Test
+    public void testIteratingFontsDoesntInstantiateThem() {
+        Typeface font = mock(Typeface.class);
+        Typeface prototype = mock(Typeface.class);
+        when(font.newInstance()).thenReturn(prototype);
+        when(prototype.newInstance()).thenReturn(font);
+        FontInfo setup = new FontInfo();
+        setup.addMetrics("F1", font);
+        FontInfo fontInfo = new FontInfo();
+        fontInfo.setFontRegistry(FontRegistry.create(setup));
+
+        Map<String, Typeface> fonts = fontInfo.getFonts();
+        assertEquals(1, fonts.size());
+        assertTrue(fonts.containsKey("F1"));
+        Map.Entry<String, Typeface> entry = fonts.entrySet().iterator().next();
+        assertEquals("F1", entry.getKey());
+        verify(prototype, never()).newInstance();
+        assertSame(font, entry.getValue());
+        verify(prototype, times(1)).newInstance();
+    }
+
+    @Test
+    public void testChangesDontAffectRegistry() {
+        FontInfo fontInfo = new FontInfo();
+        fontInfo.setFontRegistry(registry);
+        fontInfo.addMetrics("F99", template.getFonts().get("F1"));
+        fontInfo.addFontProperties("F99", "Added", "normal", 400);
+        assertTrue(fontInfo.hasFont("Added", "normal", 400));
+        assertTrue(fontInfo.getFonts().containsKey("F99"));
+
+        FontInfo other = new FontInfo();
+        other.setFontRegistry(registry);
+        assertFalse(other.hasFont("Added", "normal", 400));
+        assertFalse(other.getFonts().containsKey("F99"));
+        assertFalse(registry.hasFont("F99"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRegistryOnlyForEmptyFontInfo() {
+        template.setFontRegistry(registry);
+    }
+
+    @Test
+    public void testUnsharableFonts() {
+        FontInfo fontInfo = new FontInfo();
+        fontInfo.addMetrics("F1", mock(Typeface.class));
+        assertNull(FontRegistry.create(fontInfo));
+    }
+}
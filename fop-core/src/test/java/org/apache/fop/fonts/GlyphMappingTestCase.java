@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.text.CharacterIterator;
+import java.text.StringCharacterIterator;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.apache.fop.complexscripts.fonts.GlyphPositioningTable;
+import org.apache.fop.traits.MinOptMax;
+
+public class GlyphMappingTestCase {
+
+    private Font font;
+
+    private ShapingCache shapingCache;
+
+    @Before
+    public void setUp() {
+        font = mock(Font.class);
+        shapingCache = new ShapingCache();
+        when(font.getShapingCache()).thenReturn(shapingCache);
+        when(font.performsSubstitution()).thenReturn(true);
+        when(font.performsPositioning()).thenReturn(true);
+        when(font.getCharWidth(anyInt())).thenReturn(500);
+        when(font.performSubstitution(any(CharSequence.class), anyString(), anyString(), any(List.class),
+                anyBoolean())).thenAnswer(new Answer<CharSequence>() {
+                    public CharSequence answer(InvocationOnMock invocation) {
+                        return invocation.getArguments()[0].toString().replace("fi", "\uFB01");
+                    }
+                });
+        when(font.performPositioning(any(CharSequence.class), anyString(), anyString()))
+                .thenAnswer(new Answer<int[][]>() {
+                    public int[][] answer(InvocationOnMock invocation) {
+                        int[][] gpa = new int[((CharSequence) invocation.getArguments()[0]).length()][4];
+                        gpa[0][GlyphPositioningTable.Value.IDX_X_ADVANCE] = -100;
+                        return gpa;
+                    }
+                });
+        when(font.reorderCombiningMarks(any(CharSequence.class), any(int[][].class), anyString(),
+                anyString(), any(List.class))).thenAnswer(new Answer<CharSequence>() {
+                    public CharSequence answer(InvocationOnMock invocation) {
+                        return (CharSequence) invocation.getArguments()[0];
+                    }
+                });
+    }
+
+    private static TextFragment createTextFragment(final String text) {
+        return new TextFragment() {
+            public CharacterIterator getIterator() {
+                return new StringCharacterIterator(text);
+            }
+
+            public int getBeginIndex() {
+                return 0;
+            }
+
+            public int getEndIndex() {
+                return text.length();
+            }
+
+            public String getScript() {
+                return "latn";
+            }
+
+            public String getLanguage() {
+                return "none";
+            }
+
+            public int getBidiLevel() {
+                return -1;
+            }
+
+            public char charAt(int subSequenceIndex) {
+                return text.charAt(subSequenceIndex);
+            }
+
+            public CharSequence subSequence(int startIndex, int endIndex) {
+                return text.subSequence(startIndex, endIndex);
+            }
+        };
+    }
+
+    private GlyphMapping map(String text, int start, int end) {
+        return GlyphMapping.doGlyphMapping(createTextFragment(text), start, end, font, MinOptMax.ZERO,
+                new MinOptMax[text.length() + 1], (char) 0, (char) 0, false, 0, false, false, false);
+    }
+
+    @Test
+    public void testRepeatedRunsAreShapedOnce() {
+        GlyphMapping first = map("a fine day", 2, 6);
+        GlyphMapping second = map("so fine", 3, 7);
+        verify(font, times(1)).performSubstitution(any(CharSequence.class), anyString(), anyString(),
+                any(List.class), anyBoolean());
+        assertEquals(1, shapingCache.getHitCount());
+        assertEquals(1, shapingCache.getMissCount());
+
+        assertEquals("\uFB01ne", first.mapping);
+        assertEquals(first.mapping, second.mapping);
+        assertEquals(MinOptMax.getInstance(3 * 500 - 100), first.areaIPD);
+        assertEquals(first.areaIPD, second.areaIPD);
+        assertEquals(3, second.startIndex);
+        assertEquals(7, second.endIndex);
+
+        // the adjustments are not shared, since they may be modified
+        assertNotSame(first.gposAdjustments, second.gposAdjustments);
+        first.gposAdjustments[0][GlyphPositioningTable.Value.IDX_X_ADVANCE] = 0;
+        assertEquals(-100, map("fine", 0, 4).gposAdjustments[0][GlyphPositioningTable.Value.IDX_X_ADVANCE]);
+    }
+
+    @Test
+    public void testDifferentRunsAreShapedSeparately() {
+        map("fine", 0, 4);
+        map("finer", 0, 5);
+        verify(font, times(2)).performSubstitution(any(CharSequence.class), anyString(), anyString(),
+                any(List.class), anyBoolean());
+        assertEquals(2, shapingCache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedRunIsDropped() {
+        ShapingCache cache = new ShapingCache(2);
+        ShapingCache.ShapedRun run = new ShapingCache.ShapedRun("a", null, null, MinOptMax.ZERO);
+        cache.put("a", "latn", "dflt", false, false, run);
+        cache.put("b", "latn", "dflt", false, false, run);
+        cache.get("a", "latn", "dflt", false, false);
+        cache.put("c", "latn", "dflt", false, false, run);
+        assertEquals(2, cache.size());
+        assertEquals(run, cache.get("a", "latn", "dflt", false, false));
+        assertEquals(null, cache.get("b", "latn", "dflt", false, false));
+        // the key includes the flags passed to the substitution
+        assertEquals(null, cache.get("a", "latn", "dflt", true, false));
+    }
+}
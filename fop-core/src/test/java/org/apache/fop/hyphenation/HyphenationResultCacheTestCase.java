@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.hyphenation;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+
+public class HyphenationResultCacheTestCase {
+
+    private static final String LANG = "fr.xml" + Hyphenator.XMLTYPE;
+
+    private final InternalResourceResolver resourceResolver
+            = ResourceResolverFactory.createDefaultInternalResourceResolver(
+                    new File("test/resources/fop").toURI());
+
+    private Hyphenation hyphenate(HyphenationResultCache cache, String word, int min) {
+        return cache.hyphenate(LANG, null, resourceResolver, null, word, min, min, null);
+    }
+
+    @Test
+    public void testRepeatedWordsAreCached() {
+        HyphenationResultCache cache = new HyphenationResultCache();
+        Hyphenation hello = hyphenate(cache, "hello", 0);
+        assertEquals("-hel-lo", hello.toString());
+        assertSame(hello, hyphenate(cache, "hello", 0));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        // the result depends on the minimum character counts
+        Hyphenation hello2 = hyphenate(cache, "hello", 2);
+        assertNotSame(hello, hello2);
+        assertEquals("hel-lo", hello2.toString());
+
+        // words without hyphenation points are cached too
+        assertNull(hyphenate(cache, "x", 0));
+        assertNull(hyphenate(cache, "x", 0));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+        assertEquals(0.4, cache.getHitRate(), 1e-9);
+        assertEquals(3, cache.size());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getHitRate(), 0);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedWordIsDropped() {
+        HyphenationResultCache cache = new HyphenationResultCache(2);
+        Hyphenation hello = hyphenate(cache, "hello", 0);
+        hyphenate(cache, "ohello", 0);
+        hyphenate(cache, "hello", 0);
+        hyphenate(cache, "helloo", 0);
+        assertEquals(2, cache.size());
+        assertSame(hello, hyphenate(cache, "hello", 0));
+        assertEquals(2, cache.getHitCount());
+        hyphenate(cache, "ohello", 0);
+        assertEquals(4, cache.getMissCount());
+    }
+}
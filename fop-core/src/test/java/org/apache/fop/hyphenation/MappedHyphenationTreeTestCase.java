@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.hyphenation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.xml.sax.InputSource;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+
+public class MappedHyphenationTreeTestCase {
+
+    private static final String PATTERNS = "<hyphenation-info>"
+            + "<classes>aA b c d eE f g h i j k l m n o p q r s t u v w x y z</classes>"
+            + "<exceptions>ta-ble bak<hyphen pre=\"k\" no=\"ck\" post=\"\"/>en</exceptions>"
+            + "<patterns>1ba a1b hy3ph he2n hena4 hen5at 1na n2at 1tio 2io o2n pha9 8le .un1 1ti 2tl"
+            + "</patterns></hyphenation-info>";
+
+    private static final String[] WORDS = {"hyphenation", "Hyphenation", "table", "baken",
+        "unable", "nation", "untitled", "alphabet", "hyphen-ation", "x", "bcd", "3d"};
+
+    private HyphenationTree heapTree;
+
+    private byte[] binary;
+
+    @Before
+    public void setUp() throws HyphenationException, IOException {
+        heapTree = new HyphenationTree();
+        heapTree.loadPatterns(new InputSource(new StringReader(PATTERNS)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MappedHyphenationTree.write(heapTree, out);
+        binary = out.toByteArray();
+    }
+
+    private void assertSameHyphenation(HyphenationPatterns tree) {
+        for (String word : WORDS) {
+            for (int min = 1; min < 3; min++) {
+                assertEquals(word, String.valueOf(heapTree.hyphenate(word, min, min)),
+                        String.valueOf(tree.hyphenate(word, min, min)));
+            }
+        }
+        assertEquals(heapTree.findPattern("hen5at"), tree.findPattern("hen5at"));
+        assertEquals(heapTree.findPattern("pha9"), tree.findPattern("pha9"));
+        assertEquals("", tree.findPattern("nopattern"));
+    }
+
+    @Test
+    public void testBufferTreeHyphenatesLikeHeapTree() throws IOException {
+        MappedHyphenationTree tree = MappedHyphenationTree.read(ByteBuffer.wrap(binary));
+        assertSameHyphenation(tree);
+        assertEquals(heapTree.size(), tree.size());
+        assertEquals("hy-phen-ation", tree.hyphenate("hyphenation", 1, 1).toString());
+        assertEquals(2, tree.stoplist.size());
+    }
+
+    @Test
+    public void testMappedFile() throws IOException {
+        File file = File.createTempFile("hyp", ".hyp");
+        try {
+            OutputStream out = new FileOutputStream(file);
+            try {
+                out.write(binary);
+            } finally {
+                out.close();
+            }
+            assertSameHyphenation(MappedHyphenationTree.map(file));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testHyphenatorReadsBinaryPatterns() throws IOException {
+        File dir = File.createTempFile("hyp", "fop");
+        dir.delete();
+        dir.mkdir();
+        File hyp = new File(dir, "xx.hyp");
+        try {
+            OutputStream out = new FileOutputStream(hyp);
+            try {
+                out.write(binary);
+            } finally {
+                out.close();
+            }
+            InternalResourceResolver resourceResolver
+                    = ResourceResolverFactory.createDefaultInternalResourceResolver(dir.toURI());
+            HyphenationPatterns tree = Hyphenator.getUserHyphenationPatterns("xx.hyp" + Hyphenator.HYPTYPE,
+                    resourceResolver);
+            assertTrue(tree instanceof MappedHyphenationTree);
+            assertSameHyphenation(tree);
+        } finally {
+            hyp.delete();
+            dir.delete();
+        }
+    }
+
+    @Test
+    public void testResourcePatternsAreMapped() throws IOException {
+        File dir = File.createTempFile("hyp", "fop");
+        dir.delete();
+        File hyph = new File(dir, "hyph");
+        hyph.mkdirs();
+        File hyp = new File(hyph, "xx_YY.hyp");
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        try {
+            OutputStream out = new FileOutputStream(hyp);
+            try {
+                out.write(binary);
+            } finally {
+                out.close();
+            }
+            Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[] {dir.toURI().toURL()}));
+            HyphenationPatterns tree = Hyphenator.getFopHyphenationPatterns("xx_YY");
+            assertTrue(tree instanceof MappedHyphenationTree);
+            assertSameHyphenation(tree);
+        } finally {
+            Thread.currentThread().setContextClassLoader(contextClassLoader);
+            hyp.delete();
+            hyph.delete();
+            dir.delete();
+        }
+    }
+
+    @Test
+    public void testMagicNumber() throws IOException {
+        ByteArrayInputStream in = new ByteArrayInputStream(binary);
+        assertTrue(MappedHyphenationTree.isBinaryPatternFile(in));
+        // the stream is left at its start
+        assertEquals(binary.length, in.available());
+        assertFalse(MappedHyphenationTree.isBinaryPatternFile(new ByteArrayInputStream(new byte[2])));
+        try {
+            MappedHyphenationTree.read(ByteBuffer.wrap(binary, 0, binary.length / 2));
+            fail("truncated file");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testKeysAreThoseOfHeapTree() throws IOException {
+        List heapKeys = Collections.list(heapTree.keys());
+        assertEquals(heapTree.size(), heapKeys.size());
+        assertEquals(heapKeys, Collections.list(MappedHyphenationTree.read(ByteBuffer.wrap(binary)).keys()));
+    }
+}
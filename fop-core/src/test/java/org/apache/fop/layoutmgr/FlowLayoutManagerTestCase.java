@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.io.output.NullOutputStream;
+
+import org.apache.fop.apps.FOPException;
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.area.AreaTreeHandler;
+import org.apache.fop.area.PageViewport;
+import org.apache.fop.area.RenderPagesModel;
+import org.apache.fop.fo.FODocumentParser;
+import org.apache.fop.fo.FODocumentParser.FOEventHandlerFactory;
+import org.apache.fop.fo.FOEventHandler;
+import org.apache.fop.fo.FOTreeBuilderContext;
+import org.apache.fop.fo.pagination.PageSequence;
+
+public class FlowLayoutManagerTestCase {
+
+    private static final int BLOCK_COUNT = 500;
+
+    private FOTreeBuilderContext builderContext;
+
+    private final List<Integer> retainedCounts = new ArrayList<Integer>();
+
+    private String createLongFlow() {
+        StringBuilder fo = new StringBuilder();
+        fo.append("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+                + "<fo:layout-master-set><fo:simple-page-master master-name=\"page\""
+                + " page-height=\"100pt\" page-width=\"200pt\"><fo:region-body/>"
+                + "</fo:simple-page-master></fo:layout-master-set>"
+                + "<fo:page-sequence master-reference=\"page\"><fo:flow flow-name=\"xsl-region-body\">");
+        for (int i = 0; i < BLOCK_COUNT; i++) {
+            fo.append("<fo:block>Paragraph <fo:inline font-weight=\"bold\">").append(i)
+                    .append("</fo:inline></fo:block>");
+        }
+        fo.append("</fo:flow></fo:page-sequence></fo:root>");
+        return fo.toString();
+    }
+
+    private class RecordingAreaTreeHandler extends AreaTreeHandler {
+
+        RecordingAreaTreeHandler(FOUserAgent userAgent) throws FOPException {
+            super(userAgent, MimeConstants.MIME_FOP_AREA_TREE, new NullOutputStream());
+        }
+
+        @Override
+        protected void setupModel(FOUserAgent userAgent, String outputFormat, OutputStream stream)
+                throws FOPException {
+            model = new RenderPagesModel(userAgent, outputFormat, fontInfo, stream) {
+                @Override
+                public void addPage(PageViewport page) {
+                    super.addPage(page);
+                    retainedCounts.add(builderContext.getRetainedFlowNodeCount());
+                }
+            };
+        }
+
+        @Override
+        public void startPageSequence(PageSequence pageSequence) {
+            builderContext = pageSequence.getBuilderContext();
+            super.startPageSequence(pageSequence);
+        }
+    }
+
+    @Test
+    public void testLaidOutNodesAreReleased() throws Exception {
+        FODocumentParser parser = FODocumentParser.newInstance(new FOEventHandlerFactory() {
+            public FOEventHandler newFOEventHandler(FOUserAgent foUserAgent) {
+                try {
+                    return new RecordingAreaTreeHandler(foUserAgent);
+                } catch (FOPException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        parser.parse(new ByteArrayInputStream(createLongFlow().getBytes("UTF-8")));
+
+        // a block, its inline and two text nodes per paragraph
+        int flowNodeCount = BLOCK_COUNT * 4;
+        assertTrue(retainedCounts.size() > 20);
+        int previous = flowNodeCount;
+        for (int retained : retainedCounts) {
+            assertTrue(retained <= previous);
+            previous = retained;
+        }
+        // only the nodes of the paragraphs on the last page are still there when it is added
+        assertTrue(retainedCounts.get(retainedCounts.size() - 1) < flowNodeCount / 20);
+        assertEquals(0, builderContext.getRetainedFlowNodeCount());
+        assertEquals(flowNodeCount, builderContext.getReleasedFlowNodeCount());
+    }
+}
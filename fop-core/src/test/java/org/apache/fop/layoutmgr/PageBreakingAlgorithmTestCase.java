@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.fo.Constants;
+import org.apache.fop.layoutmgr.AbstractBreaker.BlockSequence;
+import org.apache.fop.layoutmgr.AbstractBreaker.PageBreakPosition;
+import org.apache.fop.layoutmgr.BreakingAlgorithm.KnuthNode;
+import org.apache.fop.traits.MinOptMax;
+
+public class PageBreakingAlgorithmTestCase {
+
+    private static final int PAGE_HEIGHT = 100000;
+
+    private BlockSequence createLines(int count) {
+        BlockSequence sequence = new BlockSequence(Constants.EN_ANY, Constants.EN_BEFORE);
+        for (int i = 0; i < count; i++) {
+            sequence.add(new KnuthBox(12000 + (i % 7) * 1000, null, false));
+            sequence.add(new KnuthPenalty(0, (i % 3) * 10, false, null, false));
+            sequence.add(new KnuthGlue(1000, 600, 300, null, false));
+        }
+        return sequence.endBlockSequence(null);
+    }
+
+    private BlockSequence createLinesWithFootnotes(int count, int footnoteCount) {
+        BlockSequence sequence = new BlockSequence(Constants.EN_ANY, Constants.EN_BEFORE);
+        for (int i = 0; i < count; i++) {
+            if (i % 5 == 0 && i / 5 < footnoteCount) {
+                KnuthBlockBox box = new KnuthBlockBox(12000, Collections.singletonList(null), null, false);
+                List<KnuthElement> footnote = new ArrayList<KnuthElement>();
+                for (int j = 0; j <= i % 3; j++) {
+                    if (j > 0) {
+                        footnote.add(new KnuthPenalty(0, 0, false, null, false));
+                    }
+                    footnote.add(new KnuthBox(8000, null, false));
+                }
+                box.addElementList(footnote);
+                sequence.add(box);
+            } else {
+                sequence.add(new KnuthBox(12000 + (i % 7) * 1000, null, false));
+            }
+            sequence.add(new KnuthPenalty(0, (i % 3) * 10, false, null, false));
+            sequence.add(new KnuthGlue(1000, 600, 300, null, false));
+        }
+        return sequence.endBlockSequence(null);
+    }
+
+    private static String toString(PageBreakPosition pbp) {
+        return pbp.getLeafPos() + ": " + pbp.footnoteFirstListIndex + "." + pbp.footnoteFirstElementIndex
+                + "-" + pbp.footnoteLastListIndex + "." + pbp.footnoteLastElementIndex;
+    }
+
+    private PageBreakingAlgorithm createAlgorithm(final int beamWidth) {
+        PageBreakingAlgorithm alg = new PageBreakingAlgorithm(null, null, null,
+                Constants.EN_START, Constants.EN_START, MinOptMax.ZERO, true, false, false) {
+            @Override
+            protected void considerLegalBreak(KnuthElement element, int elementIdx) {
+                super.considerLegalBreak(element, elementIdx);
+                if (beamWidth > 0) {
+                    for (int line = startLine; line < endLine; line++) {
+                        int count = 0;
+                        for (KnuthNode node = getNode(line); node != null; node = node.next) {
+                            count++;
+                        }
+                        assertTrue(count <= beamWidth);
+                    }
+                }
+            }
+        };
+        alg.setConstantLineWidth(PAGE_HEIGHT);
+        alg.setBeamWidth(beamWidth);
+        return alg;
+    }
+
+    @Test
+    public void testBeamModeFindsBreaks() {
+        PageBreakingAlgorithm optimal = createAlgorithm(0);
+        int optimalPages = optimal.findBreakingPoints(createLines(2000), 1, true,
+                BreakingAlgorithm.ALL_BREAKS);
+        assertNull(optimal.getCommittedNode());
+
+        PageBreakingAlgorithm beam = createAlgorithm(2);
+        int pages = beam.findBreakingPoints(createLines(2000), 1, true, BreakingAlgorithm.ALL_BREAKS);
+        assertEquals(pages, beam.getPageBreaks().size());
+        assertTrue(Math.abs(pages - optimalPages) <= optimalPages / 10);
+    }
+
+    @Test
+    public void testBreaksAreCommitted() {
+        PageBreakingAlgorithm alg = createAlgorithm(3);
+        BlockSequence lines = createLines(500);
+        int pages = alg.findBreakingPoints(lines, 1, true, BreakingAlgorithm.ALL_BREAKS);
+        KnuthNode committed = alg.getCommittedNode();
+        assertNotNull(committed);
+        assertTrue(committed.line > pages / 2);
+        // the committed breaks are part of the final layout
+        assertEquals(committed.position, alg.getPageBreaks().get(committed.line - 1).getLeafPos());
+    }
+
+    @Test
+    public void testIncrementalBreakingGivesSameBreaks() {
+        BlockSequence lines = createLines(1000);
+        PageBreakingAlgorithm alg = createAlgorithm(3);
+        alg.findBreakingPoints(lines, 1, 1, true, BreakingAlgorithm.ALL_BREAKS);
+        List<Integer> expected = new ArrayList<Integer>();
+        for (PageBreakPosition pbp : alg.getPageBreaks()) {
+            expected.add(pbp.getLeafPos());
+        }
+
+        List<Integer> breaks = new ArrayList<Integer>();
+        int interruptions = 0;
+        int startIndex = 1;
+        do {
+            alg = createAlgorithm(3);
+            alg.setIncremental(true);
+            int pages = alg.findBreakingPoints(lines, startIndex, 1, true, BreakingAlgorithm.ALL_BREAKS);
+            assertEquals(pages, alg.getPageBreaks().size());
+            for (PageBreakPosition pbp : alg.getPageBreaks()) {
+                breaks.add(pbp.getLeafPos());
+            }
+            startIndex = lines.getFirstBoxIndex(alg.getPageBreaks().getLast().getLeafPos() + 1);
+        } while (alg.isBreakingInterrupted() && ++interruptions < 1000);
+        assertTrue(interruptions > 1);
+        assertEquals(expected, breaks);
+    }
+
+    @Test
+    public void testIncrementalBreakingGivesSameFootnotes() {
+        BlockSequence lines = createLinesWithFootnotes(1000, 60);
+        PageBreakingAlgorithm alg = createAlgorithm(3);
+        alg.findBreakingPoints(lines, 1, 1, true, BreakingAlgorithm.ALL_BREAKS);
+        List<String> expected = new ArrayList<String>();
+        for (PageBreakPosition pbp : alg.getPageBreaks()) {
+            expected.add(toString(pbp));
+        }
+
+        List<String> breaks = new ArrayList<String>();
+        int interruptions = 0;
+        int startIndex = 1;
+        PageBreakingAlgorithm interrupted = null;
+        do {
+            alg = createAlgorithm(3);
+            alg.setIncremental(true);
+            if (interrupted != null) {
+                alg.resumeAfter(interrupted);
+            }
+            alg.findBreakingPoints(lines, startIndex, 1, true, BreakingAlgorithm.ALL_BREAKS);
+            for (PageBreakPosition pbp : alg.getPageBreaks()) {
+                breaks.add(toString(pbp));
+            }
+            startIndex = lines.getFirstBoxIndex(alg.getPageBreaks().getLast().getLeafPos() + 1);
+            interrupted = alg;
+        } while (alg.isBreakingInterrupted() && ++interruptions < 1000);
+        assertTrue(interruptions > 1);
+        assertEquals(expected, breaks);
+    }
+}
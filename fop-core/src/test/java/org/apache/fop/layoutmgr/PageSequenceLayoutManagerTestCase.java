@@ -19,15 +19,34 @@
 
 package org.apache.fop.layoutmgr;
 
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import org.apache.commons.io.output.NullOutputStream;
+
+import org.apache.fop.apps.FOPException;
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.area.Area;
 import org.apache.fop.area.AreaTreeHandler;
 import org.apache.fop.area.PageViewport;
+import org.apache.fop.area.RenderPagesModel;
+import org.apache.fop.fo.Constants;
+import org.apache.fop.fo.FODocumentParser;
+import org.apache.fop.fo.FODocumentParser.FOEventHandlerFactory;
+import org.apache.fop.fo.FOEventHandler;
 import org.apache.fop.fo.pagination.Flow;
 import org.apache.fop.fo.pagination.PageSequence;
 import org.apache.fop.fo.pagination.Region;
@@ -148,4 +167,59 @@ public class PageSequenceLayoutManagerTestCase {
         assertEquals(re.getMessage(),
                 "The flow-name \"test\" could not be mapped to a region-name in the layout-master-set");
     }
+
+    @Test
+    public void testPageInvariantStaticContentIsLaidOutOnce() throws Exception {
+        final List<Area> headers = new ArrayList<Area>();
+        final List<Area> footers = new ArrayList<Area>();
+        FODocumentParser parser = FODocumentParser.newInstance(new FOEventHandlerFactory() {
+            public FOEventHandler newFOEventHandler(FOUserAgent foUserAgent) {
+                try {
+                    return new AreaTreeHandler(foUserAgent, MimeConstants.MIME_FOP_AREA_TREE,
+                            new NullOutputStream()) {
+                        @Override
+                        protected void setupModel(FOUserAgent userAgent, String outputFormat,
+                                OutputStream stream) throws FOPException {
+                            model = new RenderPagesModel(userAgent, outputFormat, fontInfo, stream) {
+                                @Override
+                                public void addPage(PageViewport page) {
+                                    headers.add(page.getRegionReference(Constants.FO_REGION_BEFORE)
+                                            .getBlocks().get(0));
+                                    footers.add(page.getRegionReference(Constants.FO_REGION_AFTER)
+                                            .getBlocks().get(0));
+                                    super.addPage(page);
+                                }
+                            };
+                        }
+                    };
+                } catch (FOPException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        StringBuilder fo = new StringBuilder();
+        fo.append("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+                + "<fo:layout-master-set><fo:simple-page-master master-name=\"page\""
+                + " page-height=\"100pt\" page-width=\"200pt\"><fo:region-body margin=\"20pt 0pt\"/>"
+                + "<fo:region-before extent=\"20pt\"/><fo:region-after extent=\"20pt\"/>"
+                + "</fo:simple-page-master></fo:layout-master-set>"
+                + "<fo:page-sequence master-reference=\"page\">"
+                + "<fo:static-content flow-name=\"xsl-region-before\"><fo:block>Header "
+                + "<fo:inline font-weight=\"bold\">text</fo:inline></fo:block></fo:static-content>"
+                + "<fo:static-content flow-name=\"xsl-region-after\"><fo:block>Page "
+                + "<fo:page-number/></fo:block></fo:static-content>"
+                + "<fo:flow flow-name=\"xsl-region-body\">");
+        for (int i = 0; i < 20; i++) {
+            fo.append("<fo:block>Paragraph ").append(i).append("</fo:block>");
+        }
+        fo.append("</fo:flow></fo:page-sequence></fo:root>");
+        parser.parse(new ByteArrayInputStream(fo.toString().getBytes("UTF-8")));
+
+        assertTrue(headers.size() > 2);
+        for (int i = 1; i < headers.size(); i++) {
+            // the header is shared by all the pages, the footer depends on the page number
+            assertSame(headers.get(0), headers.get(i));
+            assertNotSame(footers.get(i - 1), footers.get(i));
+        }
+    }
 }
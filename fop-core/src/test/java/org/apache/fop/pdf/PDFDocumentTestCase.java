@@ -19,12 +19,20 @@
 
 package org.apache.fop.pdf;
 
+import java.awt.geom.Rectangle2D;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.zip.Deflater;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Test case for {@link PDFDocument}
@@ -59,4 +67,98 @@ public class PDFDocumentTestCase {
         PDFDocument.flushTextBuffer(textBuffer, out);
         assertEquals(fullString, out.toString());
     }
+
+    @Test
+    public void testStreamingReleasesWrittenPages() throws IOException {
+        PDFDocument doc = new PDFDocument("");
+        doc.setFilterMap(Collections.singletonMap(PDFFilterList.DEFAULT_FILTER,
+                Collections.singletonList("null")));
+        doc.setStreamingEnabled(true);
+        assertTrue(doc.isStreamingEnabled());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        doc.outputHeader(out);
+        for (int i = 0; i < 3; i++) {
+            PDFStream contents = new PDFStream();
+            contents.add("0 0 m 100 100 l S\n");
+            doc.registerObject(contents);
+            PDFPage page = doc.getFactory().makePage(doc.getResources(), 100, 100, i);
+            page.setContents(new PDFReference(contents));
+            doc.addObject(page);
+            doc.output(out);
+            assertEquals(0, contents.getDataLength());
+        }
+        assertTrue(doc.pageObjs.isEmpty());
+        assertEquals(3, doc.getPages().getCount());
+        doc.outputTrailer(out);
+        String pdf = out.toString("ISO-8859-1");
+        assertTrue(pdf.contains("/Count 3"));
+        assertTrue(pdf.contains("0 0 m 100 100 l S"));
+    }
+
+    @Test
+    public void testStreamingKeepsLinkLookup() throws IOException {
+        PDFDocument doc = new PDFDocument("");
+        doc.setStreamingEnabled(true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        doc.outputHeader(out);
+        Rectangle2D rect = new Rectangle2D.Float(10, 10, 50, 20);
+        PDFLink link = doc.getFactory().makeLink(rect, "http://xmlgraphics.apache.org/", PDFLink.EXTERNAL, 0);
+        doc.output(out);
+        PDFLink same = doc.getFactory().makeLink(rect, "http://xmlgraphics.apache.org/", PDFLink.EXTERNAL, 0);
+        assertEquals(link.referencePDF(), same.referencePDF());
+        PDFLink other = doc.getFactory().makeLink(new Rectangle2D.Float(0, 0, 5, 5),
+                "http://xmlgraphics.apache.org/", PDFLink.EXTERNAL, 0);
+        assertFalse(link.referencePDF().equals(other.referencePDF()));
+    }
+
+    @Test
+    public void testLinearizationDisablesStreaming() {
+        PDFDocument doc = new PDFDocument("");
+        doc.setStreamingEnabled(true);
+        doc.setLinearizationEnabled(true);
+        assertFalse(doc.isStreamingEnabled());
+    }
+
+    @Test
+    public void testConcurrentCompressionProducesSameOutput() throws IOException {
+        byte[] sequential = writeObjects(1, null);
+        byte[] concurrent = writeObjects(4, null);
+        assertArrayEquals(sequential, concurrent);
+    }
+
+    @Test
+    public void testFlateSettingsPerStreamType() throws IOException {
+        int compressed = writeObjects(1, null).length;
+        Map<String, FlateSettings> settings = Collections.singletonMap(PDFFilterList.CONTENT_FILTER,
+                new FlateSettings(Deflater.NO_COMPRESSION, Deflater.DEFAULT_STRATEGY));
+        int stored = writeObjects(4, settings).length;
+        assertTrue(stored > compressed);
+    }
+
+    private byte[] writeObjects(int compressionThreads, Map<String, FlateSettings> flateSettings)
+            throws IOException {
+        PDFDocument doc = new PDFDocument("");
+        doc.getInfo().setCreationDate(new Date(0));
+        doc.setCompressionThreads(compressionThreads);
+        if (flateSettings != null) {
+            doc.setFlateSettings(flateSettings);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        doc.outputHeader(out);
+        for (int i = 0; i < 5; i++) {
+            PDFStream contents = doc.getFactory().makeStream(PDFFilterList.CONTENT_FILTER, true);
+            for (int j = 0; j < 200; j++) {
+                contents.add("0 0 m " + j + " " + i + " l S\n");
+            }
+            PDFPage page = doc.getFactory().makePage(doc.getResources(), 100, 100, i);
+            page.setContents(new PDFReference(contents));
+            doc.addObject(page);
+        }
+        try {
+            doc.output(out);
+        } finally {
+            doc.close();
+        }
+        return out.toByteArray();
+    }
 }
@@ -25,6 +25,7 @@ import java.io.IOException;
 import java.net.URI;
 
 import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -36,6 +37,9 @@ import org.apache.fop.fonts.CIDSet;
 import org.apache.fop.fonts.CIDSubset;
 import org.apache.fop.fonts.CustomFont;
 import org.apache.fop.fonts.EmbeddingMode;
+import org.apache.fop.fonts.EncodingMode;
+import org.apache.fop.fonts.FontLoader;
+import org.apache.fop.fonts.FontSubsetCache;
 import org.apache.fop.fonts.FontUris;
 import org.apache.fop.fonts.MultiByteFont;
 import org.apache.fop.fonts.truetype.OFFontLoader;
@@ -113,4 +117,42 @@ public class PDFFactoryTestCase {
         assertTrue(bos.toString().contains("/Subtype /Type1\n"));
         assertTrue(bos.toString().contains("/Subtype /Type1C"));
     }
+
+    private byte[] embedSubset(FontSubsetCache cache, String text) throws IOException {
+        InternalResourceResolver rr =
+                ResourceResolverFactory.createDefaultInternalResourceResolver(new File(".").toURI());
+        URI uri = new File("test/resources/fonts/ttf/DejaVuLGCSerif.ttf").toURI();
+        CustomFont font = FontLoader.loadFont(new FontUris(uri, null), null, true, EmbeddingMode.SUBSET,
+                EncodingMode.CID, false, false, rr, false, false);
+        for (char c : text.toCharArray()) {
+            font.mapChar(c);
+        }
+        PDFDocument doc = new PDFDocument("");
+        doc.setFontSubsetCache(cache);
+        AbstractPDFStream stream = new PDFFactory(doc).makeFontFile(font, "EAAAAA+");
+        doc.registerObject(stream);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        stream.output(bos);
+        return bos.toByteArray();
+    }
+
+    @Test
+    public void testFontSubsetIsSharedBetweenDocuments() throws IOException {
+        byte[] uncached = embedSubset(null, "Hello");
+        FontSubsetCache cache = new FontSubsetCache();
+        byte[] first = embedSubset(cache, "Hello");
+        // only the subset is cached, not the font file
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(0, cache.getHitCount());
+        assertTrue(cache.getSize() < new File("test/resources/fonts/ttf/DejaVuLGCSerif.ttf").length());
+        byte[] second = embedSubset(cache, "Hello");
+        assertEquals(1, cache.getHitCount());
+        assertArrayEquals(uncached, first);
+        assertArrayEquals(first, second);
+
+        // other glyphs give another subset
+        embedSubset(cache, "World");
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getEntryCount());
+    }
 }
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.apache.xmlgraphics.image.loader.ImageInfo;
+import org.apache.xmlgraphics.image.loader.impl.ImageRendered;
+
+public class ImageConversionCacheTestCase {
+
+    private static ImageRendered createImage(String uri, int width, int type) {
+        return new ImageRendered(new ImageInfo(uri, "image/png"), new BufferedImage(width, 10, type), null);
+    }
+
+    @Test
+    public void testKey() {
+        ImageRendered image = createImage("test.png", 10, BufferedImage.TYPE_INT_RGB);
+        String key = ImageConversionCache.createKey(image, "pdf", "flate");
+        assertEquals(key, ImageConversionCache.createKey(
+                createImage("test.png", 10, BufferedImage.TYPE_INT_RGB), "pdf", "flate"));
+        assertFalse(key.equals(ImageConversionCache.createKey(image, "ps", "flate")));
+        assertFalse(key.equals(ImageConversionCache.createKey(image, "pdf", "flate 9 0")));
+        // the same URI may be rendered differently
+        assertFalse(key.equals(ImageConversionCache.createKey(
+                createImage("test.png", 20, BufferedImage.TYPE_INT_RGB), "pdf", "flate")));
+        assertFalse(key.equals(ImageConversionCache.createKey(
+                createImage("test.png", 10, BufferedImage.TYPE_BYTE_GRAY), "pdf", "flate")));
+        // images without a URI aren't cached
+        assertNull(ImageConversionCache.createKey(createImage(null, 10, BufferedImage.TYPE_INT_RGB),
+                "pdf", "flate"));
+    }
+
+    @Test
+    public void testHitsAndMisses() {
+        ImageConversionCache cache = new ImageConversionCache();
+        byte[] data = new byte[100];
+        assertNull(cache.get("a"));
+        cache.put("a", data, data.length);
+        assertSame(data, cache.get("a"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(100, cache.getSize());
+
+        cache.put("a", new byte[50], 50);
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(50, cache.getSize());
+
+        cache.clear();
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreDropped() {
+        ImageConversionCache cache = new ImageConversionCache(100);
+        cache.put("a", "a", 40);
+        cache.put("b", "b", 40);
+        cache.get("a");
+        cache.put("c", "c", 40);
+        assertEquals(2, cache.getEntryCount());
+        assertEquals(80, cache.getSize());
+        assertNull(cache.get("b"));
+        assertEquals("a", cache.get("a"));
+        assertEquals("c", cache.get("c"));
+
+        // values larger than the cache are not stored
+        cache.put("d", "d", 101);
+        assertNull(cache.get("d"));
+        assertEquals(2, cache.getEntryCount());
+    }
+}
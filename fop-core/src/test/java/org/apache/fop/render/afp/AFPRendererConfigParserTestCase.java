@@ -70,6 +70,14 @@ public class AFPRendererConfigParserTestCase
         assertEquals(Float.valueOf(1f), conf.getLineWidthCorrection());
     }
 
+    @Test
+    public void testSharedResources() throws Exception {
+        parseConfig(createRenderer());
+        assertEquals(false, conf.isSharedResources());
+        parseConfig(createRenderer().setSharedResources(true));
+        assertEquals(true, conf.isSharedResources());
+    }
+
     @Test
     public void testResourceGroupUri() throws Exception {
         parseConfig(createRenderer());
@@ -142,6 +142,12 @@ public class AFPRendererConfiguratorTestCase extends
         }
     }
 
+    @Test
+    public void testSharedResources() throws Exception {
+        parseConfig(createBuilder().setSharedResources(true));
+        verify(getDocHandler()).setSharedResources(true);
+    }
+
     @Test
     public void testResourceGroupURI() throws Exception {
         URI uri = URI.create("test://URI/just/used/for/testing");
@@ -33,12 +33,14 @@ import org.apache.fop.apps.AbstractRendererConfigParserTester;
 import org.apache.fop.apps.BitmapRendererConfBuilder;
 import org.apache.fop.render.bitmap.BitmapRendererConfig.BitmapRendererConfigParser;
 
+import static org.apache.fop.render.bitmap.BitmapRendererOption.BAND_HEIGHT;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.COLOR_MODE_BILEVEL;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.COLOR_MODE_BINARY;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.COLOR_MODE_GRAY;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.COLOR_MODE_RGB;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.COLOR_MODE_RGBA;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.JAVA2D_TRANSPARENT_PAGE_BACKGROUND;
+import static org.apache.fop.render.bitmap.BitmapRendererOption.RASTERIZER_THREADS;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.RENDERING_QUALITY;
 import static org.apache.fop.render.bitmap.BitmapRendererOption.RENDERING_SPEED;
 
@@ -122,4 +124,22 @@ public class AbstractBitmapRendererConfigParserTester
         parseConfig(createRenderer());
         assertEquals(BufferedImage.TYPE_INT_ARGB, (int) conf.getColorMode());
     }
+
+    @Test
+    public void testRasterizerThreads() throws Exception {
+        parseConfig(createRenderer().setRasterizerThreads(4));
+        assertEquals(4, (int) conf.getRasterizerThreads());
+
+        parseConfig(createRenderer());
+        assertEquals(RASTERIZER_THREADS.getDefaultValue(), conf.getRasterizerThreads());
+    }
+
+    @Test
+    public void testBandHeight() throws Exception {
+        parseConfig(createRenderer().setBandHeight(256));
+        assertEquals(256, (int) conf.getBandHeight());
+
+        parseConfig(createRenderer());
+        assertEquals(BAND_HEIGHT.getDefaultValue(), conf.getBandHeight());
+    }
 }
@@ -117,4 +117,22 @@ public abstract class AbstractBitmapRendererConfiguratorTest extends
         parseConfig(createBuilder());
         assertEquals(BufferedImage.TYPE_INT_ARGB, settings.getBufferedImageType());
     }
+
+    @Test
+    public void testRasterizerThreads() throws Exception {
+        parseConfig(createBuilder().setRasterizerThreads(4));
+        assertEquals(4, settings.getRasterizerThreads());
+
+        parseConfig(createBuilder());
+        assertEquals(1, settings.getRasterizerThreads());
+    }
+
+    @Test
+    public void testBandHeight() throws Exception {
+        parseConfig(createBuilder().setBandHeight(256));
+        assertEquals(256, settings.getBandHeight());
+
+        parseConfig(createBuilder());
+        assertEquals(0, settings.getBandHeight());
+    }
 }
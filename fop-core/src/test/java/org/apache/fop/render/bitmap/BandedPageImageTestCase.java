@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.bitmap;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.apache.xmlgraphics.image.codec.tiff.TIFFImageDecoder;
+import org.apache.xmlgraphics.image.codec.util.MemoryCacheSeekableStream;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.render.intermediate.IFContext;
+
+public class BandedPageImageTestCase {
+
+    private static void paintStripes(BufferedImage image, int y) {
+        Graphics2D g2d = image.createGraphics();
+        g2d.translate(0, -y);
+        for (int i = 0; i < 100; i += 10) {
+            g2d.setColor(new Color(i * 2, 255 - i, i));
+            g2d.fillRect(i % 20, i, 30, 10);
+        }
+        g2d.dispose();
+    }
+
+    @Test
+    public void testBandsArePaintedOnDemand() {
+        BufferedImage page = new BufferedImage(40, 95, BufferedImage.TYPE_INT_RGB);
+        paintStripes(page, 0);
+
+        final List<Integer> paintedBands = new ArrayList<Integer>();
+        BandedPageImage image = new BandedPageImage(new BufferedImage(40, 16, BufferedImage.TYPE_INT_RGB),
+                95, new BandedPageImage.BandPainter() {
+            public void paintBand(BufferedImage band, int y) {
+                paintedBands.add(y);
+                paintStripes(band, y);
+            }
+        });
+        assertEquals(6, image.getNumYTiles());
+
+        // read like an encoder writing strips of 8 rows
+        for (int y = 0; y < 95; y += 8) {
+            Rectangle strip = new Rectangle(0, y, 40, Math.min(8, 95 - y));
+            Raster raster = image.getData(strip);
+            assertEquals(strip, raster.getBounds());
+            assertArrayEquals(page.getRaster().getPixels(0, y, 40, strip.height, (int[]) null),
+                    raster.getPixels(0, y, 40, strip.height, (int[]) null));
+        }
+        // every band was painted once
+        assertEquals(6, paintedBands.size());
+        assertEquals(Integer.valueOf(80), paintedBands.get(5));
+
+        Raster tile = image.getTile(0, 2);
+        assertEquals(new Rectangle(0, 32, 40, 16), tile.getBounds());
+        assertArrayEquals(page.getRaster().getPixels(0, 32, 40, 16, (int[]) null),
+                tile.getPixels(0, 32, 40, 16, (int[]) null));
+    }
+
+    private static TIFFImageDecoder render(String fo, int bandHeight) throws Exception {
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+        FOUserAgent ua = fopFactory.newFOUserAgent();
+        TIFFDocumentHandler handler = new TIFFDocumentHandler(new IFContext(ua));
+        handler.getSettings().setBandHeight(bandHeight);
+        ua.setDocumentHandlerOverride(handler);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_TIFF, ua, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new StreamSource(new StringReader(fo)), new SAXResult(fop.getDefaultHandler()));
+        return new TIFFImageDecoder(new MemoryCacheSeekableStream(
+                new ByteArrayInputStream(out.toByteArray())), null);
+    }
+
+    private static int[] getPixels(RenderedImage image) {
+        return image.getData().getPixels(0, 0, image.getWidth(), image.getHeight(), (int[]) null);
+    }
+
+    @Test
+    public void testBandedPagesAreIdenticalToWholePages() throws Exception {
+        String fo = "<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+                + "<fo:layout-master-set><fo:simple-page-master master-name=\"page\""
+                + " page-width=\"3in\" page-height=\"4in\" margin=\"0.2in\"><fo:region-body/>"
+                + "</fo:simple-page-master></fo:layout-master-set>"
+                + "<fo:page-sequence master-reference=\"page\"><fo:flow flow-name=\"xsl-region-body\">"
+                + "<fo:block border=\"1pt solid red\" background-color=\"yellow\" space-after=\"1in\">"
+                + "A page rasterized band by band, with text crossing the bands.</fo:block>"
+                + "<fo:block font-size=\"40pt\">Banded</fo:block>"
+                + "<fo:block break-before=\"page\">Second page</fo:block>"
+                + "</fo:flow></fo:page-sequence></fo:root>";
+        TIFFImageDecoder wholePages = render(fo, 0);
+        TIFFImageDecoder bandedPages = render(fo, 37);
+        // the strips of the TIFF files may differ, not the pixels
+        assertEquals(2, wholePages.getNumPages());
+        assertEquals(2, bandedPages.getNumPages());
+        for (int i = 0; i < 2; i++) {
+            assertArrayEquals(getPixels(wholePages.decodeAsRenderedImage(i)),
+                    getPixels(bandedPages.decodeAsRenderedImage(i)));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.bitmap;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.fonts.FontInfo;
+import org.apache.fop.render.intermediate.IFException;
+
+public class ParallelPageRasterizerTestCase {
+
+    private static final ParallelPageRasterizer.PageWriter NO_WRITER
+            = new ParallelPageRasterizer.PageWriter() {
+        public void writePage(BufferedImage image) throws IFException {
+        }
+    };
+
+    @Test
+    public void testAbortDropsQueuedPages() throws Exception {
+        ParallelPageRasterizer rasterizer = new ParallelPageRasterizer(new FontInfo[] {new FontInfo()});
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final AtomicInteger rasterizedPages = new AtomicInteger();
+        rasterizer.addPage(new ParallelPageRasterizer.Task() {
+            public BufferedImage rasterize(FontInfo fontInfo) throws IFException {
+                started.countDown();
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return null;
+            }
+        }, NO_WRITER);
+        rasterizer.addPage(new ParallelPageRasterizer.Task() {
+            public BufferedImage rasterize(FontInfo fontInfo) throws IFException {
+                rasterizedPages.incrementAndGet();
+                return null;
+            }
+        }, NO_WRITER);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        rasterizer.abort();
+        // the page being rasterized is interrupted and the queued one is never started
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(0, rasterizedPages.get());
+    }
+}
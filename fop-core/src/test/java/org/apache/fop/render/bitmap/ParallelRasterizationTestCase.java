@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.bitmap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.render.intermediate.IFContext;
+
+/**
+ * Tests that rasterizing the pages on several threads produces the same bitmaps.
+ */
+public class ParallelRasterizationTestCase {
+
+    private final FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+
+    private static String createDocument(int pageCount) {
+        StringBuilder fo = new StringBuilder();
+        fo.append("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+                + "<fo:layout-master-set><fo:simple-page-master master-name=\"page\""
+                + " page-width=\"3in\" page-height=\"2in\" margin=\"0.2in\"><fo:region-body/>"
+                + "</fo:simple-page-master></fo:layout-master-set>"
+                + "<fo:page-sequence master-reference=\"page\"><fo:flow flow-name=\"xsl-region-body\">");
+        for (int i = 0; i < pageCount; i++) {
+            fo.append("<fo:block break-before=\"page\" border=\"1pt solid red\" text-align=\"justify\">"
+                    + "Page ").append(i + 1).append(" of a document rasterized on several threads, "
+                    + "with enough text to be justified.</fo:block>");
+        }
+        fo.append("</fo:flow></fo:page-sequence></fo:root>");
+        return fo.toString();
+    }
+
+    private byte[] render(String fo, int threads) throws Exception {
+        FOUserAgent ua = fopFactory.newFOUserAgent();
+        TIFFDocumentHandler handler = new TIFFDocumentHandler(new IFContext(ua));
+        handler.getSettings().setRasterizerThreads(threads);
+        ua.setDocumentHandlerOverride(handler);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_TIFF, ua, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new StreamSource(new StringReader(fo)), new SAXResult(fop.getDefaultHandler()));
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testPagesAreIdenticalToSerialRasterization() throws Exception {
+        String fo = createDocument(8);
+        byte[] serial = render(fo, 1);
+        byte[] parallel = render(fo, 3);
+        assertTrue(serial.length > 0);
+        assertArrayEquals(serial, parallel);
+    }
+}
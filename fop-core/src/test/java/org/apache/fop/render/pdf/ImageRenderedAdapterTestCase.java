@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.pdf;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.xmlgraphics.image.loader.ImageInfo;
+import org.apache.xmlgraphics.image.loader.ImageSize;
+import org.apache.xmlgraphics.image.loader.impl.ImageRendered;
+
+import org.apache.fop.pdf.PDFDocument;
+import org.apache.fop.pdf.PDFImageXObject;
+import org.apache.fop.render.ImageConversionCache;
+
+public class ImageRenderedAdapterTestCase {
+
+    private static ImageRendered createImage() {
+        BufferedImage bi = new BufferedImage(50, 50, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < 50; y++) {
+            for (int x = 0; x < 50; x++) {
+                bi.setRGB(x, y, (x * 5) << 24 | (y * 5) << 16 | x * y);
+            }
+        }
+        ImageInfo info = new ImageInfo("test.png", "image/png");
+        info.setSize(new ImageSize(50, 50, 72));
+        return new ImageRendered(info, bi, null);
+    }
+
+    private static String addImage(ImageConversionCache cache) throws IOException {
+        PDFDocument doc = new PDFDocument("test");
+        PDFImageXObject xobject = doc.addImage(null, new ImageRenderedAdapter(createImage(), "img", cache));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        xobject.output(out);
+        return out.toString("ISO-8859-1");
+    }
+
+    @Test
+    public void testCompressedDataIsSharedBetweenDocuments() throws IOException {
+        String uncached = addImage(null);
+        ImageConversionCache cache = new ImageConversionCache();
+        String first = addImage(cache);
+        // the image and its soft mask
+        assertEquals(2, cache.getEntryCount());
+        assertEquals(0, cache.getHitCount());
+        String second = addImage(cache);
+        assertEquals(2, cache.getHitCount());
+        assertEquals(uncached, first);
+        assertEquals(first, second);
+        assertTrue(first.contains("/Filter /FlateDecode"));
+    }
+}
@@ -18,7 +18,10 @@
 /* $Id$ */
 package org.apache.fop.render.pdf;
 
+import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.OutputStream;
@@ -35,6 +38,7 @@ import org.apache.fop.apps.FopFactory;
 import org.apache.fop.fonts.FontInfo;
 import org.apache.fop.render.intermediate.IFContext;
 import org.apache.fop.render.intermediate.IFException;
+import org.apache.fop.render.intermediate.IFPainter;
 
 public class PDFDocumentHandlerTestCase {
     @Test
@@ -68,4 +72,67 @@ public class PDFDocumentHandlerTestCase {
         d.getGenerator().add(command);
         d.endPage();
     }
+
+    @Test
+    public void testRepeatedRegionsShareAFormXObject() throws IFException {
+        FOUserAgent userAgent = FopFactory.newInstance(new File(".").toURI()).newFOUserAgent();
+        PDFDocumentHandler d = new PDFDocumentHandler(new IFContext(userAgent));
+        d.setFontInfo(new FontInfo());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        d.setResult(new StreamResult(out));
+        d.startDocument();
+
+        addPageWithRegion(d, 0, Color.red);
+        addPageWithRegion(d, 1, Color.red);
+        addPageWithRegion(d, 2, Color.red);
+        addPageWithRegion(d, 3, Color.blue);
+        d.endDocument();
+
+        String pdf = out.toString();
+        List<String> contents = new ArrayList<String>();
+        int forms = 0;
+        for (String line : pdf.split("\n")) {
+            if (line.trim().startsWith("/Contents")) {
+                contents.add(line);
+            } else if (line.contains("/Subtype /Form")) {
+                forms++;
+            }
+        }
+        // the first page has the region inline, the following ones draw the same Form XObject
+        Assert.assertEquals(1, forms);
+        Assert.assertEquals(4, contents.size());
+        Assert.assertFalse(contents.get(0).equals(contents.get(1)));
+        Assert.assertEquals(contents.get(1), contents.get(2));
+        Assert.assertFalse(contents.get(2).equals(contents.get(3)));
+    }
+
+    @Test
+    public void testSharedContentCanBeDisabled() throws IFException {
+        FOUserAgent userAgent = FopFactory.newInstance(new File(".").toURI()).newFOUserAgent();
+        userAgent.getRendererOptions().put(PDFRendererOption.SHARED_CONTENT.getName(), Boolean.FALSE);
+        PDFDocumentHandler d = new PDFDocumentHandler(new IFContext(userAgent));
+        d.setFontInfo(new FontInfo());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        d.setResult(new StreamResult(out));
+        d.startDocument();
+        Assert.assertNull(d.getSharedContentHandler());
+
+        addPageWithRegion(d, 0, Color.red);
+        addPageWithRegion(d, 1, Color.red);
+        d.endDocument();
+
+        Assert.assertFalse(out.toString().contains("/Subtype /Form"));
+    }
+
+    private void addPageWithRegion(PDFDocumentHandler d, int i, Color color) throws IFException {
+        d.startPage(i, "", "", new Dimension(200000, 100000));
+        IFPainter painter = d.startPageContent();
+        painter.startViewport(new AffineTransform(), new Dimension(200000, 20000), null);
+        for (int x = 0; x < 20; x++) {
+            painter.fillRect(new Rectangle(x * 10000, 0, 5000, 20000), color);
+        }
+        painter.endViewport();
+        d.endPageContent();
+        d.endPage();
+    }
 }
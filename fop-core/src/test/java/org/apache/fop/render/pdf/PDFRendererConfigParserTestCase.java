@@ -19,6 +19,9 @@
 
 package org.apache.fop.render.pdf;
 
+import java.util.Map;
+import java.util.zip.Deflater;
+
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -27,6 +30,7 @@ import static org.junit.Assert.assertTrue;
 
 import org.apache.fop.apps.AbstractRendererConfigParserTester;
 import org.apache.fop.apps.PDFRendererConfBuilder;
+import org.apache.fop.pdf.FlateSettings;
 import org.apache.fop.pdf.PDFAMode;
 import org.apache.fop.pdf.PDFXMode;
 import org.apache.fop.pdf.Version;
@@ -124,6 +128,22 @@ public class PDFRendererConfigParserTestCase
         assertEquals("ascii-85", conf.getConfigOptions().getFilterMap().get("image").get(1));
     }
 
+    @Test
+    public void testFlateSettings() throws Exception {
+        parseConfig(createRenderer()
+                .createFlateSettings(null, 6, null)
+                .createFlateSettings("image", 1, "filtered"));
+        Map<String, FlateSettings> settings = conf.getConfigOptions().getFlateSettings();
+        assertEquals(new FlateSettings(6, Deflater.DEFAULT_STRATEGY), settings.get("default"));
+        assertEquals(new FlateSettings(1, Deflater.FILTERED), settings.get("image"));
+    }
+
+    @Test
+    public void testCompressionThreads() throws Exception {
+        parseConfig(createRenderer().setCompressionThreads(4));
+        assertEquals(Integer.valueOf(4), conf.getConfigOptions().getCompressionThreads());
+    }
+
     @Test
     public void testPDFAMode() throws Exception {
         parseConfig(createRenderer().setPDFAMode(PDFAMode.PDFA_1A.getName()));
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.ps;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.apache.commons.io.IOUtils;
+
+import org.apache.xmlgraphics.image.loader.ImageInfo;
+import org.apache.xmlgraphics.image.loader.impl.ImageRendered;
+import org.apache.xmlgraphics.ps.ImageEncoder;
+import org.apache.xmlgraphics.ps.PSGenerator;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.fonts.FontInfo;
+
+public class CachedImageEncoderTestCase {
+
+    private final ImageRendered image = new ImageRendered(new ImageInfo("test.png", "image/png"),
+            new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB), null);
+
+    private PSRenderingContext createContext(FOUserAgent userAgent, int level) {
+        PSGenerator gen = new PSGenerator(new ByteArrayOutputStream());
+        gen.setPSLevel(level);
+        return new PSRenderingContext(userAgent, gen, new FontInfo());
+    }
+
+    private static final class CountingEncoder implements ImageEncoder {
+
+        private final byte[] data;
+
+        private final String implicitFilter;
+
+        private int count;
+
+        CountingEncoder(byte[] data, String implicitFilter) {
+            this.data = data;
+            this.implicitFilter = implicitFilter;
+        }
+
+        public void writeTo(OutputStream out) throws IOException {
+            count++;
+            out.write(data);
+        }
+
+        public String getImplicitFilter() {
+            return implicitFilter;
+        }
+    }
+
+    @Test
+    public void testDataIsEncodedOnce() throws IOException {
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        byte[] data = "some image data".getBytes("US-ASCII");
+        CountingEncoder encoder = new CountingEncoder(data, "/FlateDecode");
+        ImageEncoder cached = CachedImageEncoder.getInstance(createContext(userAgent, 3), image, "ps",
+                encoder);
+        // another document with the same factory
+        FOUserAgent otherUserAgent = fopFactory.newFOUserAgent();
+        assertSame(cached, CachedImageEncoder.getInstance(createContext(otherUserAgent, 3), image,
+                "ps", new CountingEncoder(data, "/FlateDecode")));
+        assertEquals(1, encoder.count);
+
+        assertEquals("/FlateDecode", cached.getImplicitFilter());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cached.writeTo(out);
+        assertArrayEquals(data, out.toByteArray());
+    }
+
+    @Test
+    public void testDataIsCompressedFromLevel3() throws IOException {
+        FOUserAgent userAgent = FopFactory.newInstance(new File(".").toURI()).newFOUserAgent();
+        byte[] data = new byte[1000];
+        ImageEncoder cached = CachedImageEncoder.getInstance(createContext(userAgent, 3), image, "ps",
+                new CountingEncoder(data, null));
+        assertEquals("/FlateDecode", cached.getImplicitFilter());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cached.writeTo(out);
+        assertArrayEquals(data, IOUtils.toByteArray(
+                new InflaterInputStream(new ByteArrayInputStream(out.toByteArray()))));
+
+        // level 2 has no FlateDecode filter
+        cached = CachedImageEncoder.getInstance(createContext(userAgent, 2), image, "ps",
+                new CountingEncoder(data, null));
+        assertNull(cached.getImplicitFilter());
+        out.reset();
+        cached.writeTo(out);
+        assertArrayEquals(data, out.toByteArray());
+    }
+}
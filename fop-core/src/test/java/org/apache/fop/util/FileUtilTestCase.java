@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.util;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.apache.commons.io.FileUtils;
+
+public class FileUtilTestCase {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = File.createTempFile("fop-fileutil", "");
+        dir.delete();
+        dir.mkdir();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    private File createFile(String name, String content) throws IOException {
+        File file = new File(dir, name);
+        FileUtils.writeStringToFile(file, content, "US-ASCII");
+        return file;
+    }
+
+    @Test
+    public void testReplaceExistingFile() throws IOException {
+        File source = createFile("source", "new");
+        File target = createFile("target", "old");
+        FileUtil.replace(source, target);
+        assertFalse(source.exists());
+        assertEquals("new", FileUtils.readFileToString(target, "US-ASCII"));
+    }
+
+    @Test
+    public void testReplaceMissingFile() throws IOException {
+        File source = createFile("source", "new");
+        File target = new File(dir, "target");
+        FileUtil.replace(source, target);
+        assertFalse(source.exists());
+        assertEquals("new", FileUtils.readFileToString(target, "US-ASCII"));
+    }
+}